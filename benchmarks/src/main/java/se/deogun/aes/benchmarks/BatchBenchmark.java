@@ -0,0 +1,64 @@
+package se.deogun.aes.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import se.deogun.aes.AESFactory;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.AES;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static se.deogun.aes.benchmarks.Payloads.randomBytes;
+import static se.deogun.aes.benchmarks.Payloads.secret;
+
+/**
+ * Compares encrypting many small records one by one with a single batch operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+    @Param({"1000"})
+    public int records;
+
+    @Param({"200"})
+    public int recordSize;
+
+    private AES gcm;
+    private List<byte[]> payloads;
+    private List<AAD> aads;
+
+    @Setup
+    public void setup() {
+        gcm = AESFactory.aesGCM(secret());
+        payloads = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            payloads.add(randomBytes(recordSize));
+        }
+        aads = Collections.nCopies(records, new AAD("benchmark"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        gcm.close();
+    }
+
+    @Benchmark
+    public Object encryptOneByOne() {
+        Object last = null;
+        for (int i = 0; i < records; i++) {
+            last = gcm.encrypt(payloads.get(i), aads.get(i));
+        }
+        return last;
+    }
+
+    @Benchmark
+    public Object encryptAll() {
+        return gcm.encryptAll(payloads, aads);
+    }
+}
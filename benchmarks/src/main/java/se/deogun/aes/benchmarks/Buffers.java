@@ -0,0 +1,26 @@
+package se.deogun.aes.benchmarks;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Direct destination buffers of a thread, sized for the payload of the benchmark. Both have room
+ * for the IV, tag and padding of every mode.
+ */
+@State(Scope.Thread)
+public class Buffers {
+    private static final int MAX_OVERHEAD_NUMBER_OF_BYTES = 64;
+    ByteBuffer encrypted;
+    ByteBuffer decrypted;
+
+    @Setup
+    public void setup(final BenchmarkParams params) {
+        final var payloadSize = Integer.parseInt(params.getParam("payloadSize"));
+        encrypted = ByteBuffer.allocateDirect(payloadSize + MAX_OVERHEAD_NUMBER_OF_BYTES);
+        decrypted = ByteBuffer.allocateDirect(payloadSize + MAX_OVERHEAD_NUMBER_OF_BYTES);
+    }
+}
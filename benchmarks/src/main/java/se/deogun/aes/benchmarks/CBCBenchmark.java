@@ -0,0 +1,123 @@
+package se.deogun.aes.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import se.deogun.aes.AESFactory;
+import se.deogun.aes.api.AES;
+import se.deogun.aes.api.DecryptBufferSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static java.io.OutputStream.nullOutputStream;
+import static se.deogun.aes.benchmarks.Payloads.directBuffer;
+import static se.deogun.aes.benchmarks.Payloads.randomBytes;
+import static se.deogun.aes.benchmarks.Payloads.secret;
+
+/**
+ * Encrypt and decrypt of CBC over the byte array, direct buffer and stream entry points. CBC does not
+ * support AAD. Buffers are encrypted and decrypted into direct buffers of the thread.
+ * Run with {@code -prof gc} (the default of {@link Benchmarks}) to report the allocation rate.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public abstract class CBCBenchmark {
+    @Param({"64", "1024", "16384", "1048576", "67108864"})
+    public int payloadSize;
+
+    @Param({"_8KB_DECRYPT_BUFFER_SIZE", "_16KB_DECRYPT_BUFFER_SIZE", "_32KB_DECRYPT_BUFFER_SIZE",
+            "_64KB_DECRYPT_BUFFER_SIZE", "_128KB_DECRYPT_BUFFER_SIZE", "_256KB_DECRYPT_BUFFER_SIZE",
+            "_512KB_DECRYPT_BUFFER_SIZE", "_1024KB_DECRYPT_BUFFER_SIZE"})
+    public DecryptBufferSize decryptBufferSize;
+
+    private AES cbc;
+    private byte[] payload;
+    private byte[] encrypted;
+    private byte[] encryptedStream;
+    private ByteBuffer payloadBuffer;
+    private ByteBuffer encryptedBuffer;
+
+    @Setup
+    public void setup() {
+        cbc = AESFactory.aesCBC(secret(), decryptBufferSize);
+        payload = randomBytes(payloadSize);
+        encrypted = cbc.encrypt(payload).liftAccept();
+
+        final var outputStream = new ByteArrayOutputStream(cbc.maxEncryptedSize(payloadSize));
+        cbc.encrypt(new ByteArrayInputStream(payload), outputStream).liftAccept();
+        encryptedStream = outputStream.toByteArray();
+        payloadBuffer = directBuffer(payload);
+        encryptedBuffer = directBuffer(encrypted);
+        cbc.decrypt(encryptedBuffer.duplicate(), ByteBuffer.allocateDirect(encrypted.length)).liftAccept();
+    }
+
+    @TearDown
+    public void tearDown() {
+        cbc.close();
+    }
+
+    @Benchmark
+    public Object encrypt() {
+        return cbc.encrypt(payload);
+    }
+
+    @Benchmark
+    public Object decrypt() {
+        return cbc.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public Object encryptStream() {
+        return cbc.encrypt(new ByteArrayInputStream(payload), nullOutputStream());
+    }
+
+    @Benchmark
+    public Object decryptStream() {
+        return cbc.decrypt(new ByteArrayInputStream(encryptedStream), nullOutputStream());
+    }
+
+    @Benchmark
+    public Object decryptInputStream() {
+        return cbc.decrypt(new ByteArrayInputStream(encrypted));
+    }
+
+    @Benchmark
+    public Object encryptBuffer(final Buffers buffers) {
+        return cbc.encrypt(payloadBuffer.duplicate(), buffers.encrypted.clear());
+    }
+
+    @Benchmark
+    public Object decryptBuffer(final Buffers buffers) {
+        return cbc.decrypt(encryptedBuffer.duplicate(), buffers.decrypted.clear());
+    }
+
+    @Benchmark
+    public Object encryptingStream() throws IOException {
+        final var result = cbc.encryptingStream(nullOutputStream());
+        try (var outputStream = result.liftAccept()) {
+            outputStream.write(payload);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long decryptingStream() throws IOException {
+        try (var decrypting = cbc.decryptingStream(new ByteArrayInputStream(encryptedStream)).liftAccept()) {
+            return decrypting.transferTo(nullOutputStream());
+        }
+    }
+
+    @Threads(1)
+    public static class SingleThreaded extends CBCBenchmark {
+    }
+
+    @Threads(4)
+    public static class MultiThreaded extends CBCBenchmark {
+    }
+}
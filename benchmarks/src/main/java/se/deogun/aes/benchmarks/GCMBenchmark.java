@@ -0,0 +1,141 @@
+package se.deogun.aes.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import se.deogun.aes.AESFactory;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.AES;
+import se.deogun.aes.api.DecryptBufferSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static java.io.OutputStream.nullOutputStream;
+import static se.deogun.aes.benchmarks.Payloads.directBuffer;
+import static se.deogun.aes.benchmarks.Payloads.randomBytes;
+import static se.deogun.aes.benchmarks.Payloads.secret;
+
+/**
+ * Encrypt and decrypt of GCM over the byte array, direct buffer and stream entry points, with and
+ * without AAD. Buffers are encrypted and decrypted into direct buffers of the thread.
+ * Run with {@code -prof gc} (the default of {@link Benchmarks}) to report the allocation rate.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public abstract class GCMBenchmark {
+    @Param({"64", "1024", "16384", "1048576", "67108864"})
+    public int payloadSize;
+
+    @Param({"_8KB_DECRYPT_BUFFER_SIZE", "_16KB_DECRYPT_BUFFER_SIZE", "_32KB_DECRYPT_BUFFER_SIZE",
+            "_64KB_DECRYPT_BUFFER_SIZE", "_128KB_DECRYPT_BUFFER_SIZE", "_256KB_DECRYPT_BUFFER_SIZE",
+            "_512KB_DECRYPT_BUFFER_SIZE", "_1024KB_DECRYPT_BUFFER_SIZE"})
+    public DecryptBufferSize decryptBufferSize;
+
+    @Param({"true", "false"})
+    public boolean withAAD;
+
+    private AES gcm;
+    private AAD aad;
+    private byte[] payload;
+    private byte[] encrypted;
+    private byte[] encryptedStream;
+    private ByteBuffer payloadBuffer;
+    private ByteBuffer encryptedBuffer;
+
+    @Setup
+    public void setup() {
+        gcm = AESFactory.aesGCM(secret(), decryptBufferSize);
+        aad = withAAD ? new AAD("benchmark") : null;
+        payload = randomBytes(payloadSize);
+        encrypted = (withAAD ? gcm.encrypt(payload, aad) : gcm.encrypt(payload)).liftAccept();
+
+        final var outputStream = new ByteArrayOutputStream(gcm.maxEncryptedSize(payloadSize));
+        (withAAD ? gcm.encrypt(new ByteArrayInputStream(payload), outputStream, aad)
+                : gcm.encrypt(new ByteArrayInputStream(payload), outputStream)).liftAccept();
+        encryptedStream = outputStream.toByteArray();
+        payloadBuffer = directBuffer(payload);
+        encryptedBuffer = directBuffer(encrypted);
+        final var decrypted = ByteBuffer.allocateDirect(encrypted.length);
+        (withAAD ? gcm.decrypt(encryptedBuffer.duplicate(), decrypted, aad)
+                : gcm.decrypt(encryptedBuffer.duplicate(), decrypted)).liftAccept();
+    }
+
+    @TearDown
+    public void tearDown() {
+        gcm.close();
+    }
+
+    @Benchmark
+    public Object encrypt() {
+        return withAAD ? gcm.encrypt(payload, aad) : gcm.encrypt(payload);
+    }
+
+    @Benchmark
+    public Object decrypt() {
+        return withAAD ? gcm.decrypt(encrypted, aad) : gcm.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public Object encryptStream() {
+        final var inputStream = new ByteArrayInputStream(payload);
+        return withAAD ? gcm.encrypt(inputStream, nullOutputStream(), aad) : gcm.encrypt(inputStream, nullOutputStream());
+    }
+
+    @Benchmark
+    public Object decryptStream() {
+        final var inputStream = new ByteArrayInputStream(encryptedStream);
+        return withAAD ? gcm.decrypt(inputStream, nullOutputStream(), aad) : gcm.decrypt(inputStream, nullOutputStream());
+    }
+
+    @Benchmark
+    public Object decryptInputStream() {
+        final var inputStream = new ByteArrayInputStream(encrypted);
+        return withAAD ? gcm.decrypt(inputStream, aad) : gcm.decrypt(inputStream);
+    }
+
+    @Benchmark
+    public Object encryptBuffer(final Buffers buffers) {
+        final var plainText = payloadBuffer.duplicate();
+        final var destination = buffers.encrypted.clear();
+        return withAAD ? gcm.encrypt(plainText, destination, aad) : gcm.encrypt(plainText, destination);
+    }
+
+    @Benchmark
+    public Object decryptBuffer(final Buffers buffers) {
+        final var encryptedData = encryptedBuffer.duplicate();
+        final var destination = buffers.decrypted.clear();
+        return withAAD ? gcm.decrypt(encryptedData, destination, aad) : gcm.decrypt(encryptedData, destination);
+    }
+
+    @Benchmark
+    public Object encryptingStream() throws IOException {
+        final var result = withAAD ? gcm.encryptingStream(nullOutputStream(), aad) : gcm.encryptingStream(nullOutputStream());
+        try (var outputStream = result.liftAccept()) {
+            outputStream.write(payload);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long decryptingStream() throws IOException {
+        final var inputStream = new ByteArrayInputStream(encryptedStream);
+        final var result = withAAD ? gcm.decryptingStream(inputStream, aad) : gcm.decryptingStream(inputStream);
+        try (var decrypting = result.liftAccept()) {
+            return decrypting.transferTo(nullOutputStream());
+        }
+    }
+
+    @Threads(1)
+    public static class SingleThreaded extends GCMBenchmark {
+    }
+
+    @Threads(4)
+    public static class MultiThreaded extends GCMBenchmark {
+    }
+}
@@ -0,0 +1,77 @@
+package se.deogun.aes.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import se.deogun.aes.AESFactory;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.AES;
+
+import java.util.concurrent.TimeUnit;
+
+import static se.deogun.aes.benchmarks.Payloads.randomBytes;
+import static se.deogun.aes.benchmarks.Payloads.secret;
+
+/**
+ * Compares GCM-SIV with GCM, i.e. the cost of nonce misuse resistance, over the byte array entry points.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public abstract class GCMSIVBenchmark {
+    @Param({"64", "1024", "16384", "1048576", "67108864"})
+    public int payloadSize;
+
+    private AES gcm;
+    private AES gcmSIV;
+    private AAD aad;
+    private byte[] payload;
+    private byte[] encrypted;
+    private byte[] encryptedSIV;
+
+    @Setup
+    public void setup() {
+        final var secret = secret();
+        gcm = AESFactory.aesGCM(secret);
+        gcmSIV = AESFactory.aesGCMSIV(secret);
+        aad = new AAD("benchmark");
+        payload = randomBytes(payloadSize);
+        encrypted = gcm.encrypt(payload, aad).liftAccept();
+        encryptedSIV = gcmSIV.encrypt(payload, aad).liftAccept();
+    }
+
+    @TearDown
+    public void tearDown() {
+        gcm.close();
+        gcmSIV.close();
+    }
+
+    @Benchmark
+    public Object encryptGCM() {
+        return gcm.encrypt(payload, aad);
+    }
+
+    @Benchmark
+    public Object decryptGCM() {
+        return gcm.decrypt(encrypted, aad);
+    }
+
+    @Benchmark
+    public Object encryptGCMSIV() {
+        return gcmSIV.encrypt(payload, aad);
+    }
+
+    @Benchmark
+    public Object decryptGCMSIV() {
+        return gcmSIV.decrypt(encryptedSIV, aad);
+    }
+
+    @Threads(1)
+    public static class SingleThreaded extends GCMSIVBenchmark {
+    }
+
+    @Threads(4)
+    public static class MultiThreaded extends GCMSIVBenchmark {
+    }
+}
@@ -0,0 +1,57 @@
+package se.deogun.aes.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import se.deogun.aes.AESFactory;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.AES;
+import se.deogun.aes.api.InitVectorSource;
+
+import java.util.concurrent.TimeUnit;
+
+import static se.deogun.aes.api.DecryptBufferSize._16KB_DECRYPT_BUFFER_SIZE;
+import static se.deogun.aes.benchmarks.Payloads.randomBytes;
+import static se.deogun.aes.benchmarks.Payloads.secret;
+
+/**
+ * Compares encrypt latency for every initialization vector source. STRONG_SECURE_RANDOM
+ * is the behaviour prior to configurable sources. Sample time mode reports the p99.
+ */
+@BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InitVectorSourceBenchmark {
+    @Param({"STRONG_SECURE_RANDOM", "THREAD_LOCAL_DRBG", "NON_BLOCKING_POOL", "PREFILLED_RING"})
+    public InitVectorSource initVectorSource;
+
+    @Param({"1024"})
+    public int payloadSize;
+
+    private AES gcm;
+    private AES cbc;
+    private AAD aad;
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        final var secret = secret();
+        payload = randomBytes(payloadSize);
+        aad = new AAD("benchmark");
+        gcm = AESFactory.aesGCM(secret, _16KB_DECRYPT_BUFFER_SIZE, initVectorSource);
+        cbc = AESFactory.aesCBC(secret, _16KB_DECRYPT_BUFFER_SIZE, initVectorSource);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object gcmEncrypt() {
+        return gcm.encrypt(payload, aad);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object cbcEncrypt() {
+        return cbc.encrypt(payload);
+    }
+}
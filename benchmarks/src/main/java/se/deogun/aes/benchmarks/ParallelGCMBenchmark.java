@@ -0,0 +1,66 @@
+package se.deogun.aes.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import se.deogun.aes.AESFactory;
+import se.deogun.aes.api.AES;
+import se.deogun.aes.api.SegmentSize;
+
+import java.util.concurrent.TimeUnit;
+
+import static se.deogun.aes.benchmarks.Payloads.randomBytes;
+import static se.deogun.aes.benchmarks.Payloads.secret;
+
+/**
+ * Compares GCM with parallel GCM for large payloads over different degrees of parallelism.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ParallelGCMBenchmark {
+    @Param({"67108864"})
+    public int payloadSize;
+
+    @Param({"_1MB_SEGMENT_SIZE"})
+    public SegmentSize segmentSize;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private AES gcm;
+    private AES parallelGCM;
+    private byte[] payload;
+    private byte[] encrypted;
+
+    @Setup
+    public void setup() {
+        final var secret = secret();
+        gcm = AESFactory.aesGCM(secret);
+        parallelGCM = AESFactory.aesParallelGCM(secret, segmentSize, parallelism);
+        payload = randomBytes(payloadSize);
+        encrypted = parallelGCM.encrypt(payload).liftAccept();
+    }
+
+    @TearDown
+    public void tearDown() {
+        gcm.close();
+        parallelGCM.close();
+    }
+
+    @Benchmark
+    public Object encrypt() {
+        return gcm.encrypt(payload);
+    }
+
+    @Benchmark
+    public Object encryptParallel() {
+        return parallelGCM.encrypt(payload);
+    }
+
+    @Benchmark
+    public Object decryptParallel() {
+        return parallelGCM.decrypt(encrypted);
+    }
+}
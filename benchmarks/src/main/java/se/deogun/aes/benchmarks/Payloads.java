@@ -0,0 +1,29 @@
+package se.deogun.aes.benchmarks;
+
+import se.deogun.aes.api.Secret;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+
+import static se.deogun.aes.api.Secret.secretFromNonBase64EncodedKey;
+
+final class Payloads {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private Payloads() {
+    }
+
+    static byte[] randomBytes(final int size) {
+        final var bytes = new byte[size];
+        RANDOM.nextBytes(bytes);
+        return bytes;
+    }
+
+    static ByteBuffer directBuffer(final byte[] data) {
+        return ByteBuffer.allocateDirect(data.length).put(data).flip();
+    }
+
+    static Secret secret() {
+        return secretFromNonBase64EncodedKey(randomBytes(32));
+    }
+}
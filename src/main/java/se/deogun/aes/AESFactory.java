@@ -3,24 +3,64 @@ package se.deogun.aes;
 import se.deogun.aes.api.*;
 import se.deogun.aes.modes.AADMode;
 import se.deogun.aes.modes.NonAADMode;
+import se.deogun.aes.modes.SeekableMode;
+import se.deogun.aes.modes.common.CounterInitVectorGenerator;
+import se.deogun.aes.modes.common.DRBGInitVectorGenerator;
+import se.deogun.aes.modes.common.InitVectorGenerator;
 import se.deogun.aes.modes.common.InternalRejectReason;
+import se.deogun.aes.modes.common.NonBlockingInitVectorGenerator;
+import se.deogun.aes.modes.common.RingInitVectorGenerator;
+import se.deogun.aes.modes.common.StrongInitVectorGenerator;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Provider;
+import java.security.Security;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
 import static java.lang.String.format;
+import static java.util.Arrays.fill;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Collections.nCopies;
 import static se.deogun.aes.api.DecryptBufferSize._16KB_DECRYPT_BUFFER_SIZE;
+import static se.deogun.aes.api.InitVectorSource.THREAD_LOCAL_DRBG;
 import static se.deogun.aes.api.RejectReason.ALGORITHM_NOT_SUPPORTING_AAD;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
 import static se.deogun.aes.api.Result.reject;
 import static se.deogun.aes.modes.ModeFactory.cbc;
+import static se.deogun.aes.modes.ModeFactory.ctr;
 import static se.deogun.aes.modes.ModeFactory.gcm;
+import static se.deogun.aes.modes.ModeFactory.gcmSIV;
+import static se.deogun.aes.modes.ModeFactory.parallelGCM;
 import static se.deogun.aes.modes.common.AAD.NO_AAD;
+import static se.deogun.aes.modes.common.InternalRejectReason.UNABLE_TO_DECRYPT;
+import static se.deogun.aes.modes.common.InternalRejectReason.UNABLE_TO_ENCRYPT;
 
 /**
  * Factory to create different AES modes
  */
 public final class AESFactory {
+    private static final InitVectorGenerator STRONG_SECURE_RANDOM = new StrongInitVectorGenerator();
+    private static final InitVectorGenerator THREAD_LOCAL_DRBG_GENERATOR = new DRBGInitVectorGenerator();
+    private static final InitVectorGenerator NON_BLOCKING_POOL = new NonBlockingInitVectorGenerator(Runtime.getRuntime().availableProcessors());
+    private static final InitVectorGenerator PREFILLED_RING = new RingInitVectorGenerator(64 * 1024);
+
     /**
      * Creates an AES instance with GCM mode and 16KB decrypt buffer size
      *
@@ -32,15 +72,134 @@ public final class AESFactory {
     }
 
     /**
-     * Creates an AES instance with GCM mode
+     * Creates an AES instance with GCM mode using thread local DRBG instances for
+     * initialization vectors
      *
      * @param secret secret to be used for encryption / decryption
+     * @param decryptBufferSize buffer size used when reading encrypted streams
      * @return AES service
      */
     public static AES aesGCM(final Secret secret, final DecryptBufferSize decryptBufferSize) {
+        return aesGCM(secret, decryptBufferSize, THREAD_LOCAL_DRBG);
+    }
+
+    /**
+     * Creates an AES instance with GCM mode
+     *
+     * @param secret secret to be used for encryption / decryption
+     * @param decryptBufferSize buffer size used when reading encrypted streams
+     * @param initVectorSource source of initialization vectors
+     * @return AES service
+     */
+    public static AES aesGCM(final Secret secret, final DecryptBufferSize decryptBufferSize, final InitVectorSource initVectorSource) {
+        notNull(secret, "Secret");
+        notNull(decryptBufferSize, "Decrypt buffer size");
+        notNull(initVectorSource, "Init vector source");
+        return gcm(mode -> aesSupportingAAD(secret, mode, () -> {}), decryptBufferSize.size, generator(initVectorSource));
+    }
+
+    /**
+     * Creates an AES instance with GCM mode using deterministic initialization vectors, i.e. a random
+     * prefix owned by the instance followed by a counter within the given partition. No randomness is
+     * drawn when encrypting, and operations are rejected with {@link RejectReason#INIT_VECTORS_EXHAUSTED}
+     * once the partition is used up. A new instance, and thereby a new prefix, must be created for
+     * every process using the secret, preferably with a partition of its own.
+     *
+     * @param secret secret to be used for encryption / decryption
+     * @param decryptBufferSize buffer size used when reading encrypted streams
+     * @param noncePartition partition of the counter space used by the instance
+     * @return AES service
+     */
+    public static AES aesGCM(final Secret secret, final DecryptBufferSize decryptBufferSize, final NoncePartition noncePartition) {
         notNull(secret, "Secret");
         notNull(decryptBufferSize, "Decrypt buffer size");
-        return gcm(mode -> aesSupportingAAD(secret, mode), decryptBufferSize.size);
+        notNull(noncePartition, "Nonce partition");
+        final var generator = new CounterInitVectorGenerator(noncePartition.index, noncePartition.count);
+        return gcm(mode -> aesSupportingAAD(secret, mode, () -> {}), decryptBufferSize.size, generator);
+    }
+
+    /**
+     * Creates an AES instance with GCM mode using the provider with the highest throughput measured by
+     * {@link #probe(Duration)}, or the most preferred provider if none was measured
+     *
+     * @param secret secret to be used for encryption / decryption
+     * @param decryptBufferSize buffer size used when reading encrypted streams
+     * @param capabilities outcome of a capability probe
+     * @return AES service
+     */
+    public static AES aesGCM(final Secret secret, final DecryptBufferSize decryptBufferSize, final Capabilities capabilities) {
+        notNull(secret, "Secret");
+        notNull(decryptBufferSize, "Decrypt buffer size");
+        notNull(capabilities, "Capabilities");
+        final var provider = fastest(capabilities, Transformation.GCM);
+        if (provider == null) {
+            return aesGCM(secret, decryptBufferSize);
+        }
+        return gcm(mode -> aesSupportingAAD(secret, mode, () -> {}), decryptBufferSize.size, generator(THREAD_LOCAL_DRBG), provider);
+    }
+
+    /**
+     * Creates an AES instance with GCM mode where payloads are split into independently authenticated
+     * segments that are encrypted / decrypted in parallel. The instance owns a pool with the given
+     * parallelism, which is shut down when the instance is closed.
+     *
+     * @param secret secret to be used for encryption / decryption
+     * @param segmentSize size of every segment
+     * @param parallelism number of threads used to process segments
+     * @return AES service
+     */
+    public static AES aesParallelGCM(final Secret secret, final SegmentSize segmentSize, final int parallelism) {
+        notNull(secret, "Secret");
+        notNull(segmentSize, "Segment size");
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        final var pool = new ForkJoinPool(parallelism);
+        return parallelGCM(mode -> aesSupportingAAD(secret, mode, pool::shutdown), segmentSize.size, pool, generator(THREAD_LOCAL_DRBG));
+    }
+
+    /**
+     * Creates an AES instance with GCM mode where payloads are split into independently authenticated
+     * segments that are encrypted / decrypted in parallel on the provided pool. The pool is not shut
+     * down when the instance is closed.
+     *
+     * @param secret secret to be used for encryption / decryption
+     * @param segmentSize size of every segment
+     * @param pool pool used to process segments
+     * @return AES service
+     */
+    public static AES aesParallelGCM(final Secret secret, final SegmentSize segmentSize, final ForkJoinPool pool) {
+        notNull(secret, "Secret");
+        notNull(segmentSize, "Segment size");
+        notNull(pool, "Pool");
+        return parallelGCM(mode -> aesSupportingAAD(secret, mode, () -> {}), segmentSize.size, pool, generator(THREAD_LOCAL_DRBG));
+    }
+
+    /**
+     * Creates an AES instance with GCM-SIV mode using thread local DRBG instances for
+     * initialization vectors. GCM-SIV is nonce misuse resistant, i.e. a repeated initialization
+     * vector only reveals whether two messages are identical, which makes it suitable for secrets
+     * used with a very large number of messages. Streams are buffered in memory since the tag is
+     * computed over all plain text before it's encrypted.
+     *
+     * @param secret secret to be used for encryption / decryption, must be 128 or 256 bits
+     * @return AES service
+     */
+    public static AES aesGCMSIV(final Secret secret) {
+        return aesGCMSIV(secret, THREAD_LOCAL_DRBG);
+    }
+
+    /**
+     * Creates an AES instance with GCM-SIV mode
+     *
+     * @param secret secret to be used for encryption / decryption, must be 128 or 256 bits
+     * @param initVectorSource source of initialization vectors
+     * @return AES service
+     */
+    public static AES aesGCMSIV(final Secret secret, final InitVectorSource initVectorSource) {
+        notNull(secret, "Secret");
+        notNull(initVectorSource, "Init vector source");
+        return gcmSIV(mode -> aesSupportingAAD(secret, mode, () -> {}), generator(initVectorSource));
     }
 
 
@@ -55,42 +214,636 @@ public final class AESFactory {
     }
 
     /**
-     * Creates an AES instance with CBC mode and 16KB decrypt buffer size
+     * Creates an AES instance with CBC mode using thread local DRBG instances for
+     * initialization vectors
      *
      * @param secret secret to be used for encryption / decryption
+     * @param decryptBufferSize buffer size used when reading encrypted streams
      * @return AES service
      */
     public static AES aesCBC(final Secret secret, final DecryptBufferSize decryptBufferSize) {
+        return aesCBC(secret, decryptBufferSize, THREAD_LOCAL_DRBG);
+    }
+
+    /**
+     * Creates an AES instance with CBC mode
+     *
+     * @param secret secret to be used for encryption / decryption
+     * @param decryptBufferSize buffer size used when reading encrypted streams
+     * @param initVectorSource source of initialization vectors
+     * @return AES service
+     */
+    public static AES aesCBC(final Secret secret, final DecryptBufferSize decryptBufferSize, final InitVectorSource initVectorSource) {
+        notNull(secret, "Secret");
+        notNull(decryptBufferSize, "Decrypt buffer size");
+        notNull(initVectorSource, "Init vector source");
+        return cbc(mode -> aesNotSupportingAAD(secret, mode), decryptBufferSize.size, generator(initVectorSource));
+    }
+
+    /**
+     * Creates an AES instance with CBC mode using the provider with the highest throughput measured by
+     * {@link #probe(Duration)}, or the most preferred provider if none was measured
+     *
+     * @param secret secret to be used for encryption / decryption
+     * @param decryptBufferSize buffer size used when reading encrypted streams
+     * @param capabilities outcome of a capability probe
+     * @return AES service
+     */
+    public static AES aesCBC(final Secret secret, final DecryptBufferSize decryptBufferSize, final Capabilities capabilities) {
         notNull(secret, "Secret");
         notNull(decryptBufferSize, "Decrypt buffer size");
-        return cbc(mode -> aesNotSupportingAAD(secret, mode), decryptBufferSize.size);
+        notNull(capabilities, "Capabilities");
+        final var provider = fastest(capabilities, Transformation.CBC);
+        if (provider == null) {
+            return aesCBC(secret, decryptBufferSize);
+        }
+        return cbc(mode -> aesNotSupportingAAD(secret, mode), decryptBufferSize.size, generator(THREAD_LOCAL_DRBG), provider);
+    }
+
+    /**
+     * Probes the JVM for 200ms per transformation and provider
+     *
+     * @return capabilities of the JVM
+     * @see #probe(Duration)
+     */
+    public static Capabilities probe() {
+        return probe(Duration.ofMillis(200));
+    }
+
+    /**
+     * Measures the encryption throughput of every installed provider of GCM and CBC, and checks whether
+     * the JVM is configured to use the AES and GHASH intrinsics, e.g. AES-NI and CLMUL. The probe is meant
+     * to run once at startup, which detects misconfigured hosts before they serve traffic, and its outcome
+     * selects the fastest provider when creating AES instances. Every measurement is warmed up for half the
+     * budget, which lets the JIT compiler apply the intrinsics before the second half is measured.
+     *
+     * @param budget time spent per transformation and provider, at most 10 seconds
+     * @return capabilities of the JVM
+     */
+    public static Capabilities probe(final Duration budget) {
+        notNull(budget, "Budget");
+        if (budget.isNegative() || budget.isZero() || budget.compareTo(Duration.ofSeconds(10)) > 0) {
+            throw new IllegalArgumentException("Budget must be positive and at most 10 seconds");
+        }
+        return CapabilityProbe.probe(budget);
+    }
+
+    /**
+     * Creates an AES instance with GCM mode that switches to the next key of the supplier when the
+     * current key has been used for the number of messages or bytes of the policy. The encrypted data
+     * is prefixed with a 4 byte key id, and data encrypted with any of the retained keys can be decrypted.
+     *
+     * @param secrets supplier of the keys to rotate through, called once per rotation
+     * @param policy when to rotate and how many keys to retain
+     * @return AES service
+     */
+    public static AES aesRotating(final Supplier<Secret> secrets, final RotationPolicy policy) {
+        return aesRotating(secrets, policy, AESFactory::aesGCM);
+    }
+
+    /**
+     * Creates an AES instance that switches to the next key of the supplier when the current key has
+     * been used for the number of messages or bytes of the policy. The encrypted data is prefixed with
+     * a 4 byte key id, and data encrypted with any of the retained keys can be decrypted.
+     *
+     * @param secrets supplier of the keys to rotate through, called once per rotation
+     * @param policy when to rotate and how many keys to retain
+     * @param mode creates the AES instance of every key, e.g. {@code AESFactory::aesGCMSIV}
+     * @return AES service
+     */
+    public static AES aesRotating(final Supplier<Secret> secrets, final RotationPolicy policy, final Function<Secret, AES> mode) {
+        notNull(secrets, "Secrets");
+        notNull(policy, "Rotation policy");
+        notNull(mode, "Mode");
+        return new RotatingAES(secrets, mode, policy);
+    }
+
+    /**
+     * Creates an AES instance with GCM mode that encrypts with one key of a keyring and decrypts data
+     * encrypted with any of its keys. The encrypted data is prefixed with the 4 byte key id.
+     *
+     * @param keyring secret of every key id, or null if there's no key with the id
+     * @param encryptionKeyId id of the key to encrypt with
+     * @param warmKeys number of decryption keys, besides the encryption key, kept ready for use
+     * @return AES service
+     */
+    public static AES aesKeyring(final IntFunction<Secret> keyring, final int encryptionKeyId, final int warmKeys) {
+        return aesKeyring(keyring, encryptionKeyId, warmKeys, AESFactory::aesGCM);
+    }
+
+    /**
+     * Creates an AES instance that encrypts with one key of a keyring and decrypts data encrypted with
+     * any of its keys. The encrypted data is prefixed with the 4 byte key id, and the AES instances of
+     * the most recently used keys are cached.
+     *
+     * @param keyring secret of every key id, or null if there's no key with the id
+     * @param encryptionKeyId id of the key to encrypt with
+     * @param warmKeys number of decryption keys, besides the encryption key, kept ready for use
+     * @param mode creates the AES instance of every key, e.g. {@code AESFactory::aesGCMSIV}
+     * @return AES service
+     */
+    public static AES aesKeyring(final IntFunction<Secret> keyring, final int encryptionKeyId, final int warmKeys,
+                                 final Function<Secret, AES> mode) {
+        notNull(keyring, "Keyring");
+        notNull(mode, "Mode");
+        if (warmKeys < 1) {
+            throw new IllegalArgumentException("At least one warm key is required");
+        }
+        return new KeyringAES(keyring, encryptionKeyId, mode, warmKeys);
+    }
+
+    /**
+     * Creates an AES instance with GCM mode using envelope encryption, where messages are encrypted
+     * with data keys wrapped by the key encryption key. The wrapped data key is stored in front of the
+     * encrypted data.
+     *
+     * @param keyEncryptionKey secret wrapping the data keys
+     * @param policy how long data keys are used, and how many unwrapped data keys are cached
+     * @return AES service
+     */
+    public static AES aesEnvelope(final Secret keyEncryptionKey, final EnvelopePolicy policy) {
+        return aesEnvelope(keyEncryptionKey, policy, AESFactory::aesGCM);
+    }
+
+    /**
+     * Creates an AES instance using envelope encryption, where messages are encrypted with random 256
+     * bit data keys wrapped by the key encryption key (AES-KW). The 40 byte wrapped data key is stored
+     * in front of the encrypted data, and data keys are reused and cached according to the policy.
+     *
+     * @param keyEncryptionKey secret wrapping the data keys
+     * @param policy how long data keys are used, and how many unwrapped data keys are cached
+     * @param mode creates the AES instance of every data key, e.g. {@code AESFactory::aesGCMSIV}, and must copy the
+     *             key since the secret is destroyed once the instance is created
+     * @return AES service
+     */
+    public static AES aesEnvelope(final Secret keyEncryptionKey, final EnvelopePolicy policy, final Function<Secret, AES> mode) {
+        notNull(keyEncryptionKey, "Key encryption key");
+        notNull(policy, "Envelope policy");
+        notNull(mode, "Mode");
+        return new EnvelopeAES(keyEncryptionKey, mode, policy);
+    }
+
+    /**
+     * Creates a registry of AES instances with GCM mode, one per id, created on first use
+     *
+     * @param secrets secret of every id, or null if there's no secret for the id
+     * @param policy how many instances are kept, and for how long unused instances are kept
+     * @return AES registry
+     */
+    public static <K> AESRegistry<K> aesRegistry(final Function<K, Secret> secrets, final RegistryPolicy policy) {
+        return aesRegistry(secrets, policy, AESFactory::aesGCM);
+    }
+
+    /**
+     * Creates a registry of AES instances, one per id, created on first use. The least recently used
+     * instances are evicted when the registry is full or they're idle, and closed once the operations
+     * using them have completed.
+     *
+     * @param secrets secret of every id, or null if there's no secret for the id
+     * @param policy how many instances are kept, and for how long unused instances are kept
+     * @param mode creates the AES instance of every id, e.g. {@code AESFactory::aesGCMSIV}
+     * @return AES registry
+     */
+    public static <K> AESRegistry<K> aesRegistry(final Function<K, Secret> secrets, final RegistryPolicy policy,
+                                                 final Function<Secret, AES> mode) {
+        notNull(secrets, "Secrets");
+        notNull(policy, "Registry policy");
+        notNull(mode, "Mode");
+        return new CachingAESRegistry<>(secrets, mode, policy);
+    }
+
+    /**
+     * Creates an asynchronous AES instance running the operations of the AES instance on pools owned by
+     * the instance, which are shut down when it's closed. Operations on data in memory run on a pool with
+     * the given parallelism, and operations on streams and files on a pool of threads created on demand.
+     *
+     * @param aes AES instance to run the operations of, closed when the asynchronous instance is closed
+     * @param parallelism number of threads running operations on data in memory
+     * @param maxInFlight number of operations in flight before new ones are rejected
+     * @return asynchronous AES service
+     */
+    public static AsyncAES asyncAES(final AES aes, final int parallelism, final int maxInFlight) {
+        notNull(aes, "AES");
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        positiveInFlight(maxInFlight);
+        final var cpu = Executors.newFixedThreadPool(parallelism, daemonThreads());
+        final var io = Executors.newCachedThreadPool(daemonThreads());
+        return new ExecutorAsyncAES(aes, cpu, io, maxInFlight, () -> {
+            cpu.shutdown();
+            io.shutdown();
+        });
+    }
+
+    /**
+     * Creates an asynchronous AES instance running the operations of the AES instance on the provided
+     * executors. The executors are not shut down when the instance is closed.
+     *
+     * @param aes AES instance to run the operations of, closed when the asynchronous instance is closed
+     * @param cpu executor of operations on data in memory, preferably bounded by the number of cores
+     * @param io executor of operations on streams and files, which may block
+     * @param maxInFlight number of operations in flight before new ones are rejected
+     * @return asynchronous AES service
+     */
+    public static AsyncAES asyncAES(final AES aes, final Executor cpu, final Executor io, final int maxInFlight) {
+        notNull(aes, "AES");
+        notNull(cpu, "CPU executor");
+        notNull(io, "I/O executor");
+        positiveInFlight(maxInFlight);
+        return new ExecutorAsyncAES(aes, cpu, io, maxInFlight, () -> {});
+    }
+
+    /**
+     * Creates a processor encrypting the bytes published upstream with the stream encryption of the AES
+     * instance, and publishing the encrypted data downstream as it's produced. The encryption runs on
+     * the executor and waits for demand downstream, and items are requested upstream as they're read.
+     * A rejected encryption is signalled downstream as a {@link Rejection}.
+     *
+     * @param aes AES instance encrypting the data
+     * @param aad additional authentication data
+     * @param executor executor running the encryption, which blocks while waiting for items or demand
+     * @return processor with one subscriber
+     */
+    public static Flow.Processor<ByteBuffer, ByteBuffer> encryptingProcessor(final AES aes, final AAD aad, final Executor executor) {
+        notNull(aes, "AES");
+        notNull(aad, "AAD");
+        notNull(executor, "Executor");
+        return new StreamingProcessor((inputStream, outputStream) -> aes.encrypt(inputStream, outputStream, aad), executor);
+    }
+
+    /**
+     * Creates a processor encrypting the bytes published upstream with the stream encryption of the AES
+     * instance, and publishing the encrypted data downstream as it's produced
+     *
+     * @param aes AES instance encrypting the data
+     * @param executor executor running the encryption, which blocks while waiting for items or demand
+     * @return processor with one subscriber
+     */
+    public static Flow.Processor<ByteBuffer, ByteBuffer> encryptingProcessor(final AES aes, final Executor executor) {
+        notNull(aes, "AES");
+        notNull(executor, "Executor");
+        return new StreamingProcessor(aes::encrypt, executor);
+    }
+
+    /**
+     * Creates a processor decrypting data published upstream in the stream format of the AES instance,
+     * and publishing the plain text downstream as it's verified. The decryption runs on the executor
+     * and waits for demand downstream, and items are requested upstream as they're read. A rejected
+     * decryption is signalled downstream as a {@link Rejection}.
+     *
+     * @param aes AES instance decrypting the data
+     * @param aad additional authentication data
+     * @param executor executor running the decryption, which blocks while waiting for items or demand
+     * @return processor with one subscriber
+     */
+    public static Flow.Processor<ByteBuffer, ByteBuffer> decryptingProcessor(final AES aes, final AAD aad, final Executor executor) {
+        notNull(aes, "AES");
+        notNull(aad, "AAD");
+        notNull(executor, "Executor");
+        return new StreamingProcessor((inputStream, outputStream) -> aes.decrypt(inputStream, outputStream, aad), executor);
+    }
+
+    /**
+     * Creates a processor decrypting data published upstream in the stream format of the AES instance,
+     * and publishing the plain text downstream as it's verified
+     *
+     * @param aes AES instance decrypting the data
+     * @param executor executor running the decryption, which blocks while waiting for items or demand
+     * @return processor with one subscriber
+     */
+    public static Flow.Processor<ByteBuffer, ByteBuffer> decryptingProcessor(final AES aes, final Executor executor) {
+        notNull(aes, "AES");
+        notNull(executor, "Executor");
+        return new StreamingProcessor(aes::decrypt, executor);
+    }
+
+    /**
+     * Creates an AES instance reporting the outcome, input size and duration of every operation of the
+     * AES instance to the instrumentation, and as {@code se.deogun.aes.Operation} flight recorder events.
+     * AES instances that aren't instrumented have no overhead.
+     *
+     * @param aes AES instance to instrument, closed when the instrumented instance is closed
+     * @param instrumentation receiver of the outcomes, e.g. {@link Metrics}
+     * @return AES service
+     */
+    public static AES instrumented(final AES aes, final Instrumentation instrumentation) {
+        notNull(aes, "AES");
+        notNull(instrumentation, "Instrumentation");
+        return new InstrumentedAES(aes, instrumentation);
+    }
+
+    /**
+     * Creates an AES instance compressing plain text of at least 256 bytes with {@link DeflateCodec#DEFAULT_DEFLATE}
+     * before it's encrypted by the AES instance
+     *
+     * @param aes AES instance encrypting the compressed data, closed when the compressing instance is closed
+     * @return AES service
+     * @see #compressing(AES, Codec, int)
+     */
+    public static AES compressing(final AES aes) {
+        return compressing(aes, DeflateCodec.DEFAULT_DEFLATE, 256);
+    }
+
+    /**
+     * Creates an AES instance compressing plain text before it's encrypted by the AES instance. A flag in
+     * front of the plain text tells whether it's compressed, and data smaller than the threshold or that
+     * doesn't get smaller when compressed is encrypted as is. Streams and files are compressed as they're
+     * written, after buffering up to the threshold. Buffers are decrypted into a destination that must fit
+     * the decompressed data.
+     * <p>
+     * The size of compressed data reveals how well the plain text compresses. Secrets must not be compressed
+     * together with data controlled by an attacker.
+     *
+     * @param aes AES instance encrypting the compressed data, closed when the compressing instance is closed
+     * @param codec compression of the plain text
+     * @param threshold minimum number of plain text bytes to compress, at most 65536
+     * @return AES service
+     * @see #compressing(AES, Codec, int, int)
+     */
+    public static AES compressing(final AES aes, final Codec codec, final int threshold) {
+        return compressing(aes, codec, threshold, CompressingAES.DEFAULT_MAX_PLAIN_TEXT_SIZE);
+    }
+
+    /**
+     * Creates an AES instance compressing plain text before it's encrypted by the AES instance, see
+     * {@link #compressing(AES, Codec, int)}. Decrypting into arrays rejects compressed data as soon as the
+     * decompressed plain text exceeds the max plain text size, which defaults to 64MB, and larger plain text
+     * is encrypted as is.
+     *
+     * @param aes AES instance encrypting the compressed data, closed when the compressing instance is closed
+     * @param codec compression of the plain text
+     * @param threshold minimum number of plain text bytes to compress, at most 65536
+     * @param maxPlainTextSize max number of bytes of decompressed plain text held in memory
+     * @return AES service
+     */
+    public static AES compressing(final AES aes, final Codec codec, final int threshold, final int maxPlainTextSize) {
+        notNull(aes, "AES");
+        notNull(codec, "Codec");
+        if (codec.id() <= 0) {
+            throw new IllegalArgumentException("Codec id must be between 1 and 127");
+        }
+        if (threshold < 0 || threshold > CompressingAES.MAX_THRESHOLD) {
+            throw new IllegalArgumentException("Threshold must be between 0 and 65536");
+        }
+        if (maxPlainTextSize <= 0) {
+            throw new IllegalArgumentException("Max plain text size must be positive");
+        }
+        return new CompressingAES(aes, codec, threshold, maxPlainTextSize);
+    }
+
+    /**
+     * Creates a seekable AES instance with CTR mode and 16KB segments
+     *
+     * @param secret secret to be used for encryption / decryption
+     * @return seekable AES service
+     */
+    public static SeekableAES aesCTR(final Secret secret) {
+        return aesCTR(secret, _16KB_DECRYPT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a seekable AES instance with CTR mode using thread local DRBG instances for
+     * salts
+     *
+     * @param secret secret to be used for encryption / decryption
+     * @param segmentSize size of every independently authenticated segment
+     * @return seekable AES service
+     */
+    public static SeekableAES aesCTR(final Secret secret, final DecryptBufferSize segmentSize) {
+        return aesCTR(secret, segmentSize, THREAD_LOCAL_DRBG);
+    }
+
+    /**
+     * Creates a seekable AES instance with CTR mode where every segment is authenticated
+     * with HMAC-SHA256
+     *
+     * @param secret secret to be used for encryption / decryption
+     * @param segmentSize size of every independently authenticated segment
+     * @param initVectorSource source of salts
+     * @return seekable AES service
+     */
+    public static SeekableAES aesCTR(final Secret secret, final DecryptBufferSize segmentSize, final InitVectorSource initVectorSource) {
+        notNull(secret, "Secret");
+        notNull(segmentSize, "Segment size");
+        notNull(initVectorSource, "Init vector source");
+        return ctr(mode -> seekable(secret, mode), segmentSize.size, generator(initVectorSource));
+    }
+
+    private static SeekableAES seekable(final Secret secret, final SeekableMode mode) {
+        final var key = secret(secret);
+        return new SeekableAES() {
+            @Override
+            public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data, final AAD aad) {
+                notNull(data, "Encryption data");
+                notNull(aad, "AAD");
+                return apply(key, () -> mode.encrypt(data, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data) {
+                notNull(data, "Encryption data");
+                return apply(key, () -> mode.encrypt(data, key, NO_AAD));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream,
+                                                                               final AAD aad) {
+                notNull(inputStream, "InputStream");
+                notNull(outputStream, "OutputStream");
+                notNull(aad, "AAD");
+                return apply(key, () -> mode.encrypt(inputStream, outputStream, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream) {
+                notNull(inputStream, "InputStream");
+                notNull(outputStream, "OutputStream");
+                return apply(key, () -> mode.encrypt(inputStream, outputStream, key, NO_AAD));
+            }
+
+            @Override
+            public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data, final AAD aad) {
+                notNull(data, "Decryption data");
+                notNull(aad, "AAD");
+                return apply(key, () -> mode.decrypt(data, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data) {
+                notNull(data, "Decryption data");
+                return apply(key, () -> mode.decrypt(data, key, NO_AAD));
+            }
+
+            @Override
+            public Result<? super Failure, Long, RejectReason> plainTextSize(final SeekableByteChannel encryptedData) {
+                notNull(encryptedData, "Channel");
+                return apply(key, () -> mode.plainTextSize(encryptedData));
+            }
+
+            @Override
+            public Result<? super Failure, byte[], RejectReason> decryptRange(final SeekableByteChannel encryptedData, final long offset,
+                                                                              final int length, final AAD aad) {
+                notNull(encryptedData, "Channel");
+                notNull(aad, "AAD");
+                return apply(key, () -> mode.decryptRange(encryptedData, offset, length, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, byte[], RejectReason> decryptRange(final SeekableByteChannel encryptedData, final long offset,
+                                                                              final int length) {
+                notNull(encryptedData, "Channel");
+                return apply(key, () -> mode.decryptRange(encryptedData, offset, length, key, NO_AAD));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> decryptRange(final SeekableByteChannel encryptedData, final long offset,
+                                                                                    final long length, final OutputStream outputStream,
+                                                                                    final AAD aad) {
+                notNull(encryptedData, "Channel");
+                notNull(outputStream, "OutputStream");
+                notNull(aad, "AAD");
+                return apply(key, () -> mode.decryptRange(encryptedData, offset, length, outputStream, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> decryptRange(final SeekableByteChannel encryptedData, final long offset,
+                                                                                    final long length, final OutputStream outputStream) {
+                notNull(encryptedData, "Channel");
+                notNull(outputStream, "OutputStream");
+                return apply(key, () -> mode.decryptRange(encryptedData, offset, length, outputStream, key, NO_AAD));
+            }
+
+            private se.deogun.aes.modes.common.AAD aad(final AAD aad) {
+                return se.deogun.aes.modes.common.AAD.readOnly(aad.bytes());
+            }
+
+            @Override
+            public void close() {
+                key.destroy();
+                mode.clear();
+            }
+        };
     }
 
     private static AES aesNotSupportingAAD(final Secret secret, final NonAADMode mode) {
+        final var key = secret(secret);
         return new AES() {
             @Override
             public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data) {
                 notNull(data, "Encryption data");
-                return apply(() -> mode.encrypt(data, secret(secret)));
+                return apply(key, () -> mode.encrypt(data, key));
             }
 
             @Override
             public Result<? super Failure, OutputStream, RejectReason> encrypt(final byte[] data, final OutputStream outputStream) {
                 notNull(data, "Encryption data");
                 notNull(outputStream, "OutputStream");
-                return apply(() -> mode.encrypt(data, outputStream, secret(secret)));
+                return apply(key, () -> mode.encrypt(data, outputStream, key));
             }
 
             @Override
             public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data) {
                 notNull(data, "Encryption data");
-                return apply(() -> mode.decrypt(data, secret(secret)));
+                return apply(key, () -> mode.decrypt(data, key));
             }
 
             @Override
             public Result<? super Failure, byte[], RejectReason> decrypt(final InputStream inputStream) {
                 notNull(inputStream, "Decryption data");
-                return apply(() -> mode.decrypt(inputStream, secret(secret)));
+                return apply(key, () -> mode.decrypt(inputStream, key));
+            }
+
+            @Override
+            public Result<? super Failure, ByteBuffer, RejectReason> encrypt(final ByteBuffer data, final ByteBuffer destination) {
+                notNull(data, "Encryption data");
+                notNull(destination, "Destination");
+                return apply(key, () -> mode.encrypt(data, destination, key));
+            }
+
+            @Override
+            public Result<? super Failure, ByteBuffer, RejectReason> decrypt(final ByteBuffer data, final ByteBuffer destination) {
+                notNull(data, "Decryption data");
+                notNull(destination, "Destination");
+                return apply(key, () -> mode.decrypt(data, destination, key));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream) {
+                notNull(inputStream, "InputStream");
+                notNull(outputStream, "OutputStream");
+                return apply(key, () -> mode.encrypt(inputStream, outputStream, key));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> encryptingStream(final OutputStream outputStream) {
+                notNull(outputStream, "OutputStream");
+                return apply(key, () -> mode.encryptingStream(outputStream, key));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> decrypt(final InputStream inputStream, final OutputStream outputStream) {
+                notNull(inputStream, "InputStream");
+                notNull(outputStream, "OutputStream");
+                return apply(key, () -> mode.decrypt(inputStream, outputStream, key));
+            }
+
+            @Override
+            public Result<? super Failure, InputStream, RejectReason> decryptingStream(final InputStream inputStream) {
+                notNull(inputStream, "InputStream");
+                return apply(key, () -> mode.decryptingStream(inputStream, key));
+            }
+
+            @Override
+            public Result<? super Failure, Batch, RejectReason> encryptAll(final List<byte[]> data) {
+                notNull(data, "Data");
+                return batch(key, () -> mode.encryptAll(data, key));
+            }
+
+            @Override
+            public Result<? super Failure, Batch, RejectReason> decryptAll(final List<byte[]> data) {
+                notNull(data, "Data");
+                return batch(key, () -> mode.decryptAll(data, key));
+            }
+
+            @Override
+            public int maxEncryptedSize(final int plainTextSize) {
+                notNegative(plainTextSize, "Plain text size");
+                return mode.maxEncryptedSize(plainTextSize);
+            }
+
+            @Override
+            public Result<? super Failure, Long, RejectReason> encryptFile(final Path source, final Path destination, final AAD aad) {
+                return reject(ALGORITHM_NOT_SUPPORTING_AAD);
+            }
+
+            @Override
+            public Result<? super Failure, Long, RejectReason> encryptFile(final Path source, final Path destination) {
+                notNull(source, "Source");
+                notNull(destination, "Destination");
+                return apply(key, () -> files(source, destination, UNABLE_TO_ENCRYPT, (in, out) -> mode.encrypt(in, out, key)));
+            }
+
+            @Override
+            public Result<? super Failure, Long, RejectReason> decryptFile(final Path source, final Path destination, final AAD aad) {
+                return reject(ALGORITHM_NOT_SUPPORTING_AAD);
+            }
+
+            @Override
+            public Result<? super Failure, Long, RejectReason> decryptFile(final Path source, final Path destination) {
+                notNull(source, "Source");
+                notNull(destination, "Destination");
+                return apply(key, () -> files(source, destination, UNABLE_TO_DECRYPT, (in, out) -> mode.decrypt(in, out, key)));
+            }
+
+            @Override
+            public Result<? super Failure, Batch, RejectReason> encryptAll(final List<byte[]> data, final List<AAD> aad) {
+                return reject(ALGORITHM_NOT_SUPPORTING_AAD);
+            }
+
+            @Override
+            public Result<? super Failure, Batch, RejectReason> decryptAll(final List<byte[]> data, final List<AAD> aad) {
+                return reject(ALGORITHM_NOT_SUPPORTING_AAD);
             }
 
             @Override
@@ -98,6 +851,36 @@ public final class AESFactory {
                 return reject(ALGORITHM_NOT_SUPPORTING_AAD);
             }
 
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> decrypt(final InputStream inputStream, final OutputStream outputStream, final AAD aad) {
+                return reject(ALGORITHM_NOT_SUPPORTING_AAD);
+            }
+
+            @Override
+            public Result<? super Failure, InputStream, RejectReason> decryptingStream(final InputStream inputStream, final AAD aad) {
+                return reject(ALGORITHM_NOT_SUPPORTING_AAD);
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream, final AAD aad) {
+                return reject(ALGORITHM_NOT_SUPPORTING_AAD);
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> encryptingStream(final OutputStream outputStream, final AAD aad) {
+                return reject(ALGORITHM_NOT_SUPPORTING_AAD);
+            }
+
+            @Override
+            public Result<? super Failure, ByteBuffer, RejectReason> encrypt(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+                return reject(ALGORITHM_NOT_SUPPORTING_AAD);
+            }
+
+            @Override
+            public Result<? super Failure, ByteBuffer, RejectReason> decrypt(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+                return reject(ALGORITHM_NOT_SUPPORTING_AAD);
+            }
+
             @Override
             public Result<? super Failure, OutputStream, RejectReason> encrypt(final byte[] data, final OutputStream outputStream, final AAD aad) {
                 return reject(ALGORITHM_NOT_SUPPORTING_AAD);
@@ -113,25 +896,28 @@ public final class AESFactory {
                 return reject(ALGORITHM_NOT_SUPPORTING_AAD);
             }
 
-            private se.deogun.aes.modes.common.Secret secret(final Secret secret) {
-                return new se.deogun.aes.modes.common.Secret(secret.key());
+            @Override
+            public void close() {
+                key.destroy();
+                mode.clear();
             }
         };
     }
 
-    private static AES aesSupportingAAD(final Secret secret, final AADMode mode) {
+    private static AES aesSupportingAAD(final Secret secret, final AADMode mode, final Runnable release) {
+        final var key = secret(secret);
         return new AES() {
             @Override
             public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data, final AAD aad) {
                 notNull(data, "Encryption data");
                 notNull(aad, "AAD");
-                return apply(() -> mode.encrypt(data, secret(secret), aad(aad)));
+                return apply(key, () -> mode.encrypt(data, key, aad(aad)));
             }
 
             @Override
             public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data) {
                 notNull(data, "Encryption data");
-                return apply(() -> mode.encrypt(data, secret(secret), NO_AAD));
+                return apply(key, () -> mode.encrypt(data, key, NO_AAD));
             }
 
             @Override
@@ -139,65 +925,313 @@ public final class AESFactory {
                 notNull(data, "Encryption data");
                 notNull(outputStream, "OutputStream");
                 notNull(aad, "AAD");
-                return apply(() -> mode.encrypt(data, outputStream, secret(secret), aad(aad)));
+                return apply(key, () -> mode.encrypt(data, outputStream, key, aad(aad)));
             }
 
             @Override
             public Result<? super Failure, OutputStream, RejectReason> encrypt(final byte[] data, final OutputStream outputStream) {
                 notNull(data, "Encryption data");
                 notNull(outputStream, "OutputStream");
-                return apply(() -> mode.encrypt(data, outputStream, secret(secret), NO_AAD));
+                return apply(key, () -> mode.encrypt(data, outputStream, key, NO_AAD));
             }
 
             @Override
             public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data, final AAD aad) {
                 notNull(data, "Encryption data");
                 notNull(aad, "AAD");
-                return apply(() -> mode.decrypt(data, secret(secret), aad(aad)));
+                return apply(key, () -> mode.decrypt(data, key, aad(aad)));
             }
 
             @Override
             public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data) {
                 notNull(data, "Encryption data");
-                return apply(() -> mode.decrypt(data, secret(secret), NO_AAD));
+                return apply(key, () -> mode.decrypt(data, key, NO_AAD));
             }
 
             @Override
             public Result<? super Failure, byte[], RejectReason> decrypt(final InputStream inputStream, final AAD aad) {
                 notNull(inputStream, "InputStream");
                 notNull(aad, "AAD");
-                return apply(() -> mode.decrypt(inputStream, secret(secret), aad(aad)));
+                return apply(key, () -> mode.decrypt(inputStream, key, aad(aad)));
             }
 
             @Override
             public Result<? super Failure, byte[], RejectReason> decrypt(final InputStream inputStream) {
                 notNull(inputStream, "InputStream");
-                return apply(() -> mode.decrypt(inputStream, secret(secret), NO_AAD));
+                return apply(key, () -> mode.decrypt(inputStream, key, NO_AAD));
+            }
+
+            @Override
+            public Result<? super Failure, ByteBuffer, RejectReason> encrypt(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+                notNull(data, "Encryption data");
+                notNull(destination, "Destination");
+                notNull(aad, "AAD");
+                return apply(key, () -> mode.encrypt(data, destination, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, ByteBuffer, RejectReason> encrypt(final ByteBuffer data, final ByteBuffer destination) {
+                notNull(data, "Encryption data");
+                notNull(destination, "Destination");
+                return apply(key, () -> mode.encrypt(data, destination, key, NO_AAD));
+            }
+
+            @Override
+            public Result<? super Failure, ByteBuffer, RejectReason> decrypt(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+                notNull(data, "Decryption data");
+                notNull(destination, "Destination");
+                notNull(aad, "AAD");
+                return apply(key, () -> mode.decrypt(data, destination, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, ByteBuffer, RejectReason> decrypt(final ByteBuffer data, final ByteBuffer destination) {
+                notNull(data, "Decryption data");
+                notNull(destination, "Destination");
+                return apply(key, () -> mode.decrypt(data, destination, key, NO_AAD));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream, final AAD aad) {
+                notNull(inputStream, "InputStream");
+                notNull(outputStream, "OutputStream");
+                notNull(aad, "AAD");
+                return apply(key, () -> mode.encrypt(inputStream, outputStream, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream) {
+                notNull(inputStream, "InputStream");
+                notNull(outputStream, "OutputStream");
+                return apply(key, () -> mode.encrypt(inputStream, outputStream, key, NO_AAD));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> encryptingStream(final OutputStream outputStream, final AAD aad) {
+                notNull(outputStream, "OutputStream");
+                notNull(aad, "AAD");
+                return apply(key, () -> mode.encryptingStream(outputStream, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> encryptingStream(final OutputStream outputStream) {
+                notNull(outputStream, "OutputStream");
+                return apply(key, () -> mode.encryptingStream(outputStream, key, NO_AAD));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> decrypt(final InputStream inputStream, final OutputStream outputStream, final AAD aad) {
+                notNull(inputStream, "InputStream");
+                notNull(outputStream, "OutputStream");
+                notNull(aad, "AAD");
+                return apply(key, () -> mode.decrypt(inputStream, outputStream, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, OutputStream, RejectReason> decrypt(final InputStream inputStream, final OutputStream outputStream) {
+                notNull(inputStream, "InputStream");
+                notNull(outputStream, "OutputStream");
+                return apply(key, () -> mode.decrypt(inputStream, outputStream, key, NO_AAD));
+            }
+
+            @Override
+            public Result<? super Failure, InputStream, RejectReason> decryptingStream(final InputStream inputStream, final AAD aad) {
+                notNull(inputStream, "InputStream");
+                notNull(aad, "AAD");
+                return apply(key, () -> mode.decryptingStream(inputStream, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, InputStream, RejectReason> decryptingStream(final InputStream inputStream) {
+                notNull(inputStream, "InputStream");
+                return apply(key, () -> mode.decryptingStream(inputStream, key, NO_AAD));
+            }
+
+            @Override
+            public Result<? super Failure, Long, RejectReason> encryptFile(final Path source, final Path destination, final AAD aad) {
+                notNull(source, "Source");
+                notNull(destination, "Destination");
+                notNull(aad, "AAD");
+                return apply(key, () -> files(source, destination, UNABLE_TO_ENCRYPT, (in, out) -> mode.encrypt(in, out, key, aad(aad))));
+            }
+
+            @Override
+            public Result<? super Failure, Long, RejectReason> encryptFile(final Path source, final Path destination) {
+                notNull(source, "Source");
+                notNull(destination, "Destination");
+                return apply(key, () -> files(source, destination, UNABLE_TO_ENCRYPT, (in, out) -> mode.encrypt(in, out, key, NO_AAD)));
+            }
+
+            @Override
+            public Result<? super Failure, Long, RejectReason> decryptFile(final Path source, final Path destination, final AAD aad) {
+                notNull(source, "Source");
+                notNull(destination, "Destination");
+                notNull(aad, "AAD");
+                return apply(key, () -> files(source, destination, UNABLE_TO_DECRYPT, (in, out) -> mode.decrypt(in, out, key, aad(aad))));
+            }
+
+            @Override
+            public Result<? super Failure, Long, RejectReason> decryptFile(final Path source, final Path destination) {
+                notNull(source, "Source");
+                notNull(destination, "Destination");
+                return apply(key, () -> files(source, destination, UNABLE_TO_DECRYPT, (in, out) -> mode.decrypt(in, out, key, NO_AAD)));
+            }
+
+            @Override
+            public Result<? super Failure, Batch, RejectReason> encryptAll(final List<byte[]> data, final List<AAD> aad) {
+                notNull(data, "Data");
+                notNull(aad, "AAD");
+                sameSize(data, aad);
+                return batch(key, () -> mode.encryptAll(data, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, Batch, RejectReason> encryptAll(final List<byte[]> data) {
+                notNull(data, "Data");
+                return batch(key, () -> mode.encryptAll(data, key, nCopies(data.size(), NO_AAD)));
+            }
+
+            @Override
+            public Result<? super Failure, Batch, RejectReason> decryptAll(final List<byte[]> data, final List<AAD> aad) {
+                notNull(data, "Data");
+                notNull(aad, "AAD");
+                sameSize(data, aad);
+                return batch(key, () -> mode.decryptAll(data, key, aad(aad)));
+            }
+
+            @Override
+            public Result<? super Failure, Batch, RejectReason> decryptAll(final List<byte[]> data) {
+                notNull(data, "Data");
+                return batch(key, () -> mode.decryptAll(data, key, nCopies(data.size(), NO_AAD)));
+            }
+
+            @Override
+            public int maxEncryptedSize(final int plainTextSize) {
+                notNegative(plainTextSize, "Plain text size");
+                return mode.maxEncryptedSize(plainTextSize);
             }
 
             private se.deogun.aes.modes.common.AAD aad(final AAD aad) {
-                return new se.deogun.aes.modes.common.AAD(aad.value);
+                return se.deogun.aes.modes.common.AAD.readOnly(aad.bytes());
+            }
+
+            private List<se.deogun.aes.modes.common.AAD> aad(final List<AAD> aad) {
+                final var converted = new ArrayList<se.deogun.aes.modes.common.AAD>(aad.size());
+                for (final var item : aad) {
+                    notNull(item, "AAD");
+                    converted.add(aad(item));
+                }
+                return converted;
             }
 
-            private se.deogun.aes.modes.common.Secret secret(final Secret secret) {
-                return new se.deogun.aes.modes.common.Secret(secret.key());
+            @Override
+            public void close() {
+                key.destroy();
+                mode.clear();
+                release.run();
             }
         };
     }
 
-    private static <T> Result<? super Failure, T, RejectReason> apply(final Supplier<se.deogun.aes.modes.common.Result<Throwable, T, InternalRejectReason>> operation) {
+    private static void positiveInFlight(final int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in flight must be positive");
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        final var factory = Executors.defaultThreadFactory();
+        return runnable -> {
+            final var thread = factory.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static se.deogun.aes.modes.common.Secret secret(final Secret secret) {
+        final var key = secret.key();
         try {
-            return operation.get()
-                    .transform(
-                            accept -> Result.accept(accept),
-                            reject -> reject(reject.toAPI()),
-                            failure -> Result.failure(failure)
-                    );
+            return new se.deogun.aes.modes.common.Secret(key);
+        } finally {
+            fill(key, (byte) 0);
+        }
+    }
+
+    /**
+     * Maps the internal reject reason of the mode to the reject reason of the API. An accepted
+     * result or a failure is returned as is, i.e. the accept path doesn't allocate a second result
+     */
+    private static <T> Result<? super Failure, T, RejectReason> apply(final se.deogun.aes.modes.common.Secret key,
+                                                                      final Supplier<Result<Throwable, T, InternalRejectReason>> operation) {
+        if (key.isDestroyed()) {
+            return reject(SECRET_DESTROYED);
+        }
+        try {
+            return operation.get().mapReject(InternalRejectReason::toAPI);
         } catch (Throwable e) {
             return Result.failure(new Failure(e.getClass()));
         }
     }
 
+    private static Result<? super Failure, Batch, RejectReason> batch(final se.deogun.aes.modes.common.Secret key,
+                                                                   final Supplier<Result<Throwable, se.deogun.aes.modes.common.Batch, InternalRejectReason>> operation) {
+        return apply(key, () -> operation.get().transform(
+                accept -> Result.<Throwable, Batch, InternalRejectReason>accept(accept.toAPI()),
+                reject -> Result.reject(reject),
+                failure -> Result.failure(failure)
+        ));
+    }
+
+    private static Result<Throwable, Long, InternalRejectReason> files(final Path source, final Path destination,
+                                                                                                  final InternalRejectReason unable,
+                                                                                                  final FileOperation operation) {
+        try {
+            if (Files.exists(destination) && Files.isSameFile(source, destination)) {
+                return Result.reject(unable);
+            }
+            try (var in = FileChannel.open(source, READ);
+                 var out = FileChannel.open(destination, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                return operation.apply(in, out);
+            }
+        } catch (IOException e) {
+            return Result.reject(unable);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FileOperation {
+        Result<Throwable, Long, InternalRejectReason> apply(FileChannel source, FileChannel destination);
+    }
+
+    /**
+     * @return installed provider with the highest throughput, null if none was measured or it's been removed
+     */
+    private static Provider fastest(final Capabilities capabilities, final Transformation transformation) {
+        final var fastest = capabilities.fastest(transformation);
+        return fastest == null ? null : Security.getProvider(fastest.provider);
+    }
+
+    private static InitVectorGenerator generator(final InitVectorSource initVectorSource) {
+        return switch (initVectorSource) {
+            case STRONG_SECURE_RANDOM -> STRONG_SECURE_RANDOM;
+            case THREAD_LOCAL_DRBG -> THREAD_LOCAL_DRBG_GENERATOR;
+            case NON_BLOCKING_POOL -> NON_BLOCKING_POOL;
+            case PREFILLED_RING -> PREFILLED_RING;
+        };
+    }
+
+    private static void notNegative(final int input, final String identifier) {
+        if (input < 0) {
+            throw new IllegalArgumentException(format("%s cannot be negative", identifier));
+        }
+    }
+
+    private static void sameSize(final List<?> data, final List<?> aad) {
+        if (data.size() != aad.size()) {
+            throw new IllegalArgumentException("Data and AAD must have the same size");
+        }
+    }
+
     private static void notNull(final Object input, final String identifier) {
         if (input == null) {
             throw new IllegalArgumentException(format("%s cannot be null", identifier));
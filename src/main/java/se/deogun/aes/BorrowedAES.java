@@ -0,0 +1,183 @@
+package se.deogun.aes;
+
+import se.deogun.aes.api.*;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.Result.reject;
+
+/**
+ * AES service borrowed from a registry. Closing it releases the shared instance once, and every
+ * operation after that is rejected, while the shared instance stays open for other borrowers.
+ */
+final class BorrowedAES implements AES {
+    private final SharedAES shared;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    BorrowedAES(final SharedAES shared) {
+        this.shared = shared;
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data, final AAD aad) {
+        return use(aes -> aes.encrypt(data, aad));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data) {
+        return use(aes -> aes.encrypt(data));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final byte[] data, final OutputStream outputStream, final AAD aad) {
+        return use(aes -> aes.encrypt(data, outputStream, aad));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final byte[] data, final OutputStream outputStream) {
+        return use(aes -> aes.encrypt(data, outputStream));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data, final AAD aad) {
+        return use(aes -> aes.decrypt(data, aad));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data) {
+        return use(aes -> aes.decrypt(data));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final InputStream inputStream, final AAD aad) {
+        return use(aes -> aes.decrypt(inputStream, aad));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final InputStream inputStream) {
+        return use(aes -> aes.decrypt(inputStream));
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> encrypt(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+        return use(aes -> aes.encrypt(data, destination, aad));
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> encrypt(final ByteBuffer data, final ByteBuffer destination) {
+        return use(aes -> aes.encrypt(data, destination));
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> decrypt(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+        return use(aes -> aes.decrypt(data, destination, aad));
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> decrypt(final ByteBuffer data, final ByteBuffer destination) {
+        return use(aes -> aes.decrypt(data, destination));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream, final AAD aad) {
+        return use(aes -> aes.encrypt(inputStream, outputStream, aad));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream) {
+        return use(aes -> aes.encrypt(inputStream, outputStream));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encryptingStream(final OutputStream outputStream, final AAD aad) {
+        return use(aes -> aes.encryptingStream(outputStream, aad));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encryptingStream(final OutputStream outputStream) {
+        return use(aes -> aes.encryptingStream(outputStream));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> decrypt(final InputStream inputStream, final OutputStream outputStream, final AAD aad) {
+        return use(aes -> aes.decrypt(inputStream, outputStream, aad));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> decrypt(final InputStream inputStream, final OutputStream outputStream) {
+        return use(aes -> aes.decrypt(inputStream, outputStream));
+    }
+
+    @Override
+    public Result<? super Failure, InputStream, RejectReason> decryptingStream(final InputStream inputStream, final AAD aad) {
+        return use(aes -> aes.decryptingStream(inputStream, aad));
+    }
+
+    @Override
+    public Result<? super Failure, InputStream, RejectReason> decryptingStream(final InputStream inputStream) {
+        return use(aes -> aes.decryptingStream(inputStream));
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> encryptFile(final Path source, final Path destination, final AAD aad) {
+        return use(aes -> aes.encryptFile(source, destination, aad));
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> encryptFile(final Path source, final Path destination) {
+        return use(aes -> aes.encryptFile(source, destination));
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> decryptFile(final Path source, final Path destination, final AAD aad) {
+        return use(aes -> aes.decryptFile(source, destination, aad));
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> decryptFile(final Path source, final Path destination) {
+        return use(aes -> aes.decryptFile(source, destination));
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> encryptAll(final List<byte[]> data, final List<AAD> aad) {
+        return use(aes -> aes.encryptAll(data, aad));
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> encryptAll(final List<byte[]> data) {
+        return use(aes -> aes.encryptAll(data));
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> decryptAll(final List<byte[]> data, final List<AAD> aad) {
+        return use(aes -> aes.decryptAll(data, aad));
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> decryptAll(final List<byte[]> data) {
+        return use(aes -> aes.decryptAll(data));
+    }
+
+    @Override
+    public int maxEncryptedSize(final int plainTextSize) {
+        return shared.aes.maxEncryptedSize(plainTextSize);
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            shared.release();
+        }
+    }
+
+    private <T> Result<? super Failure, T, RejectReason> use(final Function<AES, Result<? super Failure, T, RejectReason>> operation) {
+        return closed.get() ? reject(SECRET_DESTROYED) : operation.apply(shared.aes);
+    }
+}
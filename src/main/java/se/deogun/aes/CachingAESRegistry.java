@@ -0,0 +1,106 @@
+package se.deogun.aes;
+
+import se.deogun.aes.api.*;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static se.deogun.aes.KeyedAES.then;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.UNKNOWN_KEY;
+import static se.deogun.aes.api.Result.accept;
+import static se.deogun.aes.api.Result.reject;
+
+/**
+ * Registry keeping the AES instances of the most recently used ids in a bounded LRU cache. Lookups
+ * don't lock, and idle instances are evicted when they're looked up or when an instance is added.
+ */
+final class CachingAESRegistry<K> implements AESRegistry<K> {
+    private final Function<K, Secret> secrets;
+    private final Function<Secret, AES> mode;
+    private final SharedAESCache<K> cached;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile boolean closed;
+
+    CachingAESRegistry(final Function<K, Secret> secrets, final Function<Secret, AES> mode, final RegistryPolicy policy) {
+        this.secrets = secrets;
+        this.mode = mode;
+        this.cached = new SharedAESCache<>(policy.maxInstances, policy.maxIdleTime.toNanos(), evictions::increment);
+    }
+
+    @Override
+    public <T> Result<? super Failure, T, RejectReason> apply(final K id, final Function<AES, Result<? super Failure, T, RejectReason>> operation) {
+        notNull(id, "Id");
+        notNull(operation, "Operation");
+        return then(acquire(id), shared -> {
+            try {
+                return operation.apply(shared.aes);
+            } finally {
+                shared.release();
+            }
+        });
+    }
+
+    @Override
+    public Result<? super Failure, AES, RejectReason> borrow(final K id) {
+        notNull(id, "Id");
+        return then(acquire(id), shared -> accept(new BorrowedAES(shared)));
+    }
+
+    @Override
+    public long hits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long misses() {
+        return misses.sum();
+    }
+
+    @Override
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public int size() {
+        return cached.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        cached.close();
+    }
+
+    private Result<? super Failure, SharedAES, RejectReason> acquire(final K id) {
+        final var shared = cached.acquire(id);
+        if (shared != null) {
+            hits.increment();
+            return accept(shared);
+        }
+        if (closed) {
+            return reject(SECRET_DESTROYED);
+        }
+        misses.increment();
+        try {
+            final var secret = secrets.apply(id);
+            if (secret == null) {
+                return reject(UNKNOWN_KEY);
+            }
+            final var loaded = cached.load(id, new SharedAES(mode.apply(secret)), SharedAESCache.FOREVER);
+            return loaded == null ? reject(SECRET_DESTROYED) : accept(loaded);
+        } catch (RuntimeException e) {
+            return Result.failure(new Failure(e.getClass()));
+        }
+    }
+
+    private static void notNull(final Object input, final String identifier) {
+        if (input == null) {
+            throw new IllegalArgumentException(format("%s cannot be null", identifier));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package se.deogun.aes;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import se.deogun.aes.api.Capabilities;
+import se.deogun.aes.api.Throughput;
+import se.deogun.aes.api.Transformation;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.management.ManagementFactory;
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+import java.security.ProviderException;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static javax.crypto.Cipher.ENCRYPT_MODE;
+import static se.deogun.aes.api.Transformation.GCM;
+
+/**
+ * Measures the encryption throughput of every installed provider of every transformation, and reads
+ * the JVM options enabling the AES and GHASH intrinsics. Every measurement runs for a fixed time
+ * instead of a fixed number of iterations, where the first half warms up the provider, which lets
+ * the JIT compiler replace its code by the intrinsics, and the second half is measured.
+ */
+final class CapabilityProbe {
+    private static final int PAYLOAD_NUMBER_OF_BYTES = 16 * 1024;
+    private static final int TAG_LENGTH_IN_BITS = 128;
+    private static final double MEGABYTE = 1024 * 1024;
+    private static final double NANOS_PER_SECOND = 1_000_000_000;
+
+    private CapabilityProbe() {
+    }
+
+    /**
+     * @param budget time spent measuring every combination of transformation and provider
+     * @return capabilities of the JVM
+     */
+    static Capabilities probe(final Duration budget) {
+        final var throughputs = new ArrayList<Throughput>();
+        for (final var transformation : Transformation.values()) {
+            for (final var provider : Security.getProviders()) {
+                final var throughput = measure(transformation, provider, budget.toNanos());
+                if (throughput != null) {
+                    throughputs.add(throughput);
+                }
+            }
+        }
+        return new Capabilities(vmOption("UseAES") && vmOption("UseAESIntrinsics"), vmOption("UseGHASHIntrinsics"), throughputs);
+    }
+
+    /**
+     * @return throughput of the provider, null if it doesn't support the transformation
+     */
+    private static Throughput measure(final Transformation transformation, final Provider provider, final long budget) {
+        try {
+            final var cipher = Cipher.getInstance(transformation.algorithm, provider);
+            final var random = new SecureRandom();
+            final var key = new byte[32];
+            random.nextBytes(key);
+            final var keySpecification = new SecretKeySpec(key, "AES");
+            final var initVector = new byte[transformation == GCM ? 12 : 16];
+            random.nextBytes(initVector);
+            final var plainText = new byte[PAYLOAD_NUMBER_OF_BYTES];
+            final var encrypted = new byte[PAYLOAD_NUMBER_OF_BYTES + 32];
+
+            final var warmedUp = System.nanoTime() + budget / 2;
+            long counter = 0;
+            while (System.nanoTime() < warmedUp) {
+                encrypt(cipher, transformation, keySpecification, initVector, counter++, plainText, encrypted);
+            }
+            final var start = System.nanoTime();
+            final var end = start + budget / 2;
+            long bytes = 0;
+            long now;
+            do {
+                encrypt(cipher, transformation, keySpecification, initVector, counter++, plainText, encrypted);
+                bytes += PAYLOAD_NUMBER_OF_BYTES;
+                now = System.nanoTime();
+            } while (now < end);
+            return new Throughput(transformation, provider.getName(), bytes / MEGABYTE / ((now - start) / NANOS_PER_SECOND));
+        } catch (GeneralSecurityException | ProviderException e) {
+            return null;
+        }
+    }
+
+    /**
+     * GCM providers refuse to encrypt twice with the same key and initialization vector, hence a
+     * counter is written into the initialization vector of every iteration
+     */
+    private static void encrypt(final Cipher cipher, final Transformation transformation, final SecretKeySpec key,
+                                final byte[] initVector, final long counter, final byte[] plainText,
+                                final byte[] encrypted) throws GeneralSecurityException {
+        for (int i = 0; i < Long.BYTES; i++) {
+            initVector[initVector.length - 1 - i] = (byte) (counter >>> (8 * i));
+        }
+        if (transformation == GCM) {
+            cipher.init(ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_IN_BITS, initVector));
+        } else {
+            cipher.init(ENCRYPT_MODE, key, new IvParameterSpec(initVector));
+        }
+        cipher.doFinal(plainText, 0, plainText.length, encrypted, 0);
+    }
+
+    /**
+     * Options of HotSpot, false on other JVMs or if the management module isn't present
+     */
+    private static boolean vmOption(final String name) {
+        try {
+            final var diagnostics = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            return diagnostics != null && Boolean.parseBoolean(diagnostics.getVMOption(name).getValue());
+        } catch (IllegalArgumentException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,656 @@
+package se.deogun.aes;
+
+import se.deogun.aes.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.String.format;
+import static se.deogun.aes.KeyedAES.batch;
+import static se.deogun.aes.KeyedAES.fileResult;
+import static se.deogun.aes.KeyedAES.isSameFile;
+import static se.deogun.aes.KeyedAES.then;
+import static se.deogun.aes.KeyedAES.truncate;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_ENCRYPT_DATA;
+import static se.deogun.aes.api.Result.accept;
+import static se.deogun.aes.api.Result.reject;
+
+/**
+ * Compresses plain text before it's encrypted by the delegate. The plain text given to the delegate
+ * starts with a flag, which is zero if the data isn't compressed and the id of the codec otherwise,
+ * which means the flag is authenticated together with the data and the encrypted data is in the
+ * format of the delegate.
+ * <p>
+ * Data smaller than the threshold, or that doesn't get smaller when compressed, is stored as is.
+ * Streams buffer up to the threshold before deciding, and are compressed as they're written once
+ * the threshold is reached, which keeps memory use constant for large inputs.
+ * <p>
+ * Decompression into memory stops once the plain text exceeds the destination, or the max plain text
+ * size when decrypting into arrays, which bounds the memory a small compressed payload can claim.
+ * Data larger than the max plain text size is therefore never compressed by the array methods.
+ */
+final class CompressingAES implements AES {
+    static final int MAX_THRESHOLD = 65536;
+    static final int DEFAULT_MAX_PLAIN_TEXT_SIZE = 64 * 1024 * 1024;
+    private static final byte UNCOMPRESSED = 0;
+    private final AES aes;
+    private final Codec codec;
+    private final int threshold;
+    private final int maxPlainTextSize;
+
+    CompressingAES(final AES aes, final Codec codec, final int threshold, final int maxPlainTextSize) {
+        this.aes = aes;
+        this.codec = codec;
+        this.threshold = threshold;
+        this.maxPlainTextSize = maxPlainTextSize;
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(aad, "AAD");
+        return aes.encrypt(frame(data), aad);
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data) {
+        notNull(data, "Encryption data");
+        return aes.encrypt(frame(data));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final byte[] data, final OutputStream outputStream, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return aes.encrypt(frame(data), outputStream, aad);
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final byte[] data, final OutputStream outputStream) {
+        notNull(data, "Encryption data");
+        notNull(outputStream, "OutputStream");
+        return aes.encrypt(frame(data), outputStream);
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(aad, "AAD");
+        return then(aes.decrypt(data, aad), decrypted -> unframe(decrypted, decrypted.length));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data) {
+        notNull(data, "Encryption data");
+        return then(aes.decrypt(data), decrypted -> unframe(decrypted, decrypted.length));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final InputStream inputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(aad, "AAD");
+        return then(aes.decrypt(inputStream, aad), decrypted -> unframe(decrypted, decrypted.length));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final InputStream inputStream) {
+        notNull(inputStream, "InputStream");
+        return then(aes.decrypt(inputStream), decrypted -> unframe(decrypted, decrypted.length));
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> encrypt(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return encryptBuffer(data, destination, aad);
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> encrypt(final ByteBuffer data, final ByteBuffer destination) {
+        notNull(data, "Encryption data");
+        notNull(destination, "Destination");
+        return encryptBuffer(data, destination, null);
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> decrypt(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+        notNull(data, "Decryption data");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return decryptBuffer(data, destination, aad);
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> decrypt(final ByteBuffer data, final ByteBuffer destination) {
+        notNull(data, "Decryption data");
+        notNull(destination, "Destination");
+        return decryptBuffer(data, destination, null);
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return encryptStream(inputStream, outputStream, aad);
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        return encryptStream(inputStream, outputStream, null);
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encryptingStream(final OutputStream outputStream, final AAD aad) {
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return then(aes.encryptingStream(outputStream, aad), stream -> accept(new FramingOutputStream(stream)));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encryptingStream(final OutputStream outputStream) {
+        notNull(outputStream, "OutputStream");
+        return then(aes.encryptingStream(outputStream), stream -> accept(new FramingOutputStream(stream)));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> decrypt(final InputStream inputStream, final OutputStream outputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return decryptStream(inputStream, outputStream, aad);
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> decrypt(final InputStream inputStream, final OutputStream outputStream) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        return decryptStream(inputStream, outputStream, null);
+    }
+
+    @Override
+    public Result<? super Failure, InputStream, RejectReason> decryptingStream(final InputStream inputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(aad, "AAD");
+        return then(aes.decryptingStream(inputStream, aad), stream -> accept(new UnframingInputStream(stream)));
+    }
+
+    @Override
+    public Result<? super Failure, InputStream, RejectReason> decryptingStream(final InputStream inputStream) {
+        notNull(inputStream, "InputStream");
+        return then(aes.decryptingStream(inputStream), stream -> accept(new UnframingInputStream(stream)));
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> encryptFile(final Path source, final Path destination, final AAD aad) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return encryptPath(source, destination, aad);
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> encryptFile(final Path source, final Path destination) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        return encryptPath(source, destination, null);
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> decryptFile(final Path source, final Path destination, final AAD aad) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return decryptPath(source, destination, aad);
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> decryptFile(final Path source, final Path destination) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        return decryptPath(source, destination, null);
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> encryptAll(final List<byte[]> data, final List<AAD> aad) {
+        notNull(data, "Data");
+        notNull(aad, "AAD");
+        return aes.encryptAll(frame(data), aad);
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> encryptAll(final List<byte[]> data) {
+        notNull(data, "Data");
+        return aes.encryptAll(frame(data));
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> decryptAll(final List<byte[]> data, final List<AAD> aad) {
+        notNull(data, "Data");
+        notNull(aad, "AAD");
+        return then(aes.decryptAll(data, aad), this::unframe);
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> decryptAll(final List<byte[]> data) {
+        notNull(data, "Data");
+        return then(aes.decryptAll(data), this::unframe);
+    }
+
+    @Override
+    public int maxEncryptedSize(final int plainTextSize) {
+        return aes.maxEncryptedSize(plainTextSize + 1);
+    }
+
+    @Override
+    public void close() {
+        aes.close();
+    }
+
+    private Result<? super Failure, ByteBuffer, RejectReason> encryptBuffer(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+        final var plainText = new byte[data.remaining()];
+        data.duplicate().get(plainText);
+        final var framed = ByteBuffer.wrap(frame(plainText));
+        final Result<? super Failure, ByteBuffer, RejectReason> result = aad == null
+                ? aes.encrypt(framed, destination)
+                : aes.encrypt(framed, destination, aad);
+        if (result.isAccept()) {
+            data.position(data.limit());
+        }
+        return result;
+    }
+
+    /**
+     * The plain text including the flag is never larger than the encrypted data, which bounds the
+     * intermediate buffer. The data is decompressed straight into the destination, and decompression
+     * stops as soon as it doesn't fit.
+     */
+    private Result<? super Failure, ByteBuffer, RejectReason> decryptBuffer(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+        final var position = data.position();
+        final var decrypted = new byte[data.remaining()];
+        final var buffer = ByteBuffer.wrap(decrypted);
+        final Result<? super Failure, ByteBuffer, RejectReason> result = then(aad == null ? aes.decrypt(data, buffer) : aes.decrypt(data, buffer, aad),
+                written -> {
+                    final var length = written.position();
+                    if (length == 0) {
+                        return reject(UNABLE_TO_DECRYPT_DATA);
+                    }
+                    if (decrypted[0] == UNCOMPRESSED) {
+                        if (length - 1 > destination.remaining()) {
+                            return reject(UNABLE_TO_DECRYPT_DATA);
+                        }
+                        return accept(destination.put(decrypted, 1, length - 1));
+                    }
+                    final var plainText = destination.duplicate();
+                    if (!decompress(decrypted, length, new BufferOutputStream(plainText))) {
+                        return reject(UNABLE_TO_DECRYPT_DATA);
+                    }
+                    return accept(destination.position(plainText.position()));
+                });
+        if (!result.isAccept()) {
+            data.position(position);
+        }
+        return result;
+    }
+
+    private Result<? super Failure, OutputStream, RejectReason> encryptStream(final InputStream inputStream, final OutputStream outputStream,
+                                                                            final AAD aad) {
+        final var shielded = new NonClosingOutputStream(outputStream);
+        return then(aad == null ? aes.encryptingStream(shielded) : aes.encryptingStream(shielded, aad), stream -> {
+            try (var framing = new FramingOutputStream(stream)) {
+                inputStream.transferTo(framing);
+            } catch (IOException e) {
+                return reject(UNABLE_TO_ENCRYPT_DATA);
+            }
+            return accept(outputStream);
+        });
+    }
+
+    private Result<? super Failure, OutputStream, RejectReason> decryptStream(final InputStream inputStream, final OutputStream outputStream,
+                                                                            final AAD aad) {
+        final var shielded = new NonClosingInputStream(inputStream);
+        return then(aad == null ? aes.decryptingStream(shielded) : aes.decryptingStream(shielded, aad), stream -> {
+            try (var unframing = new UnframingInputStream(stream)) {
+                unframing.transferTo(outputStream);
+                outputStream.flush();
+            } catch (IOException e) {
+                return reject(UNABLE_TO_DECRYPT_DATA);
+            }
+            return accept(outputStream);
+        });
+    }
+
+    private Result<? super Failure, Long, RejectReason> encryptPath(final Path source, final Path destination, final AAD aad) {
+        try {
+            if (isSameFile(source, destination)) {
+                return reject(UNABLE_TO_ENCRYPT_DATA);
+            }
+            try (var inputStream = Files.newInputStream(source);
+                 var outputStream = Files.newOutputStream(destination)) {
+                return fileResult(encryptStream(inputStream, outputStream, aad), destination, UNABLE_TO_ENCRYPT_DATA);
+            } catch (IOException e) {
+                truncate(destination);
+                return reject(UNABLE_TO_ENCRYPT_DATA);
+            }
+        } catch (IOException e) {
+            return reject(UNABLE_TO_ENCRYPT_DATA);
+        }
+    }
+
+    private Result<? super Failure, Long, RejectReason> decryptPath(final Path source, final Path destination, final AAD aad) {
+        try {
+            if (isSameFile(source, destination)) {
+                return reject(UNABLE_TO_DECRYPT_DATA);
+            }
+            try (var inputStream = Files.newInputStream(source);
+                 var outputStream = Files.newOutputStream(destination)) {
+                return fileResult(decryptStream(inputStream, outputStream, aad), destination, UNABLE_TO_DECRYPT_DATA);
+            } catch (IOException e) {
+                truncate(destination);
+                return reject(UNABLE_TO_DECRYPT_DATA);
+            }
+        } catch (IOException e) {
+            return reject(UNABLE_TO_DECRYPT_DATA);
+        }
+    }
+
+    private List<byte[]> frame(final List<byte[]> data) {
+        final var framed = new ArrayList<byte[]>(data.size());
+        for (final var item : data) {
+            notNull(item, "Data");
+            framed.add(frame(item));
+        }
+        return framed;
+    }
+
+    /**
+     * Compression stops as soon as the compressed data would be larger than the plain text
+     */
+    private byte[] frame(final byte[] data) {
+        if (data.length >= threshold && data.length <= maxPlainTextSize) {
+            final var compressed = new BoundedOutputStream(data.length);
+            try (var compressing = codec.compressing(compressed)) {
+                compressed.write(codec.id());
+                compressing.write(data);
+            } catch (IOException e) {
+                return uncompressed(data);
+            }
+            return compressed.toByteArray();
+        }
+        return uncompressed(data);
+    }
+
+    private static byte[] uncompressed(final byte[] data) {
+        final var framed = new byte[data.length + 1];
+        framed[0] = UNCOMPRESSED;
+        System.arraycopy(data, 0, framed, 1, data.length);
+        return framed;
+    }
+
+    private Result<? super Failure, byte[], RejectReason> unframe(final byte[] framed, final int length) {
+        if (length == 0) {
+            return reject(UNABLE_TO_DECRYPT_DATA);
+        }
+        if (framed[0] == UNCOMPRESSED) {
+            return accept(Arrays.copyOfRange(framed, 1, length));
+        }
+        final var plainText = new BoundedOutputStream(maxPlainTextSize);
+        if (!decompress(framed, length, plainText)) {
+            return reject(UNABLE_TO_DECRYPT_DATA);
+        }
+        return accept(plainText.toByteArray());
+    }
+
+    /**
+     * @return false if the data isn't compressed by the codec, is corrupt or doesn't fit in the plain text
+     */
+    private boolean decompress(final byte[] framed, final int length, final OutputStream plainText) {
+        if (framed[0] != codec.id()) {
+            return false;
+        }
+        try (var decompressing = codec.decompressing(new ByteArrayInputStream(framed, 1, length - 1))) {
+            decompressing.transferTo(plainText);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Result<? super Failure, Batch, RejectReason> unframe(final Batch batch) {
+        final var results = new ByteBuffer[batch.size()];
+        final var rejects = new RejectReason[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            final var result = batch.result(i);
+            if (!result.isAccept()) {
+                rejects[i] = result.liftReject();
+                continue;
+            }
+            final var framed = new byte[batch.length(i)];
+            result.liftAccept().get(framed);
+            final var plainText = unframe(framed, framed.length);
+            if (plainText.isAccept()) {
+                results[i] = ByteBuffer.wrap(plainText.liftAccept());
+            } else {
+                rejects[i] = plainText.liftReject();
+            }
+        }
+        return accept(batch(results, rejects, null));
+    }
+
+    private static void notNull(final Object input, final String identifier) {
+        if (input == null) {
+            throw new IllegalArgumentException(format("%s cannot be null", identifier));
+        }
+    }
+
+    /**
+     * Holds back the first bytes until the threshold is reached, which decides whether the data is
+     * compressed. Closing the stream completes the encryption and closes the wrapped stream.
+     */
+    private final class FramingOutputStream extends OutputStream {
+        private final OutputStream encrypting;
+        private final byte[] buffered = new byte[threshold];
+        private int count;
+        private OutputStream compressing;
+        private boolean closed;
+
+        private FramingOutputStream(final OutputStream encrypting) {
+            this.encrypting = encrypting;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (compressing == null) {
+                if (count + length < threshold) {
+                    System.arraycopy(buffer, offset, buffered, count, length);
+                    count += length;
+                    return;
+                }
+                encrypting.write(codec.id());
+                compressing = codec.compressing(encrypting);
+                compressing.write(buffered, 0, count);
+            }
+            compressing.write(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            (compressing == null ? encrypting : compressing).flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (compressing != null) {
+                compressing.close();
+                return;
+            }
+            try (encrypting) {
+                encrypting.write(UNCOMPRESSED);
+                encrypting.write(buffered, 0, count);
+            }
+        }
+    }
+
+    /**
+     * Reads the flag before the first byte of plain text. Compressed data is followed by the end
+     * of the decrypted stream, which is read to let the delegate detect truncated data.
+     */
+    private final class UnframingInputStream extends InputStream {
+        private final InputStream decrypted;
+        private InputStream plainText;
+
+        private UnframingInputStream(final InputStream decrypted) {
+            this.decrypted = decrypted;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final var single = new byte[1];
+            final var read = read(single, 0, 1);
+            return read < 0 ? read : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final var read = plainText().read(buffer, offset, length);
+            if (read < 0 && plainText != decrypted && decrypted.read() >= 0) {
+                throw new IOException("Data following compressed data");
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            (plainText == null ? decrypted : plainText).close();
+        }
+
+        private InputStream plainText() throws IOException {
+            if (plainText == null) {
+                final var flag = decrypted.read();
+                if (flag == UNCOMPRESSED) {
+                    plainText = decrypted;
+                } else if (flag == codec.id()) {
+                    plainText = codec.decompressing(decrypted);
+                } else {
+                    throw new IOException("Unknown compression");
+                }
+            }
+            return plainText;
+        }
+    }
+
+    /**
+     * Grows up to the capacity, and fails writes beyond it
+     */
+    private static final class BoundedOutputStream extends OutputStream {
+        private static final int INITIAL_CAPACITY = 8192;
+        private final int capacity;
+        private byte[] buffer;
+        private int count;
+
+        private BoundedOutputStream(final int capacity) {
+            this.capacity = capacity;
+            this.buffer = new byte[Math.min(capacity, INITIAL_CAPACITY)];
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            reserve(1);
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(final byte[] data, final int offset, final int length) throws IOException {
+            reserve(length);
+            System.arraycopy(data, offset, buffer, count, length);
+            count += length;
+        }
+
+        private void reserve(final int length) throws IOException {
+            if (length > capacity - count) {
+                throw new IOException("Capacity exceeded");
+            }
+            if (length > buffer.length - count) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(capacity, Math.max(count + (long) length, 2L * buffer.length)));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, count);
+        }
+    }
+
+    /**
+     * Fails writes beyond the remaining bytes of the buffer
+     */
+    private static final class BufferOutputStream extends OutputStream {
+        private final ByteBuffer buffer;
+
+        private BufferOutputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] data, final int offset, final int length) throws IOException {
+            if (length > buffer.remaining()) {
+                throw new IOException("Capacity exceeded");
+            }
+            buffer.put(data, offset, length);
+        }
+    }
+
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        private NonClosingOutputStream(final OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(final byte[] buffer, final int offset, final int length) throws IOException {
+            out.write(buffer, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private static final class NonClosingInputStream extends FilterInputStream {
+        private NonClosingInputStream(final InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
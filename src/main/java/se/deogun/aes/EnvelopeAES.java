@@ -0,0 +1,199 @@
+package se.deogun.aes;
+
+import se.deogun.aes.api.*;
+
+import javax.crypto.Cipher;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static java.util.Arrays.fill;
+import static javax.crypto.Cipher.DECRYPT_MODE;
+import static javax.crypto.Cipher.ENCRYPT_MODE;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.UNKNOWN_KEY;
+import static se.deogun.aes.api.Result.accept;
+import static se.deogun.aes.api.Result.reject;
+
+/**
+ * Envelope encryption, where messages are encrypted with random 256 bit data keys and every data
+ * key is wrapped with the key encryption key (AES-KW, RFC 3394). The wrapped data key is written
+ * as a 40 byte header in front of the encrypted data.
+ * <p>
+ * A data key is reused for the number of messages or the time to live of the policy, so the key
+ * encryption key is only used when a data key is replaced. Unwrapped data keys are cached for
+ * decryption in a bounded LRU cache, and are unwrapped again once their time to live has passed.
+ */
+final class EnvelopeAES extends KeyedAES {
+    private static final String KEY_WRAP_ALGORITHM = "AESWrap";
+    private static final int DATA_KEY_NUMBER_OF_BYTES = 32;
+    private static final int WRAPPED_DATA_KEY_NUMBER_OF_BYTES = DATA_KEY_NUMBER_OF_BYTES + 8;
+    private final se.deogun.aes.modes.common.Secret keyEncryptionKey;
+    private final Function<Secret, AES> mode;
+    private final EnvelopePolicy policy;
+    private final SecureRandom random = new SecureRandom();
+    private final SharedAESCache<ByteBuffer> cache;
+    private volatile DataKey current;
+    private volatile boolean closed;
+
+    EnvelopeAES(final Secret keyEncryptionKey, final Function<Secret, AES> mode, final EnvelopePolicy policy) {
+        super(WRAPPED_DATA_KEY_NUMBER_OF_BYTES);
+        final var key = keyEncryptionKey.key();
+        try {
+            this.keyEncryptionKey = new se.deogun.aes.modes.common.Secret(key);
+        } finally {
+            fill(key, (byte) 0);
+        }
+        this.mode = mode;
+        this.policy = policy;
+        this.cache = new SharedAESCache<>(policy.cachedDataKeys, SharedAESCache.FOREVER, () -> {});
+        try {
+            this.current = dataKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Unable to wrap data keys with the key encryption key");
+        }
+    }
+
+    @Override
+    Result<? super Failure, Key, RejectReason> encryptionKey(final int messages, final long bytes) {
+        while (!closed) {
+            final var dataKey = current;
+            if (!dataKey.isExpired() && dataKey.reserve(messages, policy.messagesPerDataKey) && dataKey.key.shared.acquire()) {
+                return accept(dataKey.key);
+            }
+            try {
+                replace(dataKey);
+            } catch (GeneralSecurityException | RuntimeException e) {
+                return Result.failure(new Failure(e.getClass()));
+            }
+        }
+        return reject(SECRET_DESTROYED);
+    }
+
+    @Override
+    Result<? super Failure, SharedAES, RejectReason> decryptionKey(final byte[] header) {
+        final var dataKey = current;
+        if (Arrays.equals(header, dataKey.key.header) && dataKey.key.shared.acquire()) {
+            return accept(dataKey.key.shared);
+        }
+        final var cached = cache.acquire(ByteBuffer.wrap(header));
+        if (cached != null) {
+            return accept(cached);
+        }
+        if (closed) {
+            return reject(SECRET_DESTROYED);
+        }
+        try {
+            // Data keys are unwrapped outside the cache, which uses one unwrapped concurrently instead of this one
+            final var unwrapped = dataKey(header, unwrap(header));
+            final var loaded = cache.load(ByteBuffer.wrap(unwrapped.key.header), unwrapped.key.shared, unwrapped.timeToLive());
+            return loaded == null ? reject(SECRET_DESTROYED) : accept(loaded);
+        } catch (GeneralSecurityException e) {
+            return reject(UNKNOWN_KEY);
+        } catch (RuntimeException e) {
+            return Result.failure(new Failure(e.getClass()));
+        }
+    }
+
+    @Override
+    public int maxEncryptedSize(final int plainTextSize) {
+        return WRAPPED_DATA_KEY_NUMBER_OF_BYTES + current.key.aes.maxEncryptedSize(plainTextSize);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        cache.close();
+        current.key.shared.release();
+        keyEncryptionKey.destroy();
+    }
+
+    /**
+     * The replaced data key is moved to the cache, since messages encrypted with it are likely to be
+     * decrypted soon
+     */
+    private synchronized void replace(final DataKey expected) throws GeneralSecurityException {
+        if (closed || current != expected) {
+            return;
+        }
+        current = dataKey();
+        final var cached = cache.load(ByteBuffer.wrap(expected.key.header), expected.key.shared, expected.timeToLive());
+        if (cached != null) {
+            cached.release();
+        }
+    }
+
+    private DataKey dataKey() throws GeneralSecurityException {
+        final var dataKey = new byte[DATA_KEY_NUMBER_OF_BYTES];
+        try {
+            random.nextBytes(dataKey);
+            return dataKey(wrap(dataKey), dataKey);
+        } finally {
+            fill(dataKey, (byte) 0);
+        }
+    }
+
+    /**
+     * The AES instance holds its own copy of the data key, hence the secret it's created from is
+     * destroyed right away
+     */
+    private DataKey dataKey(final byte[] header, final byte[] dataKey) {
+        final var secret = Secret.secretFromNonBase64EncodedKey(dataKey);
+        try {
+            return new DataKey(header, new SharedAES(mode.apply(secret)), System.nanoTime() + policy.timeToLive.toNanos());
+        } finally {
+            secret.destroy();
+            fill(dataKey, (byte) 0);
+        }
+    }
+
+    private byte[] wrap(final byte[] dataKey) throws GeneralSecurityException {
+        final var cipher = Cipher.getInstance(KEY_WRAP_ALGORITHM);
+        cipher.init(ENCRYPT_MODE, keyEncryptionKey.keySpecification());
+        return cipher.doFinal(dataKey);
+    }
+
+    private byte[] unwrap(final byte[] header) throws GeneralSecurityException {
+        final var cipher = Cipher.getInstance(KEY_WRAP_ALGORITHM);
+        cipher.init(DECRYPT_MODE, keyEncryptionKey.keySpecification());
+        return cipher.doFinal(header);
+    }
+
+    private static final class DataKey {
+        private final Key key;
+        private final AtomicLong messages = new AtomicLong();
+        private final long expires;
+
+        private DataKey(final byte[] header, final SharedAES shared, final long expires) {
+            this.key = new Key(header, shared, bytes -> {});
+            this.expires = expires;
+        }
+
+        /**
+         * A data key that hasn't been used accepts any number of messages, otherwise a single
+         * large batch would never fit
+         */
+        private boolean reserve(final int count, final long limit) {
+            for (var used = messages.get(); used == 0 || used + count <= limit; used = messages.get()) {
+                if (messages.compareAndSet(used, used + count)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expires >= 0;
+        }
+
+        private long timeToLive() {
+            return expires - System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package se.deogun.aes;
+
+import se.deogun.aes.api.*;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.TOO_MANY_OPERATIONS_IN_FLIGHT;
+import static se.deogun.aes.api.Result.reject;
+
+/**
+ * Runs the operations of an AES service on executors, one for CPU bound operations and one for
+ * operations blocking on I/O. Arguments are validated before an operation is submitted, i.e.
+ * invalid arguments throw on the calling thread like the synchronous operations do.
+ */
+final class ExecutorAsyncAES implements AsyncAES {
+    private final AES aes;
+    private final Executor cpu;
+    private final Executor io;
+    private final Semaphore inFlight;
+    private final Runnable release;
+
+    ExecutorAsyncAES(final AES aes, final Executor cpu, final Executor io, final int maxInFlight, final Runnable release) {
+        this.aes = aes;
+        this.cpu = cpu;
+        this.io = io;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.release = release;
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, byte[], RejectReason>> encrypt(final byte[] data, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(aad, "AAD");
+        return submit(cpu, () -> aes.encrypt(data, aad));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, byte[], RejectReason>> encrypt(final byte[] data) {
+        notNull(data, "Encryption data");
+        return submit(cpu, () -> aes.encrypt(data));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, byte[], RejectReason>> decrypt(final byte[] data, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(aad, "AAD");
+        return submit(cpu, () -> aes.decrypt(data, aad));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, byte[], RejectReason>> decrypt(final byte[] data) {
+        notNull(data, "Encryption data");
+        return submit(cpu, () -> aes.decrypt(data));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, byte[], RejectReason>> decrypt(final InputStream inputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(aad, "AAD");
+        return submit(io, () -> aes.decrypt(inputStream, aad));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, byte[], RejectReason>> decrypt(final InputStream inputStream) {
+        notNull(inputStream, "InputStream");
+        return submit(io, () -> aes.decrypt(inputStream));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, OutputStream, RejectReason>> encrypt(final InputStream inputStream, final OutputStream outputStream,
+                                                                                         final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return submit(io, () -> aes.encrypt(inputStream, outputStream, aad));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, OutputStream, RejectReason>> encrypt(final InputStream inputStream, final OutputStream outputStream) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        return submit(io, () -> aes.encrypt(inputStream, outputStream));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, OutputStream, RejectReason>> decrypt(final InputStream inputStream, final OutputStream outputStream,
+                                                                                         final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return submit(io, () -> aes.decrypt(inputStream, outputStream, aad));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, OutputStream, RejectReason>> decrypt(final InputStream inputStream, final OutputStream outputStream) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        return submit(io, () -> aes.decrypt(inputStream, outputStream));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, Long, RejectReason>> encryptFile(final Path source, final Path destination, final AAD aad) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return submit(io, () -> aes.encryptFile(source, destination, aad));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, Long, RejectReason>> encryptFile(final Path source, final Path destination) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        return submit(io, () -> aes.encryptFile(source, destination));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, Long, RejectReason>> decryptFile(final Path source, final Path destination, final AAD aad) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return submit(io, () -> aes.decryptFile(source, destination, aad));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, Long, RejectReason>> decryptFile(final Path source, final Path destination) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        return submit(io, () -> aes.decryptFile(source, destination));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, Batch, RejectReason>> encryptAll(final List<byte[]> data, final List<AAD> aad) {
+        notNull(data, "Data");
+        notNull(aad, "AAD");
+        sameSize(data, aad);
+        return submit(cpu, () -> aes.encryptAll(data, aad));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, Batch, RejectReason>> encryptAll(final List<byte[]> data) {
+        notNull(data, "Data");
+        return submit(cpu, () -> aes.encryptAll(data));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, Batch, RejectReason>> decryptAll(final List<byte[]> data, final List<AAD> aad) {
+        notNull(data, "Data");
+        notNull(aad, "AAD");
+        sameSize(data, aad);
+        return submit(cpu, () -> aes.decryptAll(data, aad));
+    }
+
+    @Override
+    public CompletableFuture<Result<? super Failure, Batch, RejectReason>> decryptAll(final List<byte[]> data) {
+        notNull(data, "Data");
+        return submit(cpu, () -> aes.decryptAll(data));
+    }
+
+    @Override
+    public void close() {
+        aes.close();
+        release.run();
+    }
+
+    /**
+     * The permit is released before the future is completed, which lets callbacks of the future
+     * start new operations. Errors complete the future with a failure too, and are then rethrown
+     * to the executor.
+     */
+    private <T> CompletableFuture<Result<? super Failure, T, RejectReason>> submit(final Executor executor,
+                                                                               final Supplier<Result<? super Failure, T, RejectReason>> operation) {
+        if (!inFlight.tryAcquire()) {
+            return completedFuture(reject(TOO_MANY_OPERATIONS_IN_FLIGHT));
+        }
+        final var future = new CompletableFuture<Result<? super Failure, T, RejectReason>>();
+        try {
+            executor.execute(() -> {
+                Result<? super Failure, T, RejectReason> result;
+                Error error = null;
+                try {
+                    result = operation.get();
+                } catch (RuntimeException e) {
+                    result = Result.failure(new Failure(e.getClass()));
+                } catch (Error e) {
+                    result = Result.failure(new Failure(e.getClass()));
+                    error = e;
+                } finally {
+                    inFlight.release();
+                }
+                future.complete(result);
+                if (error != null) {
+                    throw error;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            future.complete(reject(SECRET_DESTROYED));
+        }
+        return future;
+    }
+
+    private static void notNull(final Object input, final String identifier) {
+        if (input == null) {
+            throw new IllegalArgumentException(format("%s cannot be null", identifier));
+        }
+    }
+
+    private static void sameSize(final List<?> data, final List<?> aad) {
+        if (data.size() != aad.size()) {
+            throw new IllegalArgumentException("Data and AAD must have the same size");
+        }
+    }
+}
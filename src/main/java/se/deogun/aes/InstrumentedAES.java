@@ -0,0 +1,440 @@
+package se.deogun.aes;
+
+import se.deogun.aes.api.*;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+import static se.deogun.aes.KeyedAES.then;
+import static se.deogun.aes.api.Operation.DECRYPT;
+import static se.deogun.aes.api.Operation.ENCRYPT;
+import static se.deogun.aes.api.Result.accept;
+
+/**
+ * Reports the outcome, input size and duration of every operation of an AES service to an
+ * instrumentation, and as flight recorder events. Operations of returned streams complete when
+ * the stream is closed, and their input is counted as it's written or read.
+ */
+final class InstrumentedAES implements AES {
+    private final AES aes;
+    private final Instrumentation instrumentation;
+
+    InstrumentedAES(final AES aes, final Instrumentation instrumentation) {
+        this.aes = aes;
+        this.instrumentation = instrumentation;
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(aad, "AAD");
+        return record(ENCRYPT, data.length, () -> aes.encrypt(data, aad));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data) {
+        notNull(data, "Encryption data");
+        return record(ENCRYPT, data.length, () -> aes.encrypt(data));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final byte[] data, final OutputStream outputStream, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return record(ENCRYPT, data.length, () -> aes.encrypt(data, outputStream, aad));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final byte[] data, final OutputStream outputStream) {
+        notNull(data, "Encryption data");
+        notNull(outputStream, "OutputStream");
+        return record(ENCRYPT, data.length, () -> aes.encrypt(data, outputStream));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(aad, "AAD");
+        return record(DECRYPT, data.length, () -> aes.decrypt(data, aad));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data) {
+        notNull(data, "Encryption data");
+        return record(DECRYPT, data.length, () -> aes.decrypt(data));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final InputStream inputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(aad, "AAD");
+        return counted(DECRYPT, inputStream, counting -> aes.decrypt(counting, aad));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final InputStream inputStream) {
+        notNull(inputStream, "InputStream");
+        return counted(DECRYPT, inputStream, aes::decrypt);
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> encrypt(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return record(ENCRYPT, data.remaining(), () -> aes.encrypt(data, destination, aad));
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> encrypt(final ByteBuffer data, final ByteBuffer destination) {
+        notNull(data, "Encryption data");
+        notNull(destination, "Destination");
+        return record(ENCRYPT, data.remaining(), () -> aes.encrypt(data, destination));
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> decrypt(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return record(DECRYPT, data.remaining(), () -> aes.decrypt(data, destination, aad));
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> decrypt(final ByteBuffer data, final ByteBuffer destination) {
+        notNull(data, "Encryption data");
+        notNull(destination, "Destination");
+        return record(DECRYPT, data.remaining(), () -> aes.decrypt(data, destination));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return counted(ENCRYPT, inputStream, counting -> aes.encrypt(counting, outputStream, aad));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        return counted(ENCRYPT, inputStream, counting -> aes.encrypt(counting, outputStream));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encryptingStream(final OutputStream outputStream, final AAD aad) {
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return openEncryptingStream(() -> aes.encryptingStream(outputStream, aad));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encryptingStream(final OutputStream outputStream) {
+        notNull(outputStream, "OutputStream");
+        return openEncryptingStream(() -> aes.encryptingStream(outputStream));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> decrypt(final InputStream inputStream, final OutputStream outputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return counted(DECRYPT, inputStream, counting -> aes.decrypt(counting, outputStream, aad));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> decrypt(final InputStream inputStream, final OutputStream outputStream) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        return counted(DECRYPT, inputStream, counting -> aes.decrypt(counting, outputStream));
+    }
+
+    @Override
+    public Result<? super Failure, InputStream, RejectReason> decryptingStream(final InputStream inputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(aad, "AAD");
+        return openDecryptingStream(inputStream, counting -> aes.decryptingStream(counting, aad));
+    }
+
+    @Override
+    public Result<? super Failure, InputStream, RejectReason> decryptingStream(final InputStream inputStream) {
+        notNull(inputStream, "InputStream");
+        return openDecryptingStream(inputStream, aes::decryptingStream);
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> encryptFile(final Path source, final Path destination, final AAD aad) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return record(ENCRYPT, size(source), () -> aes.encryptFile(source, destination, aad));
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> encryptFile(final Path source, final Path destination) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        return record(ENCRYPT, size(source), () -> aes.encryptFile(source, destination));
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> decryptFile(final Path source, final Path destination, final AAD aad) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return record(DECRYPT, size(source), () -> aes.decryptFile(source, destination, aad));
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> decryptFile(final Path source, final Path destination) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        return record(DECRYPT, size(source), () -> aes.decryptFile(source, destination));
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> encryptAll(final List<byte[]> data, final List<AAD> aad) {
+        notNull(data, "Data");
+        notNull(aad, "AAD");
+        return record(ENCRYPT, size(data), () -> aes.encryptAll(data, aad));
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> encryptAll(final List<byte[]> data) {
+        notNull(data, "Data");
+        return record(ENCRYPT, size(data), () -> aes.encryptAll(data));
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> decryptAll(final List<byte[]> data, final List<AAD> aad) {
+        notNull(data, "Data");
+        notNull(aad, "AAD");
+        return record(DECRYPT, size(data), () -> aes.decryptAll(data, aad));
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> decryptAll(final List<byte[]> data) {
+        notNull(data, "Data");
+        return record(DECRYPT, size(data), () -> aes.decryptAll(data));
+    }
+
+    @Override
+    public int maxEncryptedSize(final int plainTextSize) {
+        return aes.maxEncryptedSize(plainTextSize);
+    }
+
+    @Override
+    public void close() {
+        aes.close();
+    }
+
+    private <T> Result<? super Failure, T, RejectReason> record(final Operation operation, final long bytes,
+                                                                final Supplier<Result<? super Failure, T, RejectReason>> action) {
+        final var started = new Started(operation);
+        final var result = action.get();
+        started.completed(bytes, result);
+        return result;
+    }
+
+    private <T> Result<? super Failure, T, RejectReason> counted(final Operation operation, final InputStream inputStream,
+                                                                 final Function<InputStream, Result<? super Failure, T, RejectReason>> action) {
+        final var started = new Started(operation);
+        final var counting = new CountingInputStream(inputStream);
+        final var result = action.apply(counting);
+        started.completed(counting.bytes, result);
+        return result;
+    }
+
+    private Result<? super Failure, OutputStream, RejectReason> openEncryptingStream(final Supplier<Result<? super Failure, OutputStream, RejectReason>> open) {
+        final var started = new Started(ENCRYPT);
+        final var result = open.get();
+        if (!result.isAccept()) {
+            started.completed(0, result);
+        }
+        return then(result, stream -> accept(new CompletingOutputStream(stream, started)));
+    }
+
+    private Result<? super Failure, InputStream, RejectReason> openDecryptingStream(final InputStream inputStream,
+                                                                                    final Function<InputStream, Result<? super Failure, InputStream, RejectReason>> open) {
+        final var started = new Started(DECRYPT);
+        final var counting = new CountingInputStream(inputStream);
+        final var result = open.apply(counting);
+        if (!result.isAccept()) {
+            started.completed(counting.bytes, result);
+        }
+        return then(result, stream -> accept(new CompletingInputStream(stream, counting, started)));
+    }
+
+    /**
+     * The size is read before the operation, which may replace the source
+     */
+    private static long size(final Path source) {
+        try {
+            return Files.size(source);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long size(final List<byte[]> data) {
+        long size = 0;
+        for (final var item : data) {
+            size += item == null ? 0 : item.length;
+        }
+        return size;
+    }
+
+    private static void notNull(final Object input, final String identifier) {
+        if (input == null) {
+            throw new IllegalArgumentException(format("%s cannot be null", identifier));
+        }
+    }
+
+    private final class Started {
+        private final Operation operation;
+        private final OperationEvent event = new OperationEvent();
+        private final long start;
+
+        private Started(final Operation operation) {
+            this.operation = operation;
+            event.begin();
+            this.start = System.nanoTime();
+        }
+
+        private void completed(final long bytes, final Result<?, ?, RejectReason> result) {
+            final var nanos = System.nanoTime() - start;
+            final String outcome;
+            if (result.isAccept()) {
+                instrumentation.accepted(operation, bytes, nanos);
+                outcome = "ACCEPTED";
+            } else if (result.isReject()) {
+                instrumentation.rejected(operation, result.liftReject(), nanos);
+                outcome = result.liftReject().name();
+            } else {
+                instrumentation.failed(operation, nanos);
+                outcome = "FAILED";
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation.name();
+                event.bytes = bytes;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+
+        private void failed(final long bytes) {
+            completed(bytes, Result.failure(new Failure(IOException.class)));
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long bytes;
+
+        private CountingInputStream(final InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final var read = super.read();
+            if (read >= 0) {
+                bytes++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final var read = super.read(buffer, offset, length);
+            if (read > 0) {
+                bytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final var skipped = super.skip(n);
+            bytes += skipped;
+            return skipped;
+        }
+    }
+
+    private static final class CompletingOutputStream extends FilterOutputStream {
+        private final Started started;
+        private long bytes;
+        private boolean closed;
+
+        private CompletingOutputStream(final OutputStream outputStream, final Started started) {
+            super(outputStream);
+            this.started = started;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(final byte[] buffer, final int offset, final int length) throws IOException {
+            out.write(buffer, offset, length);
+            bytes += length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } catch (IOException e) {
+                started.failed(bytes);
+                throw e;
+            }
+            started.completed(bytes, accept(this));
+        }
+    }
+
+    private static final class CompletingInputStream extends FilterInputStream {
+        private final CountingInputStream counting;
+        private final Started started;
+        private boolean closed;
+
+        private CompletingInputStream(final InputStream inputStream, final CountingInputStream counting, final Started started) {
+            super(inputStream);
+            this.counting = counting;
+            this.started = started;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } catch (IOException e) {
+                started.failed(counting.bytes);
+                throw e;
+            }
+            started.completed(counting.bytes, accept(this));
+        }
+    }
+}
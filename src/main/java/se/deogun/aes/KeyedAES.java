@@ -0,0 +1,744 @@
+package se.deogun.aes;
+
+import se.deogun.aes.api.*;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_ENCRYPT_DATA;
+import static se.deogun.aes.api.Result.accept;
+import static se.deogun.aes.api.Result.reject;
+
+/**
+ * Base of AES services where the key of every message is selected by a fixed size header written
+ * in front of the encrypted data. Subclasses decide which key encrypts a message and how a header
+ * maps back to a key, and every operation is delegated to the AES service of that key. The
+ * encrypted data following the header is in the format of the delegate.
+ * <p>
+ * Files are encrypted and decrypted through the stream operations of the delegate since the
+ * header precedes the encrypted file. Keys are acquired for the duration of an operation, or
+ * until a returned stream is closed, which lets subclasses retire keys that are still in use.
+ */
+abstract class KeyedAES implements AES {
+    private final int headerSize;
+
+    KeyedAES(final int headerSize) {
+        this.headerSize = headerSize;
+    }
+
+    /**
+     * @param messages number of messages about to be encrypted
+     * @param bytes number of plain text bytes about to be encrypted, 0 if unknown up front
+     * @return key to encrypt the messages with, acquired for the operation
+     */
+    abstract Result<? super Failure, Key, RejectReason> encryptionKey(int messages, long bytes);
+
+    /**
+     * @param header header of encrypted data
+     * @return AES service of the key the data was encrypted with, acquired for the operation
+     */
+    abstract Result<? super Failure, SharedAES, RejectReason> decryptionKey(byte[] header);
+
+    /**
+     * Key used to encrypt a message: the header identifying it, its AES service and where to
+     * report plain text bytes that weren't known when the key was selected
+     */
+    static final class Key {
+        final byte[] header;
+        final SharedAES shared;
+        final AES aes;
+        final LongConsumer bytes;
+
+        Key(final byte[] header, final SharedAES shared, final LongConsumer bytes) {
+            this.header = header;
+            this.shared = shared;
+            this.aes = shared.aes;
+            this.bytes = bytes;
+        }
+    }
+
+    int headerSize() {
+        return headerSize;
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(aad, "AAD");
+        return encryptBytes(data, aad);
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> encrypt(final byte[] data) {
+        notNull(data, "Encryption data");
+        return encryptBytes(data, null);
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final byte[] data, final OutputStream outputStream, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return encryptBytes(data, outputStream, aad);
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final byte[] data, final OutputStream outputStream) {
+        notNull(data, "Encryption data");
+        notNull(outputStream, "OutputStream");
+        return encryptBytes(data, outputStream, null);
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(aad, "AAD");
+        return decryptBytes(data, aad);
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final byte[] data) {
+        notNull(data, "Encryption data");
+        return decryptBytes(data, null);
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final InputStream inputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(aad, "AAD");
+        return withDecryptionKey(inputStream, aes -> aes.decrypt(inputStream, aad));
+    }
+
+    @Override
+    public Result<? super Failure, byte[], RejectReason> decrypt(final InputStream inputStream) {
+        notNull(inputStream, "InputStream");
+        return withDecryptionKey(inputStream, aes -> aes.decrypt(inputStream));
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> encrypt(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+        notNull(data, "Encryption data");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return encryptBuffer(data, destination, aad);
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> encrypt(final ByteBuffer data, final ByteBuffer destination) {
+        notNull(data, "Encryption data");
+        notNull(destination, "Destination");
+        return encryptBuffer(data, destination, null);
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> decrypt(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+        notNull(data, "Decryption data");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return decryptBuffer(data, destination, aad);
+    }
+
+    @Override
+    public Result<? super Failure, ByteBuffer, RejectReason> decrypt(final ByteBuffer data, final ByteBuffer destination) {
+        notNull(data, "Decryption data");
+        notNull(destination, "Destination");
+        return decryptBuffer(data, destination, null);
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return encryptStream(inputStream, outputStream, aad);
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encrypt(final InputStream inputStream, final OutputStream outputStream) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        return encryptStream(inputStream, outputStream, null);
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encryptingStream(final OutputStream outputStream, final AAD aad) {
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return openEncryptingStream(outputStream, aad);
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> encryptingStream(final OutputStream outputStream) {
+        notNull(outputStream, "OutputStream");
+        return openEncryptingStream(outputStream, null);
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> decrypt(final InputStream inputStream, final OutputStream outputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        notNull(aad, "AAD");
+        return withDecryptionKey(inputStream, aes -> aes.decrypt(inputStream, outputStream, aad));
+    }
+
+    @Override
+    public Result<? super Failure, OutputStream, RejectReason> decrypt(final InputStream inputStream, final OutputStream outputStream) {
+        notNull(inputStream, "InputStream");
+        notNull(outputStream, "OutputStream");
+        return withDecryptionKey(inputStream, aes -> aes.decrypt(inputStream, outputStream));
+    }
+
+    @Override
+    public Result<? super Failure, InputStream, RejectReason> decryptingStream(final InputStream inputStream, final AAD aad) {
+        notNull(inputStream, "InputStream");
+        notNull(aad, "AAD");
+        return openDecryptingStream(inputStream, aad);
+    }
+
+    @Override
+    public Result<? super Failure, InputStream, RejectReason> decryptingStream(final InputStream inputStream) {
+        notNull(inputStream, "InputStream");
+        return openDecryptingStream(inputStream, null);
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> encryptFile(final Path source, final Path destination, final AAD aad) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return encryptPath(source, destination, aad);
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> encryptFile(final Path source, final Path destination) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        return encryptPath(source, destination, null);
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> decryptFile(final Path source, final Path destination, final AAD aad) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        notNull(aad, "AAD");
+        return decryptPath(source, destination, aad);
+    }
+
+    @Override
+    public Result<? super Failure, Long, RejectReason> decryptFile(final Path source, final Path destination) {
+        notNull(source, "Source");
+        notNull(destination, "Destination");
+        return decryptPath(source, destination, null);
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> encryptAll(final List<byte[]> data, final List<AAD> aad) {
+        notNull(data, "Data");
+        notNull(aad, "AAD");
+        sameSize(data, aad);
+        return encryptBatch(data, aad);
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> encryptAll(final List<byte[]> data) {
+        notNull(data, "Data");
+        return encryptBatch(data, null);
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> decryptAll(final List<byte[]> data, final List<AAD> aad) {
+        notNull(data, "Data");
+        notNull(aad, "AAD");
+        sameSize(data, aad);
+        return decryptBatch(data, aad);
+    }
+
+    @Override
+    public Result<? super Failure, Batch, RejectReason> decryptAll(final List<byte[]> data) {
+        notNull(data, "Data");
+        return decryptBatch(data, null);
+    }
+
+    private Result<? super Failure, byte[], RejectReason> encryptBytes(final byte[] data, final AAD aad) {
+        return withEncryptionKey(1, data.length, key -> {
+            final var encrypted = new byte[headerSize + key.aes.maxEncryptedSize(data.length)];
+            final var destination = ByteBuffer.wrap(encrypted).put(key.header);
+            final var source = ByteBuffer.wrap(data);
+            return then(aad == null ? key.aes.encrypt(source, destination) : key.aes.encrypt(source, destination, aad),
+                    written -> accept(trim(encrypted, written.position())));
+        });
+    }
+
+    private Result<? super Failure, OutputStream, RejectReason> encryptBytes(final byte[] data, final OutputStream outputStream, final AAD aad) {
+        return withEncryptionKey(1, data.length, key -> {
+            if (!writeHeader(key, outputStream)) {
+                return reject(UNABLE_TO_ENCRYPT_DATA);
+            }
+            return aad == null ? key.aes.encrypt(data, outputStream) : key.aes.encrypt(data, outputStream, aad);
+        });
+    }
+
+    private Result<? super Failure, byte[], RejectReason> decryptBytes(final byte[] data, final AAD aad) {
+        if (data.length < headerSize) {
+            return reject(UNABLE_TO_DECRYPT_DATA);
+        }
+        return withDecryptionKey(Arrays.copyOf(data, headerSize), aes -> {
+            final var decrypted = new byte[data.length - headerSize];
+            final var source = ByteBuffer.wrap(data, headerSize, data.length - headerSize);
+            final var destination = ByteBuffer.wrap(decrypted);
+            return then(aad == null ? aes.decrypt(source, destination) : aes.decrypt(source, destination, aad),
+                    written -> accept(trim(decrypted, written.position())));
+        });
+    }
+
+    private Result<? super Failure, ByteBuffer, RejectReason> encryptBuffer(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+        if (destination.remaining() < headerSize) {
+            return reject(UNABLE_TO_ENCRYPT_DATA);
+        }
+        return withEncryptionKey(1, data.remaining(), key -> {
+            final var position = destination.position();
+            destination.put(key.header);
+            final Result<? super Failure, ByteBuffer, RejectReason> result = aad == null
+                    ? key.aes.encrypt(data, destination)
+                    : key.aes.encrypt(data, destination, aad);
+            if (!result.isAccept()) {
+                destination.position(position);
+            }
+            return result;
+        });
+    }
+
+    private Result<? super Failure, ByteBuffer, RejectReason> decryptBuffer(final ByteBuffer data, final ByteBuffer destination, final AAD aad) {
+        if (data.remaining() < headerSize) {
+            return reject(UNABLE_TO_DECRYPT_DATA);
+        }
+        final var position = data.position();
+        final var header = new byte[headerSize];
+        data.get(header);
+        final Result<? super Failure, ByteBuffer, RejectReason> result = withDecryptionKey(header,
+                aes -> aad == null ? aes.decrypt(data, destination) : aes.decrypt(data, destination, aad));
+        if (!result.isAccept()) {
+            data.position(position);
+        }
+        return result;
+    }
+
+    private Result<? super Failure, OutputStream, RejectReason> encryptStream(final InputStream inputStream, final OutputStream outputStream,
+                                                                            final AAD aad) {
+        return withEncryptionKey(1, 0, key -> {
+            if (!writeHeader(key, outputStream)) {
+                return reject(UNABLE_TO_ENCRYPT_DATA);
+            }
+            final var counted = new CountingInputStream(inputStream, key.bytes);
+            return aad == null ? key.aes.encrypt(counted, outputStream) : key.aes.encrypt(counted, outputStream, aad);
+        });
+    }
+
+    private Result<? super Failure, OutputStream, RejectReason> openEncryptingStream(final OutputStream outputStream, final AAD aad) {
+        return then(encryptionKey(1, 0), key -> {
+            if (!writeHeader(key, outputStream)) {
+                key.shared.release();
+                return reject(UNABLE_TO_ENCRYPT_DATA);
+            }
+            final Result<? super Failure, OutputStream, RejectReason> result = aad == null
+                    ? key.aes.encryptingStream(outputStream)
+                    : key.aes.encryptingStream(outputStream, aad);
+            if (!result.isAccept()) {
+                key.shared.release();
+            }
+            return then(result, stream -> accept(new CountingOutputStream(stream, key)));
+        });
+    }
+
+    private Result<? super Failure, InputStream, RejectReason> openDecryptingStream(final InputStream inputStream, final AAD aad) {
+        return then(decryptionKey(inputStream), shared -> {
+            final Result<? super Failure, InputStream, RejectReason> result = aad == null
+                    ? shared.aes.decryptingStream(inputStream)
+                    : shared.aes.decryptingStream(inputStream, aad);
+            if (!result.isAccept()) {
+                shared.release();
+            }
+            return then(result, stream -> accept(new ReleasingInputStream(stream, shared)));
+        });
+    }
+
+    private Result<? super Failure, Long, RejectReason> encryptPath(final Path source, final Path destination, final AAD aad) {
+        try {
+            if (isSameFile(source, destination)) {
+                return reject(UNABLE_TO_ENCRYPT_DATA);
+            }
+            final var size = Files.size(source);
+            return withEncryptionKey(1, size, key -> {
+                try (var inputStream = Files.newInputStream(source);
+                     var outputStream = Files.newOutputStream(destination)) {
+                    outputStream.write(key.header);
+                    final Result<? super Failure, OutputStream, RejectReason> result = aad == null
+                            ? key.aes.encrypt(inputStream, outputStream)
+                            : key.aes.encrypt(inputStream, outputStream, aad);
+                    return fileResult(result, destination, UNABLE_TO_ENCRYPT_DATA);
+                } catch (IOException e) {
+                    truncate(destination);
+                    return reject(UNABLE_TO_ENCRYPT_DATA);
+                }
+            });
+        } catch (IOException e) {
+            return reject(UNABLE_TO_ENCRYPT_DATA);
+        }
+    }
+
+    private Result<? super Failure, Long, RejectReason> decryptPath(final Path source, final Path destination, final AAD aad) {
+        try {
+            if (isSameFile(source, destination)) {
+                return reject(UNABLE_TO_DECRYPT_DATA);
+            }
+            try (var inputStream = Files.newInputStream(source)) {
+                final var header = inputStream.readNBytes(headerSize);
+                if (header.length != headerSize) {
+                    return reject(UNABLE_TO_DECRYPT_DATA);
+                }
+                return withDecryptionKey(header, aes -> {
+                    try (var outputStream = Files.newOutputStream(destination)) {
+                        final Result<? super Failure, OutputStream, RejectReason> result = aad == null
+                                ? aes.decrypt(inputStream, outputStream)
+                                : aes.decrypt(inputStream, outputStream, aad);
+                        return fileResult(result, destination, UNABLE_TO_DECRYPT_DATA);
+                    } catch (IOException e) {
+                        truncate(destination);
+                        return reject(UNABLE_TO_DECRYPT_DATA);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            return reject(UNABLE_TO_DECRYPT_DATA);
+        }
+    }
+
+    private Result<? super Failure, Batch, RejectReason> encryptBatch(final List<byte[]> data, final List<AAD> aad) {
+        long bytes = 0;
+        for (final var item : data) {
+            notNull(item, "Data");
+            bytes += item.length;
+        }
+        return withEncryptionKey(data.size(), bytes,
+                key -> then(aad == null ? key.aes.encryptAll(data) : key.aes.encryptAll(data, aad),
+                        batch -> accept(withHeader(batch, key.header))));
+    }
+
+    /**
+     * Decrypts every group of items sharing a header with one delegate batch, and merges the
+     * results back in the order of the items
+     */
+    private Result<? super Failure, Batch, RejectReason> decryptBatch(final List<byte[]> data, final List<AAD> aad) {
+        final var items = data.toArray(new byte[0][]);
+        final var results = new ByteBuffer[items.length];
+        final var rejects = new RejectReason[items.length];
+        final var groups = new HashMap<ByteBuffer, List<Integer>>();
+        for (int i = 0; i < items.length; i++) {
+            notNull(items[i], "Data");
+            if (items[i].length < headerSize) {
+                rejects[i] = UNABLE_TO_DECRYPT_DATA;
+            } else {
+                groups.computeIfAbsent(ByteBuffer.wrap(items[i], 0, headerSize).slice(), header -> new ArrayList<>()).add(i);
+            }
+        }
+
+        for (final var group : groups.entrySet()) {
+            final var header = new byte[headerSize];
+            group.getKey().duplicate().get(header);
+            final var indexes = group.getValue();
+            final var key = decryptionKey(header);
+            if (!key.isAccept()) {
+                if (key.isFailure()) {
+                    return failed(key);
+                }
+                indexes.forEach(index -> rejects[index] = key.liftReject());
+                continue;
+            }
+
+            final var encrypted = new ArrayList<byte[]>(indexes.size());
+            final var aads = new ArrayList<AAD>(indexes.size());
+            for (final var index : indexes) {
+                encrypted.add(Arrays.copyOfRange(items[index], headerSize, items[index].length));
+                if (aad != null) {
+                    aads.add(aad.get(index));
+                }
+            }
+            final var shared = key.liftAccept();
+            final Result<? super Failure, Batch, RejectReason> decrypted;
+            try {
+                decrypted = aad == null ? shared.aes.decryptAll(encrypted) : shared.aes.decryptAll(encrypted, aads);
+            } finally {
+                shared.release();
+            }
+            if (!decrypted.isAccept()) {
+                if (decrypted.isFailure()) {
+                    return failed(decrypted);
+                }
+                indexes.forEach(index -> rejects[index] = decrypted.liftReject());
+                continue;
+            }
+            final var batch = decrypted.liftAccept();
+            for (int i = 0; i < indexes.size(); i++) {
+                final var result = batch.result(i);
+                if (result.isAccept()) {
+                    results[indexes.get(i)] = result.liftAccept();
+                } else {
+                    rejects[indexes.get(i)] = result.liftReject();
+                }
+            }
+        }
+        return accept(batch(results, rejects, null));
+    }
+
+    private static Batch withHeader(final Batch batch, final byte[] header) {
+        final var results = new ByteBuffer[batch.size()];
+        final var rejects = new RejectReason[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            final var result = batch.result(i);
+            if (result.isAccept()) {
+                results[i] = result.liftAccept();
+            } else {
+                rejects[i] = result.liftReject();
+            }
+        }
+        return batch(results, rejects, header);
+    }
+
+    static Batch batch(final ByteBuffer[] results, final RejectReason[] rejects, final byte[] header) {
+        final var headerSize = header == null ? 0 : header.length;
+        var size = 0;
+        for (final var result : results) {
+            size += result == null ? 0 : headerSize + result.remaining();
+        }
+        final var buffer = ByteBuffer.allocate(size);
+        final var offsets = new int[results.length + 1];
+        for (int i = 0; i < results.length; i++) {
+            offsets[i] = buffer.position();
+            if (results[i] != null) {
+                if (header != null) {
+                    buffer.put(header);
+                }
+                buffer.put(results[i]);
+            }
+        }
+        offsets[results.length] = buffer.position();
+        return new Batch(buffer.array(), offsets, rejects);
+    }
+
+    private <T> Result<? super Failure, T, RejectReason> withEncryptionKey(final int messages, final long bytes,
+                                                                        final Function<Key, Result<? super Failure, T, RejectReason>> operation) {
+        return then(encryptionKey(messages, bytes), key -> {
+            try {
+                return operation.apply(key);
+            } finally {
+                key.shared.release();
+            }
+        });
+    }
+
+    private <T> Result<? super Failure, T, RejectReason> withDecryptionKey(final byte[] header,
+                                                                        final Function<AES, Result<? super Failure, T, RejectReason>> operation) {
+        return then(decryptionKey(header), shared -> using(shared, operation));
+    }
+
+    private <T> Result<? super Failure, T, RejectReason> withDecryptionKey(final InputStream inputStream,
+                                                                        final Function<AES, Result<? super Failure, T, RejectReason>> operation) {
+        return then(decryptionKey(inputStream), shared -> using(shared, operation));
+    }
+
+    private static <T> Result<? super Failure, T, RejectReason> using(final SharedAES shared,
+                                                                   final Function<AES, Result<? super Failure, T, RejectReason>> operation) {
+        try {
+            return operation.apply(shared.aes);
+        } finally {
+            shared.release();
+        }
+    }
+
+    private Result<? super Failure, SharedAES, RejectReason> decryptionKey(final InputStream inputStream) {
+        try {
+            final var header = inputStream.readNBytes(headerSize);
+            if (header.length != headerSize) {
+                return reject(UNABLE_TO_DECRYPT_DATA);
+            }
+            return decryptionKey(header);
+        } catch (IOException e) {
+            return reject(UNABLE_TO_DECRYPT_DATA);
+        }
+    }
+
+    private static boolean writeHeader(final Key key, final OutputStream outputStream) {
+        try {
+            outputStream.write(key.header);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param reason reject reason if the destination can't be flushed, which truncates it
+     */
+    static Result<? super Failure, Long, RejectReason> fileResult(final Result<? super Failure, OutputStream, RejectReason> result,
+                                                                  final Path destination, final RejectReason reason) throws IOException {
+        if (!result.isAccept()) {
+            truncate(destination);
+        }
+        return then(result, accepted -> {
+            try {
+                accepted.flush();
+                return accept(Files.size(destination));
+            } catch (IOException e) {
+                truncate(destination);
+                return reject(reason);
+            }
+        });
+    }
+
+    static boolean isSameFile(final Path source, final Path destination) throws IOException {
+        return Files.exists(destination) && Files.isSameFile(source, destination);
+    }
+
+    static void truncate(final Path destination) {
+        try (var channel = FileChannel.open(destination, WRITE)) {
+            channel.truncate(0);
+        } catch (IOException ignored) {
+            // The operation is rejected regardless
+        }
+    }
+
+    private static byte[] trim(final byte[] data, final int length) {
+        return data.length == length ? data : Arrays.copyOf(data, length);
+    }
+
+    /**
+     * Continues with the operation if the result is accepted, and passes rejects and failures on
+     */
+    static <A, B> Result<? super Failure, B, RejectReason> then(final Result<? super Failure, A, RejectReason> result,
+                                                                final Function<A, Result<? super Failure, B, RejectReason>> operation) {
+        if (result.isAccept()) {
+            return operation.apply(result.liftAccept());
+        }
+        if (result.isReject()) {
+            return reject(result.liftReject());
+        }
+        return failed(result);
+    }
+
+    private static <F extends Throwable, A, B> Result<F, B, RejectReason> failed(final Result<F, A, RejectReason> result) {
+        return Result.failure(result.liftFailure());
+    }
+
+    static void notNull(final Object input, final String identifier) {
+        if (input == null) {
+            throw new IllegalArgumentException(format("%s cannot be null", identifier));
+        }
+    }
+
+    private static void sameSize(final List<?> data, final List<?> aad) {
+        if (data.size() != aad.size()) {
+            throw new IllegalArgumentException("Data and AAD must have the same size");
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final LongConsumer bytes;
+
+        private CountingInputStream(final InputStream inputStream, final LongConsumer bytes) {
+            super(inputStream);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final var read = super.read();
+            if (read >= 0) {
+                bytes.accept(1);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final var read = super.read(buffer, offset, length);
+            if (read > 0) {
+                bytes.accept(read);
+            }
+            return read;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private final Key key;
+        private boolean closed;
+
+        private CountingOutputStream(final OutputStream outputStream, final Key key) {
+            super(outputStream);
+            this.key = key;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            key.bytes.accept(1);
+        }
+
+        @Override
+        public void write(final byte[] buffer, final int offset, final int length) throws IOException {
+            out.write(buffer, offset, length);
+            key.bytes.accept(length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                key.shared.release();
+            }
+        }
+    }
+
+    private static final class ReleasingInputStream extends FilterInputStream {
+        private final SharedAES shared;
+        private boolean closed;
+
+        private ReleasingInputStream(final InputStream inputStream, final SharedAES shared) {
+            super(inputStream);
+            this.shared = shared;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                shared.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package se.deogun.aes;
+
+import se.deogun.aes.api.*;
+
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.UNKNOWN_KEY;
+import static se.deogun.aes.api.Result.accept;
+import static se.deogun.aes.api.Result.reject;
+
+/**
+ * Encrypts with one key of a keyring, and decrypts data encrypted with any of its keys. The id of
+ * the key is written as a 4 byte header in front of the encrypted data, which means the key of
+ * encrypted data is found with one lookup regardless of the size of the keyring.
+ * <p>
+ * The AES services of recently used keys are kept warm in a bounded LRU cache, and cold keys are
+ * fetched from the keyring when first needed. Evicted keys are closed once the operations using
+ * them have completed. The encryption key is never evicted.
+ */
+final class KeyringAES extends KeyedAES {
+    private static final int KEY_ID_NUMBER_OF_BYTES = Integer.BYTES;
+    private final IntFunction<Secret> keyring;
+    private final Function<Secret, AES> mode;
+    private final Key encryptionKey;
+    private final int encryptionKeyId;
+    private final SharedAESCache<Integer> warm;
+    private volatile boolean closed;
+
+    KeyringAES(final IntFunction<Secret> keyring, final int encryptionKeyId, final Function<Secret, AES> mode, final int warmKeys) {
+        super(KEY_ID_NUMBER_OF_BYTES);
+        this.keyring = keyring;
+        this.mode = mode;
+        this.encryptionKeyId = encryptionKeyId;
+        final var secret = keyring.apply(encryptionKeyId);
+        if (secret == null) {
+            throw new IllegalArgumentException("Encryption key must be in the keyring");
+        }
+        this.encryptionKey = new Key(ByteBuffer.allocate(KEY_ID_NUMBER_OF_BYTES).putInt(encryptionKeyId).array(),
+                new SharedAES(mode.apply(secret)), bytes -> {});
+        this.warm = new SharedAESCache<>(warmKeys, SharedAESCache.FOREVER, () -> {});
+    }
+
+    @Override
+    Result<? super Failure, Key, RejectReason> encryptionKey(final int messages, final long bytes) {
+        return encryptionKey.shared.acquire() ? accept(encryptionKey) : reject(SECRET_DESTROYED);
+    }
+
+    @Override
+    Result<? super Failure, SharedAES, RejectReason> decryptionKey(final byte[] header) {
+        final var id = ByteBuffer.wrap(header).getInt();
+        if (id == encryptionKeyId) {
+            return encryptionKey.shared.acquire() ? accept(encryptionKey.shared) : reject(SECRET_DESTROYED);
+        }
+        final var cached = warm.acquire(id);
+        if (cached != null) {
+            return accept(cached);
+        }
+        if (closed) {
+            return reject(SECRET_DESTROYED);
+        }
+        try {
+            final var secret = keyring.apply(id);
+            if (secret == null) {
+                return reject(UNKNOWN_KEY);
+            }
+            final var loaded = warm.load(id, new SharedAES(mode.apply(secret)), SharedAESCache.FOREVER);
+            return loaded == null ? reject(SECRET_DESTROYED) : accept(loaded);
+        } catch (RuntimeException e) {
+            return Result.failure(new Failure(e.getClass()));
+        }
+    }
+
+    @Override
+    public int maxEncryptedSize(final int plainTextSize) {
+        return KEY_ID_NUMBER_OF_BYTES + encryptionKey.aes.maxEncryptedSize(plainTextSize);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (warm.close()) {
+            encryptionKey.shared.release();
+        }
+    }
+}
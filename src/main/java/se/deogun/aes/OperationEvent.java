@@ -0,0 +1,30 @@
+package se.deogun.aes;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of an operation of an instrumented AES service. The event is cheap to
+ * create and its fields are only set when a recording has enabled it.
+ */
+@Name("se.deogun.aes.Operation")
+@Label("AES Operation")
+@Category("AES")
+@Description("Encryption or decryption of an instrumented AES service")
+@StackTrace(false)
+final class OperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Input Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Outcome")
+    String outcome;
+}
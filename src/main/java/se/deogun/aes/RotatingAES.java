@@ -0,0 +1,130 @@
+package se.deogun.aes;
+
+import se.deogun.aes.api.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.UNKNOWN_KEY;
+import static se.deogun.aes.api.Result.accept;
+import static se.deogun.aes.api.Result.reject;
+
+/**
+ * Encrypts with the current key until it has been used for the number of messages or bytes of the
+ * rotation policy, and then switches to the next key of the supplier. Usage is counted per key with
+ * {@link LongAdder}s, which keeps threads from contending on the counters.
+ * <p>
+ * Keys are numbered in the order they're supplied, and the number is written as a 4 byte header
+ * in front of the encrypted data. The latest keys of the policy are kept in a ring indexed by key
+ * number, and the key of encrypted data is looked up in constant time. Older keys are closed once
+ * the operations using them have completed, and data encrypted with them is rejected with
+ * {@link RejectReason#UNKNOWN_KEY}.
+ */
+final class RotatingAES extends KeyedAES {
+    private static final int KEY_ID_NUMBER_OF_BYTES = Integer.BYTES;
+    private final Supplier<Secret> secrets;
+    private final Function<Secret, AES> mode;
+    private final RotationPolicy policy;
+    private final AtomicReferenceArray<Generation> generations;
+    private volatile Generation current;
+    private volatile boolean closed;
+
+    RotatingAES(final Supplier<Secret> secrets, final Function<Secret, AES> mode, final RotationPolicy policy) {
+        super(KEY_ID_NUMBER_OF_BYTES);
+        this.secrets = secrets;
+        this.mode = mode;
+        this.policy = policy;
+        this.generations = new AtomicReferenceArray<>(policy.retainedKeys);
+        this.current = generation(0);
+        generations.set(0, current);
+    }
+
+    @Override
+    Result<? super Failure, Key, RejectReason> encryptionKey(final int messages, final long bytes) {
+        while (!closed) {
+            final var generation = current;
+            // A fresh key is used regardless of the limits, otherwise a single large operation would never fit
+            if ((generation.fits(messages, bytes, policy) || generation.isUnused()) && generation.key.shared.acquire()) {
+                generation.messages.add(messages);
+                generation.bytes.add(bytes);
+                return accept(generation.key);
+            }
+            try {
+                rotate(generation);
+            } catch (RuntimeException e) {
+                return Result.failure(new Failure(e.getClass()));
+            }
+        }
+        return reject(SECRET_DESTROYED);
+    }
+
+    @Override
+    Result<? super Failure, SharedAES, RejectReason> decryptionKey(final byte[] header) {
+        final var id = ByteBuffer.wrap(header).getInt();
+        final var generation = generations.get(Integer.remainderUnsigned(id, generations.length()));
+        if (generation != null && generation.id == id && generation.key.shared.acquire()) {
+            return accept(generation.key.shared);
+        }
+        return reject(closed ? SECRET_DESTROYED : UNKNOWN_KEY);
+    }
+
+    @Override
+    public int maxEncryptedSize(final int plainTextSize) {
+        return KEY_ID_NUMBER_OF_BYTES + current.key.aes.maxEncryptedSize(plainTextSize);
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (int i = 0; i < generations.length(); i++) {
+            final var generation = generations.getAndSet(i, null);
+            if (generation != null) {
+                generation.key.shared.release();
+            }
+        }
+    }
+
+    private synchronized void rotate(final Generation expected) {
+        if (closed || current != expected) {
+            return;
+        }
+        final var next = generation(expected.id + 1);
+        final var retired = generations.getAndSet(Integer.remainderUnsigned(next.id, generations.length()), next);
+        current = next;
+        if (retired != null) {
+            retired.key.shared.release();
+        }
+    }
+
+    private Generation generation(final int id) {
+        final var secret = secrets.get();
+        notNull(secret, "Secret");
+        return new Generation(id, mode.apply(secret));
+    }
+
+    private static final class Generation {
+        private final int id;
+        private final Key key;
+        private final LongAdder messages = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        private Generation(final int id, final AES aes) {
+            this.id = id;
+            this.key = new Key(ByteBuffer.allocate(KEY_ID_NUMBER_OF_BYTES).putInt(id).array(), new SharedAES(aes), this.bytes::add);
+        }
+
+        // Streams of unknown size are counted as they're written, and need a key with bytes left
+        private boolean fits(final int messages, final long bytes, final RotationPolicy policy) {
+            final var used = this.bytes.sum();
+            return this.messages.sum() + messages <= policy.maxMessages && used < policy.maxBytes && used + bytes <= policy.maxBytes;
+        }
+
+        private boolean isUnused() {
+            return messages.sum() == 0;
+        }
+    }
+}
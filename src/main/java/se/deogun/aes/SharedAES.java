@@ -0,0 +1,38 @@
+package se.deogun.aes;
+
+import se.deogun.aes.api.AES;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AES service of a key shared by concurrent operations. The owner holds one reference, which is
+ * released when the key is retired, and every operation acquires its own. The AES service is
+ * closed when the last reference is released, i.e. a retired key is destroyed as soon as the
+ * operations using it have completed.
+ */
+final class SharedAES {
+    final AES aes;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    SharedAES(final AES aes) {
+        this.aes = aes;
+    }
+
+    /**
+     * @return false if the key has already been closed
+     */
+    boolean acquire() {
+        for (var count = references.get(); count > 0; count = references.get()) {
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            aes.close();
+        }
+    }
+}
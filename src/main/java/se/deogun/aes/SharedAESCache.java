@@ -0,0 +1,163 @@
+package se.deogun.aes;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Bounded cache of shared AES services, which holds one reference to every cached service and
+ * releases it when the service is evicted. Services are kept in access order under a lock, which
+ * means a hit, an insert and the eviction of the least recently used service all cost the same
+ * regardless of the number of cached services. Services idle too long are evicted from the least
+ * recently used end when a service is inserted, and a service alive too long is evicted when it's
+ * looked up. References are released outside the lock, since releasing the last one closes the
+ * service.
+ */
+final class SharedAESCache<K> {
+    static final long FOREVER = Long.MAX_VALUE;
+    private final Object lock = new Object();
+    private final LinkedHashMap<K, Cached> cached = new LinkedHashMap<>(16, 0.75f, true);
+    private final int capacity;
+    private final long maxIdleNanos;
+    private final Runnable evicted;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity max number of cached services
+     * @param maxIdleNanos time a service is cached without being used, or {@link #FOREVER}
+     * @param evicted called for every evicted service, but not for services released when closed
+     */
+    SharedAESCache(final int capacity, final long maxIdleNanos, final Runnable evicted) {
+        this.capacity = capacity;
+        this.maxIdleNanos = maxIdleNanos;
+        this.evicted = evicted;
+    }
+
+    /**
+     * @return acquired service of the key, or null if it isn't cached
+     */
+    SharedAES acquire(final K key) {
+        final Cached entry;
+        final var now = System.nanoTime();
+        synchronized (lock) {
+            entry = cached.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (!entry.isStale(now, maxIdleNanos)) {
+                entry.lastUsed = now;
+                return entry.shared.acquire() ? entry.shared : null;
+            }
+            cached.remove(key);
+        }
+        evict(List.of(entry));
+        return null;
+    }
+
+    /**
+     * Caches a service created outside the cache. A service cached concurrently by another thread
+     * is used instead of the created one, which is released.
+     *
+     * @param timeToLiveNanos time the service is cached, or {@link #FOREVER}
+     * @return acquired service of the key, or null if the cache is closed
+     */
+    SharedAES load(final K key, final SharedAES created, final long timeToLiveNanos) {
+        final var evictions = new ArrayList<Cached>();
+        final SharedAES loaded;
+        final var now = System.nanoTime();
+        synchronized (lock) {
+            if (closed) {
+                loaded = null;
+            } else {
+                final var existing = cached.get(key);
+                if (existing != null && !existing.isStale(now, maxIdleNanos) && existing.shared.acquire()) {
+                    existing.lastUsed = now;
+                    loaded = existing.shared;
+                } else {
+                    if (existing != null) {
+                        cached.remove(key);
+                        evictions.add(existing);
+                    }
+                    // One reference is held by the cache and one is handed to the caller
+                    created.acquire();
+                    cached.put(key, new Cached(created, now, timeToLiveNanos));
+                    evictEldest(now, evictions);
+                    loaded = created;
+                }
+            }
+        }
+        if (loaded != created) {
+            created.release();
+        }
+        evict(evictions);
+        return loaded;
+    }
+
+    int size() {
+        synchronized (lock) {
+            return cached.size();
+        }
+    }
+
+    /**
+     * Releases every cached service
+     *
+     * @return false if the cache was already closed
+     */
+    boolean close() {
+        final List<Cached> released;
+        synchronized (lock) {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            released = new ArrayList<>(cached.values());
+            cached.clear();
+        }
+        for (final var entry : released) {
+            entry.shared.release();
+        }
+        return true;
+    }
+
+    /**
+     * Removes services from the least recently used end while the cache is above its capacity or
+     * the service has been idle too long
+     */
+    private void evictEldest(final long now, final List<Cached> evictions) {
+        final var iterator = cached.values().iterator();
+        while (iterator.hasNext()) {
+            final var eldest = iterator.next();
+            if (cached.size() <= capacity && now - eldest.lastUsed < maxIdleNanos) {
+                return;
+            }
+            iterator.remove();
+            evictions.add(eldest);
+        }
+    }
+
+    private void evict(final List<Cached> evictions) {
+        for (final var entry : evictions) {
+            entry.shared.release();
+            evicted.run();
+        }
+    }
+
+    private static final class Cached {
+        private final SharedAES shared;
+        private final long created;
+        private final long timeToLiveNanos;
+        private long lastUsed;
+
+        private Cached(final SharedAES shared, final long created, final long timeToLiveNanos) {
+            this.shared = shared;
+            this.created = created;
+            this.timeToLiveNanos = timeToLiveNanos;
+            this.lastUsed = created;
+        }
+
+        private boolean isStale(final long now, final long maxIdleNanos) {
+            return now - lastUsed >= maxIdleNanos || now - created >= timeToLiveNanos;
+        }
+    }
+}
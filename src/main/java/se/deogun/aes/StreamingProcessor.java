@@ -0,0 +1,315 @@
+package se.deogun.aes;
+
+import se.deogun.aes.api.Failure;
+import se.deogun.aes.api.RejectReason;
+import se.deogun.aes.api.Rejection;
+import se.deogun.aes.api.Result;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+
+/**
+ * Processor running a stream operation of an AES service, e.g. encrypting an input stream to an
+ * output stream, between an upstream publisher and one downstream subscriber. Items received from
+ * upstream are read as the input stream and every write to the output stream is emitted as an
+ * item downstream, which means the encrypted data is emitted as the operation produces it.
+ * <p>
+ * The operation runs on the executor and waits for demand before emitting an item. Items are only
+ * requested from upstream as they're read, so memory use is bounded by a few items in flight and
+ * the buffers of the operation regardless of the size of the payload. An item received without
+ * being requested cancels upstream and fails the operation. A rejected operation is signalled
+ * downstream as a {@link Rejection}.
+ */
+final class StreamingProcessor implements Flow.Processor<ByteBuffer, ByteBuffer> {
+    private static final int PREFETCH = 4;
+    private static final Object COMPLETE = new Object();
+    private final BiFunction<InputStream, OutputStream, Result<? super Failure, OutputStream, RejectReason>> operation;
+    private final Executor executor;
+    private final Object lock = new Object();
+    // Items received but not yet read, never more than the items requested from upstream
+    private final Queue<byte[]> received = new ArrayDeque<>(PREFETCH);
+    private Flow.Subscription upstream;
+    private Flow.Subscriber<? super ByteBuffer> downstream;
+    // Items requested from upstream but not yet received
+    private long requested;
+    // COMPLETE or the error signalled by upstream, read once the received items are read
+    private Object terminal;
+    private long demand;
+    private boolean started;
+    private boolean cancelled;
+    private Throwable error;
+
+    StreamingProcessor(final BiFunction<InputStream, OutputStream, Result<? super Failure, OutputStream, RejectReason>> operation,
+                       final Executor executor) {
+        this.operation = operation;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+        notNull(subscriber);
+        synchronized (lock) {
+            if (downstream != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(final long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+                return;
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(new Subscription());
+        startIfSubscribed();
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+        notNull(subscription);
+        synchronized (lock) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+        }
+        startIfSubscribed();
+    }
+
+    @Override
+    public void onNext(final ByteBuffer item) {
+        notNull(item);
+        final var data = new byte[item.remaining()];
+        item.duplicate().get(data);
+        synchronized (lock) {
+            if (cancelled || terminal != null) {
+                return;
+            }
+            if (requested > 0) {
+                requested--;
+                received.add(data);
+                lock.notifyAll();
+                return;
+            }
+        }
+        upstream.cancel();
+        stop(new IllegalStateException("More items received than requested"));
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        notNull(throwable);
+        terminate(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        terminate(COMPLETE);
+    }
+
+    private void terminate(final Object signal) {
+        synchronized (lock) {
+            if (terminal == null) {
+                terminal = signal;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void startIfSubscribed() {
+        synchronized (lock) {
+            if (started || upstream == null || downstream == null) {
+                return;
+            }
+            started = true;
+            if (cancelled && error == null) {
+                upstream.cancel();
+                return;
+            }
+            requested = PREFETCH;
+        }
+        try {
+            executor.execute(this::run);
+            upstream.request(PREFETCH);
+        } catch (RejectedExecutionException e) {
+            upstream.cancel();
+            downstream.onError(e);
+        }
+    }
+
+    private void run() {
+        Result<? super Failure, OutputStream, RejectReason> result;
+        try {
+            result = operation.apply(new ReceivedInputStream(), new EmittingOutputStream());
+        } catch (RuntimeException e) {
+            result = Result.failure(new Failure(e.getClass()));
+        }
+        final Throwable signal;
+        synchronized (lock) {
+            if (cancelled && error == null) {
+                return;
+            }
+            signal = error;
+        }
+        if (signal != null) {
+            upstream.cancel();
+            downstream.onError(signal);
+        } else if (result.isAccept()) {
+            downstream.onComplete();
+        } else {
+            upstream.cancel();
+            downstream.onError(result.isReject() ? new Rejection(result.liftReject()) : result.liftFailure());
+        }
+    }
+
+    /**
+     * Stops the operation, which signals the error downstream if there is one
+     */
+    private void stop(final Throwable throwable) {
+        synchronized (lock) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            error = throwable;
+            lock.notifyAll();
+        }
+    }
+
+    private static void notNull(final Object input) {
+        if (input == null) {
+            throw new NullPointerException();
+        }
+    }
+
+    private final class Subscription implements Flow.Subscription {
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                stop(new IllegalArgumentException("Demand must be positive"));
+                return;
+            }
+            synchronized (lock) {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                lock.notifyAll();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            stop(null);
+            synchronized (lock) {
+                if (upstream != null) {
+                    upstream.cancel();
+                }
+            }
+        }
+    }
+
+    private final class ReceivedInputStream extends InputStream {
+        private byte[] item = new byte[0];
+        private int position;
+        private boolean complete;
+
+        @Override
+        public int read() throws IOException {
+            final var single = new byte[1];
+            final var read = read(single, 0, 1);
+            return read == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] data, final int offset, final int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == item.length) {
+                if (complete) {
+                    return -1;
+                }
+                next();
+            }
+            final var count = Math.min(length, item.length - position);
+            System.arraycopy(item, position, data, offset, count);
+            position += count;
+            return count;
+        }
+
+        private void next() throws IOException {
+            final byte[] next;
+            final Object signal;
+            synchronized (lock) {
+                while (received.isEmpty() && terminal == null && !cancelled) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    }
+                }
+                if (cancelled) {
+                    throw new IOException("Cancelled");
+                }
+                next = received.poll();
+                signal = terminal;
+                if (next != null) {
+                    requested++;
+                }
+            }
+            if (next != null) {
+                item = next;
+                position = 0;
+                upstream.request(1);
+            } else if (signal == COMPLETE) {
+                complete = true;
+            } else {
+                stop((Throwable) signal);
+                throw new IOException((Throwable) signal);
+            }
+        }
+    }
+
+    private final class EmittingOutputStream extends OutputStream {
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] data, final int offset, final int length) throws IOException {
+            if (length == 0) {
+                return;
+            }
+            synchronized (lock) {
+                while (demand == 0 && !cancelled) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    }
+                }
+                if (cancelled) {
+                    throw new IOException("Cancelled");
+                }
+                demand--;
+            }
+            final var item = new byte[length];
+            System.arraycopy(data, offset, item, 0, length);
+            downstream.onNext(ByteBuffer.wrap(item));
+        }
+    }
+}
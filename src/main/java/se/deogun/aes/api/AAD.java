@@ -1,13 +1,84 @@
 package se.deogun.aes.api;
 
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Additional authentication data, text or binary. The data is validated and encoded once when
+ * the AAD is created, which means an AAD can be kept as a constant and reused for any number of
+ * operations without being copied.
+ */
 public final class AAD {
+    static final int MAX_NUMBER_OF_BYTES = 8192; //Just to have an upper bound
+    /**
+     * Text of the AAD, null if the AAD was created from bytes
+     */
     public final transient String value;
+    private final transient ByteBuffer bytes;
 
+    /**
+     * @param value text, encoded as UTF-8
+     */
     public AAD(final String value) {
-        isValid(value);
-        satisfiesUpperBound(value.getBytes().length < 8193); //Just to have an upper bound
+        this(value, encode(value));
+    }
+
+    /**
+     * @param value bytes, copied
+     */
+    public AAD(final byte[] value) {
+        this(null, copy(value));
+    }
+
+    /**
+     * @param value remaining bytes are copied, the position of the buffer is unchanged
+     */
+    public AAD(final ByteBuffer value) {
+        this(null, copy(value));
+    }
 
+    private AAD(final String value, final byte[] encoded) {
         this.value = value;
+        this.bytes = ByteBuffer.wrap(encoded).asReadOnlyBuffer();
+    }
+
+    /**
+     * Takes ownership of bytes encoded by an {@link AADBuilder}, which must not be modified
+     */
+    static AAD encoded(final byte[] value) {
+        isValid(value);
+        satisfiesUpperBound(value.length <= MAX_NUMBER_OF_BYTES);
+
+        return new AAD(null, value);
+    }
+
+    /**
+     * @return read-only view of the encoded bytes
+     */
+    public ByteBuffer bytes() {
+        return bytes.duplicate();
+    }
+
+    private static byte[] encode(final String value) {
+        isValid(value);
+        final var encoded = value.getBytes(UTF_8);
+        satisfiesUpperBound(encoded.length <= MAX_NUMBER_OF_BYTES);
+        return encoded;
+    }
+
+    private static byte[] copy(final byte[] value) {
+        isValid(value);
+        satisfiesUpperBound(value.length <= MAX_NUMBER_OF_BYTES);
+        return value.clone();
+    }
+
+    private static byte[] copy(final ByteBuffer value) {
+        isValid(value);
+        satisfiesUpperBound(value.remaining() <= MAX_NUMBER_OF_BYTES);
+        final var copy = new byte[value.remaining()];
+        value.duplicate().get(copy);
+        return copy;
     }
 
     private static void isValid(final String input) {
@@ -16,6 +87,18 @@ public final class AAD {
         }
     }
 
+    private static void isValid(final byte[] input) {
+        if (input == null || input.length == 0) {
+            throw new IllegalArgumentException("Null or empty not allowed as input");
+        }
+    }
+
+    private static void isValid(final ByteBuffer input) {
+        if (input == null || !input.hasRemaining()) {
+            throw new IllegalArgumentException("Null or empty not allowed as input");
+        }
+    }
+
     private static void satisfiesUpperBound(final boolean invariant) {
         if (!invariant) {
             throw new IllegalArgumentException("Invariant failure for input");
@@ -0,0 +1,200 @@
+package se.deogun.aes.api;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Builds AAD from typed fields, e.g. tenant, table, column and row version. Every field is
+ * encoded as a type tag followed by its length and bytes, which means different sequences of
+ * fields never give the same AAD. Text is encoded as UTF-8.
+ * <p>
+ * Fields are written into a buffer pooled per thread and copied once into the built AAD, i.e.
+ * no intermediate strings or arrays are created. Fields shared by many messages can be built
+ * once into an AAD and used as prefix, which is copied as is and only the varying fields are
+ * encoded per message:
+ * <pre>
+ * final var column = aadBuilder().add(tenant).add(table).add(column).build();
+ * ...
+ * final var aad = aadBuilder(column).add(rowVersion).build();
+ * </pre>
+ * A builder is used by one thread. It takes the buffer out of the pool of the thread and returns
+ * it when built, closed or when a field is rejected, after which the builder can't be used. A
+ * builder that is abandoned keeps its buffer, and the next builder of the thread allocates a new
+ * one that is returned to the pool in its place.
+ */
+public final class AADBuilder implements AutoCloseable {
+    private static final byte BYTES = 1;
+    private static final byte TEXT = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final ThreadLocal<Pooled> POOL = new ThreadLocal<>();
+    private final Pooled pooled;
+    private boolean built;
+
+    private AADBuilder() {
+        final var available = POOL.get();
+        if (available == null) {
+            this.pooled = new Pooled();
+        } else {
+            POOL.set(null);
+            this.pooled = available;
+        }
+        this.pooled.buffer.clear();
+    }
+
+    /**
+     * @return builder of an AAD without prefix
+     */
+    public static AADBuilder aadBuilder() {
+        return new AADBuilder();
+    }
+
+    /**
+     * @param prefix AAD the built AAD starts with, e.g. fields shared by many messages
+     * @return builder of an AAD starting with the prefix
+     */
+    public static AADBuilder aadBuilder(final AAD prefix) {
+        notNull(prefix);
+        final var builder = new AADBuilder();
+        builder.pooled.buffer.put(prefix.bytes());
+        return builder;
+    }
+
+    /**
+     * @param value text field, may be empty
+     * @return this builder
+     */
+    public AADBuilder add(final String value) {
+        notNullField(value);
+        final var buffer = writable(1 + Integer.BYTES);
+        final var start = buffer.position();
+        buffer.put(TEXT).position(start + 1 + Integer.BYTES);
+        final var encoder = pooled.encoder.reset();
+        if (encoder.encode(CharBuffer.wrap(value), buffer, true).isUnderflow() && encoder.flush(buffer).isUnderflow()) {
+            buffer.putInt(start + 1, buffer.position() - start - 1 - Integer.BYTES);
+            return this;
+        }
+        buffer.position(start);
+        throw failure("Invariant failure for input");
+    }
+
+    /**
+     * @param value binary field, may be empty
+     * @return this builder
+     */
+    public AADBuilder add(final byte[] value) {
+        notNullField(value);
+        writable(1 + Integer.BYTES + value.length)
+                .put(BYTES)
+                .putInt(value.length)
+                .put(value);
+        return this;
+    }
+
+    /**
+     * @param value binary field of the remaining bytes, the position of the buffer is unchanged
+     * @return this builder
+     */
+    public AADBuilder add(final ByteBuffer value) {
+        notNullField(value);
+        writable(1 + Integer.BYTES + value.remaining())
+                .put(BYTES)
+                .putInt(value.remaining())
+                .put(value.duplicate());
+        return this;
+    }
+
+    /**
+     * @param value integer field
+     * @return this builder
+     */
+    public AADBuilder add(final int value) {
+        writable(1 + Integer.BYTES).put(INT).putInt(value);
+        return this;
+    }
+
+    /**
+     * @param value long field
+     * @return this builder
+     */
+    public AADBuilder add(final long value) {
+        writable(1 + Long.BYTES).put(LONG).putLong(value);
+        return this;
+    }
+
+    /**
+     * @return AAD of the prefix and the added fields
+     */
+    public AAD build() {
+        notBuilt();
+        try {
+            final var buffer = pooled.buffer;
+            final var encoded = new byte[buffer.position()];
+            buffer.flip().get(encoded);
+            return AAD.encoded(encoded);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Returns the buffer to the pool unless the AAD has already been built
+     */
+    @Override
+    public void close() {
+        if (!built) {
+            release();
+        }
+    }
+
+    private ByteBuffer writable(final int bytes) {
+        notBuilt();
+        if (pooled.buffer.remaining() < bytes) {
+            throw failure("Invariant failure for input");
+        }
+        return pooled.buffer;
+    }
+
+    private void notBuilt() {
+        if (built) {
+            throw new IllegalStateException("AAD already built");
+        }
+    }
+
+    private void notNullField(final Object input) {
+        notBuilt();
+        if (input == null) {
+            throw failure("Null not allowed as input");
+        }
+    }
+
+    /**
+     * A builder that rejects a field is likely abandoned, hence the buffer is returned to the pool
+     */
+    private IllegalArgumentException failure(final String message) {
+        release();
+        return new IllegalArgumentException(message);
+    }
+
+    private void release() {
+        built = true;
+        POOL.set(pooled);
+    }
+
+    private static void notNull(final Object input) {
+        if (input == null) {
+            throw new IllegalArgumentException("Null not allowed as input");
+        }
+    }
+
+    private static final class Pooled {
+        private final ByteBuffer buffer = ByteBuffer.allocate(AAD.MAX_NUMBER_OF_BYTES);
+        private final CharsetEncoder encoder = UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+}
@@ -2,11 +2,14 @@ package se.deogun.aes.api;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Main interface for interacting with an instantiated AES service
  */
-public interface AES {
+public interface AES extends AutoCloseable {
     /**
      * Encrypts the provided data using the mode defined when creating the AES instance
      * @param data plain text
@@ -68,4 +71,220 @@ public interface AES {
      * @return result of the decrypt operation
      */
     Result<? super Failure, byte[], RejectReason> decrypt(InputStream inputStream);
+
+    /**
+     * Encrypts the remaining bytes of the source buffer and writes the initialization vector followed by
+     * the encrypted data to the destination buffer. Both buffers may be heap or direct buffers and
+     * their positions are advanced. If the operation doesn't succeed, the positions are left unchanged.
+     * @param data plain text
+     * @param destination buffer with at least {@link #maxEncryptedSize(int)} bytes remaining
+     * @param aad additional authentication data
+     * @return result of the encrypt operation, i.e. the destination buffer
+     */
+    Result<? super Failure, ByteBuffer, RejectReason> encrypt(ByteBuffer data, ByteBuffer destination, AAD aad);
+
+    /**
+     * Encrypts the remaining bytes of the source buffer and writes the initialization vector followed by
+     * the encrypted data to the destination buffer. Both buffers may be heap or direct buffers and
+     * their positions are advanced. If the operation doesn't succeed, the positions are left unchanged.
+     * @param data plain text
+     * @param destination buffer with at least {@link #maxEncryptedSize(int)} bytes remaining
+     * @return result of the encrypt operation, i.e. the destination buffer
+     */
+    Result<? super Failure, ByteBuffer, RejectReason> encrypt(ByteBuffer data, ByteBuffer destination);
+
+    /**
+     * Decrypts the remaining bytes of the source buffer and writes the plain text to the destination
+     * buffer. Both buffers may be heap or direct buffers and their positions are advanced. If the
+     * operation doesn't succeed, the positions are left unchanged.
+     * @param data encrypted data
+     * @param destination buffer with at least as many bytes remaining as the encrypted data, excluding the initialization vector
+     * @param aad additional authentication data
+     * @return result of the decrypt operation, i.e. the destination buffer
+     */
+    Result<? super Failure, ByteBuffer, RejectReason> decrypt(ByteBuffer data, ByteBuffer destination, AAD aad);
+
+    /**
+     * Decrypts the remaining bytes of the source buffer and writes the plain text to the destination
+     * buffer. Both buffers may be heap or direct buffers and their positions are advanced. If the
+     * operation doesn't succeed, the positions are left unchanged.
+     * @param data encrypted data
+     * @param destination buffer with at least as many bytes remaining as the encrypted data, excluding the initialization vector
+     * @return result of the decrypt operation, i.e. the destination buffer
+     */
+    Result<? super Failure, ByteBuffer, RejectReason> decrypt(ByteBuffer data, ByteBuffer destination);
+
+    /**
+     * Encrypts everything read from the input stream and writes it to the output stream using constant memory.
+     * GCM splits the data into independently authenticated segments, which means the output can only be decrypted
+     * as a stream. Neither of the streams are closed.
+     * @param inputStream plain text
+     * @param outputStream output stream to which the encrypted data is written to
+     * @param aad additional authentication data
+     * @return result of the encrypt operation
+     */
+    Result<? super Failure, OutputStream, RejectReason> encrypt(InputStream inputStream, OutputStream outputStream, AAD aad);
+
+    /**
+     * Encrypts everything read from the input stream and writes it to the output stream using constant memory.
+     * GCM splits the data into independently authenticated segments, which means the output can only be decrypted
+     * as a stream. Neither of the streams are closed.
+     * @param inputStream plain text
+     * @param outputStream output stream to which the encrypted data is written to
+     * @return result of the encrypt operation
+     */
+    Result<? super Failure, OutputStream, RejectReason> encrypt(InputStream inputStream, OutputStream outputStream);
+
+    /**
+     * Creates an output stream that encrypts everything written to it, in the same format as
+     * {@link #encrypt(InputStream, OutputStream, AAD)}. The encryption is completed when the returned
+     * stream is closed, which also closes the wrapped stream.
+     * @param outputStream output stream to which the encrypted data is written to
+     * @param aad additional authentication data
+     * @return result of the operation, i.e. the encrypting output stream
+     */
+    Result<? super Failure, OutputStream, RejectReason> encryptingStream(OutputStream outputStream, AAD aad);
+
+    /**
+     * Creates an output stream that encrypts everything written to it, in the same format as
+     * {@link #encrypt(InputStream, OutputStream)}. The encryption is completed when the returned
+     * stream is closed, which also closes the wrapped stream.
+     * @param outputStream output stream to which the encrypted data is written to
+     * @return result of the operation, i.e. the encrypting output stream
+     */
+    Result<? super Failure, OutputStream, RejectReason> encryptingStream(OutputStream outputStream);
+
+    /**
+     * Decrypts data produced by {@link #encrypt(InputStream, OutputStream, AAD)} or {@link #encryptingStream(OutputStream, AAD)}
+     * and writes the plain text to the output stream, processing the data in chunks of the decrypt buffer size.
+     * With GCM, plain text is only written once the segment it belongs to has been authenticated. If the operation
+     * is rejected, any plain text already written must be discarded. Neither of the streams are closed.
+     * @param inputStream encrypted data
+     * @param outputStream output stream to which the plain text is written to
+     * @param aad additional authentication data
+     * @return result of the decrypt operation
+     */
+    Result<? super Failure, OutputStream, RejectReason> decrypt(InputStream inputStream, OutputStream outputStream, AAD aad);
+
+    /**
+     * Decrypts data produced by {@link #encrypt(InputStream, OutputStream)} or {@link #encryptingStream(OutputStream)}
+     * and writes the plain text to the output stream, processing the data in chunks of the decrypt buffer size.
+     * With GCM, plain text is only written once the segment it belongs to has been authenticated. If the operation
+     * is rejected, any plain text already written must be discarded. Neither of the streams are closed.
+     * @param inputStream encrypted data
+     * @param outputStream output stream to which the plain text is written to
+     * @return result of the decrypt operation
+     */
+    Result<? super Failure, OutputStream, RejectReason> decrypt(InputStream inputStream, OutputStream outputStream);
+
+    /**
+     * Creates an input stream that decrypts data produced by {@link #encrypt(InputStream, OutputStream, AAD)} or
+     * {@link #encryptingStream(OutputStream, AAD)}. With GCM, plain text is only released once the segment it belongs
+     * to has been authenticated and reading fails with an IOException if authentication fails. Closing the returned
+     * stream closes the wrapped stream.
+     * @param inputStream encrypted data
+     * @param aad additional authentication data
+     * @return result of the operation, i.e. the decrypting input stream
+     */
+    Result<? super Failure, InputStream, RejectReason> decryptingStream(InputStream inputStream, AAD aad);
+
+    /**
+     * Creates an input stream that decrypts data produced by {@link #encrypt(InputStream, OutputStream)} or
+     * {@link #encryptingStream(OutputStream)}. With GCM, plain text is only released once the segment it belongs
+     * to has been authenticated and reading fails with an IOException if authentication fails. Closing the returned
+     * stream closes the wrapped stream.
+     * @param inputStream encrypted data
+     * @return result of the operation, i.e. the decrypting input stream
+     */
+    Result<? super Failure, InputStream, RejectReason> decryptingStream(InputStream inputStream);
+
+    /**
+     * Encrypts a file into the destination, which is created or replaced. The file is read through memory mapped
+     * windows of bounded size, which means files larger than 2GB are supported without loading them onto the heap.
+     * The encrypted file has the same format as {@link #encrypt(InputStream, OutputStream, AAD)}. If the operation
+     * is rejected, the destination is left empty.
+     * @param source plain text file
+     * @param destination file to which the encrypted data is written to
+     * @param aad additional authentication data
+     * @return result with the number of bytes written
+     */
+    Result<? super Failure, Long, RejectReason> encryptFile(Path source, Path destination, AAD aad);
+
+    /**
+     * Encrypts a file into the destination, which is created or replaced. The file is read through memory mapped
+     * windows of bounded size, which means files larger than 2GB are supported without loading them onto the heap.
+     * The encrypted file has the same format as {@link #encrypt(InputStream, OutputStream)}. If the operation
+     * is rejected, the destination is left empty.
+     * @param source plain text file
+     * @param destination file to which the encrypted data is written to
+     * @return result with the number of bytes written
+     */
+    Result<? super Failure, Long, RejectReason> encryptFile(Path source, Path destination);
+
+    /**
+     * Decrypts a file produced by {@link #encryptFile(Path, Path, AAD)} or {@link #encrypt(InputStream, OutputStream, AAD)}
+     * into the destination, which is created or replaced. If the operation is rejected, the destination is left empty.
+     * @param source encrypted file
+     * @param destination file to which the plain text is written to
+     * @param aad additional authentication data
+     * @return result with the number of bytes written
+     */
+    Result<? super Failure, Long, RejectReason> decryptFile(Path source, Path destination, AAD aad);
+
+    /**
+     * Decrypts a file produced by {@link #encryptFile(Path, Path)} or {@link #encrypt(InputStream, OutputStream)}
+     * into the destination, which is created or replaced. If the operation is rejected, the destination is left empty.
+     * @param source encrypted file
+     * @param destination file to which the plain text is written to
+     * @return result with the number of bytes written
+     */
+    Result<? super Failure, Long, RejectReason> decryptFile(Path source, Path destination);
+
+    /**
+     * Encrypts every item using one cipher context for the whole batch. Every item gets its own
+     * initialization vector and is authenticated with the AAD at the same index. An item that fails
+     * is rejected without failing the rest of the batch.
+     * @param data plain text items
+     * @param aad additional authentication data of every item
+     * @return result of the batch operation, i.e. the packed output and the result of every item
+     */
+    Result<? super Failure, Batch, RejectReason> encryptAll(List<byte[]> data, List<AAD> aad);
+
+    /**
+     * Encrypts every item using one cipher context for the whole batch. Every item gets its own
+     * initialization vector. An item that fails is rejected without failing the rest of the batch.
+     * @param data plain text items
+     * @return result of the batch operation, i.e. the packed output and the result of every item
+     */
+    Result<? super Failure, Batch, RejectReason> encryptAll(List<byte[]> data);
+
+    /**
+     * Decrypts every item using one cipher context for the whole batch. An item that fails, e.g. due to
+     * tampering, is rejected without failing the rest of the batch.
+     * @param data encrypted items
+     * @param aad additional authentication data of every item
+     * @return result of the batch operation, i.e. the packed output and the result of every item
+     */
+    Result<? super Failure, Batch, RejectReason> decryptAll(List<byte[]> data, List<AAD> aad);
+
+    /**
+     * Decrypts every item using one cipher context for the whole batch. An item that fails is rejected
+     * without failing the rest of the batch.
+     * @param data encrypted items
+     * @return result of the batch operation, i.e. the packed output and the result of every item
+     */
+    Result<? super Failure, Batch, RejectReason> decryptAll(List<byte[]> data);
+
+    /**
+     * @param plainTextSize number of plain text bytes
+     * @return maximum number of bytes produced when encrypting the given number of plain text bytes
+     */
+    int maxEncryptedSize(int plainTextSize);
+
+    /**
+     * Destroys the key material held by this instance. Any operation invoked after
+     * closing is rejected with {@link RejectReason#SECRET_DESTROYED}.
+     */
+    @Override
+    void close();
 }
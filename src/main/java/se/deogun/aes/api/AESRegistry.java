@@ -0,0 +1,62 @@
+package se.deogun.aes.api;
+
+import java.util.function.Function;
+
+/**
+ * Shared AES instances keyed by id, e.g. one per tenant. Instances are created on first use from
+ * the secret of the id and kept for later operations, which means secrets aren't copied and keys
+ * aren't derived per operation. An evicted instance is closed, and its key material zeroed, once
+ * the operations using it have completed.
+ * <p>
+ * Ids without a secret are rejected with {@link RejectReason#UNKNOWN_KEY}, and every operation of
+ * a closed registry is rejected with {@link RejectReason#SECRET_DESTROYED}.
+ *
+ * @param <K> type of the ids
+ */
+public interface AESRegistry<K> extends AutoCloseable {
+    /**
+     * Runs the operation with the AES instance of the id. The instance must not be used after
+     * the operation has returned, i.e. returned streams must be completed within the operation.
+     *
+     * @param id id of the AES instance
+     * @param operation operation using the AES instance
+     * @return result of the operation
+     */
+    <T> Result<? super Failure, T, RejectReason> apply(K id, Function<AES, Result<? super Failure, T, RejectReason>> operation);
+
+    /**
+     * Borrows the AES instance of the id, which isn't evicted until it's returned. Closing the
+     * borrowed instance returns it without closing the shared instance, and must be done after
+     * closing any stream returned by it.
+     *
+     * @param id id of the AES instance
+     * @return borrowed AES instance
+     */
+    Result<? super Failure, AES, RejectReason> borrow(K id);
+
+    /**
+     * @return number of lookups served by a cached instance
+     */
+    long hits();
+
+    /**
+     * @return number of lookups loading the secret of the id
+     */
+    long misses();
+
+    /**
+     * @return number of evicted instances
+     */
+    long evictions();
+
+    /**
+     * @return number of cached instances
+     */
+    int size();
+
+    /**
+     * Closes every instance once the operations using it have completed
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,168 @@
+package se.deogun.aes.api;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous interface of an AES service. Operations on data in memory run on a bounded pool
+ * sized for CPU bound work, and operations on streams and files run on a separate pool, which
+ * means threads blocked on I/O never hold up encryption.
+ * <p>
+ * The number of operations in flight is bounded. An operation started when the limit is reached
+ * isn't queued, instead its future completes immediately with
+ * {@link RejectReason#TOO_MANY_OPERATIONS_IN_FLIGHT}. Futures always complete with a result,
+ * i.e. rejects and failures are the same as for the synchronous operations.
+ */
+public interface AsyncAES extends AutoCloseable {
+    /**
+     * Encrypts the provided data
+     * @param data plain text
+     * @param aad additional authentication data
+     * @return future result of the encrypt operation
+     */
+    CompletableFuture<Result<? super Failure, byte[], RejectReason>> encrypt(byte[] data, AAD aad);
+
+    /**
+     * Encrypts the provided data
+     * @param data plain text
+     * @return future result of the encrypt operation
+     */
+    CompletableFuture<Result<? super Failure, byte[], RejectReason>> encrypt(byte[] data);
+
+    /**
+     * Decrypts the provided data
+     * @param data encrypted data
+     * @param aad additional authentication data
+     * @return future result of the decrypt operation
+     */
+    CompletableFuture<Result<? super Failure, byte[], RejectReason>> decrypt(byte[] data, AAD aad);
+
+    /**
+     * Decrypts the provided data
+     * @param data encrypted data
+     * @return future result of the decrypt operation
+     */
+    CompletableFuture<Result<? super Failure, byte[], RejectReason>> decrypt(byte[] data);
+
+    /**
+     * Decrypts the data of the input stream
+     * @param inputStream encrypted data
+     * @param aad additional authentication data
+     * @return future result of the decrypt operation
+     */
+    CompletableFuture<Result<? super Failure, byte[], RejectReason>> decrypt(InputStream inputStream, AAD aad);
+
+    /**
+     * Decrypts the data of the input stream
+     * @param inputStream encrypted data
+     * @return future result of the decrypt operation
+     */
+    CompletableFuture<Result<? super Failure, byte[], RejectReason>> decrypt(InputStream inputStream);
+
+    /**
+     * Encrypts the data of the input stream and writes it to the output stream
+     * @param inputStream plain text
+     * @param outputStream output stream to which the encrypted data is written to
+     * @param aad additional authentication data
+     * @return future result of the encrypt operation
+     */
+    CompletableFuture<Result<? super Failure, OutputStream, RejectReason>> encrypt(InputStream inputStream, OutputStream outputStream, AAD aad);
+
+    /**
+     * Encrypts the data of the input stream and writes it to the output stream
+     * @param inputStream plain text
+     * @param outputStream output stream to which the encrypted data is written to
+     * @return future result of the encrypt operation
+     */
+    CompletableFuture<Result<? super Failure, OutputStream, RejectReason>> encrypt(InputStream inputStream, OutputStream outputStream);
+
+    /**
+     * Decrypts the data of the input stream and writes it to the output stream
+     * @param inputStream encrypted data
+     * @param outputStream output stream to which the plain text is written to
+     * @param aad additional authentication data
+     * @return future result of the decrypt operation
+     */
+    CompletableFuture<Result<? super Failure, OutputStream, RejectReason>> decrypt(InputStream inputStream, OutputStream outputStream, AAD aad);
+
+    /**
+     * Decrypts the data of the input stream and writes it to the output stream
+     * @param inputStream encrypted data
+     * @param outputStream output stream to which the plain text is written to
+     * @return future result of the decrypt operation
+     */
+    CompletableFuture<Result<? super Failure, OutputStream, RejectReason>> decrypt(InputStream inputStream, OutputStream outputStream);
+
+    /**
+     * Encrypts the source file and writes the encrypted data to the destination file
+     * @param source plain text file
+     * @param destination file to which the encrypted data is written to
+     * @param aad additional authentication data
+     * @return future result with the size of the destination file
+     */
+    CompletableFuture<Result<? super Failure, Long, RejectReason>> encryptFile(Path source, Path destination, AAD aad);
+
+    /**
+     * Encrypts the source file and writes the encrypted data to the destination file
+     * @param source plain text file
+     * @param destination file to which the encrypted data is written to
+     * @return future result with the size of the destination file
+     */
+    CompletableFuture<Result<? super Failure, Long, RejectReason>> encryptFile(Path source, Path destination);
+
+    /**
+     * Decrypts the source file and writes the plain text to the destination file
+     * @param source encrypted file
+     * @param destination file to which the plain text is written to
+     * @param aad additional authentication data
+     * @return future result with the size of the destination file
+     */
+    CompletableFuture<Result<? super Failure, Long, RejectReason>> decryptFile(Path source, Path destination, AAD aad);
+
+    /**
+     * Decrypts the source file and writes the plain text to the destination file
+     * @param source encrypted file
+     * @param destination file to which the plain text is written to
+     * @return future result with the size of the destination file
+     */
+    CompletableFuture<Result<? super Failure, Long, RejectReason>> decryptFile(Path source, Path destination);
+
+    /**
+     * Encrypts every item of the batch
+     * @param data plain text of every item
+     * @param aad additional authentication data of every item
+     * @return future result with the encrypted items
+     */
+    CompletableFuture<Result<? super Failure, Batch, RejectReason>> encryptAll(List<byte[]> data, List<AAD> aad);
+
+    /**
+     * Encrypts every item of the batch
+     * @param data plain text of every item
+     * @return future result with the encrypted items
+     */
+    CompletableFuture<Result<? super Failure, Batch, RejectReason>> encryptAll(List<byte[]> data);
+
+    /**
+     * Decrypts every item of the batch
+     * @param data encrypted data of every item
+     * @param aad additional authentication data of every item
+     * @return future result with the decrypted items
+     */
+    CompletableFuture<Result<? super Failure, Batch, RejectReason>> decryptAll(List<byte[]> data, List<AAD> aad);
+
+    /**
+     * Decrypts every item of the batch
+     * @param data encrypted data of every item
+     * @return future result with the decrypted items
+     */
+    CompletableFuture<Result<? super Failure, Batch, RejectReason>> decryptAll(List<byte[]> data);
+
+    /**
+     * Closes the AES service, after which every operation is rejected
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,104 @@
+package se.deogun.aes.api;
+
+import java.nio.ByteBuffer;
+
+import static java.util.Arrays.copyOf;
+import static se.deogun.aes.api.Result.accept;
+import static se.deogun.aes.api.Result.reject;
+
+/**
+ * Outcome of a batch operation. The output of every accepted item is packed into one
+ * contiguous buffer and located through an offset index. Rejected items occupy no space.
+ */
+public final class Batch {
+    private final byte[] buffer;
+    private final int[] offsets;
+    private final RejectReason[] rejects;
+
+    /**
+     * Copies the provided arrays, which means the batch can't be changed through them once created.
+     *
+     * @param buffer  contiguous output of all accepted items
+     * @param offsets start of every item followed by the end of the last item
+     * @param rejects reject reason of every item, null for accepted items
+     */
+    public Batch(final byte[] buffer, final int[] offsets, final RejectReason[] rejects) {
+        notNull(buffer);
+        notNull(offsets);
+        notNull(rejects);
+        final var end = offsets.length == 0 ? -1 : offsets[offsets.length - 1];
+        isValid(end >= 0 && end <= buffer.length);
+
+        this.buffer = copyOf(buffer, end);
+        this.offsets = offsets.clone();
+        this.rejects = rejects.clone();
+
+        isValid(this.offsets.length == this.rejects.length + 1);
+        isValid(this.offsets[0] >= 0);
+        for (int i = 0; i < this.rejects.length; i++) {
+            isValid(this.offsets[i] <= this.offsets[i + 1]);
+            isValid(this.rejects[i] == null || this.offsets[i] == this.offsets[i + 1]);
+        }
+    }
+
+    /**
+     * @return number of items in the batch
+     */
+    public int size() {
+        return rejects.length;
+    }
+
+    /**
+     * @param index index of the item
+     * @return true if the item was accepted
+     */
+    public boolean isAccept(final int index) {
+        return rejects[index] == null;
+    }
+
+    /**
+     * @param index index of the item
+     * @return result of the item, accepted items are a read-only view into {@link #buffer()}
+     */
+    public Result<? super Failure, ByteBuffer, RejectReason> result(final int index) {
+        if (rejects[index] != null) {
+            return reject(rejects[index]);
+        }
+        return accept(buffer().position(offsets[index]).limit(offsets[index + 1]).slice());
+    }
+
+    /**
+     * @param index index of the item
+     * @return offset of the item in {@link #buffer()}
+     */
+    public int offset(final int index) {
+        return offsets[index];
+    }
+
+    /**
+     * @param index index of the item
+     * @return number of bytes of the item in {@link #buffer()}, zero for rejected items
+     */
+    public int length(final int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * @return read-only view of the contiguous output of all items
+     */
+    public ByteBuffer buffer() {
+        return ByteBuffer.wrap(buffer, 0, offsets[rejects.length]).slice().asReadOnlyBuffer();
+    }
+
+    private static void notNull(final Object input) {
+        if (input == null) {
+            throw new IllegalArgumentException("Null not allowed as input");
+        }
+    }
+
+    private static void isValid(final boolean invariant) {
+        if (!invariant) {
+            throw new IllegalArgumentException("Invariant failure for input");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package se.deogun.aes.api;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Outcome of a capability probe: whether the JVM is configured to use the AES and GHASH intrinsics,
+ * and the measured throughput of every provider supporting a transformation. The intrinsics apply
+ * to the JDK's own provider once its code has been compiled, and a host where they're disabled, or
+ * where the measured throughput is far below that of comparable hosts, is likely misconfigured.
+ */
+public final class Capabilities {
+    /**
+     * True if AES instructions, e.g. AES-NI, are used for the AES block cipher
+     */
+    public final boolean aesIntrinsics;
+    /**
+     * True if carry-less multiplication, e.g. CLMUL, is used for the authentication of GCM
+     */
+    public final boolean ghashIntrinsics;
+    private final List<Throughput> throughputs;
+
+    /**
+     * @param aesIntrinsics whether the AES intrinsics are enabled
+     * @param ghashIntrinsics whether the GHASH intrinsics are enabled
+     * @param throughputs measured throughput of every transformation and provider
+     */
+    public Capabilities(final boolean aesIntrinsics, final boolean ghashIntrinsics, final List<Throughput> throughputs) {
+        if (throughputs == null) {
+            throw new IllegalArgumentException("Null not allowed as input");
+        }
+        final var sorted = new ArrayList<>(throughputs);
+        if (sorted.contains(null)) {
+            throw new IllegalArgumentException("Null not allowed as input");
+        }
+        sorted.sort(Comparator.comparingDouble((Throughput throughput) -> throughput.megabytesPerSecond).reversed());
+        this.aesIntrinsics = aesIntrinsics;
+        this.ghashIntrinsics = ghashIntrinsics;
+        this.throughputs = unmodifiableList(sorted);
+    }
+
+    /**
+     * @return measured throughput of every transformation and provider, fastest first
+     */
+    public List<Throughput> throughputs() {
+        return throughputs;
+    }
+
+    /**
+     * @param transformation transformation to look up
+     * @return throughput of the fastest provider of the transformation, null if no provider was measured
+     */
+    public Throughput fastest(final Transformation transformation) {
+        for (final var throughput : throughputs) {
+            if (throughput.transformation == transformation) {
+                return throughput;
+            }
+        }
+        return null;
+    }
+}
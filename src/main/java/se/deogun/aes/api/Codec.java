@@ -0,0 +1,31 @@
+package se.deogun.aes.api;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression applied to plain text before it's encrypted. The id of the codec is stored, encrypted,
+ * in front of the compressed data, which lets decryption detect data compressed by another codec.
+ * <p>
+ * Compressing data before encrypting it reveals how well it compresses through the size of the
+ * encrypted data. Secrets must not be compressed together with data controlled by an attacker.
+ */
+public interface Codec {
+    /**
+     * @return id of the codec, between 1 and 127, where 0 is reserved for uncompressed data
+     */
+    byte id();
+
+    /**
+     * @param outputStream stream the compressed data is written to
+     * @return stream compressing everything written to it, closing it completes the compression
+     * and closes the output stream
+     */
+    OutputStream compressing(OutputStream outputStream);
+
+    /**
+     * @param inputStream stream of compressed data
+     * @return stream of the decompressed data, closing it closes the input stream
+     */
+    InputStream decompressing(InputStream inputStream);
+}
@@ -0,0 +1,147 @@
+package se.deogun.aes.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Raw deflate, without zlib header and checksum since the encryption authenticates the data.
+ * Every thread keeps one deflater and one inflater that are reset and reused by its operations.
+ * A stream takes the instance of the thread and returns it on close, and streams opened while
+ * it's taken get an instance of their own, which is ended on close unless the pool is empty.
+ */
+public final class DeflateCodec implements Codec {
+    /**
+     * Fastest compression level, which compresses text such as JSON well at a fraction of the cost
+     * of the default level
+     */
+    public static final DeflateCodec DEFAULT_DEFLATE = deflate(Deflater.BEST_SPEED);
+    private static final int BUFFER_SIZE = 8192;
+    private final ThreadLocal<Pooled<Deflater>> deflaters;
+    private final ThreadLocal<Pooled<Inflater>> inflaters = ThreadLocal.withInitial(() -> new Pooled<>(inflater()));
+    private final int level;
+
+    private DeflateCodec(final int level) {
+        this.level = level;
+        this.deflaters = ThreadLocal.withInitial(() -> new Pooled<>(deflater()));
+    }
+
+    /**
+     * @param level compression level between 1 (fastest) and 9 (smallest)
+     * @return deflate codec
+     */
+    public static DeflateCodec deflate(final int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Level must be between 1 and 9");
+        }
+        return new DeflateCodec(level);
+    }
+
+    @Override
+    public byte id() {
+        return 1;
+    }
+
+    @Override
+    public OutputStream compressing(final OutputStream outputStream) {
+        final var pooled = deflaters.get();
+        final var deflater = pooled.borrow(this::deflater);
+        try {
+            return new DeflaterOutputStream(outputStream, deflater, BUFFER_SIZE) {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    try {
+                        super.close();
+                    } finally {
+                        pooled.release(deflater, Deflater::reset, Deflater::end);
+                    }
+                }
+            };
+        } catch (RuntimeException e) {
+            pooled.release(deflater, Deflater::reset, Deflater::end);
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream decompressing(final InputStream inputStream) {
+        final var pooled = inflaters.get();
+        final var inflater = pooled.borrow(DeflateCodec::inflater);
+        try {
+            return new InflaterInputStream(inputStream, inflater, BUFFER_SIZE) {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    try {
+                        super.close();
+                    } finally {
+                        pooled.release(inflater, Inflater::reset, Inflater::end);
+                    }
+                }
+            };
+        } catch (RuntimeException e) {
+            pooled.release(inflater, Inflater::reset, Inflater::end);
+            throw e;
+        }
+    }
+
+    private Deflater deflater() {
+        return new Deflater(level, true);
+    }
+
+    private static Inflater inflater() {
+        return new Inflater(true);
+    }
+
+    /**
+     * Instance of a thread, lent to one stream at a time. A stream that is never closed keeps the
+     * instance, and the instance of the next stream that is closed takes its place.
+     */
+    private static final class Pooled<T> {
+        // Streams may be closed by another thread than the owner of the pool
+        private final AtomicReference<T> available;
+
+        private Pooled(final T instance) {
+            this.available = new AtomicReference<>(instance);
+        }
+
+        private T borrow(final Supplier<T> create) {
+            final var instance = available.getAndSet(null);
+            return instance == null ? create.get() : instance;
+        }
+
+        /**
+         * Resets the instance and returns it to the pool it was borrowed from, or ends it if the
+         * pool already holds an instance or the reset fails
+         */
+        private void release(final T borrowed, final Consumer<T> reset, final Consumer<T> end) {
+            var reusable = false;
+            try {
+                reset.accept(borrowed);
+                reusable = available.compareAndSet(null, borrowed);
+            } finally {
+                if (!reusable) {
+                    end.accept(borrowed);
+                }
+            }
+        }
+    }
+}
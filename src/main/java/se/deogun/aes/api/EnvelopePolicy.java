@@ -0,0 +1,41 @@
+package se.deogun.aes.api;
+
+import java.time.Duration;
+
+/**
+ * How long a data key of envelope encryption is used for encryption, and how many unwrapped data
+ * keys are cached for decryption. A data key is replaced after encrypting the number of messages,
+ * or when its time to live has passed, whichever comes first.
+ */
+public final class EnvelopePolicy {
+    /**
+     * Reuses a data key for 2^20 messages or 5 minutes, and caches 1024 unwrapped data keys
+     */
+    public static final EnvelopePolicy DEFAULT_ENVELOPE_POLICY = reuseDataKeys(1L << 20, 1024, Duration.ofMinutes(5));
+
+    public final long messagesPerDataKey;
+    public final int cachedDataKeys;
+    public final Duration timeToLive;
+
+    private EnvelopePolicy(final long messagesPerDataKey, final int cachedDataKeys, final Duration timeToLive) {
+        this.messagesPerDataKey = messagesPerDataKey;
+        this.cachedDataKeys = cachedDataKeys;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * @param messagesPerDataKey number of messages encrypted with a data key before it's replaced
+     * @param cachedDataKeys number of unwrapped data keys kept for decryption
+     * @param timeToLive how long a data key is used for encryption and kept unwrapped
+     * @return envelope policy
+     */
+    public static EnvelopePolicy reuseDataKeys(final long messagesPerDataKey, final int cachedDataKeys, final Duration timeToLive) {
+        if (messagesPerDataKey < 1 || cachedDataKeys < 1) {
+            throw new IllegalArgumentException("Messages per data key and cached data keys must be positive");
+        }
+        if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive");
+        }
+        return new EnvelopePolicy(messagesPerDataKey, cachedDataKeys, timeToLive);
+    }
+}
@@ -0,0 +1,95 @@
+package se.deogun.aes.api;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values. Values are counted in buckets where every power of
+ * two is split into eight, i.e. the value of a percentile is at most 12.5% above the recorded value,
+ * and values below eight are exact. Recording a value never allocates.
+ * <p>
+ * Reads while values are recorded are not a consistent snapshot, which is fine for monitoring.
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private final AtomicLongArray counts = new AtomicLongArray(index(Long.MAX_VALUE) + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param value value to record, negative values are recorded as zero
+     */
+    public void record(final long value) {
+        final var recorded = Math.max(value, 0);
+        counts.incrementAndGet(index(recorded));
+        count.increment();
+        sum.add(recorded);
+        max.accumulate(recorded);
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return largest recorded value, zero if no value is recorded
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @return mean of the recorded values, zero if no value is recorded
+     */
+    public double mean() {
+        final var recorded = count.sum();
+        return recorded == 0 ? 0 : (double) sum.sum() / recorded;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return upper bound of the bucket containing the percentile, zero if no value is recorded
+     */
+    public long valueAtPercentile(final double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        final var total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        final var target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long counted = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            counted += counts.get(i);
+            if (counted >= target) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    private static int index(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final var exponent = 63 - Long.numberOfLeadingZeros(value);
+        final var subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final var shift = index / SUB_BUCKETS - 1;
+        final var lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
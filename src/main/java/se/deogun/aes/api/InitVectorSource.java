@@ -0,0 +1,24 @@
+package se.deogun.aes.api;
+
+/**
+ * Source of the random initialization vectors used when encrypting
+ */
+public enum InitVectorSource {
+    /**
+     * Looks up a strong secure random instance for every encryption. This may block on systems
+     * where the strong instance is backed by /dev/random.
+     */
+    STRONG_SECURE_RANDOM,
+    /**
+     * One DRBG instance per thread, seeded once and non-blocking after that
+     */
+    THREAD_LOCAL_DRBG,
+    /**
+     * Striped pool of NativePRNGNonBlocking instances reseeded by the kernel on every draw
+     */
+    NON_BLOCKING_POOL,
+    /**
+     * Pre-filled block of random bytes handed out with a lock-free cursor
+     */
+    PREFILLED_RING
+}
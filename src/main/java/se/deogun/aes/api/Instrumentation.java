@@ -0,0 +1,32 @@
+package se.deogun.aes.api;
+
+/**
+ * Receives the outcome of every operation of an instrumented AES service. Callbacks run on the
+ * thread performing the operation, after it has completed, which means implementations must be
+ * thread safe and cheap, e.g. increment counters rather than log.
+ * <p>
+ * Bytes are the size of the input of the operation, i.e. plain text when encrypting and encrypted
+ * data when decrypting. The operation of a returned stream completes when the stream is closed.
+ * An AES service that isn't instrumented pays nothing for instrumentation.
+ */
+public interface Instrumentation {
+    /**
+     * @param operation kind of operation
+     * @param bytes size of the input
+     * @param nanos duration of the operation
+     */
+    void accepted(Operation operation, long bytes, long nanos);
+
+    /**
+     * @param operation kind of operation
+     * @param reason reason of the reject
+     * @param nanos duration of the operation
+     */
+    void rejected(Operation operation, RejectReason reason, long nanos);
+
+    /**
+     * @param operation kind of operation
+     * @param nanos duration of the operation
+     */
+    void failed(Operation operation, long nanos);
+}
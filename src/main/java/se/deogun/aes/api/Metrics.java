@@ -0,0 +1,116 @@
+package se.deogun.aes.api;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentation counting operations, rejects and failures, and recording the latency and
+ * payload size of accepted operations, per kind of operation. Counters are {@link LongAdder}s
+ * and distributions lock-free {@link Histogram}s, which keeps contention between threads low.
+ */
+public final class Metrics implements Instrumentation {
+    private final LongAdder[] accepted = adders(Operation.values().length);
+    private final LongAdder[] rejected = adders(Operation.values().length);
+    private final LongAdder[] failed = adders(Operation.values().length);
+    private final LongAdder[] bytes = adders(Operation.values().length);
+    private final LongAdder[] rejectReasons = adders(RejectReason.values().length);
+    private final Histogram[] latencies = histograms(Operation.values().length);
+    private final Histogram[] payloadSizes = histograms(Operation.values().length);
+
+    @Override
+    public void accepted(final Operation operation, final long bytes, final long nanos) {
+        accepted[operation.ordinal()].increment();
+        this.bytes[operation.ordinal()].add(bytes);
+        latencies[operation.ordinal()].record(nanos);
+        payloadSizes[operation.ordinal()].record(bytes);
+    }
+
+    @Override
+    public void rejected(final Operation operation, final RejectReason reason, final long nanos) {
+        rejected[operation.ordinal()].increment();
+        rejectReasons[reason.ordinal()].increment();
+    }
+
+    @Override
+    public void failed(final Operation operation, final long nanos) {
+        failed[operation.ordinal()].increment();
+    }
+
+    /**
+     * @param operation kind of operation
+     * @return number of accepted operations
+     */
+    public long accepted(final Operation operation) {
+        return accepted[notNull(operation).ordinal()].sum();
+    }
+
+    /**
+     * @param operation kind of operation
+     * @return number of rejected operations
+     */
+    public long rejected(final Operation operation) {
+        return rejected[notNull(operation).ordinal()].sum();
+    }
+
+    /**
+     * @param reason reject reason
+     * @return number of operations rejected for the reason
+     */
+    public long rejected(final RejectReason reason) {
+        return rejectReasons[notNull(reason).ordinal()].sum();
+    }
+
+    /**
+     * @param operation kind of operation
+     * @return number of failed operations
+     */
+    public long failed(final Operation operation) {
+        return failed[notNull(operation).ordinal()].sum();
+    }
+
+    /**
+     * @param operation kind of operation
+     * @return total input bytes of accepted operations
+     */
+    public long bytes(final Operation operation) {
+        return bytes[notNull(operation).ordinal()].sum();
+    }
+
+    /**
+     * @param operation kind of operation
+     * @return latency in nanoseconds of accepted operations
+     */
+    public Histogram latency(final Operation operation) {
+        return latencies[notNull(operation).ordinal()];
+    }
+
+    /**
+     * @param operation kind of operation
+     * @return input bytes of accepted operations
+     */
+    public Histogram payloadSize(final Operation operation) {
+        return payloadSizes[notNull(operation).ordinal()];
+    }
+
+    private static LongAdder[] adders(final int size) {
+        final var adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static Histogram[] histograms(final int size) {
+        final var histograms = new Histogram[size];
+        for (int i = 0; i < size; i++) {
+            histograms[i] = new Histogram();
+        }
+        return histograms;
+    }
+
+    private static <T> T notNull(final T input) {
+        if (input == null) {
+            throw new IllegalArgumentException("Input cannot be null");
+        }
+        return input;
+    }
+}
@@ -0,0 +1,33 @@
+package se.deogun.aes.api;
+
+/**
+ * Partition of the 64 bit counter space of deterministic initialization vectors. Instances sharing
+ * a secret, e.g. in different JVMs, never produce the same initialization vector as long as every
+ * instance is given its own partition.
+ */
+public final class NoncePartition {
+    /**
+     * The whole counter space, for secrets used by a single instance
+     */
+    public static final NoncePartition WHOLE_NONCE_SPACE = new NoncePartition(0, 1);
+
+    public final int index;
+    public final int count;
+
+    private NoncePartition(final int index, final int count) {
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * @param index index of the partition, from 0 to count - 1
+     * @param count number of partitions the counter space is split into
+     * @return partition of the counter space
+     */
+    public static NoncePartition partition(final int index, final int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Index must be in [0, count) and count must be positive");
+        }
+        return new NoncePartition(index, count);
+    }
+}
@@ -0,0 +1,9 @@
+package se.deogun.aes.api;
+
+/**
+ * Kind of operation reported to an {@link Instrumentation}
+ */
+public enum Operation {
+    ENCRYPT,
+    DECRYPT;
+}
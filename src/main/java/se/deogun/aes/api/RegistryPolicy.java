@@ -0,0 +1,38 @@
+package se.deogun.aes.api;
+
+import java.time.Duration;
+
+/**
+ * How many AES instances a registry keeps, and how long an unused instance is kept. The least
+ * recently used instance is evicted when the registry is full, and idle instances are evicted
+ * when the registry is used.
+ */
+public final class RegistryPolicy {
+    /**
+     * Keeps 1024 instances, and evicts instances unused for 10 minutes
+     */
+    public static final RegistryPolicy DEFAULT_REGISTRY_POLICY = evictAfter(1024, Duration.ofMinutes(10));
+
+    public final int maxInstances;
+    public final Duration maxIdleTime;
+
+    private RegistryPolicy(final int maxInstances, final Duration maxIdleTime) {
+        this.maxInstances = maxInstances;
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    /**
+     * @param maxInstances number of AES instances kept
+     * @param maxIdleTime how long an unused AES instance is kept
+     * @return registry policy
+     */
+    public static RegistryPolicy evictAfter(final int maxInstances, final Duration maxIdleTime) {
+        if (maxInstances < 1) {
+            throw new IllegalArgumentException("Max instances must be positive");
+        }
+        if (maxIdleTime == null || maxIdleTime.isNegative() || maxIdleTime.isZero()) {
+            throw new IllegalArgumentException("Max idle time must be positive");
+        }
+        return new RegistryPolicy(maxInstances, maxIdleTime);
+    }
+}
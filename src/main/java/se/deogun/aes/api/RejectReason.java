@@ -11,5 +11,15 @@ public enum RejectReason {
     GCM_INVALID_TAG,
     CBC_INVALID_KEY,
     CBC_NOT_AVAILABLE_ON_THIS_SYSTEM,
-    CBC_INVALID_PARAMETERS;
+    CBC_INVALID_PARAMETERS,
+    SECRET_DESTROYED,
+    CTR_INVALID_KEY,
+    CTR_NOT_AVAILABLE_ON_THIS_SYSTEM,
+    CTR_INVALID_PARAMETERS,
+    INVALID_RANGE,
+    GCM_SIV_INVALID_KEY,
+    GCM_SIV_NOT_AVAILABLE_ON_THIS_SYSTEM,
+    INIT_VECTORS_EXHAUSTED,
+    UNKNOWN_KEY,
+    TOO_MANY_OPERATIONS_IN_FLIGHT;
 }
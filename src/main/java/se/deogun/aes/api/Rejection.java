@@ -0,0 +1,21 @@
+package se.deogun.aes.api;
+
+/**
+ * Signals a rejected operation where results can't be returned, e.g. to subscribers of a
+ * {@link java.util.concurrent.Flow.Publisher}
+ */
+public final class Rejection extends RuntimeException {
+    public final RejectReason reason;
+
+    public Rejection(final RejectReason reason) {
+        super(notNull(reason).name());
+        this.reason = reason;
+    }
+
+    private static <T> T notNull(T input) {
+        if (input == null) {
+            throw new Failure(NullPointerException.class);
+        }
+        return input;
+    }
+}
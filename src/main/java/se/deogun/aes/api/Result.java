@@ -1,108 +1,92 @@
 package se.deogun.aes.api;
 
-
-import se.deogun.aes.modes.common.InternalValidationFailure;
-
-import java.util.Optional;
+import java.util.NoSuchElementException;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
-import static java.util.Optional.ofNullable;
-
-@SuppressWarnings("OptionalUsedAsFieldOrParameterType")
+/**
+ * A single tagged object holding either an accepted value, a reject or a failure. Rejects with
+ * an enum reason are cached per enum, so a result costs at most one allocation, and mapping the
+ * reject or the failure of a result of another kind returns the result as is.
+ */
 public final class Result<FAILURE_TYPE extends Throwable, ACCEPT_TYPE, REJECT_TYPE> {
-    private final Optional<Success<ACCEPT_TYPE, REJECT_TYPE>> success;
-    private final Optional<Failure<FAILURE_TYPE>> failure;
-
-    private Result(final Success<ACCEPT_TYPE, REJECT_TYPE> success) {
-        this(success, null);
-    }
-
-    private Result(final Failure<FAILURE_TYPE> failure) {
-        this(null, failure);
-    }
+    private static final ClassValue<Result<?, ?, ?>[]> REJECTS = new ClassValue<>() {
+        @Override
+        protected Result<?, ?, ?>[] computeValue(final Class<?> type) {
+            final var reasons = type.getEnumConstants();
+            final var rejects = new Result<?, ?, ?>[reasons.length];
+            for (int i = 0; i < reasons.length; i++) {
+                rejects[i] = new Result<>(Kind.REJECT, reasons[i]);
+            }
+            return rejects;
+        }
+    };
 
-    private Result(final Success<ACCEPT_TYPE, REJECT_TYPE> success, final Failure<FAILURE_TYPE> failure) {
-        this.failure = ofNullable(failure);
-        this.success = ofNullable(success);
+    private final Kind kind;
+    private final Object value;
 
-        ensure(this.success.isEmpty() && this.failure.isPresent() ||
-                this.success.isPresent() && this.failure.isEmpty());
+    private Result(final Kind kind, final Object value) {
+        this.kind = kind;
+        this.value = value;
     }
 
     public static <F extends Throwable, A, R> Result<F, A, R> failure(final F exception) {
-        return new Result<>(new Failure<>(exception));
+        return new Result<>(Kind.FAILURE, exception);
     }
 
     public static <F extends Throwable, A, R> Result<F, A, R> accept(final A data) {
-        return new Result<>(new Success<>(new Accept<>(data)));
+        return new Result<>(Kind.ACCEPT, data);
     }
 
+    @SuppressWarnings("unchecked")
     public static <F extends Throwable, A, R> Result<F, A, R> reject(final R data) {
-        return new Result<>(new Success<>(new Reject<>(data)));
-    }
-
-    private Throwable failure() {
-        return failure
-                .map(value -> value.exception)
-                .orElseThrow(() -> new UnsupportedOperationException());
-    }
-
-    private Success<ACCEPT_TYPE, REJECT_TYPE> success() {
-        return success.orElseThrow(() -> new UnsupportedOperationException());
+        if (data instanceof Enum<?> reason) {
+            return (Result<F, A, R>) REJECTS.get(reason.getDeclaringClass())[reason.ordinal()];
+        }
+        return new Result<>(Kind.REJECT, data);
     }
 
     public Result<? extends Throwable, ACCEPT_TYPE, REJECT_TYPE> handle(final Consumer<Success<ACCEPT_TYPE, REJECT_TYPE>> consumer) {
-        if (success.isPresent()) {
-            consumer.accept(success());
+        if (kind != Kind.FAILURE) {
+            consumer.accept(new Success<>(this));
         }
         return this;
     }
 
     public void or(final Consumer<Throwable> function) {
-        if (failure.isPresent()) {
-            function.accept(failure());
+        if (kind == Kind.FAILURE) {
+            function.accept((Throwable) value);
         }
     }
 
     public boolean isAccept() {
-        return success
-                .map(value -> value.accept.isPresent())
-                .orElse(false);
+        return kind == Kind.ACCEPT;
     }
 
     public boolean isReject() {
-        return success
-                .map(value -> value.reject.isPresent())
-                .orElse(false);
+        return kind == Kind.REJECT;
     }
 
     public boolean isFailure() {
-        return failure.isPresent();
+        return kind == Kind.FAILURE;
     }
 
+    @SuppressWarnings("unchecked")
     public ACCEPT_TYPE liftAccept() {
-        return success
-                .map(value -> value.accept
-                        .map(v -> v.data)
-                        .orElseThrow())
-                .orElseThrow();
+        return (ACCEPT_TYPE) lift(Kind.ACCEPT);
     }
 
+    @SuppressWarnings("unchecked")
     public REJECT_TYPE liftReject() {
-        return success
-                .map(value -> value.reject
-                        .map(v -> v.data)
-                        .orElseThrow())
-                .orElseThrow();
+        return (REJECT_TYPE) lift(Kind.REJECT);
     }
 
+    @SuppressWarnings("unchecked")
     public FAILURE_TYPE liftFailure() {
-        return failure
-                .map(value -> value.exception)
-                .orElseThrow();
+        return (FAILURE_TYPE) lift(Kind.FAILURE);
     }
 
+    @SuppressWarnings("unchecked")
     public <T> T transform(final Function<ACCEPT_TYPE, T> acceptTransformation,
                            final Function<REJECT_TYPE, T> rejectTransformation,
                            final Function<FAILURE_TYPE, T> failureTransformation) {
@@ -110,94 +94,84 @@ public final class Result<FAILURE_TYPE extends Throwable, ACCEPT_TYPE, REJECT_TY
         notNull(rejectTransformation);
         notNull(failureTransformation);
 
-        return success
-                .map(value -> value.accept
-                        .map(v -> acceptTransformation.apply(v.data))
-                        .orElseGet(() -> value.reject
-                                .map(v -> rejectTransformation.apply(v.data))
-                                .orElseThrow()))
-                .orElseGet(() -> failure
-                        .map(throwable -> failureTransformation.apply(throwable.exception))
-                        .orElseThrow());
+        return switch (kind) {
+            case ACCEPT -> acceptTransformation.apply((ACCEPT_TYPE) value);
+            case REJECT -> rejectTransformation.apply((REJECT_TYPE) value);
+            case FAILURE -> failureTransformation.apply((FAILURE_TYPE) value);
+        };
     }
 
-    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
-    public static class Success<A, R> {
-        private final Optional<Accept<A>> accept;
-        private final Optional<Reject<R>> reject;
+    /**
+     * @return result with the mapped reject, or this result if it isn't a reject
+     */
+    @SuppressWarnings("unchecked")
+    public <R> Result<FAILURE_TYPE, ACCEPT_TYPE, R> mapReject(final Function<REJECT_TYPE, R> rejectTransformation) {
+        notNull(rejectTransformation);
 
-        private Success(final Accept<A> accept) {
-            this(accept, null);
-        }
+        return kind == Kind.REJECT ? reject(rejectTransformation.apply((REJECT_TYPE) value)) : (Result<FAILURE_TYPE, ACCEPT_TYPE, R>) this;
+    }
+
+    /**
+     * @return result with the mapped failure, or this result if it isn't a failure
+     */
+    @SuppressWarnings("unchecked")
+    public <F extends Throwable> Result<F, ACCEPT_TYPE, REJECT_TYPE> mapFailure(final Function<FAILURE_TYPE, F> failureTransformation) {
+        notNull(failureTransformation);
+
+        return kind == Kind.FAILURE ? failure(failureTransformation.apply((FAILURE_TYPE) value)) : (Result<F, ACCEPT_TYPE, REJECT_TYPE>) this;
+    }
 
-        private Success(final Reject<R> reject) {
-            this(null, reject);
+    private Object lift(final Kind expected) {
+        if (kind != expected || value == null) {
+            throw new NoSuchElementException("No value present");
         }
+        return value;
+    }
+
+    private enum Kind {
+        ACCEPT, REJECT, FAILURE
+    }
 
-        private Success(final Accept<A> accept, final Reject<R> reject) {
-            this.accept = ofNullable(accept);
-            this.reject = ofNullable(reject);
+    public static class Success<A, R> {
+        private final Result<?, A, R> result;
+
+        private Success(final Result<?, A, R> result) {
+            this.result = result;
         }
 
+        @SuppressWarnings("unchecked")
         A accept() {
-            return accept
-                    .map(value -> value.data)
-                    .orElseThrow(() -> new UnsupportedOperationException());
+            if (result.kind != Kind.ACCEPT) {
+                throw new UnsupportedOperationException();
+            }
+            return (A) result.value;
         }
 
+        @SuppressWarnings("unchecked")
         R reject() {
-            return reject
-                    .map(value -> value.data)
-                    .orElseThrow(() -> new UnsupportedOperationException());
+            if (result.kind != Kind.REJECT) {
+                throw new UnsupportedOperationException();
+            }
+            return (R) result.value;
         }
 
         public Success<A, R> accept(final Consumer<A> consumer) {
-            if (accept.isPresent()) {
+            if (result.kind == Kind.ACCEPT) {
                 consumer.accept(accept());
             }
             return this;
         }
 
         public void reject(final Consumer<R> consumer) {
-            if (accept.isEmpty()) {
+            if (result.kind != Kind.ACCEPT) {
                 consumer.accept(reject());
             }
         }
     }
 
-    public static final class Accept<T> {
-        public final T data;
-
-        public Accept(final T data) {
-            this.data = data;
-        }
-    }
-
-    public static final class Reject<T> {
-        public final T data;
-
-        public Reject(final T data) {
-            this.data = data;
-        }
-    }
-
-    public static final class Failure<F extends Throwable> {
-        public final F exception;
-
-        Failure(final F exception) {
-            this.exception = exception;
-        }
-    }
-
     private static void notNull(final Object input) {
         if (input == null) {
             throw new IllegalArgumentException("Null not allowed as input");
         }
     }
-
-    static void ensure(final boolean invariant) {
-        if (!invariant) {
-            throw new se.deogun.aes.api.Failure(InternalValidationFailure.class);
-        }
-    }
 }
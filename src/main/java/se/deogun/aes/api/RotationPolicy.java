@@ -0,0 +1,40 @@
+package se.deogun.aes.api;
+
+/**
+ * When a rotating AES service switches to the next key, and how many keys it keeps for decryption.
+ * The limits are checked before every operation, which means concurrent operations may exceed
+ * them slightly and they should be set with a margin to the hard limits of the mode.
+ */
+public final class RotationPolicy {
+    /**
+     * Rotates after 2^32 messages, the limit for random 96 bit GCM initialization vectors
+     * (NIST SP 800-38D, section 8.3), or 2^48 bytes, and keeps the 16 latest keys
+     */
+    public static final RotationPolicy DEFAULT_ROTATION_POLICY = rotateAfter(1L << 32, 1L << 48, 16);
+
+    public final long maxMessages;
+    public final long maxBytes;
+    public final int retainedKeys;
+
+    private RotationPolicy(final long maxMessages, final long maxBytes, final int retainedKeys) {
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.retainedKeys = retainedKeys;
+    }
+
+    /**
+     * @param maxMessages number of messages encrypted with a key before rotating
+     * @param maxBytes number of plain text bytes encrypted with a key before rotating
+     * @param retainedKeys number of keys, including the current one, that data can be decrypted with
+     * @return rotation policy
+     */
+    public static RotationPolicy rotateAfter(final long maxMessages, final long maxBytes, final int retainedKeys) {
+        if (maxMessages < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Limits must be positive");
+        }
+        if (retainedKeys < 2) {
+            throw new IllegalArgumentException("At least two keys must be retained");
+        }
+        return new RotationPolicy(maxMessages, maxBytes, retainedKeys);
+    }
+}
@@ -1,9 +1,11 @@
 package se.deogun.aes.api;
 
+import javax.security.auth.Destroyable;
 import java.io.Externalizable;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.HashSet;
 import java.util.Set;
@@ -12,10 +14,11 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.copyOf;
 
 @SuppressWarnings("ExternalizableWithoutPublicNoArgConstructor")
-public final class Secret implements Externalizable, Serializable {
+public final class Secret implements Externalizable, Serializable, Destroyable {
     private static final int PADDING = 61;
     private static final Set<Byte> BASE64_ALPHABET = base64Alphabet();
     private transient final byte[] key;
+    private transient volatile boolean destroyed;
 
     private Secret(final byte[] key) {
         notNull(key);
@@ -44,8 +47,31 @@ public final class Secret implements Externalizable, Serializable {
         return new Secret(Base64.getDecoder().decode(key));
     }
 
+    /**
+     * @return copy of the key
+     * @throws IllegalStateException if the secret has been destroyed
+     */
     public final byte[] key() {
-        return key.clone();
+        final var copy = key.clone();
+        if (destroyed) {
+            Arrays.fill(copy, (byte) 0);
+            throw new IllegalStateException("Secret has been destroyed");
+        }
+        return copy;
+    }
+
+    /**
+     * Zeroizes the key. AES instances created from the secret keep their own copy of the key.
+     */
+    @Override
+    public void destroy() {
+        destroyed = true;
+        Arrays.fill(key, (byte) 0);
+    }
+
+    @Override
+    public boolean isDestroyed() {
+        return destroyed;
     }
 
     // See RFC 4648 Table 1.
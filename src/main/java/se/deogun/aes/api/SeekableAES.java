@@ -0,0 +1,124 @@
+package se.deogun.aes.api;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Interface for interacting with an instantiated AES service where any range of the plain text
+ * can be decrypted without reading the encrypted data before it. The encrypted data is split into
+ * independently authenticated segments and only the segments overlapping a range are read and
+ * verified. A channel passed to an operation must not be used by anyone else while the operation
+ * is in progress since its position is changed.
+ */
+public interface SeekableAES extends AutoCloseable {
+    /**
+     * Encrypts the provided data
+     * @param data plain text
+     * @param aad additional authentication data
+     * @return result of the encrypt operation
+     */
+    Result<? super Failure, byte[], RejectReason> encrypt(byte[] data, AAD aad);
+
+    /**
+     * Encrypts the provided data
+     * @param data plain text
+     * @return result of the encrypt operation
+     */
+    Result<? super Failure, byte[], RejectReason> encrypt(byte[] data);
+
+    /**
+     * Encrypts the data of the input stream and writes it to the output stream one segment at a time
+     * @param inputStream plain text
+     * @param outputStream output stream to which the encrypted data is written to
+     * @param aad additional authentication data
+     * @return result of the encrypt operation
+     */
+    Result<? super Failure, OutputStream, RejectReason> encrypt(InputStream inputStream, OutputStream outputStream, AAD aad);
+
+    /**
+     * Encrypts the data of the input stream and writes it to the output stream one segment at a time
+     * @param inputStream plain text
+     * @param outputStream output stream to which the encrypted data is written to
+     * @return result of the encrypt operation
+     */
+    Result<? super Failure, OutputStream, RejectReason> encrypt(InputStream inputStream, OutputStream outputStream);
+
+    /**
+     * Decrypts all of the provided data
+     * @param data encrypted data
+     * @param aad additional authentication data
+     * @return result of the decrypt operation
+     */
+    Result<? super Failure, byte[], RejectReason> decrypt(byte[] data, AAD aad);
+
+    /**
+     * Decrypts all of the provided data
+     * @param data encrypted data
+     * @return result of the decrypt operation
+     */
+    Result<? super Failure, byte[], RejectReason> decrypt(byte[] data);
+
+    /**
+     * Calculates the plain text size of the encrypted data without decrypting it
+     * @param encryptedData encrypted data
+     * @return result with the plain text size
+     */
+    Result<? super Failure, Long, RejectReason> plainTextSize(SeekableByteChannel encryptedData);
+
+    /**
+     * Decrypts a range of the plain text
+     * @param encryptedData encrypted data
+     * @param offset offset in the plain text
+     * @param length number of plain text bytes
+     * @param aad additional authentication data
+     * @return result of the decrypt operation, rejected with {@link RejectReason#INVALID_RANGE} if the
+     * range isn't within the plain text
+     */
+    Result<? super Failure, byte[], RejectReason> decryptRange(SeekableByteChannel encryptedData, long offset, int length, AAD aad);
+
+    /**
+     * Decrypts a range of the plain text
+     * @param encryptedData encrypted data
+     * @param offset offset in the plain text
+     * @param length number of plain text bytes
+     * @return result of the decrypt operation, rejected with {@link RejectReason#INVALID_RANGE} if the
+     * range isn't within the plain text
+     */
+    Result<? super Failure, byte[], RejectReason> decryptRange(SeekableByteChannel encryptedData, long offset, int length);
+
+    /**
+     * Decrypts a range of the plain text and writes it to the output stream. Every segment is verified
+     * before it's written, which means the output stream may contain the verified part of the range if
+     * the operation is rejected and should be discarded.
+     * @param encryptedData encrypted data
+     * @param offset offset in the plain text
+     * @param length number of plain text bytes
+     * @param outputStream output stream to which the plain text is written to
+     * @param aad additional authentication data
+     * @return result of the decrypt operation, rejected with {@link RejectReason#INVALID_RANGE} if the
+     * range isn't within the plain text
+     */
+    Result<? super Failure, OutputStream, RejectReason> decryptRange(SeekableByteChannel encryptedData, long offset, long length,
+                                                                     OutputStream outputStream, AAD aad);
+
+    /**
+     * Decrypts a range of the plain text and writes it to the output stream. Every segment is verified
+     * before it's written, which means the output stream may contain the verified part of the range if
+     * the operation is rejected and should be discarded.
+     * @param encryptedData encrypted data
+     * @param offset offset in the plain text
+     * @param length number of plain text bytes
+     * @param outputStream output stream to which the plain text is written to
+     * @return result of the decrypt operation, rejected with {@link RejectReason#INVALID_RANGE} if the
+     * range isn't within the plain text
+     */
+    Result<? super Failure, OutputStream, RejectReason> decryptRange(SeekableByteChannel encryptedData, long offset, long length,
+                                                                     OutputStream outputStream);
+
+    /**
+     * Destroys the secret, after which every operation is rejected
+     */
+    @Override
+    void close();
+}
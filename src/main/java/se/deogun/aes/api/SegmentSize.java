@@ -0,0 +1,15 @@
+package se.deogun.aes.api;
+
+public enum SegmentSize {
+    _64KB_SEGMENT_SIZE(64),
+    _256KB_SEGMENT_SIZE(256),
+    _1MB_SEGMENT_SIZE(1024),
+    _4MB_SEGMENT_SIZE(4 * 1024),
+    _16MB_SEGMENT_SIZE(16 * 1024);
+
+    public final int size;
+
+    SegmentSize(final int size) {
+        this.size = size * 1024; //KB
+    }
+}
@@ -0,0 +1,32 @@
+package se.deogun.aes.api;
+
+/**
+ * Encryption throughput of a transformation, as measured for one provider
+ */
+public final class Throughput {
+    public final Transformation transformation;
+    public final String provider;
+    public final double megabytesPerSecond;
+
+    /**
+     * @param transformation transformation that was measured
+     * @param provider name of the provider
+     * @param megabytesPerSecond plain text encrypted per second, in units of 2^20 bytes
+     */
+    public Throughput(final Transformation transformation, final String provider, final double megabytesPerSecond) {
+        if (transformation == null || provider == null) {
+            throw new IllegalArgumentException("Null not allowed as input");
+        }
+        if (!(megabytesPerSecond >= 0)) {
+            throw new IllegalArgumentException("Throughput must not be negative");
+        }
+        this.transformation = transformation;
+        this.provider = provider;
+        this.megabytesPerSecond = megabytesPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s %.1f MB/s", transformation, provider, megabytesPerSecond);
+    }
+}
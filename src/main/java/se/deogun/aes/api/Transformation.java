@@ -0,0 +1,15 @@
+package se.deogun.aes.api;
+
+/**
+ * Cipher transformations used by the AES modes, which are measured per provider by a capability probe
+ */
+public enum Transformation {
+    GCM("AES/GCM/NoPadding"),
+    CBC("AES/CBC/PKCS5Padding");
+
+    public final String algorithm;
+
+    Transformation(final String algorithm) {
+        this.algorithm = algorithm;
+    }
+}
@@ -1,17 +1,21 @@
 package se.deogun.aes.modes;
 
 import se.deogun.aes.modes.common.AAD;
+import se.deogun.aes.modes.common.Batch;
 import se.deogun.aes.modes.common.InternalRejectReason;
-import se.deogun.aes.modes.common.Result;
+import se.deogun.aes.api.Result;
 import se.deogun.aes.modes.common.Secret;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
 
 /**
  * AES mode for encrypting / decrypting data
  */
-public sealed interface AADMode permits GCM {
+public sealed interface AADMode permits GCM, ParallelGCM, GCMSIV {
     Result<Throwable, OutputStream, InternalRejectReason> encrypt(byte[] plainText, OutputStream outputStream, Secret secret, AAD aad);
 
     Result<Throwable, byte[], InternalRejectReason> encrypt(byte[] plainText, Secret secret, AAD aad);
@@ -19,4 +23,32 @@ public sealed interface AADMode permits GCM {
     Result<Throwable, byte[], InternalRejectReason> decrypt(InputStream encryptedData, Secret secret, AAD aad);
 
     Result<Throwable, byte[], InternalRejectReason> decrypt(byte[] encryptedData, Secret secret, AAD aad);
+
+    Result<Throwable, ByteBuffer, InternalRejectReason> encrypt(ByteBuffer plainText, ByteBuffer destination, Secret secret, AAD aad);
+
+    Result<Throwable, ByteBuffer, InternalRejectReason> decrypt(ByteBuffer encryptedData, ByteBuffer destination, Secret secret, AAD aad);
+
+    Result<Throwable, OutputStream, InternalRejectReason> encrypt(InputStream plainText, OutputStream outputStream, Secret secret, AAD aad);
+
+    Result<Throwable, OutputStream, InternalRejectReason> encryptingStream(OutputStream outputStream, Secret secret, AAD aad);
+
+    Result<Throwable, OutputStream, InternalRejectReason> decrypt(InputStream encryptedData, OutputStream outputStream, Secret secret, AAD aad);
+
+    Result<Throwable, InputStream, InternalRejectReason> decryptingStream(InputStream encryptedData, Secret secret, AAD aad);
+
+    Result<Throwable, Long, InternalRejectReason> encrypt(FileChannel plainText, FileChannel destination, Secret secret, AAD aad);
+
+    Result<Throwable, Long, InternalRejectReason> decrypt(FileChannel encryptedData, FileChannel destination, Secret secret, AAD aad);
+
+    Result<Throwable, Batch, InternalRejectReason> encryptAll(List<byte[]> plainTexts, Secret secret, List<AAD> aads);
+
+    Result<Throwable, Batch, InternalRejectReason> decryptAll(List<byte[]> encryptedData, Secret secret, List<AAD> aads);
+
+    int maxEncryptedSize(int plainTextSize);
+
+    /**
+     * Drops the pooled ciphers, which hold the key schedule of the secret. Called when the
+     * secret is destroyed, after which the mode must not be used.
+     */
+    void clear();
 }
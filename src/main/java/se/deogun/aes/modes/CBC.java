@@ -1,42 +1,70 @@
 package se.deogun.aes.modes;
 
+import se.deogun.aes.modes.common.Batch;
+import se.deogun.aes.modes.common.CipherPool;
+import se.deogun.aes.modes.common.InitVectorGenerator;
+import se.deogun.aes.modes.common.InitVectorsExhausted;
 import se.deogun.aes.modes.common.InternalRejectReason;
-import se.deogun.aes.modes.common.Result;
+import se.deogun.aes.api.Result;
 import se.deogun.aes.modes.common.Secret;
 import se.deogun.aes.modes.common.UnableToCreateSecureRandom;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.IvParameterSpec;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
+import java.security.Provider;
+import java.util.Arrays;
+import java.util.List;
 
 import static javax.crypto.Cipher.DECRYPT_MODE;
 import static javax.crypto.Cipher.ENCRYPT_MODE;
 import static se.deogun.aes.modes.InternalValidation.*;
 import static se.deogun.aes.modes.common.InternalRejectReason.*;
-import static se.deogun.aes.modes.common.Result.accept;
-import static se.deogun.aes.modes.common.Result.reject;
+import static se.deogun.aes.api.Result.accept;
+import static se.deogun.aes.api.Result.reject;
 
 final class CBC implements NonAADMode {
     private static final int IV_NUMBER_OF_BYTES = 16;
     private static final int START_INDEX_OF_ENCRYPTED_DATA = 16;
+    private static final int BLOCK_NUMBER_OF_BYTES = 16;
     private static final int END_OF_STREAM = -1;
+    private static final int BATCH_INIT_VECTORS = 64;
+    private static final int MAX_BATCH_NUMBER_OF_BYTES = Integer.MAX_VALUE - 8;
     private final int decryptBufferLoadSize;
+    private final InitVectorGenerator initVectorGenerator;
+    private final CipherPool ciphers;
 
-    CBC(final int decryptBufferLoadSize) {
+    CBC(final int decryptBufferLoadSize, final InitVectorGenerator initVectorGenerator) {
+        this(decryptBufferLoadSize, initVectorGenerator, (Provider) null);
+    }
+
+    CBC(final int decryptBufferLoadSize, final InitVectorGenerator initVectorGenerator, final Provider provider) {
+        this(decryptBufferLoadSize, initVectorGenerator, new CipherPool("AES/CBC/PKCS5Padding", Runtime.getRuntime().availableProcessors(), provider));
+    }
+
+    CBC(final int decryptBufferLoadSize, final InitVectorGenerator initVectorGenerator, final CipherPool ciphers) {
         isTrue(isInRange(decryptBufferLoadSize, 8 * 1024, 1024 * 1024));
+        isNotNull(initVectorGenerator);
+        isNotNull(ciphers);
 
         this.decryptBufferLoadSize = decryptBufferLoadSize;
+        this.initVectorGenerator = initVectorGenerator;
+        this.ciphers = ciphers;
     }
 
     @Override
@@ -45,11 +73,19 @@ final class CBC implements NonAADMode {
         isNotNull(secret);
 
         try {
-            final var cipher = cbc();
-            final var initVectorSpec = initVectorSpec();
+            final var cipher = ciphers.borrow();
+            try {
+                final var initVectorSpec = initVectorSpec();
 
-            cipher.init(ENCRYPT_MODE, secret.keySpecification(), initVectorSpec);
-            return accept(encryptedData(initVectorSpec.getIV(), cipher.doFinal(plainText)));
+                cipher.init(ENCRYPT_MODE, secret.keySpecification(), initVectorSpec);
+
+                final var encryptedData = new byte[maxEncryptedSize(plainText.length)];
+                System.arraycopy(initVectorSpec.getIV(), 0, encryptedData, 0, IV_NUMBER_OF_BYTES);
+                cipher.doFinal(plainText, 0, plainText.length, encryptedData, START_INDEX_OF_ENCRYPTED_DATA);
+                return accept(encryptedData);
+            } finally {
+                ciphers.release(cipher);
+            }
 
         } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
             return reject(CBC_NOT_AVAILABLE);
@@ -57,10 +93,12 @@ final class CBC implements NonAADMode {
             return reject(CBC_INVALID_PARAMETERS);
         } catch (InvalidKeyException e) {
             return reject(CBC_INVALID_KEY);
-        } catch (IllegalStateException | IllegalBlockSizeException | BadPaddingException e) {
+        } catch (IllegalStateException | IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
             return reject(UNABLE_TO_ENCRYPT);
         } catch (UnableToCreateSecureRandom unableToCreateSecureRandom) {
             return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted initVectorsExhausted) {
+            return reject(INIT_VECTORS_EXHAUSTED);
         }
     }
 
@@ -70,11 +108,15 @@ final class CBC implements NonAADMode {
         isNotNull(secret);
 
         try {
-            final var cipher = cbc();
-            final var iv = initVectorSpec(encryptedData);
-            cipher.init(DECRYPT_MODE, secret.keySpecification(), iv);
+            final var cipher = ciphers.borrow();
+            try {
+                final var iv = initVectorSpec(encryptedData);
+                cipher.init(DECRYPT_MODE, secret.keySpecification(), iv);
 
-            return accept(cipher.doFinal(encryptedData, START_INDEX_OF_ENCRYPTED_DATA, encryptedData.length - IV_NUMBER_OF_BYTES));
+                return accept(cipher.doFinal(encryptedData, START_INDEX_OF_ENCRYPTED_DATA, encryptedData.length - IV_NUMBER_OF_BYTES));
+            } finally {
+                ciphers.release(cipher);
+            }
 
         } catch (InvalidAlgorithmParameterException e) {
             return reject(CBC_INVALID_PARAMETERS);
@@ -115,33 +157,473 @@ final class CBC implements NonAADMode {
         isNotNull(encryptedData);
         isNotNull(secret);
 
+        final var decrypted = new ByteArrayOutputStream();
+        return decrypt(encryptedData, decrypted, secret).transform(
+                accept -> accept(decrypted.toByteArray()),
+                reject -> reject(reject),
+                failure -> Result.failure(failure)
+        );
+    }
+
+    @Override
+    public Result<Throwable, ByteBuffer, InternalRejectReason> encrypt(final ByteBuffer plainText, final ByteBuffer destination,
+                                                                       final Secret secret) {
+        isNotNull(plainText);
+        isNotNull(destination);
+        isNotNull(secret);
+
+        if (destination.remaining() < maxEncryptedSize(plainText.remaining())) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+
+        final var plainTextPosition = plainText.position();
+        final var destinationPosition = destination.position();
         try {
-            return decrypt(toBytes(encryptedData), secret);
-        } catch (IOException e) {
+            final var cipher = ciphers.borrow();
+            try {
+                final var initVectorSpec = initVectorSpec();
+                cipher.init(ENCRYPT_MODE, secret.keySpecification(), initVectorSpec);
+
+                destination.put(initVectorSpec.getIV());
+                cipher.doFinal(plainText, destination);
+                return accept(destination);
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            return reject(CBC_NOT_AVAILABLE);
+        } catch (InvalidAlgorithmParameterException e) {
+            return reject(CBC_INVALID_PARAMETERS);
+        } catch (InvalidKeyException e) {
+            return reject(CBC_INVALID_KEY);
+        } catch (IllegalStateException | IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            return rewind(plainText, plainTextPosition, destination, destinationPosition, UNABLE_TO_ENCRYPT);
+        } catch (UnableToCreateSecureRandom unableToCreateSecureRandom) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted initVectorsExhausted) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        }
+    }
+
+    @Override
+    public Result<Throwable, ByteBuffer, InternalRejectReason> decrypt(final ByteBuffer encryptedData, final ByteBuffer destination,
+                                                                       final Secret secret) {
+        isNotNull(encryptedData);
+        isNotNull(destination);
+        isNotNull(secret);
+
+        // The cipher requires room for the padding block as well, which is removed once decrypted
+        if (encryptedData.remaining() < IV_NUMBER_OF_BYTES + BLOCK_NUMBER_OF_BYTES ||
+                destination.remaining() < encryptedData.remaining() - IV_NUMBER_OF_BYTES) {
             return reject(UNABLE_TO_DECRYPT);
         }
+
+        final var encryptedDataPosition = encryptedData.position();
+        final var destinationPosition = destination.position();
+        try {
+            final var cipher = ciphers.borrow();
+            try {
+                final var iv = new byte[IV_NUMBER_OF_BYTES];
+                encryptedData.get(iv);
+                cipher.init(DECRYPT_MODE, secret.keySpecification(), new IvParameterSpec(iv));
+
+                cipher.doFinal(encryptedData, destination);
+                return accept(destination);
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (InvalidAlgorithmParameterException e) {
+            return rewind(encryptedData, encryptedDataPosition, destination, destinationPosition, CBC_INVALID_PARAMETERS);
+        } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            return rewind(encryptedData, encryptedDataPosition, destination, destinationPosition, CBC_NOT_AVAILABLE);
+        } catch (IllegalStateException | IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            return rewind(encryptedData, encryptedDataPosition, destination, destinationPosition, UNABLE_TO_DECRYPT);
+        } catch (InvalidKeyException e) {
+            return rewind(encryptedData, encryptedDataPosition, destination, destinationPosition, CBC_INVALID_KEY);
+        }
     }
 
-    private byte[] toBytes(final InputStream stream) throws IOException {
-        final var buffer = new ByteArrayOutputStream();
-        final var data = new byte[decryptBufferLoadSize];
-        int read;
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> encrypt(final InputStream plainText, final OutputStream outputStream,
+                                                                         final Secret secret) {
+        isNotNull(plainText);
+        isNotNull(outputStream);
+        isNotNull(secret);
+
+        try {
+            final var cipher = ciphers.borrow();
+            try {
+                final var initVectorSpec = initVectorSpec();
+                cipher.init(ENCRYPT_MODE, secret.keySpecification(), initVectorSpec);
+                outputStream.write(initVectorSpec.getIV());
+
+                final var data = new byte[decryptBufferLoadSize];
+                final var encrypted = new byte[decryptBufferLoadSize + BLOCK_NUMBER_OF_BYTES];
+                int read;
+                while ((read = plainText.read(data, 0, data.length)) != END_OF_STREAM) {
+                    outputStream.write(encrypted, 0, cipher.update(data, 0, read, encrypted));
+                }
+                outputStream.write(encrypted, 0, cipher.doFinal(encrypted, 0));
+                return accept(outputStream);
+            } finally {
+                ciphers.release(cipher);
+            }
 
-        while ((read = stream.read(data, 0, data.length)) != END_OF_STREAM) {
-            buffer.write(data, 0, read);
+        } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            return reject(CBC_NOT_AVAILABLE);
+        } catch (InvalidAlgorithmParameterException e) {
+            return reject(CBC_INVALID_PARAMETERS);
+        } catch (InvalidKeyException e) {
+            return reject(CBC_INVALID_KEY);
+        } catch (IOException | IllegalStateException | IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            return reject(UNABLE_TO_ENCRYPT);
+        } catch (UnableToCreateSecureRandom unableToCreateSecureRandom) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted initVectorsExhausted) {
+            return reject(INIT_VECTORS_EXHAUSTED);
         }
-        return buffer.toByteArray();
     }
 
-    private Cipher cbc() throws NoSuchAlgorithmException, NoSuchPaddingException {
-        return Cipher.getInstance("AES/CBC/PKCS5Padding");
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> encryptingStream(final OutputStream outputStream, final Secret secret) {
+        isNotNull(outputStream);
+        isNotNull(secret);
+
+        try {
+            final var cipher = ciphers.borrow();
+            var owned = false;
+            try {
+                final var initVectorSpec = initVectorSpec();
+                cipher.init(ENCRYPT_MODE, secret.keySpecification(), initVectorSpec);
+                outputStream.write(initVectorSpec.getIV());
+
+                // The stream returns the cipher to the pool when closed
+                final var stream = new PooledCipherOutputStream(outputStream, ciphers, cipher);
+                owned = true;
+                return accept(stream);
+            } finally {
+                if (!owned) {
+                    ciphers.release(cipher);
+                }
+            }
+
+        } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            return reject(CBC_NOT_AVAILABLE);
+        } catch (InvalidAlgorithmParameterException e) {
+            return reject(CBC_INVALID_PARAMETERS);
+        } catch (InvalidKeyException e) {
+            return reject(CBC_INVALID_KEY);
+        } catch (IOException | IllegalStateException e) {
+            return reject(UNABLE_TO_ENCRYPT);
+        } catch (UnableToCreateSecureRandom unableToCreateSecureRandom) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted initVectorsExhausted) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        }
     }
 
-    private byte[] encryptedData(final byte[] iv, final byte[] encrypted) {
-        final var byteBuffer = ByteBuffer.allocate(iv.length + encrypted.length);
-        byteBuffer.put(iv);
-        byteBuffer.put(encrypted);
-        return byteBuffer.array();
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> decrypt(final InputStream encryptedData, final OutputStream outputStream,
+                                                                         final Secret secret) {
+        isNotNull(encryptedData);
+        isNotNull(outputStream);
+        isNotNull(secret);
+
+        try {
+            final var cipher = ciphers.borrow();
+            try {
+                final var iv = encryptedData.readNBytes(IV_NUMBER_OF_BYTES);
+                if (iv.length != IV_NUMBER_OF_BYTES) {
+                    return reject(UNABLE_TO_DECRYPT);
+                }
+                cipher.init(DECRYPT_MODE, secret.keySpecification(), new IvParameterSpec(iv));
+
+                final var data = new byte[decryptBufferLoadSize];
+                final var decrypted = new byte[decryptBufferLoadSize + BLOCK_NUMBER_OF_BYTES];
+                int read;
+                while ((read = encryptedData.read(data, 0, data.length)) != END_OF_STREAM) {
+                    outputStream.write(decrypted, 0, cipher.update(data, 0, read, decrypted));
+                }
+                outputStream.write(decrypted, 0, cipher.doFinal(decrypted, 0));
+                outputStream.flush();
+                return accept(outputStream);
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (InvalidAlgorithmParameterException e) {
+            return reject(CBC_INVALID_PARAMETERS);
+        } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            return reject(CBC_NOT_AVAILABLE);
+        } catch (IOException | IllegalStateException | IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            return reject(UNABLE_TO_DECRYPT);
+        } catch (InvalidKeyException e) {
+            return reject(CBC_INVALID_KEY);
+        }
+    }
+
+    @Override
+    public Result<Throwable, InputStream, InternalRejectReason> decryptingStream(final InputStream encryptedData, final Secret secret) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+
+        try {
+            final var iv = encryptedData.readNBytes(IV_NUMBER_OF_BYTES);
+            if (iv.length != IV_NUMBER_OF_BYTES) {
+                return reject(UNABLE_TO_DECRYPT);
+            }
+            final var cipher = ciphers.borrow();
+            var owned = false;
+            try {
+                cipher.init(DECRYPT_MODE, secret.keySpecification(), new IvParameterSpec(iv));
+
+                // The stream returns the cipher to the pool when closed
+                final var stream = new PooledCipherInputStream(encryptedData, ciphers, cipher);
+                owned = true;
+                return accept(stream);
+            } finally {
+                if (!owned) {
+                    ciphers.release(cipher);
+                }
+            }
+
+        } catch (InvalidAlgorithmParameterException e) {
+            return reject(CBC_INVALID_PARAMETERS);
+        } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            return reject(CBC_NOT_AVAILABLE);
+        } catch (IOException | IllegalStateException e) {
+            return reject(UNABLE_TO_DECRYPT);
+        } catch (InvalidKeyException e) {
+            return reject(CBC_INVALID_KEY);
+        }
+    }
+
+    @Override
+    public Result<Throwable, Long, InternalRejectReason> encrypt(final FileChannel plainText, final FileChannel destination,
+                                                                 final Secret secret) {
+        isNotNull(plainText);
+        isNotNull(destination);
+        isNotNull(secret);
+
+        long start = -1;
+        try {
+            start = destination.position();
+            final var cipher = ciphers.borrow();
+            try {
+                final var initVectorSpec = initVectorSpec();
+                cipher.init(ENCRYPT_MODE, secret.keySpecification(), initVectorSpec);
+                MappedFile.write(destination, ByteBuffer.wrap(initVectorSpec.getIV()));
+
+                final var output = ByteBuffer.allocateDirect(decryptBufferLoadSize + 2 * BLOCK_NUMBER_OF_BYTES);
+                MappedFile.forEachChunk(plainText, plainText.position(), decryptBufferLoadSize, (index, last, chunk) -> {
+                    if (last) {
+                        cipher.doFinal(chunk, output.clear());
+                    } else {
+                        cipher.update(chunk, output.clear());
+                    }
+                    MappedFile.write(destination, output.flip());
+                });
+                return accept(destination.position() - start);
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (UnableToCreateSecureRandom e) {
+            return MappedFile.discard(destination, start, NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return MappedFile.discard(destination, start, INIT_VECTORS_EXHAUSTED);
+        } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            return MappedFile.discard(destination, start, CBC_NOT_AVAILABLE);
+        } catch (InvalidAlgorithmParameterException e) {
+            return MappedFile.discard(destination, start, CBC_INVALID_PARAMETERS);
+        } catch (InvalidKeyException e) {
+            return MappedFile.discard(destination, start, CBC_INVALID_KEY);
+        } catch (IOException | IllegalStateException | GeneralSecurityException e) {
+            return MappedFile.discard(destination, start, UNABLE_TO_ENCRYPT);
+        }
+    }
+
+    @Override
+    public Result<Throwable, Long, InternalRejectReason> decrypt(final FileChannel encryptedData, final FileChannel destination,
+                                                                 final Secret secret) {
+        isNotNull(encryptedData);
+        isNotNull(destination);
+        isNotNull(secret);
+
+        long start = -1;
+        try {
+            start = destination.position();
+            final var position = encryptedData.position();
+            final var size = encryptedData.size() - position;
+            if (size < IV_NUMBER_OF_BYTES + BLOCK_NUMBER_OF_BYTES || size % BLOCK_NUMBER_OF_BYTES != 0) {
+                return reject(UNABLE_TO_DECRYPT);
+            }
+            final var iv = new byte[IV_NUMBER_OF_BYTES];
+            MappedFile.read(encryptedData, position, iv);
+
+            final var cipher = ciphers.borrow();
+            try {
+                cipher.init(DECRYPT_MODE, secret.keySpecification(), new IvParameterSpec(iv));
+
+                final var output = ByteBuffer.allocateDirect(decryptBufferLoadSize + 2 * BLOCK_NUMBER_OF_BYTES);
+                MappedFile.forEachChunk(encryptedData, position + IV_NUMBER_OF_BYTES, decryptBufferLoadSize, (index, last, chunk) -> {
+                    if (last) {
+                        cipher.doFinal(chunk, output.clear());
+                    } else {
+                        cipher.update(chunk, output.clear());
+                    }
+                    MappedFile.write(destination, output.flip());
+                });
+                return accept(destination.position() - start);
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (InvalidAlgorithmParameterException e) {
+            return MappedFile.discard(destination, start, CBC_INVALID_PARAMETERS);
+        } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            return MappedFile.discard(destination, start, CBC_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return MappedFile.discard(destination, start, CBC_INVALID_KEY);
+        } catch (IOException | IllegalStateException | GeneralSecurityException e) {
+            return MappedFile.discard(destination, start, UNABLE_TO_DECRYPT);
+        }
+    }
+
+    @Override
+    public Result<Throwable, Batch, InternalRejectReason> encryptAll(final List<byte[]> plainTexts, final Secret secret) {
+        isNotNull(plainTexts);
+        isNotNull(secret);
+
+        final var items = plainTexts.toArray(new byte[0][]);
+        long size = 0;
+        for (final var item : items) {
+            isNotNull(item);
+            size += maxEncryptedSize(item.length);
+        }
+        if (size > MAX_BATCH_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+
+        final var buffer = new byte[(int) size];
+        final var offsets = new int[items.length + 1];
+        final var rejects = new InternalRejectReason[items.length];
+        final var initVectors = new byte[BATCH_INIT_VECTORS * IV_NUMBER_OF_BYTES];
+        try {
+            final var key = secret.keySpecification();
+            final var cipher = ciphers.borrow();
+            try {
+                var position = 0;
+                for (int i = 0; i < items.length; i++) {
+                    final var initVectorIndex = (i % BATCH_INIT_VECTORS) * IV_NUMBER_OF_BYTES;
+                    if (initVectorIndex == 0) {
+                        initVectorGenerator.nextBytes(initVectors);
+                    }
+                    offsets[i] = position;
+                    try {
+                        cipher.init(ENCRYPT_MODE, key, new IvParameterSpec(initVectors, initVectorIndex, IV_NUMBER_OF_BYTES));
+
+                        System.arraycopy(initVectors, initVectorIndex, buffer, position, IV_NUMBER_OF_BYTES);
+                        position += IV_NUMBER_OF_BYTES + cipher.doFinal(items[i], 0, items[i].length, buffer, position + IV_NUMBER_OF_BYTES);
+                    } catch (IllegalStateException | IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+                        rejects[i] = UNABLE_TO_ENCRYPT;
+                    } catch (InvalidKeyException e) {
+                        rejects[i] = CBC_INVALID_KEY;
+                    } catch (InvalidAlgorithmParameterException e) {
+                        rejects[i] = CBC_INVALID_PARAMETERS;
+                    }
+                }
+                offsets[items.length] = position;
+                return accept(new Batch(buffer, offsets, rejects));
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (UnableToCreateSecureRandom e) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            return reject(CBC_NOT_AVAILABLE);
+        }
+    }
+
+    @Override
+    public Result<Throwable, Batch, InternalRejectReason> decryptAll(final List<byte[]> encryptedData, final Secret secret) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+
+        final var items = encryptedData.toArray(new byte[0][]);
+        long size = 0;
+        for (final var item : items) {
+            isNotNull(item);
+            size += Math.max(0, item.length - IV_NUMBER_OF_BYTES);
+        }
+        if (size > MAX_BATCH_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_DECRYPT);
+        }
+
+        final var buffer = new byte[(int) size];
+        final var offsets = new int[items.length + 1];
+        final var rejects = new InternalRejectReason[items.length];
+        try {
+            final var key = secret.keySpecification();
+            final var cipher = ciphers.borrow();
+            try {
+                var position = 0;
+                for (int i = 0; i < items.length; i++) {
+                    final var item = items[i];
+                    offsets[i] = position;
+                    if (item.length < IV_NUMBER_OF_BYTES + BLOCK_NUMBER_OF_BYTES) {
+                        rejects[i] = UNABLE_TO_DECRYPT;
+                        continue;
+                    }
+                    try {
+                        cipher.init(DECRYPT_MODE, key, new IvParameterSpec(item, 0, IV_NUMBER_OF_BYTES));
+
+                        position += cipher.doFinal(item, START_INDEX_OF_ENCRYPTED_DATA, item.length - IV_NUMBER_OF_BYTES, buffer, position);
+                    } catch (IllegalStateException | IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+                        rejects[i] = UNABLE_TO_DECRYPT;
+                    } catch (InvalidKeyException e) {
+                        rejects[i] = CBC_INVALID_KEY;
+                    } catch (InvalidAlgorithmParameterException e) {
+                        rejects[i] = CBC_INVALID_PARAMETERS;
+                    }
+                    if (rejects[i] != null) {
+                        Arrays.fill(buffer, position, position + item.length - IV_NUMBER_OF_BYTES, (byte) 0);
+                    }
+                }
+                offsets[items.length] = position;
+                return accept(new Batch(buffer, offsets, rejects));
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            return reject(CBC_NOT_AVAILABLE);
+        }
+    }
+
+    @Override
+    public int maxEncryptedSize(final int plainTextSize) {
+        isTrue(isInRange(plainTextSize, 0, Integer.MAX_VALUE - IV_NUMBER_OF_BYTES - 2 * BLOCK_NUMBER_OF_BYTES));
+
+        return IV_NUMBER_OF_BYTES + (plainTextSize / BLOCK_NUMBER_OF_BYTES + 1) * BLOCK_NUMBER_OF_BYTES;
+    }
+
+    @Override
+    public void clear() {
+        ciphers.clear();
+    }
+
+    private static <T> Result<Throwable, T, InternalRejectReason> rewind(final ByteBuffer source, final int sourcePosition,
+                                                                           final ByteBuffer destination, final int destinationPosition,
+                                                                           final InternalRejectReason reason) {
+        source.position(sourcePosition);
+        destination.position(destinationPosition);
+        return reject(reason);
     }
 
     private IvParameterSpec initVectorSpec(final byte[] encryptedData) {
@@ -150,13 +632,59 @@ final class CBC implements NonAADMode {
         return new IvParameterSpec(iv);
     }
 
-    private IvParameterSpec initVectorSpec() throws UnableToCreateSecureRandom {
-        try {
-            final var nonce = new byte[IV_NUMBER_OF_BYTES];
-            SecureRandom.getInstanceStrong().nextBytes(nonce);
-            return new IvParameterSpec(nonce);
-        } catch (NoSuchAlgorithmException e) {
-            throw new UnableToCreateSecureRandom();
+    private IvParameterSpec initVectorSpec() throws UnableToCreateSecureRandom, InitVectorsExhausted {
+        final var nonce = new byte[IV_NUMBER_OF_BYTES];
+        initVectorGenerator.nextBytes(nonce);
+        return new IvParameterSpec(nonce);
+    }
+
+    private static final class PooledCipherOutputStream extends CipherOutputStream {
+        private final CipherPool ciphers;
+        private final Cipher cipher;
+        private boolean closed;
+
+        private PooledCipherOutputStream(final OutputStream outputStream, final CipherPool ciphers, final Cipher cipher) {
+            super(outputStream, cipher);
+            this.ciphers = ciphers;
+            this.cipher = cipher;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                ciphers.release(cipher);
+            }
+        }
+    }
+
+    private static final class PooledCipherInputStream extends CipherInputStream {
+        private final CipherPool ciphers;
+        private final Cipher cipher;
+        private boolean closed;
+
+        private PooledCipherInputStream(final InputStream inputStream, final CipherPool ciphers, final Cipher cipher) {
+            super(inputStream, cipher);
+            this.ciphers = ciphers;
+            this.cipher = cipher;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                ciphers.release(cipher);
+            }
         }
     }
 }
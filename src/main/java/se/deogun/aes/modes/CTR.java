@@ -0,0 +1,344 @@
+package se.deogun.aes.modes;
+
+import se.deogun.aes.api.Result;
+import se.deogun.aes.modes.common.*;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.Mac;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import static se.deogun.aes.modes.InternalValidation.*;
+import static se.deogun.aes.modes.SegmentedCTR.HEADER_NUMBER_OF_BYTES;
+import static se.deogun.aes.modes.SegmentedCTR.TAG_NUMBER_OF_BYTES;
+import static se.deogun.aes.modes.common.InternalRejectReason.*;
+import static se.deogun.aes.api.Result.accept;
+import static se.deogun.aes.api.Result.reject;
+
+final class CTR implements SeekableMode {
+    private static final int END_OF_STREAM = -1;
+    private static final int MAX_NUMBER_OF_BYTES = Integer.MAX_VALUE - 8;
+    private final int segmentSize;
+    private final InitVectorGenerator initVectorGenerator;
+    private final CipherPool ciphers;
+
+    CTR(final int segmentSize, final InitVectorGenerator initVectorGenerator) {
+        this(segmentSize, initVectorGenerator, new CipherPool("AES/CTR/NoPadding", Runtime.getRuntime().availableProcessors()));
+    }
+
+    CTR(final int segmentSize, final InitVectorGenerator initVectorGenerator, final CipherPool ciphers) {
+        isTrue(isInRange(segmentSize, SegmentedCTR.MIN_SEGMENT_SIZE, SegmentedCTR.MAX_SEGMENT_SIZE));
+        isNotNull(initVectorGenerator);
+        isNotNull(ciphers);
+
+        this.segmentSize = segmentSize;
+        this.initVectorGenerator = initVectorGenerator;
+        this.ciphers = ciphers;
+    }
+
+    @Override
+    public Result<Throwable, byte[], InternalRejectReason> encrypt(final byte[] plainText, final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        final var segments = segments(plainText.length);
+        if (HEADER_NUMBER_OF_BYTES + plainText.length + (long) segments * TAG_NUMBER_OF_BYTES > MAX_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+
+        try {
+            final var format = SegmentedCTR.create(segmentSize, secret, aad, initVectorGenerator);
+            try {
+                final var encrypted = new byte[HEADER_NUMBER_OF_BYTES + plainText.length + segments * TAG_NUMBER_OF_BYTES];
+                System.arraycopy(format.header(), 0, encrypted, 0, HEADER_NUMBER_OF_BYTES);
+
+                final var mac = Mac.getInstance("HmacSHA256");
+                final var cipher = ciphers.borrow();
+                try {
+                    var position = HEADER_NUMBER_OF_BYTES;
+                    for (int index = 0; index < segments; index++) {
+                        final var offset = index * segmentSize;
+                        final var length = Math.min(segmentSize, plainText.length - offset);
+                        position += format.encrypt(cipher, mac, index, index == segments - 1, plainText, offset, length, encrypted, position);
+                    }
+                    return accept(encrypted);
+                } finally {
+                    ciphers.release(cipher);
+                }
+            } finally {
+                format.destroy();
+            }
+
+        } catch (UnableToCreateSecureRandom e) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+            return reject(UNABLE_TO_ENCRYPT);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(CTR_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return reject(CTR_INVALID_KEY);
+        } catch (InvalidAlgorithmParameterException e) {
+            return reject(CTR_INVALID_PARAMETERS);
+        }
+    }
+
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> encrypt(final InputStream plainText, final OutputStream outputStream,
+                                                                         final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        try {
+            final var format = SegmentedCTR.create(segmentSize, secret, aad, initVectorGenerator);
+            final var segment = new byte[segmentSize];
+            try {
+                outputStream.write(format.header());
+
+                final var encrypted = new byte[segmentSize + TAG_NUMBER_OF_BYTES];
+                final var mac = Mac.getInstance("HmacSHA256");
+                final var cipher = ciphers.borrow();
+                try {
+                    var length = read(plainText, segment, 0);
+                    for (long index = 0; ; index++) {
+                        // A full segment is only the last one if no more data follows
+                        final var next = length == segmentSize ? plainText.read() : END_OF_STREAM;
+                        final var last = next == END_OF_STREAM;
+                        outputStream.write(encrypted, 0, format.encrypt(cipher, mac, index, last, segment, 0, length, encrypted, 0));
+                        if (last) {
+                            return accept(outputStream);
+                        }
+                        segment[0] = (byte) next;
+                        length = 1 + read(plainText, segment, 1);
+                    }
+                } finally {
+                    ciphers.release(cipher);
+                }
+            } finally {
+                Arrays.fill(segment, (byte) 0);
+                format.destroy();
+            }
+
+        } catch (UnableToCreateSecureRandom e) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        } catch (IOException | IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+            return reject(UNABLE_TO_ENCRYPT);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(CTR_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return reject(CTR_INVALID_KEY);
+        } catch (InvalidAlgorithmParameterException e) {
+            return reject(CTR_INVALID_PARAMETERS);
+        }
+    }
+
+    @Override
+    public Result<Throwable, byte[], InternalRejectReason> decrypt(final byte[] encryptedData, final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        if (encryptedData.length < HEADER_NUMBER_OF_BYTES + TAG_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_DECRYPT);
+        }
+
+        try {
+            final var format = SegmentedCTR.read(Arrays.copyOf(encryptedData, HEADER_NUMBER_OF_BYTES), secret, aad);
+            try {
+                final var size = SegmentedCTR.plainTextSize(encryptedData.length, format.segmentSize());
+                if (size < 0) {
+                    return reject(UNABLE_TO_DECRYPT);
+                }
+                final var decrypted = new byte[(int) size];
+                final var encryptedSegmentSize = format.segmentSize() + TAG_NUMBER_OF_BYTES;
+                final var segments = segments(size, format.segmentSize());
+
+                final var mac = Mac.getInstance("HmacSHA256");
+                final var cipher = ciphers.borrow();
+                try {
+                    var position = 0;
+                    for (int index = 0; index < segments; index++) {
+                        final var offset = HEADER_NUMBER_OF_BYTES + index * encryptedSegmentSize;
+                        final var length = Math.min(encryptedSegmentSize, encryptedData.length - offset);
+                        position += format.decrypt(cipher, mac, index, index == segments - 1, encryptedData, offset, length, decrypted, position);
+                    }
+                    return accept(decrypted);
+                } catch (BadPaddingException e) {
+                    Arrays.fill(decrypted, (byte) 0);
+                    throw e;
+                } finally {
+                    ciphers.release(cipher);
+                }
+            } finally {
+                format.destroy();
+            }
+
+        } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+            return reject(UNABLE_TO_DECRYPT);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(CTR_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return reject(CTR_INVALID_KEY);
+        } catch (InvalidAlgorithmParameterException e) {
+            return reject(CTR_INVALID_PARAMETERS);
+        }
+    }
+
+    @Override
+    public Result<Throwable, Long, InternalRejectReason> plainTextSize(final SeekableByteChannel encryptedData) {
+        isNotNull(encryptedData);
+
+        try {
+            final var header = new byte[HEADER_NUMBER_OF_BYTES];
+            read(encryptedData, 0, header, HEADER_NUMBER_OF_BYTES);
+            final var size = SegmentedCTR.plainTextSize(encryptedData.size(), SegmentedCTR.segmentSize(header));
+            return size < 0 ? reject(UNABLE_TO_DECRYPT) : accept(size);
+        } catch (IOException | AEADBadTagException e) {
+            return reject(UNABLE_TO_DECRYPT);
+        }
+    }
+
+    @Override
+    public Result<Throwable, byte[], InternalRejectReason> decryptRange(final SeekableByteChannel encryptedData, final long offset,
+                                                                        final int length, final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        if (offset < 0 || length < 0) {
+            return reject(INVALID_RANGE);
+        }
+        // The range is validated against the size of the file before the plain text is allocated
+        final var size = plainTextSize(encryptedData);
+        if (!size.isAccept()) {
+            return reject(size.liftReject());
+        }
+        if (offset > size.liftAccept() - length) {
+            return reject(INVALID_RANGE);
+        }
+        final var decrypted = new ByteArrayOutputStream(length);
+        return decryptRange(encryptedData, offset, length, decrypted, secret, aad).transform(
+                accept -> accept(decrypted.toByteArray()),
+                reject -> reject(reject),
+                failure -> Result.failure(failure)
+        );
+    }
+
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> decryptRange(final SeekableByteChannel encryptedData, final long offset,
+                                                                              final long length, final OutputStream outputStream,
+                                                                              final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        if (offset < 0 || length < 0) {
+            return reject(INVALID_RANGE);
+        }
+
+        try {
+            final var header = new byte[HEADER_NUMBER_OF_BYTES];
+            read(encryptedData, 0, header, HEADER_NUMBER_OF_BYTES);
+            final var format = SegmentedCTR.read(header, secret, aad);
+            final var segment = new byte[format.segmentSize()];
+            try {
+                final var encryptedSize = encryptedData.size();
+                final var size = SegmentedCTR.plainTextSize(encryptedSize, format.segmentSize());
+                if (size < 0) {
+                    return reject(UNABLE_TO_DECRYPT);
+                }
+                if (offset > size - length) {
+                    return reject(INVALID_RANGE);
+                }
+                if (length == 0) {
+                    return accept(outputStream);
+                }
+
+                final long encryptedSegmentSize = format.segmentSize() + TAG_NUMBER_OF_BYTES;
+                final var lastSegment = segments(size, format.segmentSize()) - 1;
+                final var first = offset / format.segmentSize();
+                final var last = (offset + length - 1) / format.segmentSize();
+                final var encrypted = new byte[(int) encryptedSegmentSize];
+
+                final var mac = Mac.getInstance("HmacSHA256");
+                final var cipher = ciphers.borrow();
+                try {
+                    // Only the segments overlapping the range are read, verified and decrypted
+                    for (var index = first; index <= last; index++) {
+                        final var position = HEADER_NUMBER_OF_BYTES + index * encryptedSegmentSize;
+                        final var encryptedLength = (int) Math.min(encryptedSegmentSize, encryptedSize - position);
+                        read(encryptedData, position, encrypted, encryptedLength);
+
+                        final var decrypted = format.decrypt(cipher, mac, index, index == lastSegment, encrypted, 0, encryptedLength, segment, 0);
+                        final var from = index == first ? (int) (offset - index * format.segmentSize()) : 0;
+                        final var to = index == last ? (int) (offset + length - index * format.segmentSize()) : decrypted;
+                        outputStream.write(segment, from, to - from);
+                    }
+                    return accept(outputStream);
+                } finally {
+                    ciphers.release(cipher);
+                }
+            } finally {
+                Arrays.fill(segment, (byte) 0);
+                format.destroy();
+            }
+
+        } catch (IOException | IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+            return reject(UNABLE_TO_DECRYPT);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(CTR_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return reject(CTR_INVALID_KEY);
+        } catch (InvalidAlgorithmParameterException e) {
+            return reject(CTR_INVALID_PARAMETERS);
+        }
+    }
+
+    @Override
+    public void clear() {
+        ciphers.clear();
+    }
+
+    private int segments(final int plainTextSize) {
+        return (int) segments(plainTextSize, segmentSize);
+    }
+
+    private static long segments(final long plainTextSize, final int segmentSize) {
+        return plainTextSize == 0 ? 1 : (plainTextSize + segmentSize - 1) / segmentSize;
+    }
+
+    private static int read(final InputStream inputStream, final byte[] buffer, final int offset) throws IOException {
+        return inputStream.readNBytes(buffer, offset, buffer.length - offset);
+    }
+
+    private static void read(final SeekableByteChannel channel, final long position, final byte[] buffer, final int length)
+            throws IOException {
+        channel.position(position);
+        final var destination = ByteBuffer.wrap(buffer, 0, length);
+        while (destination.hasRemaining()) {
+            if (channel.read(destination) == END_OF_STREAM) {
+                throw new EOFException();
+            }
+        }
+    }
+}
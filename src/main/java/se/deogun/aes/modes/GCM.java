@@ -1,28 +1,31 @@
 package se.deogun.aes.modes;
 
+import se.deogun.aes.api.Result;
 import se.deogun.aes.modes.common.*;
 
 import javax.crypto.BadPaddingException;
-import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.GCMParameterSpec;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
+import java.security.Provider;
+import java.util.Arrays;
+import java.util.List;
 
 import static javax.crypto.Cipher.DECRYPT_MODE;
 import static javax.crypto.Cipher.ENCRYPT_MODE;
 import static se.deogun.aes.modes.InternalValidation.*;
 import static se.deogun.aes.modes.common.InternalRejectReason.*;
-import static se.deogun.aes.modes.common.Result.accept;
-import static se.deogun.aes.modes.common.Result.reject;
+import static se.deogun.aes.api.Result.accept;
+import static se.deogun.aes.api.Result.reject;
 
 final class GCM implements AADMode {
     private static final int START_INDEX_OF_ENCRYPTED_DATA = 12;
@@ -30,13 +33,29 @@ final class GCM implements AADMode {
     private static final int START_INDEX_OF_IV = 0;
     private static final int NUMBER_OF_IV_BYTES = 12;
     private static final int IV_NUMBER_OF_BYTES = 12;
-    private static final int END_OF_STREAM = -1;
+    private static final int TAG_NUMBER_OF_BYTES = 16;
+    private static final int BATCH_INIT_VECTORS = 64;
+    private static final int MAX_BATCH_NUMBER_OF_BYTES = Integer.MAX_VALUE - 8;
     private final int decryptBufferLoadSize;
+    private final InitVectorGenerator initVectorGenerator;
+    private final CipherPool ciphers;
 
-    GCM(final int decryptBufferLoadSize) {
+    GCM(final int decryptBufferLoadSize, final InitVectorGenerator initVectorGenerator) {
+        this(decryptBufferLoadSize, initVectorGenerator, (Provider) null);
+    }
+
+    GCM(final int decryptBufferLoadSize, final InitVectorGenerator initVectorGenerator, final Provider provider) {
+        this(decryptBufferLoadSize, initVectorGenerator, new CipherPool("AES/GCM/NoPadding", Runtime.getRuntime().availableProcessors(), provider));
+    }
+
+    GCM(final int decryptBufferLoadSize, final InitVectorGenerator initVectorGenerator, final CipherPool ciphers) {
         isTrue(isInRange(decryptBufferLoadSize, 8 * 1024, 1024 * 1024));
+        isNotNull(initVectorGenerator);
+        isNotNull(ciphers);
 
         this.decryptBufferLoadSize = decryptBufferLoadSize;
+        this.initVectorGenerator = initVectorGenerator;
+        this.ciphers = ciphers;
     }
 
     public Result<Throwable, OutputStream, InternalRejectReason> encrypt(final byte[] plainText, final OutputStream outputStream,
@@ -67,18 +86,27 @@ final class GCM implements AADMode {
         isNotNull(aad);
 
         try {
-            final var cipher = gcm();
-            final byte[] initVector = initVector();
-            final var gcmParameterSpec = new GCMParameterSpec(TAG_LENGTH_IN_BITS, initVector);
+            final var cipher = ciphers.borrow();
+            try {
+                final byte[] initVector = initVector();
+                final var gcmParameterSpec = new GCMParameterSpec(TAG_LENGTH_IN_BITS, initVector);
 
-            cipher.init(ENCRYPT_MODE, secret.keySpecification(), gcmParameterSpec);
-            cipher.updateAAD(aad.value());
+                cipher.init(ENCRYPT_MODE, secret.keySpecification(), gcmParameterSpec);
+                cipher.updateAAD(aad.buffer());
 
-            return accept(encryptedData(initVector, cipher.doFinal(plainText)));
+                final var encryptedData = new byte[maxEncryptedSize(plainText.length)];
+                System.arraycopy(initVector, 0, encryptedData, START_INDEX_OF_IV, IV_NUMBER_OF_BYTES);
+                cipher.doFinal(plainText, 0, plainText.length, encryptedData, START_INDEX_OF_ENCRYPTED_DATA);
+                return accept(encryptedData);
+            } finally {
+                ciphers.release(cipher);
+            }
 
         } catch (UnableToCreateSecureRandom e) {
             return reject(NO_SECURE_RANDOM_ALGORITHM);
-        } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException e) {
+        } catch (InitVectorsExhausted e) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
             return reject(UNABLE_TO_ENCRYPT);
         } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
             return reject(GCM_NOT_AVAILABLE);
@@ -89,16 +117,38 @@ final class GCM implements AADMode {
         }
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     public Result<Throwable, byte[], InternalRejectReason> decrypt(final InputStream encryptedData, final Secret secret, final AAD aad) {
         isNotNull(encryptedData);
         isNotNull(secret);
         isNotNull(aad);
 
         try {
-            return decrypt(toBytes(encryptedData), secret, aad);
-        } catch (IOException e) {
+            final var cipher = ciphers.borrow();
+            try {
+                final var initVector = encryptedData.readNBytes(IV_NUMBER_OF_BYTES);
+                if (initVector.length != IV_NUMBER_OF_BYTES) {
+                    return reject(UNABLE_TO_DECRYPT);
+                }
+                cipher.init(DECRYPT_MODE, secret.keySpecification(), new GCMParameterSpec(TAG_LENGTH_IN_BITS, initVector));
+                cipher.updateAAD(aad.buffer());
+
+                // The cipher holds back all plain text until the tag is verified, and feeding it
+                // chunk by chunk makes it grow an internal copy of the encrypted data. Reading the
+                // data once and decrypting it in one call keeps it to one encrypted copy and the
+                // plain text.
+                return accept(cipher.doFinal(encryptedData.readAllBytes()));
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (IOException | IllegalStateException | BadPaddingException | IllegalBlockSizeException e) {
             return reject(UNABLE_TO_DECRYPT);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(GCM_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return reject(GCM_INVALID_KEY);
+        } catch (InvalidAlgorithmParameterException e) {
+            return reject(GCM_INVALID_PARAMETERS);
         }
     }
 
@@ -108,13 +158,17 @@ final class GCM implements AADMode {
         isNotNull(aad);
 
         try {
-            final var cipher = gcm();
-            final var gcmParameterSpec = new GCMParameterSpec(TAG_LENGTH_IN_BITS, encryptedData, START_INDEX_OF_IV, NUMBER_OF_IV_BYTES);
+            final var cipher = ciphers.borrow();
+            try {
+                final var gcmParameterSpec = new GCMParameterSpec(TAG_LENGTH_IN_BITS, encryptedData, START_INDEX_OF_IV, NUMBER_OF_IV_BYTES);
 
-            cipher.init(DECRYPT_MODE, secret.keySpecification(), gcmParameterSpec);
-            cipher.updateAAD(aad.value());
+                cipher.init(DECRYPT_MODE, secret.keySpecification(), gcmParameterSpec);
+                cipher.updateAAD(aad.buffer());
 
-            return accept(cipher.doFinal(encryptedData, START_INDEX_OF_ENCRYPTED_DATA, encryptedData.length - IV_NUMBER_OF_BYTES));
+                return accept(cipher.doFinal(encryptedData, START_INDEX_OF_ENCRYPTED_DATA, encryptedData.length - IV_NUMBER_OF_BYTES));
+            } finally {
+                ciphers.release(cipher);
+            }
 
         } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException e) {
             return reject(UNABLE_TO_DECRYPT);
@@ -127,35 +181,349 @@ final class GCM implements AADMode {
         }
     }
 
-    private Cipher gcm() throws NoSuchAlgorithmException, NoSuchPaddingException {
-        return Cipher.getInstance("AES/GCM/NoPadding");
+    @Override
+    public Result<Throwable, ByteBuffer, InternalRejectReason> encrypt(final ByteBuffer plainText, final ByteBuffer destination,
+                                                                       final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(destination);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        if (destination.remaining() < maxEncryptedSize(plainText.remaining())) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+
+        final var plainTextPosition = plainText.position();
+        final var destinationPosition = destination.position();
+        try {
+            final var cipher = ciphers.borrow();
+            try {
+                final byte[] initVector = initVector();
+                final var gcmParameterSpec = new GCMParameterSpec(TAG_LENGTH_IN_BITS, initVector);
+
+                cipher.init(ENCRYPT_MODE, secret.keySpecification(), gcmParameterSpec);
+                cipher.updateAAD(aad.buffer());
+
+                destination.put(initVector);
+                cipher.doFinal(plainText, destination);
+                return accept(destination);
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (UnableToCreateSecureRandom e) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+            return rewind(plainText, plainTextPosition, destination, destinationPosition, UNABLE_TO_ENCRYPT);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(GCM_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return reject(GCM_INVALID_KEY);
+        } catch (InvalidAlgorithmParameterException e) {
+            return reject(GCM_INVALID_PARAMETERS);
+        }
+    }
+
+    @Override
+    public Result<Throwable, ByteBuffer, InternalRejectReason> decrypt(final ByteBuffer encryptedData, final ByteBuffer destination,
+                                                                       final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(destination);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        if (encryptedData.remaining() < IV_NUMBER_OF_BYTES + TAG_NUMBER_OF_BYTES ||
+                destination.remaining() < encryptedData.remaining() - IV_NUMBER_OF_BYTES - TAG_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_DECRYPT);
+        }
+
+        final var encryptedDataPosition = encryptedData.position();
+        final var destinationPosition = destination.position();
+        try {
+            final var cipher = ciphers.borrow();
+            try {
+                final var initVector = new byte[IV_NUMBER_OF_BYTES];
+                encryptedData.get(initVector);
+
+                cipher.init(DECRYPT_MODE, secret.keySpecification(), new GCMParameterSpec(TAG_LENGTH_IN_BITS, initVector));
+                cipher.updateAAD(aad.buffer());
+
+                cipher.doFinal(encryptedData, destination);
+                return accept(destination);
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+            return rewind(encryptedData, encryptedDataPosition, destination, destinationPosition, UNABLE_TO_DECRYPT);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return rewind(encryptedData, encryptedDataPosition, destination, destinationPosition, GCM_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return rewind(encryptedData, encryptedDataPosition, destination, destinationPosition, GCM_INVALID_KEY);
+        } catch (InvalidAlgorithmParameterException e) {
+            return rewind(encryptedData, encryptedDataPosition, destination, destinationPosition, GCM_INVALID_PARAMETERS);
+        }
     }
 
-    private byte[] toBytes(final InputStream stream) throws IOException {
-        final var buffer = new ByteArrayOutputStream();
-        final var data = new byte[decryptBufferLoadSize];
-        int read;
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> encrypt(final InputStream plainText, final OutputStream outputStream,
+                                                                         final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
 
-        while ((read = stream.read(data, 0, data.length)) != END_OF_STREAM) {
-            buffer.write(data, 0, read);
+        final var encrypting = encryptingStream(outputStream, secret, aad);
+        if (!encrypting.isAccept()) {
+            return encrypting;
+        }
+        final var stream = (GCMEncryptingOutputStream) encrypting.liftAccept();
+        try {
+            plainText.transferTo(stream);
+            stream.finish();
+            return accept(outputStream);
+        } catch (IOException e) {
+            stream.discard();
+            return reject(UNABLE_TO_ENCRYPT);
         }
-        return buffer.toByteArray();
     }
 
-    private byte[] initVector() throws UnableToCreateSecureRandom {
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> encryptingStream(final OutputStream outputStream,
+                                                                                  final Secret secret, final AAD aad) {
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
+
         try {
-            final var nonce = new byte[IV_NUMBER_OF_BYTES];
-            SecureRandom.getInstanceStrong().nextBytes(nonce);
-            return nonce;
-        } catch (NoSuchAlgorithmException e) {
-            throw new UnableToCreateSecureRandom();
+            final var format = SegmentedGCM.create(decryptBufferLoadSize, secret, aad, initVectorGenerator);
+            return accept(new GCMEncryptingOutputStream(outputStream, format, ciphers, ciphers.borrow()));
+
+        } catch (UnableToCreateSecureRandom e) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        } catch (IllegalStateException e) {
+            return reject(UNABLE_TO_ENCRYPT);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(GCM_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return reject(GCM_INVALID_KEY);
         }
     }
 
-    private byte[] encryptedData(final byte[] iv, final byte[] encrypted) {
-        final var byteBuffer = ByteBuffer.allocate(iv.length + encrypted.length);
-        byteBuffer.put(iv);
-        byteBuffer.put(encrypted);
-        return byteBuffer.array();
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> decrypt(final InputStream encryptedData, final OutputStream outputStream,
+                                                                         final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        final var decrypting = decryptingStream(encryptedData, secret, aad);
+        if (!decrypting.isAccept()) {
+            return decrypting.transform(
+                    accept -> reject(UNABLE_TO_DECRYPT),
+                    reject -> reject(reject),
+                    failure -> Result.failure(failure)
+            );
+        }
+        final var stream = (GCMDecryptingInputStream) decrypting.liftAccept();
+        try {
+            stream.transferTo(outputStream);
+            outputStream.flush();
+            return accept(outputStream);
+        } catch (IOException e) {
+            return reject(UNABLE_TO_DECRYPT);
+        } finally {
+            stream.release();
+        }
+    }
+
+    @Override
+    public Result<Throwable, InputStream, InternalRejectReason> decryptingStream(final InputStream encryptedData,
+                                                                                 final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        try {
+            return accept(new GCMDecryptingInputStream(encryptedData, secret, aad, ciphers, ciphers.borrow()));
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(GCM_NOT_AVAILABLE);
+        }
+    }
+
+    @Override
+    public Result<Throwable, Long, InternalRejectReason> encrypt(final FileChannel plainText, final FileChannel destination,
+                                                                 final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(destination);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        return GCMFiles.encrypt(plainText, destination, secret, aad, decryptBufferLoadSize, initVectorGenerator, ciphers);
+    }
+
+    @Override
+    public Result<Throwable, Long, InternalRejectReason> decrypt(final FileChannel encryptedData, final FileChannel destination,
+                                                                 final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(destination);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        return GCMFiles.decrypt(encryptedData, destination, secret, aad, ciphers);
+    }
+
+    @Override
+    public Result<Throwable, Batch, InternalRejectReason> encryptAll(final List<byte[]> plainTexts, final Secret secret,
+                                                                     final List<AAD> aads) {
+        isNotNull(plainTexts);
+        isNotNull(secret);
+        isNotNull(aads);
+        isTrue(plainTexts.size() == aads.size());
+
+        final var items = plainTexts.toArray(new byte[0][]);
+        long size = 0;
+        for (final var item : items) {
+            isNotNull(item);
+            size += maxEncryptedSize(item.length);
+        }
+        if (size > MAX_BATCH_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+
+        final var buffer = new byte[(int) size];
+        final var offsets = new int[items.length + 1];
+        final var rejects = new InternalRejectReason[items.length];
+        final var initVectors = new byte[BATCH_INIT_VECTORS * IV_NUMBER_OF_BYTES];
+        try {
+            final var key = secret.keySpecification();
+            final var cipher = ciphers.borrow();
+            try {
+                var position = 0;
+                for (int i = 0; i < items.length; i++) {
+                    final var initVectorIndex = (i % BATCH_INIT_VECTORS) * IV_NUMBER_OF_BYTES;
+                    if (initVectorIndex == 0) {
+                        initVectorGenerator.nextBytes(initVectors);
+                    }
+                    offsets[i] = position;
+                    try {
+                        cipher.init(ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_IN_BITS, initVectors, initVectorIndex, IV_NUMBER_OF_BYTES));
+                        cipher.updateAAD(aads.get(i).buffer());
+
+                        System.arraycopy(initVectors, initVectorIndex, buffer, position, IV_NUMBER_OF_BYTES);
+                        position += IV_NUMBER_OF_BYTES + cipher.doFinal(items[i], 0, items[i].length, buffer, position + IV_NUMBER_OF_BYTES);
+                    } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+                        rejects[i] = UNABLE_TO_ENCRYPT;
+                    } catch (InvalidKeyException e) {
+                        rejects[i] = GCM_INVALID_KEY;
+                    } catch (InvalidAlgorithmParameterException e) {
+                        rejects[i] = GCM_INVALID_PARAMETERS;
+                    }
+                }
+                offsets[items.length] = position;
+                return accept(new Batch(buffer, offsets, rejects));
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (UnableToCreateSecureRandom e) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(GCM_NOT_AVAILABLE);
+        }
+    }
+
+    @Override
+    public Result<Throwable, Batch, InternalRejectReason> decryptAll(final List<byte[]> encryptedData, final Secret secret,
+                                                                     final List<AAD> aads) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+        isNotNull(aads);
+        isTrue(encryptedData.size() == aads.size());
+
+        final var items = encryptedData.toArray(new byte[0][]);
+        long size = 0;
+        for (final var item : items) {
+            isNotNull(item);
+            size += Math.max(0, item.length - IV_NUMBER_OF_BYTES - TAG_NUMBER_OF_BYTES);
+        }
+        if (size > MAX_BATCH_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_DECRYPT);
+        }
+
+        final var buffer = new byte[(int) size];
+        final var offsets = new int[items.length + 1];
+        final var rejects = new InternalRejectReason[items.length];
+        try {
+            final var key = secret.keySpecification();
+            final var cipher = ciphers.borrow();
+            try {
+                var position = 0;
+                for (int i = 0; i < items.length; i++) {
+                    final var item = items[i];
+                    offsets[i] = position;
+                    if (item.length < IV_NUMBER_OF_BYTES + TAG_NUMBER_OF_BYTES) {
+                        rejects[i] = UNABLE_TO_DECRYPT;
+                        continue;
+                    }
+                    try {
+                        cipher.init(DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_IN_BITS, item, START_INDEX_OF_IV, IV_NUMBER_OF_BYTES));
+                        cipher.updateAAD(aads.get(i).buffer());
+
+                        position += cipher.doFinal(item, START_INDEX_OF_ENCRYPTED_DATA, item.length - IV_NUMBER_OF_BYTES, buffer, position);
+                    } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+                        rejects[i] = UNABLE_TO_DECRYPT;
+                    } catch (InvalidKeyException e) {
+                        rejects[i] = GCM_INVALID_KEY;
+                    } catch (InvalidAlgorithmParameterException e) {
+                        rejects[i] = GCM_INVALID_PARAMETERS;
+                    }
+                    if (rejects[i] != null) {
+                        // Never leave unauthenticated plain text behind in the shared buffer
+                        Arrays.fill(buffer, position, position + item.length - IV_NUMBER_OF_BYTES - TAG_NUMBER_OF_BYTES, (byte) 0);
+                    }
+                }
+                offsets[items.length] = position;
+                return accept(new Batch(buffer, offsets, rejects));
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(GCM_NOT_AVAILABLE);
+        }
+    }
+
+    @Override
+    public int maxEncryptedSize(final int plainTextSize) {
+        isTrue(isInRange(plainTextSize, 0, Integer.MAX_VALUE - IV_NUMBER_OF_BYTES - TAG_NUMBER_OF_BYTES));
+
+        return IV_NUMBER_OF_BYTES + plainTextSize + TAG_NUMBER_OF_BYTES;
+    }
+
+    @Override
+    public void clear() {
+        ciphers.clear();
+    }
+
+    private byte[] initVector() throws UnableToCreateSecureRandom, InitVectorsExhausted {
+        final var nonce = new byte[IV_NUMBER_OF_BYTES];
+        initVectorGenerator.nextBytes(nonce);
+        return nonce;
+    }
+
+    private static <T> Result<Throwable, T, InternalRejectReason> rewind(final ByteBuffer source, final int sourcePosition,
+                                                                           final ByteBuffer destination, final int destinationPosition,
+                                                                           final InternalRejectReason reason) {
+        source.position(sourcePosition);
+        destination.position(destinationPosition);
+        return reject(reason);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,165 @@
+package se.deogun.aes.modes;
+
+import se.deogun.aes.modes.common.AAD;
+import se.deogun.aes.modes.common.CipherPool;
+import se.deogun.aes.modes.common.Secret;
+
+import javax.crypto.Cipher;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import static se.deogun.aes.modes.SegmentedGCM.HEADER_NUMBER_OF_BYTES;
+import static se.deogun.aes.modes.SegmentedGCM.TAG_NUMBER_OF_BYTES;
+
+/**
+ * Decrypts data in the segmented GCM format. Plain text is only released once the tag
+ * of the segment it belongs to has been verified, and at most one segment is held in
+ * memory at a time.
+ */
+final class GCMDecryptingInputStream extends InputStream {
+    private final InputStream inputStream;
+    private final Secret secret;
+    private final AAD aad;
+    private final CipherPool ciphers;
+    private final Cipher cipher;
+    private SegmentedGCM format;
+    private byte[] encrypted;
+    private byte[] segment;
+    private int available;
+    private int position;
+    private int limit;
+    private long index;
+    private boolean lastSegmentRead;
+    private boolean closed;
+
+    GCMDecryptingInputStream(final InputStream inputStream, final Secret secret, final AAD aad,
+                             final CipherPool ciphers, final Cipher cipher) {
+        this.inputStream = inputStream;
+        this.secret = secret;
+        this.aad = aad;
+        this.ciphers = ciphers;
+        this.cipher = cipher;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final var single = new byte[1];
+        final var read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] data, final int offset, final int length) throws IOException {
+        ensureOpen();
+        if ((offset | length) < 0 || length > data.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (length == 0) {
+            return 0;
+        }
+        while (position == limit) {
+            if (lastSegmentRead) {
+                return -1;
+            }
+            readSegment();
+        }
+        final var count = Math.min(length, limit - position);
+        System.arraycopy(segment, position, data, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public long transferTo(final OutputStream outputStream) throws IOException {
+        ensureOpen();
+        var transferred = 0L;
+        while (true) {
+            if (position == limit) {
+                if (lastSegmentRead) {
+                    return transferred;
+                }
+                readSegment();
+                continue;
+            }
+            outputStream.write(segment, position, limit - position);
+            transferred += limit - position;
+            position = limit;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            release();
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Releases all resources without closing the underlying stream
+     */
+    void release() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (segment != null) {
+            Arrays.fill(segment, (byte) 0);
+        }
+        if (format != null) {
+            format.destroy();
+        }
+        ciphers.release(cipher);
+    }
+
+    private void readSegment() throws IOException {
+        if (format == null) {
+            readHeader();
+        }
+        // One byte more than a full segment is read to find out if the segment is the last one
+        available += inputStream.readNBytes(encrypted, available, encrypted.length - available);
+        final var last = available < encrypted.length;
+        final var length = last ? available : encrypted.length - 1;
+        if (length < TAG_NUMBER_OF_BYTES) {
+            throw new IOException("Unable to decrypt segment");
+        }
+        try {
+            limit = format.decrypt(cipher, index++, last, encrypted, 0, length, segment, 0);
+            position = 0;
+        } catch (GeneralSecurityException | IllegalStateException e) {
+            throw new IOException("Unable to decrypt segment", e);
+        }
+        if (last) {
+            lastSegmentRead = true;
+            available = 0;
+        } else {
+            encrypted[0] = encrypted[encrypted.length - 1];
+            available = 1;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        final var header = inputStream.readNBytes(HEADER_NUMBER_OF_BYTES);
+        try {
+            format = SegmentedGCM.read(header, secret, aad);
+        } catch (GeneralSecurityException | IllegalStateException e) {
+            throw new IOException("Unable to read header", e);
+        }
+        encrypted = new byte[format.segmentSize() + TAG_NUMBER_OF_BYTES + 1];
+        segment = new byte[format.segmentSize()];
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package se.deogun.aes.modes;
+
+import se.deogun.aes.modes.common.CipherPool;
+
+import javax.crypto.Cipher;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import static se.deogun.aes.modes.SegmentedGCM.TAG_NUMBER_OF_BYTES;
+
+/**
+ * Encrypts everything written to it using the segmented GCM format. At most one segment
+ * is held in memory regardless of the amount of data written. A full segment is kept
+ * until more data arrives, since the last segment must be flagged as such.
+ */
+final class GCMEncryptingOutputStream extends OutputStream {
+    private final OutputStream outputStream;
+    private final SegmentedGCM format;
+    private final CipherPool ciphers;
+    private final Cipher cipher;
+    private final byte[] segment;
+    private final byte[] encrypted;
+    private int position;
+    private long index;
+    private boolean headerWritten;
+    private boolean finished;
+
+    GCMEncryptingOutputStream(final OutputStream outputStream, final SegmentedGCM format, final CipherPool ciphers, final Cipher cipher) {
+        this.outputStream = outputStream;
+        this.format = format;
+        this.ciphers = ciphers;
+        this.cipher = cipher;
+        this.segment = new byte[format.segmentSize()];
+        this.encrypted = new byte[format.segmentSize() + TAG_NUMBER_OF_BYTES];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] data, final int offset, final int length) throws IOException {
+        ensureOpen();
+        if ((offset | length) < 0 || length > data.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        writeHeader();
+
+        var remaining = length;
+        var current = offset;
+        while (remaining > 0) {
+            if (position == segment.length) {
+                writeSegment(segment, 0, position, false);
+                position = 0;
+            }
+            // Full segments followed by more data are encrypted straight from the caller's array
+            if (position == 0 && remaining > segment.length) {
+                writeSegment(data, current, segment.length, false);
+                current += segment.length;
+                remaining -= segment.length;
+                continue;
+            }
+            final var count = Math.min(remaining, segment.length - position);
+            System.arraycopy(data, current, segment, position, count);
+            position += count;
+            current += count;
+            remaining -= count;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+
+    /**
+     * Encrypts the last segment without closing the underlying stream
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        try {
+            writeHeader();
+            writeSegment(segment, 0, position, true);
+            outputStream.flush();
+        } finally {
+            discard();
+        }
+    }
+
+    /**
+     * Releases all resources without encrypting the last segment, i.e. the written data
+     * can't be decrypted
+     */
+    void discard() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        Arrays.fill(segment, (byte) 0);
+        format.destroy();
+        ciphers.release(cipher);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        if (!headerWritten) {
+            outputStream.write(format.header());
+            headerWritten = true;
+        }
+    }
+
+    private void writeSegment(final byte[] data, final int offset, final int length, final boolean last) throws IOException {
+        try {
+            final var count = format.encrypt(cipher, index++, last, data, offset, length, encrypted, 0);
+            outputStream.write(encrypted, 0, count);
+        } catch (GeneralSecurityException | IllegalStateException e) {
+            throw new IOException("Unable to encrypt segment", e);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package se.deogun.aes.modes;
+
+import se.deogun.aes.api.Result;
+import se.deogun.aes.modes.common.*;
+
+import javax.crypto.NoSuchPaddingException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+import static se.deogun.aes.modes.SegmentedGCM.HEADER_NUMBER_OF_BYTES;
+import static se.deogun.aes.modes.SegmentedGCM.TAG_NUMBER_OF_BYTES;
+import static se.deogun.aes.modes.common.InternalRejectReason.*;
+import static se.deogun.aes.api.Result.accept;
+
+/**
+ * Encrypts / decrypts files in the segmented format of {@link SegmentedGCM}, i.e. the same format
+ * as GCM streams. Segments are read from memory mapped windows and written through a direct
+ * buffer holding a single segment.
+ */
+final class GCMFiles {
+    private GCMFiles() {
+    }
+
+    /**
+     * Encrypts the source from its position to the end and writes it at the position of the
+     * destination, which is truncated back to its position if the operation doesn't succeed
+     * @return result with the number of bytes written
+     */
+    static Result<Throwable, Long, InternalRejectReason> encrypt(final FileChannel plainText, final FileChannel destination,
+                                                                 final Secret secret, final AAD aad, final int segmentSize,
+                                                                 final InitVectorGenerator initVectorGenerator, final CipherPool ciphers) {
+        long start = -1;
+        try {
+            start = destination.position();
+            final var format = SegmentedGCM.create(segmentSize, secret, aad, initVectorGenerator);
+            try {
+                MappedFile.write(destination, ByteBuffer.wrap(format.header()));
+
+                final var output = ByteBuffer.allocateDirect(segmentSize + TAG_NUMBER_OF_BYTES);
+                final var cipher = ciphers.borrow();
+                try {
+                    MappedFile.forEachChunk(plainText, plainText.position(), segmentSize, (index, last, segment) -> {
+                        format.encrypt(cipher, index, last, segment, output.clear());
+                        MappedFile.write(destination, output.flip());
+                    });
+                    return accept(destination.position() - start);
+                } finally {
+                    ciphers.release(cipher);
+                }
+            } finally {
+                format.destroy();
+            }
+
+        } catch (UnableToCreateSecureRandom e) {
+            return MappedFile.discard(destination, start, NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return MappedFile.discard(destination, start, INIT_VECTORS_EXHAUSTED);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return MappedFile.discard(destination, start, GCM_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return MappedFile.discard(destination, start, GCM_INVALID_KEY);
+        } catch (InvalidAlgorithmParameterException e) {
+            return MappedFile.discard(destination, start, GCM_INVALID_PARAMETERS);
+        } catch (IOException | IllegalStateException | GeneralSecurityException e) {
+            return MappedFile.discard(destination, start, UNABLE_TO_ENCRYPT);
+        }
+    }
+
+    /**
+     * Decrypts the source from its position to the end and writes it at the position of the
+     * destination. Segments are authenticated before they're written, but a later segment may
+     * still fail, which is why the destination is truncated back to its position if the
+     * operation doesn't succeed.
+     * @return result with the number of bytes written
+     */
+    static Result<Throwable, Long, InternalRejectReason> decrypt(final FileChannel encryptedData, final FileChannel destination,
+                                                                 final Secret secret, final AAD aad, final CipherPool ciphers) {
+        long start = -1;
+        try {
+            start = destination.position();
+            final var position = encryptedData.position();
+            final var header = new byte[HEADER_NUMBER_OF_BYTES];
+            MappedFile.read(encryptedData, position, header);
+
+            final var format = SegmentedGCM.read(header, secret, aad);
+            try {
+                if (SegmentedGCM.plainTextSize(encryptedData.size() - position, format.segmentSize()) < 0) {
+                    return MappedFile.discard(destination, start, UNABLE_TO_DECRYPT);
+                }
+
+                final var output = ByteBuffer.allocateDirect(format.segmentSize());
+                final var cipher = ciphers.borrow();
+                try {
+                    MappedFile.forEachChunk(encryptedData, position + HEADER_NUMBER_OF_BYTES, format.segmentSize() + TAG_NUMBER_OF_BYTES,
+                            (index, last, segment) -> {
+                                format.decrypt(cipher, index, last, segment, output.clear());
+                                MappedFile.write(destination, output.flip());
+                            });
+                    return accept(destination.position() - start);
+                } finally {
+                    ciphers.release(cipher);
+                }
+            } finally {
+                format.destroy();
+            }
+
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return MappedFile.discard(destination, start, GCM_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return MappedFile.discard(destination, start, GCM_INVALID_KEY);
+        } catch (InvalidAlgorithmParameterException e) {
+            return MappedFile.discard(destination, start, GCM_INVALID_PARAMETERS);
+        } catch (IOException | IllegalStateException | GeneralSecurityException e) {
+            return MappedFile.discard(destination, start, UNABLE_TO_DECRYPT);
+        }
+    }
+}
@@ -0,0 +1,617 @@
+package se.deogun.aes.modes;
+
+import se.deogun.aes.api.Result;
+import se.deogun.aes.modes.common.*;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+import static se.deogun.aes.modes.InternalValidation.*;
+import static se.deogun.aes.modes.SIV.NONCE_NUMBER_OF_BYTES;
+import static se.deogun.aes.modes.SIV.TAG_NUMBER_OF_BYTES;
+import static se.deogun.aes.modes.common.InternalRejectReason.*;
+import static se.deogun.aes.api.Result.accept;
+import static se.deogun.aes.api.Result.reject;
+
+/**
+ * AES-GCM-SIV (RFC 8452), a nonce misuse resistant alternative to GCM. Every message is encrypted
+ * with keys derived from the secret and its nonce, which lifts the limit on the number of messages
+ * per secret far beyond the 2^32 of random GCM nonces, and a repeated nonce only reveals whether
+ * two messages are identical. The format is the same as for GCM, i.e. nonce | encrypted data | tag.
+ * <p>
+ * The tag is computed over the whole plain text before anything is encrypted, which means
+ * streams are buffered in memory and limited to 2GB. Files are processed in two passes over
+ * memory mapped windows instead.
+ */
+final class GCMSIV implements AADMode {
+    private static final int OVERHEAD_NUMBER_OF_BYTES = NONCE_NUMBER_OF_BYTES + TAG_NUMBER_OF_BYTES;
+    private static final int CHUNK_NUMBER_OF_BYTES = 64 * 1024;
+    private static final int BATCH_INIT_VECTORS = 64;
+    private static final int MAX_NUMBER_OF_BYTES = Integer.MAX_VALUE - 8;
+    private final InitVectorGenerator initVectorGenerator;
+    private final CipherPool ciphers = new CipherPool("AES/ECB/NoPadding", Runtime.getRuntime().availableProcessors());
+
+    GCMSIV(final InitVectorGenerator initVectorGenerator) {
+        isNotNull(initVectorGenerator);
+
+        this.initVectorGenerator = initVectorGenerator;
+    }
+
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> encrypt(final byte[] plainText, final OutputStream outputStream,
+                                                                         final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        final var encrypted = encrypt(plainText, secret, aad);
+        if (!encrypted.isAccept()) {
+            return encrypted.transform(
+                    accept -> reject(UNABLE_TO_ENCRYPT),
+                    reject -> reject(reject),
+                    failure -> Result.failure(failure)
+            );
+        }
+        try {
+            outputStream.write(encrypted.liftAccept());
+            outputStream.flush();
+            return accept(outputStream);
+        } catch (IOException e) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+    }
+
+    @Override
+    public Result<Throwable, byte[], InternalRejectReason> encrypt(final byte[] plainText, final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        if (plainText.length > MAX_NUMBER_OF_BYTES - OVERHEAD_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+        final var encrypted = new byte[maxEncryptedSize(plainText.length)];
+        return encrypt(ByteBuffer.wrap(plainText), ByteBuffer.wrap(encrypted), secret, aad).transform(
+                accept -> accept(encrypted),
+                reject -> reject(reject),
+                failure -> Result.failure(failure)
+        );
+    }
+
+    @Override
+    public Result<Throwable, byte[], InternalRejectReason> decrypt(final InputStream encryptedData, final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        try {
+            return decrypt(encryptedData.readAllBytes(), secret, aad);
+        } catch (IOException e) {
+            return reject(UNABLE_TO_DECRYPT);
+        }
+    }
+
+    @Override
+    public Result<Throwable, byte[], InternalRejectReason> decrypt(final byte[] encryptedData, final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        if (encryptedData.length < OVERHEAD_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_DECRYPT);
+        }
+        final var decrypted = new byte[encryptedData.length - OVERHEAD_NUMBER_OF_BYTES];
+        return decrypt(ByteBuffer.wrap(encryptedData), ByteBuffer.wrap(decrypted), secret, aad).transform(
+                accept -> accept(decrypted),
+                reject -> reject(reject),
+                failure -> Result.failure(failure)
+        );
+    }
+
+    @Override
+    public Result<Throwable, ByteBuffer, InternalRejectReason> encrypt(final ByteBuffer plainText, final ByteBuffer destination,
+                                                                       final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(destination);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        if (plainText.remaining() > MAX_NUMBER_OF_BYTES - OVERHEAD_NUMBER_OF_BYTES ||
+                destination.remaining() < maxEncryptedSize(plainText.remaining())) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+
+        final var plainTextPosition = plainText.position();
+        final var destinationPosition = destination.position();
+        try {
+            final var cipher = ciphers.borrow();
+            try {
+                seal(cipher, secret, initVector(), aad.buffer(), plainText, destination);
+                return accept(destination);
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (UnableToCreateSecureRandom e) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+            return rewind(plainText, plainTextPosition, destination, destinationPosition, UNABLE_TO_ENCRYPT);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(GCM_SIV_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return reject(GCM_SIV_INVALID_KEY);
+        }
+    }
+
+    @Override
+    public Result<Throwable, ByteBuffer, InternalRejectReason> decrypt(final ByteBuffer encryptedData, final ByteBuffer destination,
+                                                                       final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(destination);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        if (encryptedData.remaining() < OVERHEAD_NUMBER_OF_BYTES ||
+                destination.remaining() < encryptedData.remaining() - OVERHEAD_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_DECRYPT);
+        }
+
+        final var encryptedDataPosition = encryptedData.position();
+        final var destinationPosition = destination.position();
+        try {
+            final var cipher = ciphers.borrow();
+            try {
+                open(cipher, secret, aad.buffer(), encryptedData, destination);
+                return accept(destination);
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+            return rewind(encryptedData, encryptedDataPosition, destination, destinationPosition, UNABLE_TO_DECRYPT);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return rewind(encryptedData, encryptedDataPosition, destination, destinationPosition, GCM_SIV_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return rewind(encryptedData, encryptedDataPosition, destination, destinationPosition, GCM_SIV_INVALID_KEY);
+        }
+    }
+
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> encrypt(final InputStream plainText, final OutputStream outputStream,
+                                                                         final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        try {
+            return encrypt(plainText.readAllBytes(), outputStream, secret, aad);
+        } catch (IOException e) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+    }
+
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> encryptingStream(final OutputStream outputStream,
+                                                                                  final Secret secret, final AAD aad) {
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        return accept(new EncryptingOutputStream(outputStream, secret, aad));
+    }
+
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> decrypt(final InputStream encryptedData, final OutputStream outputStream,
+                                                                         final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        final var decrypted = decrypt(encryptedData, secret, aad);
+        if (!decrypted.isAccept()) {
+            return decrypted.transform(
+                    accept -> reject(UNABLE_TO_DECRYPT),
+                    reject -> reject(reject),
+                    failure -> Result.failure(failure)
+            );
+        }
+        try {
+            outputStream.write(decrypted.liftAccept());
+            outputStream.flush();
+            return accept(outputStream);
+        } catch (IOException e) {
+            return reject(UNABLE_TO_DECRYPT);
+        }
+    }
+
+    @Override
+    public Result<Throwable, InputStream, InternalRejectReason> decryptingStream(final InputStream encryptedData,
+                                                                                 final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        return decrypt(encryptedData, secret, aad).transform(
+                accept -> accept(new DecryptedInputStream(accept, encryptedData)),
+                reject -> reject(reject),
+                failure -> Result.failure(failure)
+        );
+    }
+
+    @Override
+    public Result<Throwable, Long, InternalRejectReason> encrypt(final FileChannel plainText, final FileChannel destination,
+                                                                 final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(destination);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        long start = -1;
+        try {
+            start = destination.position();
+            final var position = plainText.position();
+            final var nonce = initVector();
+            final var cipher = ciphers.borrow();
+            try {
+                final var siv = SIV.derive(cipher, secret, nonce);
+                try {
+                    siv.aad(aad.buffer());
+                    MappedFile.forEachChunk(plainText, position, CHUNK_NUMBER_OF_BYTES, (index, last, chunk) -> siv.authenticate(chunk));
+                    final var tag = siv.tag();
+
+                    siv.start(tag);
+                    MappedFile.write(destination, ByteBuffer.wrap(nonce));
+                    final var output = ByteBuffer.allocateDirect(CHUNK_NUMBER_OF_BYTES);
+                    MappedFile.forEachChunk(plainText, position, CHUNK_NUMBER_OF_BYTES, (index, last, chunk) -> {
+                        siv.crypt(chunk, output.clear());
+                        MappedFile.write(destination, output.flip());
+                    });
+                    MappedFile.write(destination, ByteBuffer.wrap(tag));
+                    return accept(destination.position() - start);
+                } finally {
+                    siv.destroy();
+                }
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (UnableToCreateSecureRandom e) {
+            return MappedFile.discard(destination, start, NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return MappedFile.discard(destination, start, INIT_VECTORS_EXHAUSTED);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return MappedFile.discard(destination, start, GCM_SIV_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return MappedFile.discard(destination, start, GCM_SIV_INVALID_KEY);
+        } catch (IOException | IllegalStateException | GeneralSecurityException e) {
+            return MappedFile.discard(destination, start, UNABLE_TO_ENCRYPT);
+        }
+    }
+
+    @Override
+    public Result<Throwable, Long, InternalRejectReason> decrypt(final FileChannel encryptedData, final FileChannel destination,
+                                                                 final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(destination);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        long start = -1;
+        try {
+            start = destination.position();
+            final var position = encryptedData.position();
+            final var size = encryptedData.size() - position - OVERHEAD_NUMBER_OF_BYTES;
+            if (size < 0) {
+                return reject(UNABLE_TO_DECRYPT);
+            }
+            final var nonce = new byte[NONCE_NUMBER_OF_BYTES];
+            final var tag = new byte[TAG_NUMBER_OF_BYTES];
+            MappedFile.read(encryptedData, position, nonce);
+            MappedFile.read(encryptedData, position + NONCE_NUMBER_OF_BYTES + size, tag);
+
+            final var cipher = ciphers.borrow();
+            try {
+                final var siv = SIV.derive(cipher, secret, nonce);
+                try {
+                    siv.aad(aad.buffer());
+                    final var output = ByteBuffer.allocateDirect(CHUNK_NUMBER_OF_BYTES);
+                    // The tag is computed over the plain text, hence the file is decrypted twice: first to
+                    // authenticate it without writing anything, and then to write the authenticated plain text
+                    siv.start(tag);
+                    MappedFile.forEachChunk(encryptedData, position + NONCE_NUMBER_OF_BYTES, size, CHUNK_NUMBER_OF_BYTES,
+                            (index, last, chunk) -> {
+                                siv.crypt(chunk, output.clear());
+                                siv.authenticate(output.flip());
+                            });
+                    siv.verify(tag);
+
+                    siv.start(tag);
+                    MappedFile.forEachChunk(encryptedData, position + NONCE_NUMBER_OF_BYTES, size, CHUNK_NUMBER_OF_BYTES,
+                            (index, last, chunk) -> {
+                                siv.crypt(chunk, output.clear());
+                                MappedFile.write(destination, output.flip());
+                            });
+                    return accept(destination.position() - start);
+                } finally {
+                    siv.destroy();
+                }
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return MappedFile.discard(destination, start, GCM_SIV_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return MappedFile.discard(destination, start, GCM_SIV_INVALID_KEY);
+        } catch (IOException | IllegalStateException | GeneralSecurityException e) {
+            return MappedFile.discard(destination, start, UNABLE_TO_DECRYPT);
+        }
+    }
+
+    @Override
+    public Result<Throwable, Batch, InternalRejectReason> encryptAll(final List<byte[]> plainTexts, final Secret secret,
+                                                                     final List<AAD> aads) {
+        isNotNull(plainTexts);
+        isNotNull(secret);
+        isNotNull(aads);
+        isTrue(plainTexts.size() == aads.size());
+
+        final var items = plainTexts.toArray(new byte[0][]);
+        long size = 0;
+        for (final var item : items) {
+            isNotNull(item);
+            size += (long) item.length + OVERHEAD_NUMBER_OF_BYTES;
+        }
+        if (size > MAX_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+
+        final var buffer = new byte[(int) size];
+        final var offsets = new int[items.length + 1];
+        final var rejects = new InternalRejectReason[items.length];
+        final var initVectors = new byte[BATCH_INIT_VECTORS * NONCE_NUMBER_OF_BYTES];
+        try {
+            final var cipher = ciphers.borrow();
+            try {
+                var position = 0;
+                for (int i = 0; i < items.length; i++) {
+                    final var initVectorIndex = (i % BATCH_INIT_VECTORS) * NONCE_NUMBER_OF_BYTES;
+                    if (initVectorIndex == 0) {
+                        initVectorGenerator.nextBytes(initVectors);
+                    }
+                    offsets[i] = position;
+                    try {
+                        final var nonce = Arrays.copyOfRange(initVectors, initVectorIndex, initVectorIndex + NONCE_NUMBER_OF_BYTES);
+                        seal(cipher, secret, nonce, aads.get(i).buffer(), ByteBuffer.wrap(items[i]),
+                                ByteBuffer.wrap(buffer, position, items[i].length + OVERHEAD_NUMBER_OF_BYTES));
+                        position += items[i].length + OVERHEAD_NUMBER_OF_BYTES;
+                    } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+                        rejects[i] = UNABLE_TO_ENCRYPT;
+                    } catch (InvalidKeyException e) {
+                        rejects[i] = GCM_SIV_INVALID_KEY;
+                    }
+                }
+                offsets[items.length] = position;
+                return accept(new Batch(buffer, offsets, rejects));
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (UnableToCreateSecureRandom e) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(GCM_SIV_NOT_AVAILABLE);
+        }
+    }
+
+    @Override
+    public Result<Throwable, Batch, InternalRejectReason> decryptAll(final List<byte[]> encryptedData, final Secret secret,
+                                                                     final List<AAD> aads) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+        isNotNull(aads);
+        isTrue(encryptedData.size() == aads.size());
+
+        final var items = encryptedData.toArray(new byte[0][]);
+        long size = 0;
+        for (final var item : items) {
+            isNotNull(item);
+            size += Math.max(0, item.length - OVERHEAD_NUMBER_OF_BYTES);
+        }
+        if (size > MAX_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_DECRYPT);
+        }
+
+        final var buffer = new byte[(int) size];
+        final var offsets = new int[items.length + 1];
+        final var rejects = new InternalRejectReason[items.length];
+        try {
+            final var cipher = ciphers.borrow();
+            try {
+                var position = 0;
+                for (int i = 0; i < items.length; i++) {
+                    final var item = items[i];
+                    offsets[i] = position;
+                    if (item.length < OVERHEAD_NUMBER_OF_BYTES) {
+                        rejects[i] = UNABLE_TO_DECRYPT;
+                        continue;
+                    }
+                    try {
+                        open(cipher, secret, aads.get(i).buffer(), ByteBuffer.wrap(item),
+                                ByteBuffer.wrap(buffer, position, item.length - OVERHEAD_NUMBER_OF_BYTES));
+                        position += item.length - OVERHEAD_NUMBER_OF_BYTES;
+                    } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+                        rejects[i] = UNABLE_TO_DECRYPT;
+                    } catch (InvalidKeyException e) {
+                        rejects[i] = GCM_SIV_INVALID_KEY;
+                    }
+                }
+                offsets[items.length] = position;
+                return accept(new Batch(buffer, offsets, rejects));
+            } finally {
+                ciphers.release(cipher);
+            }
+
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(GCM_SIV_NOT_AVAILABLE);
+        }
+    }
+
+    @Override
+    public int maxEncryptedSize(final int plainTextSize) {
+        isTrue(isInRange(plainTextSize, 0, Integer.MAX_VALUE - OVERHEAD_NUMBER_OF_BYTES));
+
+        return NONCE_NUMBER_OF_BYTES + plainTextSize + TAG_NUMBER_OF_BYTES;
+    }
+
+    @Override
+    public void clear() {
+        ciphers.clear();
+    }
+
+    /**
+     * Writes nonce | encrypted data | tag to the destination
+     */
+    private static void seal(final Cipher cipher, final Secret secret, final byte[] nonce, final ByteBuffer aad,
+                             final ByteBuffer plainText, final ByteBuffer destination)
+            throws InvalidKeyException, ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        final var siv = SIV.derive(cipher, secret, nonce);
+        try {
+            siv.aad(aad);
+            siv.authenticate(plainText.duplicate());
+            final var tag = siv.tag();
+
+            siv.start(tag);
+            destination.put(nonce);
+            siv.crypt(plainText, destination);
+            destination.put(tag);
+        } finally {
+            siv.destroy();
+        }
+    }
+
+    /**
+     * Decrypts nonce | encrypted data | tag into the destination. The plain text is zeroed and
+     * never released if the tag doesn't match.
+     */
+    private static void open(final Cipher cipher, final Secret secret, final ByteBuffer aad,
+                             final ByteBuffer encryptedData, final ByteBuffer destination)
+            throws InvalidKeyException, ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        final var end = encryptedData.limit();
+        final var nonce = new byte[NONCE_NUMBER_OF_BYTES];
+        final var tag = new byte[TAG_NUMBER_OF_BYTES];
+        encryptedData.get(nonce);
+        encryptedData.get(end - TAG_NUMBER_OF_BYTES, tag);
+
+        final var start = destination.position();
+        final var siv = SIV.derive(cipher, secret, nonce);
+        try {
+            siv.aad(aad);
+            siv.start(tag);
+            siv.crypt(encryptedData.duplicate().limit(end - TAG_NUMBER_OF_BYTES), destination);
+
+            final var decrypted = destination.duplicate();
+            decrypted.limit(destination.position()).position(start);
+            siv.authenticate(decrypted);
+            siv.verify(tag);
+            encryptedData.position(end);
+        } catch (AEADBadTagException e) {
+            final var discard = destination.duplicate();
+            discard.limit(destination.position()).position(start);
+            while (discard.hasRemaining()) {
+                discard.put((byte) 0);
+            }
+            throw e;
+        } finally {
+            siv.destroy();
+        }
+    }
+
+    private byte[] initVector() throws UnableToCreateSecureRandom, InitVectorsExhausted {
+        final var nonce = new byte[NONCE_NUMBER_OF_BYTES];
+        initVectorGenerator.nextBytes(nonce);
+        return nonce;
+    }
+
+    private static <T> Result<Throwable, T, InternalRejectReason> rewind(final ByteBuffer source, final int sourcePosition,
+                                                                           final ByteBuffer destination, final int destinationPosition,
+                                                                           final InternalRejectReason reason) {
+        source.position(sourcePosition);
+        destination.position(destinationPosition);
+        return reject(reason);
+    }
+
+    /**
+     * Buffers the plain text since the tag is computed over all of it before anything is
+     * encrypted. The encrypted data is written, and the wrapped stream closed, on close.
+     */
+    private final class EncryptingOutputStream extends ByteArrayOutputStream {
+        private final OutputStream outputStream;
+        private final Secret secret;
+        private final AAD aad;
+        private boolean closed;
+
+        private EncryptingOutputStream(final OutputStream outputStream, final Secret secret, final AAD aad) {
+            this.outputStream = outputStream;
+            this.secret = secret;
+            this.aad = aad;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (outputStream) {
+                final var plainText = toByteArray();
+                reset();
+                final var encrypted = encrypt(plainText, outputStream, secret, aad);
+                Arrays.fill(plainText, (byte) 0);
+                if (!encrypted.isAccept()) {
+                    throw new IOException("Unable to encrypt data");
+                }
+            } finally {
+                Arrays.fill(buf, (byte) 0);
+            }
+        }
+    }
+
+    private static final class DecryptedInputStream extends ByteArrayInputStream {
+        private final InputStream encryptedData;
+
+        private DecryptedInputStream(final byte[] decrypted, final InputStream encryptedData) {
+            super(decrypted);
+            this.encryptedData = encryptedData;
+        }
+
+        @Override
+        public void close() throws IOException {
+            Arrays.fill(buf, (byte) 0);
+            encryptedData.close();
+        }
+    }
+}
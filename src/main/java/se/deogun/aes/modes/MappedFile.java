@@ -0,0 +1,94 @@
+package se.deogun.aes.modes;
+
+import se.deogun.aes.modes.common.InternalRejectReason;
+import se.deogun.aes.api.Result;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static se.deogun.aes.api.Result.reject;
+
+/**
+ * Walks a file in chunks of a fixed size through read only memory mapped windows. A window is
+ * at most {@link #WINDOW_NUMBER_OF_BYTES} and always holds whole chunks, which means files
+ * larger than 2GB are processed without copying them onto the heap.
+ */
+final class MappedFile {
+    static final int WINDOW_NUMBER_OF_BYTES = 16 * 1024 * 1024;
+
+    private MappedFile() {
+    }
+
+    @FunctionalInterface
+    interface ChunkOperation {
+        void apply(long index, boolean last, ByteBuffer chunk) throws IOException, GeneralSecurityException;
+    }
+
+    /**
+     * Applies the operation to every chunk from the position to the end of the file. An empty
+     * region is a single empty chunk.
+     */
+    static void forEachChunk(final FileChannel source, final long position, final int chunkSize, final ChunkOperation operation)
+            throws IOException, GeneralSecurityException {
+        forEachChunk(source, position, source.size() - position, chunkSize, operation);
+    }
+
+    /**
+     * Applies the operation to every chunk of the region starting at the position. An empty
+     * region is a single empty chunk.
+     */
+    static void forEachChunk(final FileChannel source, final long position, final long size, final int chunkSize,
+                             final ChunkOperation operation) throws IOException, GeneralSecurityException {
+        if (size < 0 || position + size > source.size()) {
+            throw new EOFException();
+        }
+        final var chunks = size == 0 ? 1 : (size + chunkSize - 1) / chunkSize;
+        final long chunksPerWindow = Math.max(1, WINDOW_NUMBER_OF_BYTES / chunkSize);
+
+        for (long first = 0; first < chunks; first += chunksPerWindow) {
+            final var windowPosition = position + first * chunkSize;
+            final var windowSize = (int) Math.min(chunksPerWindow * chunkSize, size - first * chunkSize);
+            final var window = source.map(READ_ONLY, windowPosition, windowSize);
+
+            final var end = Math.min(chunks, first + chunksPerWindow);
+            for (long index = first; index < end; index++) {
+                final var offset = (int) ((index - first) * chunkSize);
+                operation.apply(index, index == chunks - 1, window.slice(offset, Math.min(chunkSize, windowSize - offset)));
+            }
+        }
+    }
+
+    static void read(final FileChannel source, final long position, final byte[] buffer) throws IOException {
+        final var destination = ByteBuffer.wrap(buffer);
+        while (destination.hasRemaining()) {
+            if (source.read(destination, position + destination.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    /**
+     * Truncates the destination back to where a rejected operation started writing
+     */
+    static <T> Result<Throwable, T, InternalRejectReason> discard(final FileChannel destination, final long start,
+                                                                  final InternalRejectReason reason) {
+        try {
+            if (start >= 0) {
+                destination.truncate(start).position(start);
+            }
+        } catch (IOException ignored) {
+            // The operation is rejected regardless
+        }
+        return reject(reason);
+    }
+
+    static void write(final FileChannel destination, final ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            destination.write(data);
+        }
+    }
+}
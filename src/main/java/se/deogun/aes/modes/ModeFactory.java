@@ -1,5 +1,9 @@
 package se.deogun.aes.modes;
 
+import se.deogun.aes.modes.common.InitVectorGenerator;
+
+import java.security.Provider;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 import static se.deogun.aes.modes.InternalValidation.*;
@@ -9,17 +13,67 @@ import static se.deogun.aes.modes.InternalValidation.*;
  * be used with AES
  */
 public final class ModeFactory {
-    public static <T>T gcm(final Function<AADMode, T> aes, final int decryptBufferSize) {
+    public static <T>T gcm(final Function<AADMode, T> aes, final int decryptBufferSize,
+                           final InitVectorGenerator initVectorGenerator) {
         isNotNull(aes);
+        isNotNull(initVectorGenerator);
         isTrue(isInRange(decryptBufferSize, 8 * 1024, 1024 * 1024));
 
-        return aes.apply(new GCM(decryptBufferSize));
+        return aes.apply(new GCM(decryptBufferSize, initVectorGenerator));
     }
 
-    public static <T>T cbc(final Function<NonAADMode, T> aes, final int decryptBufferSize) {
+    public static <T>T gcm(final Function<AADMode, T> aes, final int decryptBufferSize,
+                           final InitVectorGenerator initVectorGenerator, final Provider provider) {
         isNotNull(aes);
+        isNotNull(initVectorGenerator);
+        isNotNull(provider);
         isTrue(isInRange(decryptBufferSize, 8 * 1024, 1024 * 1024));
 
-        return aes.apply(new CBC(decryptBufferSize));
+        return aes.apply(new GCM(decryptBufferSize, initVectorGenerator, provider));
+    }
+
+    public static <T>T parallelGCM(final Function<AADMode, T> aes, final int segmentSize, final ForkJoinPool pool,
+                                   final InitVectorGenerator initVectorGenerator) {
+        isNotNull(aes);
+        isNotNull(pool);
+        isNotNull(initVectorGenerator);
+        isTrue(isInRange(segmentSize, SegmentedGCM.MIN_SEGMENT_SIZE, SegmentedGCM.MAX_SEGMENT_SIZE));
+
+        return aes.apply(new ParallelGCM(segmentSize, pool, initVectorGenerator));
+    }
+
+    public static <T>T gcmSIV(final Function<AADMode, T> aes, final InitVectorGenerator initVectorGenerator) {
+        isNotNull(aes);
+        isNotNull(initVectorGenerator);
+
+        return aes.apply(new GCMSIV(initVectorGenerator));
+    }
+
+    public static <T>T cbc(final Function<NonAADMode, T> aes, final int decryptBufferSize,
+                           final InitVectorGenerator initVectorGenerator) {
+        isNotNull(aes);
+        isNotNull(initVectorGenerator);
+        isTrue(isInRange(decryptBufferSize, 8 * 1024, 1024 * 1024));
+
+        return aes.apply(new CBC(decryptBufferSize, initVectorGenerator));
+    }
+
+    public static <T>T cbc(final Function<NonAADMode, T> aes, final int decryptBufferSize,
+                           final InitVectorGenerator initVectorGenerator, final Provider provider) {
+        isNotNull(aes);
+        isNotNull(initVectorGenerator);
+        isNotNull(provider);
+        isTrue(isInRange(decryptBufferSize, 8 * 1024, 1024 * 1024));
+
+        return aes.apply(new CBC(decryptBufferSize, initVectorGenerator, provider));
+    }
+
+    public static <T>T ctr(final Function<SeekableMode, T> aes, final int segmentSize,
+                           final InitVectorGenerator initVectorGenerator) {
+        isNotNull(aes);
+        isNotNull(initVectorGenerator);
+        isTrue(isInRange(segmentSize, SegmentedCTR.MIN_SEGMENT_SIZE, SegmentedCTR.MAX_SEGMENT_SIZE));
+
+        return aes.apply(new CTR(segmentSize, initVectorGenerator));
     }
 }
@@ -1,11 +1,15 @@
 package se.deogun.aes.modes;
 
+import se.deogun.aes.modes.common.Batch;
 import se.deogun.aes.modes.common.InternalRejectReason;
-import se.deogun.aes.modes.common.Result;
+import se.deogun.aes.api.Result;
 import se.deogun.aes.modes.common.Secret;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
 /**
  * AES mode for encrypting / decrypting data
  */
@@ -17,4 +21,32 @@ public sealed interface NonAADMode permits CBC {
     Result<Throwable, OutputStream, InternalRejectReason> encrypt(byte[] plainText, OutputStream outputStream, Secret secret);
 
     Result<Throwable, byte[], InternalRejectReason> decrypt(InputStream encryptedData, Secret secret);
+
+    Result<Throwable, ByteBuffer, InternalRejectReason> encrypt(ByteBuffer plainText, ByteBuffer destination, Secret secret);
+
+    Result<Throwable, ByteBuffer, InternalRejectReason> decrypt(ByteBuffer encryptedData, ByteBuffer destination, Secret secret);
+
+    Result<Throwable, OutputStream, InternalRejectReason> encrypt(InputStream plainText, OutputStream outputStream, Secret secret);
+
+    Result<Throwable, OutputStream, InternalRejectReason> encryptingStream(OutputStream outputStream, Secret secret);
+
+    Result<Throwable, OutputStream, InternalRejectReason> decrypt(InputStream encryptedData, OutputStream outputStream, Secret secret);
+
+    Result<Throwable, InputStream, InternalRejectReason> decryptingStream(InputStream encryptedData, Secret secret);
+
+    Result<Throwable, Long, InternalRejectReason> encrypt(FileChannel plainText, FileChannel destination, Secret secret);
+
+    Result<Throwable, Long, InternalRejectReason> decrypt(FileChannel encryptedData, FileChannel destination, Secret secret);
+
+    Result<Throwable, Batch, InternalRejectReason> encryptAll(List<byte[]> plainTexts, Secret secret);
+
+    Result<Throwable, Batch, InternalRejectReason> decryptAll(List<byte[]> encryptedData, Secret secret);
+
+    int maxEncryptedSize(int plainTextSize);
+
+    /**
+     * Drops the pooled ciphers, which hold the key schedule of the secret. Called when the
+     * secret is destroyed, after which the mode must not be used.
+     */
+    void clear();
 }
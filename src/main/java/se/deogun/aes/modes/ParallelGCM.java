@@ -0,0 +1,612 @@
+package se.deogun.aes.modes;
+
+import se.deogun.aes.api.Result;
+import se.deogun.aes.modes.common.*;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+import static se.deogun.aes.modes.InternalValidation.*;
+import static se.deogun.aes.modes.SegmentedGCM.HEADER_NUMBER_OF_BYTES;
+import static se.deogun.aes.modes.SegmentedGCM.TAG_NUMBER_OF_BYTES;
+import static se.deogun.aes.modes.common.InternalRejectReason.*;
+import static se.deogun.aes.api.Result.accept;
+import static se.deogun.aes.api.Result.reject;
+
+/**
+ * GCM producing the segmented format of {@link SegmentedGCM} where the segments of a payload
+ * are encrypted and decrypted in parallel on a fork join pool. Since every segment is
+ * authenticated on its own, throughput scales with the number of cores. Streams are processed
+ * one segment at a time and are interchangeable with the streams of {@link GCM}. The items of a
+ * batch are processed in parallel as well, and every item is written straight into the output
+ * buffer of the batch.
+ */
+final class ParallelGCM implements AADMode {
+    private static final int MAX_NUMBER_OF_BYTES = Integer.MAX_VALUE - 8;
+    private final int segmentSize;
+    private final ForkJoinPool pool;
+    private final InitVectorGenerator initVectorGenerator;
+    private final CipherPool ciphers;
+
+    ParallelGCM(final int segmentSize, final ForkJoinPool pool, final InitVectorGenerator initVectorGenerator) {
+        isTrue(isInRange(segmentSize, SegmentedGCM.MIN_SEGMENT_SIZE, SegmentedGCM.MAX_SEGMENT_SIZE));
+        isNotNull(pool);
+        isNotNull(initVectorGenerator);
+
+        this.segmentSize = segmentSize;
+        this.pool = pool;
+        this.initVectorGenerator = initVectorGenerator;
+        this.ciphers = new CipherPool("AES/GCM/NoPadding", pool.getParallelism() + 1);
+    }
+
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> encrypt(final byte[] plainText, final OutputStream outputStream,
+                                                                         final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        try {
+            final var encrypted = encrypt(plainText, secret, aad);
+            if (encrypted.isAccept()) {
+                outputStream.write(encrypted.liftAccept());
+            }
+            return encrypted.transform(
+                    accept -> accept(outputStream),
+                    reject -> reject(reject),
+                    failure -> Result.failure(failure)
+            );
+        } catch (IOException e) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+    }
+
+    @Override
+    public Result<Throwable, byte[], InternalRejectReason> encrypt(final byte[] plainText, final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        if (encryptedSize(plainText.length) > MAX_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+        final var encrypted = ByteBuffer.allocate(maxEncryptedSize(plainText.length));
+        return encrypt(ByteBuffer.wrap(plainText), encrypted, secret, aad).transform(
+                accept -> accept(encrypted.array()),
+                reject -> reject(reject),
+                failure -> Result.failure(failure)
+        );
+    }
+
+    @Override
+    public Result<Throwable, byte[], InternalRejectReason> decrypt(final InputStream encryptedData, final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        final var decrypted = new ByteArrayOutputStream();
+        return decrypt(encryptedData, decrypted, secret, aad).transform(
+                accept -> accept(decrypted.toByteArray()),
+                reject -> reject(reject),
+                failure -> Result.failure(failure)
+        );
+    }
+
+    @Override
+    public Result<Throwable, byte[], InternalRejectReason> decrypt(final byte[] encryptedData, final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        final var decryptedSize = decryptedSize(encryptedData);
+        if (decryptedSize < 0) {
+            return reject(UNABLE_TO_DECRYPT);
+        }
+        final var decrypted = ByteBuffer.allocate(decryptedSize);
+        return decrypt(ByteBuffer.wrap(encryptedData), decrypted, secret, aad).transform(
+                accept -> accept(decrypted.array()),
+                reject -> reject(reject),
+                failure -> Result.failure(failure)
+        );
+    }
+
+    @Override
+    public Result<Throwable, ByteBuffer, InternalRejectReason> encrypt(final ByteBuffer plainText, final ByteBuffer destination,
+                                                                       final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(destination);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        final var size = plainText.remaining();
+        if (destination.remaining() < encryptedSize(size)) {
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+
+        try {
+            final var format = SegmentedGCM.create(segmentSize, secret, aad, initVectorGenerator);
+            try {
+                final var start = destination.position();
+                destination.duplicate().put(format.header());
+
+                final var task = new Segments(segments(size), UNABLE_TO_ENCRYPT, segment -> {
+                    final var offset = segment.index * segmentSize;
+                    final var length = Math.min(segmentSize, size - offset);
+                    final var input = plainText.duplicate();
+                    input.limit(input.position() + offset + length).position(input.position() + offset);
+                    final var output = destination.duplicate();
+                    output.position(start + HEADER_NUMBER_OF_BYTES + offset + segment.index * TAG_NUMBER_OF_BYTES);
+                    return format.encrypt(segment.cipher, segment.index, segment.last, input, output);
+                });
+                run(task);
+                if (task.rejected() != null) {
+                    return reject(task.rejected());
+                }
+
+                plainText.position(plainText.limit());
+                destination.position(start + (int) encryptedSize(size));
+                return accept(destination);
+            } finally {
+                format.destroy();
+            }
+
+        } catch (UnableToCreateSecureRandom e) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        } catch (NoSuchAlgorithmException e) {
+            return reject(GCM_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return reject(GCM_INVALID_KEY);
+        }
+    }
+
+    @Override
+    public Result<Throwable, ByteBuffer, InternalRejectReason> decrypt(final ByteBuffer encryptedData, final ByteBuffer destination,
+                                                                       final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(destination);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        if (encryptedData.remaining() < HEADER_NUMBER_OF_BYTES + TAG_NUMBER_OF_BYTES) {
+            return reject(UNABLE_TO_DECRYPT);
+        }
+        final var header = new byte[HEADER_NUMBER_OF_BYTES];
+        encryptedData.duplicate().get(header);
+
+        try {
+            final var format = SegmentedGCM.read(header, secret, aad);
+            try {
+                final var encryptedSegmentSize = format.segmentSize() + TAG_NUMBER_OF_BYTES;
+                final var size = encryptedData.remaining() - HEADER_NUMBER_OF_BYTES;
+                final var segments = (size + encryptedSegmentSize - 1) / encryptedSegmentSize;
+                final var decryptedSize = size - segments * TAG_NUMBER_OF_BYTES;
+                if (size - (segments - 1) * encryptedSegmentSize < TAG_NUMBER_OF_BYTES || destination.remaining() < decryptedSize) {
+                    return reject(UNABLE_TO_DECRYPT);
+                }
+
+                final var start = encryptedData.position() + HEADER_NUMBER_OF_BYTES;
+                final var destinationStart = destination.position();
+                final var task = new Segments(segments, UNABLE_TO_DECRYPT, segment -> {
+                    final var offset = segment.index * encryptedSegmentSize;
+                    final var length = Math.min(encryptedSegmentSize, size - offset);
+                    final var input = encryptedData.duplicate();
+                    input.limit(start + offset + length).position(start + offset);
+                    final var output = destination.duplicate();
+                    final var outputOffset = destinationStart + segment.index * format.segmentSize();
+                    output.limit(outputOffset + length - TAG_NUMBER_OF_BYTES).position(outputOffset);
+                    return format.decrypt(segment.cipher, segment.index, segment.last, input, output);
+                });
+                run(task);
+                if (task.rejected() != null) {
+                    // Never leave plain text of authenticated segments behind when the payload is rejected
+                    discard(destination, decryptedSize);
+                    return reject(task.rejected());
+                }
+
+                encryptedData.position(encryptedData.limit());
+                destination.position(destination.position() + decryptedSize);
+                return accept(destination);
+            } finally {
+                format.destroy();
+            }
+
+        } catch (AEADBadTagException e) {
+            return reject(UNABLE_TO_DECRYPT);
+        } catch (NoSuchAlgorithmException e) {
+            return reject(GCM_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return reject(GCM_INVALID_KEY);
+        }
+    }
+
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> encrypt(final InputStream plainText, final OutputStream outputStream,
+                                                                         final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        final var encrypting = encryptingStream(outputStream, secret, aad);
+        if (!encrypting.isAccept()) {
+            return encrypting;
+        }
+        final var stream = (GCMEncryptingOutputStream) encrypting.liftAccept();
+        try {
+            plainText.transferTo(stream);
+            stream.finish();
+            return accept(outputStream);
+        } catch (IOException e) {
+            stream.discard();
+            return reject(UNABLE_TO_ENCRYPT);
+        }
+    }
+
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> encryptingStream(final OutputStream outputStream,
+                                                                                  final Secret secret, final AAD aad) {
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        try {
+            final var format = SegmentedGCM.create(segmentSize, secret, aad, initVectorGenerator);
+            return accept(new GCMEncryptingOutputStream(outputStream, format, ciphers, ciphers.borrow()));
+
+        } catch (UnableToCreateSecureRandom e) {
+            return reject(NO_SECURE_RANDOM_ALGORITHM);
+        } catch (InitVectorsExhausted e) {
+            return reject(INIT_VECTORS_EXHAUSTED);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(GCM_NOT_AVAILABLE);
+        } catch (InvalidKeyException e) {
+            return reject(GCM_INVALID_KEY);
+        }
+    }
+
+    @Override
+    public Result<Throwable, OutputStream, InternalRejectReason> decrypt(final InputStream encryptedData, final OutputStream outputStream,
+                                                                         final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(outputStream);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        final var decrypting = decryptingStream(encryptedData, secret, aad);
+        if (!decrypting.isAccept()) {
+            return decrypting.transform(
+                    accept -> reject(UNABLE_TO_DECRYPT),
+                    reject -> reject(reject),
+                    failure -> Result.failure(failure)
+            );
+        }
+        final var stream = (GCMDecryptingInputStream) decrypting.liftAccept();
+        try {
+            stream.transferTo(outputStream);
+            outputStream.flush();
+            return accept(outputStream);
+        } catch (IOException e) {
+            return reject(UNABLE_TO_DECRYPT);
+        } finally {
+            stream.release();
+        }
+    }
+
+    @Override
+    public Result<Throwable, InputStream, InternalRejectReason> decryptingStream(final InputStream encryptedData,
+                                                                                 final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        try {
+            return accept(new GCMDecryptingInputStream(encryptedData, secret, aad, ciphers, ciphers.borrow()));
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            return reject(GCM_NOT_AVAILABLE);
+        }
+    }
+
+    @Override
+    public Result<Throwable, Long, InternalRejectReason> encrypt(final FileChannel plainText, final FileChannel destination,
+                                                                 final Secret secret, final AAD aad) {
+        isNotNull(plainText);
+        isNotNull(destination);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        return GCMFiles.encrypt(plainText, destination, secret, aad, segmentSize, initVectorGenerator, ciphers);
+    }
+
+    @Override
+    public Result<Throwable, Long, InternalRejectReason> decrypt(final FileChannel encryptedData, final FileChannel destination,
+                                                                 final Secret secret, final AAD aad) {
+        isNotNull(encryptedData);
+        isNotNull(destination);
+        isNotNull(secret);
+        isNotNull(aad);
+
+        return GCMFiles.decrypt(encryptedData, destination, secret, aad, ciphers);
+    }
+
+    @Override
+    public Result<Throwable, Batch, InternalRejectReason> encryptAll(final List<byte[]> plainTexts, final Secret secret,
+                                                                     final List<AAD> aads) {
+        isNotNull(plainTexts);
+        isNotNull(secret);
+        isNotNull(aads);
+        isTrue(plainTexts.size() == aads.size());
+
+        final var items = plainTexts.toArray(new byte[0][]);
+        final var aadItems = aads.toArray(new AAD[0]);
+        final var offsets = new int[items.length + 1];
+        long size = 0;
+        for (int i = 0; i < items.length; i++) {
+            isNotNull(items[i]);
+            offsets[i] = (int) size;
+            size += encryptedSize(items[i].length);
+            if (size > MAX_NUMBER_OF_BYTES) {
+                return reject(UNABLE_TO_ENCRYPT);
+            }
+        }
+        offsets[items.length] = (int) size;
+
+        final var buffer = new byte[(int) size];
+        final var rejects = new InternalRejectReason[items.length];
+        run(new Items(0, items.length, rejects, UNABLE_TO_ENCRYPT, i -> encrypt(ByteBuffer.wrap(items[i]),
+                ByteBuffer.wrap(buffer, offsets[i], offsets[i + 1] - offsets[i]), secret, aadItems[i])));
+        return accept(batch(buffer, offsets, rejects));
+    }
+
+    @Override
+    public Result<Throwable, Batch, InternalRejectReason> decryptAll(final List<byte[]> encryptedData, final Secret secret,
+                                                                     final List<AAD> aads) {
+        isNotNull(encryptedData);
+        isNotNull(secret);
+        isNotNull(aads);
+        isTrue(encryptedData.size() == aads.size());
+
+        final var items = encryptedData.toArray(new byte[0][]);
+        final var aadItems = aads.toArray(new AAD[0]);
+        final var offsets = new int[items.length + 1];
+        final var rejects = new InternalRejectReason[items.length];
+        long size = 0;
+        for (int i = 0; i < items.length; i++) {
+            isNotNull(items[i]);
+            offsets[i] = (int) size;
+            final var decryptedSize = decryptedSize(items[i]);
+            if (decryptedSize < 0) {
+                rejects[i] = UNABLE_TO_DECRYPT;
+            } else {
+                size += decryptedSize;
+            }
+            if (size > MAX_NUMBER_OF_BYTES) {
+                return reject(UNABLE_TO_DECRYPT);
+            }
+        }
+        offsets[items.length] = (int) size;
+
+        final var buffer = new byte[(int) size];
+        run(new Items(0, items.length, rejects, UNABLE_TO_DECRYPT, i -> decrypt(ByteBuffer.wrap(items[i]),
+                ByteBuffer.wrap(buffer, offsets[i], offsets[i + 1] - offsets[i]), secret, aadItems[i])));
+        return accept(batch(buffer, offsets, rejects));
+    }
+
+    @Override
+    public int maxEncryptedSize(final int plainTextSize) {
+        isTrue(isInRange(plainTextSize, 0, Integer.MAX_VALUE));
+        isTrue(encryptedSize(plainTextSize) <= Integer.MAX_VALUE);
+        return (int) encryptedSize(plainTextSize);
+    }
+
+    @Override
+    public void clear() {
+        ciphers.clear();
+    }
+
+    private long encryptedSize(final int plainTextSize) {
+        return HEADER_NUMBER_OF_BYTES + (long) plainTextSize + (long) segments(plainTextSize) * TAG_NUMBER_OF_BYTES;
+    }
+
+    private int segments(final int plainTextSize) {
+        return plainTextSize == 0 ? 1 : (int) ((plainTextSize + (long) segmentSize - 1) / segmentSize);
+    }
+
+    private static int decryptedSize(final byte[] encryptedData) {
+        if (encryptedData.length < HEADER_NUMBER_OF_BYTES + TAG_NUMBER_OF_BYTES) {
+            return -1;
+        }
+        final var segmentSize = ByteBuffer.wrap(encryptedData, 1, 4).getInt();
+        if (!isInRange(segmentSize, SegmentedGCM.MIN_SEGMENT_SIZE, SegmentedGCM.MAX_SEGMENT_SIZE)) {
+            return -1;
+        }
+        final var size = encryptedData.length - HEADER_NUMBER_OF_BYTES;
+        final var encryptedSegmentSize = segmentSize + TAG_NUMBER_OF_BYTES;
+        final var segments = (size + encryptedSegmentSize - 1) / encryptedSegmentSize;
+        return size - segments * TAG_NUMBER_OF_BYTES;
+    }
+
+    /**
+     * Runs a task on the pool, or on the calling thread if it's a single segment or if the calling
+     * thread already belongs to the pool, e.g. when the segments of an item of a batch are processed
+     */
+    private void run(final Segments task) {
+        if (task.to - task.from == 1 || ForkJoinTask.getPool() == pool) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    private void run(final Items task) {
+        if (task.to - task.from > 1) {
+            pool.invoke(task);
+        } else if (task.to > task.from) {
+            task.invoke();
+        }
+    }
+
+    private static void discard(final ByteBuffer destination, final int length) {
+        final var zeros = new byte[Math.min(length, 8192)];
+        final var discard = destination.duplicate();
+        for (int remaining = length; remaining > 0; remaining -= zeros.length) {
+            discard.put(zeros, 0, Math.min(remaining, zeros.length));
+        }
+    }
+
+    /**
+     * Every item was written to a slot reserved for its output, hence the slots of rejected items
+     * are removed by moving the items that follow, and the bytes freed at the end are zeroed
+     */
+    private static Batch batch(final byte[] buffer, final int[] offsets, final InternalRejectReason[] rejects) {
+        var position = 0;
+        for (int i = 0; i < rejects.length; i++) {
+            final var start = offsets[i];
+            final var length = rejects[i] == null ? offsets[i + 1] - start : 0;
+            if (position != start && length > 0) {
+                System.arraycopy(buffer, start, buffer, position, length);
+            }
+            offsets[i] = position;
+            position += length;
+        }
+        Arrays.fill(buffer, position, offsets[rejects.length], (byte) 0);
+        offsets[rejects.length] = position;
+        return new Batch(buffer, offsets, rejects);
+    }
+
+    @FunctionalInterface
+    private interface SegmentOperation {
+        int apply(Segment segment) throws InvalidKeyException, InvalidAlgorithmParameterException, ShortBufferException,
+                IllegalBlockSizeException, BadPaddingException;
+    }
+
+    private static final class Segment {
+        private final javax.crypto.Cipher cipher;
+        private final int index;
+        private final boolean last;
+
+        private Segment(final javax.crypto.Cipher cipher, final int index, final boolean last) {
+            this.cipher = cipher;
+            this.index = index;
+            this.last = last;
+        }
+    }
+
+    /**
+     * Splits the items of a batch in halves until a single item remains. Items already rejected
+     * are skipped, and the reject reason of every rejected item is recorded.
+     */
+    private static final class Items extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final InternalRejectReason[] rejects;
+        private final InternalRejectReason failure;
+        private final IntFunction<Result<Throwable, ?, InternalRejectReason>> operation;
+
+        private Items(final int from, final int to, final InternalRejectReason[] rejects, final InternalRejectReason failure,
+                      final IntFunction<Result<Throwable, ?, InternalRejectReason>> operation) {
+            this.from = from;
+            this.to = to;
+            this.rejects = rejects;
+            this.failure = failure;
+            this.operation = operation;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                final var middle = (from + to) >>> 1;
+                invokeAll(new Items(from, middle, rejects, failure, operation), new Items(middle, to, rejects, failure, operation));
+                return;
+            }
+            if (rejects[from] != null) {
+                return;
+            }
+            final var result = operation.apply(from);
+            if (!result.isAccept()) {
+                rejects[from] = result.isReject() ? result.liftReject() : failure;
+            }
+        }
+    }
+
+    /**
+     * Splits the segments in halves until a single segment remains. Every segment borrows a cipher
+     * from the pool, and the first reject stops the remaining segments from being processed.
+     */
+    private final class Segments extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int total;
+        private final InternalRejectReason failure;
+        private final SegmentOperation operation;
+        private final AtomicReference<InternalRejectReason> rejected;
+
+        private Segments(final int total, final InternalRejectReason failure, final SegmentOperation operation) {
+            this(0, total, total, failure, operation, new AtomicReference<>());
+        }
+
+        private Segments(final int from, final int to, final int total, final InternalRejectReason failure,
+                         final SegmentOperation operation, final AtomicReference<InternalRejectReason> rejected) {
+            this.from = from;
+            this.to = to;
+            this.total = total;
+            this.failure = failure;
+            this.operation = operation;
+            this.rejected = rejected;
+        }
+
+        InternalRejectReason rejected() {
+            return rejected.get();
+        }
+
+        @Override
+        protected void compute() {
+            if (rejected.get() != null) {
+                return;
+            }
+            if (to - from > 1) {
+                final var middle = (from + to) >>> 1;
+                invokeAll(new Segments(from, middle, total, failure, operation, rejected),
+                        new Segments(middle, to, total, failure, operation, rejected));
+                return;
+            }
+            try {
+                final var cipher = ciphers.borrow();
+                try {
+                    operation.apply(new Segment(cipher, from, from == total - 1));
+                } finally {
+                    ciphers.release(cipher);
+                }
+            } catch (IllegalStateException | BadPaddingException | IllegalBlockSizeException | ShortBufferException e) {
+                rejected.compareAndSet(null, failure);
+            } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+                rejected.compareAndSet(null, GCM_NOT_AVAILABLE);
+            } catch (InvalidKeyException e) {
+                rejected.compareAndSet(null, GCM_INVALID_KEY);
+            } catch (InvalidAlgorithmParameterException e) {
+                rejected.compareAndSet(null, GCM_INVALID_PARAMETERS);
+            }
+        }
+    }
+}
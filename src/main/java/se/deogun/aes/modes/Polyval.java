@@ -0,0 +1,134 @@
+package se.deogun.aes.modes;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * POLYVAL universal hash of AES-GCM-SIV (RFC 8452, section 3). Field elements are kept as two
+ * little endian longs where bit i is the coefficient of x^i, and blocks are multiplied by the key
+ * one bit at a time. Bits select terms through masks instead of branches or table lookups, which
+ * means neither the memory accessed nor the branches taken depend on the key or the data, at the
+ * cost of being slower than a table of multiples of the key. Data is buffered until a full block
+ * is available, and {@link #pad()} zero pads a partial block.
+ */
+final class Polyval {
+    static final int BLOCK_NUMBER_OF_BYTES = 16;
+    // x^128 = x^127 + x^126 + x^121 + 1
+    private static final long REDUCTION_HIGH = 0xC200000000000000L;
+    private static final long REDUCTION_LOW = 1L;
+
+    private final ByteBuffer pending = ByteBuffer.allocate(BLOCK_NUMBER_OF_BYTES).order(LITTLE_ENDIAN);
+    private long keyLow;
+    private long keyHigh;
+    private long low;
+    private long high;
+
+    Polyval(final byte[] key) {
+        final var element = ByteBuffer.wrap(key).order(LITTLE_ENDIAN);
+        // dot(a, b) = a * b * x^-128, hence the key is multiplied by x^-128 once up front
+        final var h = new long[]{element.getLong(0), element.getLong(8)};
+        for (int i = 0; i < 128; i++) {
+            timesXInverse(h);
+        }
+        keyLow = h[0];
+        keyHigh = h[1];
+        h[0] = 0;
+        h[1] = 0;
+    }
+
+    void update(final byte[] data) {
+        update(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Consumes the remaining bytes of the buffer
+     */
+    void update(final ByteBuffer data) {
+        while (pending.position() > 0 && pending.hasRemaining() && data.hasRemaining()) {
+            pending.put(data.get());
+        }
+        if (!pending.hasRemaining()) {
+            block(pending.getLong(0), pending.getLong(8));
+            pending.clear();
+        }
+        final var blocks = data.duplicate().order(LITTLE_ENDIAN);
+        while (blocks.remaining() >= BLOCK_NUMBER_OF_BYTES) {
+            block(blocks.getLong(), blocks.getLong());
+        }
+        data.position(blocks.position());
+        while (data.hasRemaining()) {
+            pending.put(data.get());
+        }
+    }
+
+    /**
+     * Zero pads a buffered partial block
+     */
+    void pad() {
+        if (pending.position() > 0) {
+            while (pending.hasRemaining()) {
+                pending.put((byte) 0);
+            }
+            block(pending.getLong(0), pending.getLong(8));
+            pending.clear();
+        }
+    }
+
+    /**
+     * @return hash of the data so far, zero padded to a full block
+     */
+    byte[] digest() {
+        pad();
+        return ByteBuffer.allocate(BLOCK_NUMBER_OF_BYTES).order(LITTLE_ENDIAN).putLong(low).putLong(high).array();
+    }
+
+    /**
+     * Zeroes the key and the state
+     */
+    void destroy() {
+        keyLow = 0;
+        keyHigh = 0;
+        low = 0;
+        high = 0;
+        pending.clear();
+        while (pending.hasRemaining()) {
+            pending.put((byte) 0);
+        }
+        pending.clear();
+    }
+
+    private void block(final long blockLow, final long blockHigh) {
+        var word = low ^ blockLow;
+        final var wordHigh = high ^ blockHigh;
+        var vLow = keyLow;
+        var vHigh = keyHigh;
+        long zLow = 0;
+        long zHigh = 0;
+        for (int i = 0; i < 128; i++) {
+            if (i == 64) {
+                word = wordHigh;
+            }
+            // z += bit i * key * x^i
+            final var bit = -(word & 1);
+            word >>>= 1;
+            zLow ^= vLow & bit;
+            zHigh ^= vHigh & bit;
+
+            final var carry = -(vHigh >>> 63);
+            vHigh = (vHigh << 1) | (vLow >>> 63);
+            vLow = (vLow << 1) ^ (REDUCTION_LOW & carry);
+            vHigh ^= REDUCTION_HIGH & carry;
+        }
+        low = zLow;
+        high = zHigh;
+    }
+
+    private static void timesXInverse(final long[] element) {
+        final var odd = -(element[0] & 1);
+        element[0] ^= REDUCTION_LOW & odd;
+        element[1] ^= REDUCTION_HIGH & odd;
+        element[0] = (element[0] >>> 1) | (element[1] << 63);
+        element[1] = (element[1] >>> 1) | ((1L << 63) & odd);
+    }
+}
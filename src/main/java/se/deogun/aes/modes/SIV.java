@@ -0,0 +1,194 @@
+package se.deogun.aes.modes;
+
+import se.deogun.aes.modes.common.Secret;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.ShortBufferException;
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static javax.crypto.Cipher.ENCRYPT_MODE;
+import static se.deogun.aes.modes.Polyval.BLOCK_NUMBER_OF_BYTES;
+
+/**
+ * State of a single AES-GCM-SIV (RFC 8452) message. The message keys are derived from the secret
+ * and the nonce, the tag is computed from POLYVAL over the additional authentication data and the
+ * plain text, and the tag is used as initial counter block for encryption. The cipher must be an
+ * AES/ECB/NoPadding instance, which is keyed with the message encryption key once the keys have
+ * been derived.
+ */
+final class SIV {
+    static final int NONCE_NUMBER_OF_BYTES = 12;
+    static final int TAG_NUMBER_OF_BYTES = 16;
+    // Plain text and additional authentication data are limited to 2^36 bytes
+    static final long MAX_NUMBER_OF_BYTES = 1L << 36;
+    private static final int KEYSTREAM_NUMBER_OF_BLOCKS = 256;
+
+    private final Cipher cipher;
+    private final byte[] nonce;
+    private final Polyval polyval;
+    private final Secret encryptionKey;
+    private final byte[] counters = new byte[KEYSTREAM_NUMBER_OF_BLOCKS * BLOCK_NUMBER_OF_BYTES];
+    private final byte[] keystream = new byte[KEYSTREAM_NUMBER_OF_BLOCKS * BLOCK_NUMBER_OF_BYTES];
+    private long aadLength;
+    private long dataLength;
+    private byte[] counter;
+    private int counterValue;
+
+    private SIV(final Cipher cipher, final byte[] nonce, final byte[] authenticationKey, final byte[] encryptionKey)
+            throws InvalidKeyException {
+        this.cipher = cipher;
+        this.nonce = nonce.clone();
+        this.polyval = new Polyval(authenticationKey);
+        this.encryptionKey = new Secret(encryptionKey);
+        cipher.init(ENCRYPT_MODE, this.encryptionKey.keySpecification());
+    }
+
+    /**
+     * Derives the message authentication and encryption keys (RFC 8452, section 4)
+     * @throws InvalidKeyException if the secret isn't a 128 or 256 bit key
+     */
+    static SIV derive(final Cipher cipher, final Secret secret, final byte[] nonce)
+            throws InvalidKeyException, ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        final var key = secret.keySpecification().getEncoded();
+        final var keyLength = key.length;
+        Arrays.fill(key, (byte) 0);
+        if (keyLength != 16 && keyLength != 32 || nonce.length != NONCE_NUMBER_OF_BYTES) {
+            throw new InvalidKeyException();
+        }
+
+        final var blocks = 2 + keyLength / 8;
+        final var input = ByteBuffer.allocate(blocks * BLOCK_NUMBER_OF_BYTES).order(LITTLE_ENDIAN);
+        for (int i = 0; i < blocks; i++) {
+            input.putInt(i).put(nonce);
+        }
+        cipher.init(ENCRYPT_MODE, secret.keySpecification());
+        final var output = cipher.doFinal(input.array());
+
+        // Only the first half of every encrypted block is used
+        final var authenticationKey = new byte[16];
+        final var encryptionKey = new byte[keyLength];
+        for (int i = 0; i < blocks; i++) {
+            if (i < 2) {
+                System.arraycopy(output, i * BLOCK_NUMBER_OF_BYTES, authenticationKey, i * 8, 8);
+            } else {
+                System.arraycopy(output, i * BLOCK_NUMBER_OF_BYTES, encryptionKey, (i - 2) * 8, 8);
+            }
+        }
+        try {
+            return new SIV(cipher, nonce, authenticationKey, encryptionKey);
+        } finally {
+            Arrays.fill(output, (byte) 0);
+            Arrays.fill(authenticationKey, (byte) 0);
+            Arrays.fill(encryptionKey, (byte) 0);
+        }
+    }
+
+    /**
+     * Authenticates the additional authentication data, which must precede all other data
+     */
+    void aad(final byte[] aad) {
+        aad(ByteBuffer.wrap(aad));
+    }
+
+    /**
+     * Authenticates the remaining bytes of the additional authentication data, which must precede
+     * all other data
+     */
+    void aad(final ByteBuffer aad) {
+        aadLength += aad.remaining();
+        polyval.update(aad);
+        polyval.pad();
+    }
+
+    /**
+     * Authenticates plain text, which must be provided in multiples of the block size except for the last part
+     */
+    void authenticate(final ByteBuffer plainText) {
+        dataLength += plainText.remaining();
+        polyval.update(plainText);
+    }
+
+    /**
+     * @return tag of the data authenticated so far
+     */
+    byte[] tag() throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        if (aadLength > MAX_NUMBER_OF_BYTES || dataLength > MAX_NUMBER_OF_BYTES) {
+            throw new IllegalStateException();
+        }
+        polyval.pad();
+        polyval.update(ByteBuffer.allocate(BLOCK_NUMBER_OF_BYTES).order(LITTLE_ENDIAN)
+                .putLong(aadLength * 8)
+                .putLong(dataLength * 8)
+                .flip());
+        final var s = polyval.digest();
+        for (int i = 0; i < NONCE_NUMBER_OF_BYTES; i++) {
+            s[i] ^= nonce[i];
+        }
+        s[15] &= 0x7f;
+        return cipher.doFinal(s);
+    }
+
+    /**
+     * Verifies the tag in constant time
+     * @throws AEADBadTagException if the tag doesn't match
+     */
+    void verify(final byte[] tag) throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        if (!MessageDigest.isEqual(tag(), tag)) {
+            throw new AEADBadTagException();
+        }
+    }
+
+    /**
+     * Starts the counter mode keystream at the tag
+     */
+    void start(final byte[] tag) {
+        counter = tag.clone();
+        counter[15] |= (byte) 0x80;
+        counterValue = ByteBuffer.wrap(counter).order(LITTLE_ENDIAN).getInt(0);
+    }
+
+    /**
+     * Encrypts / decrypts the remaining bytes of the input, which must be provided in multiples of the
+     * block size except for the last part
+     */
+    void crypt(final ByteBuffer input, final ByteBuffer output) throws ShortBufferException {
+        final var counterBlocks = ByteBuffer.wrap(counters).order(LITTLE_ENDIAN);
+        final var keystreamBlocks = ByteBuffer.wrap(keystream);
+        // Duplicates are big endian like the keystream, whatever the byte order of the buffers
+        final var in = input.duplicate();
+        final var out = output.duplicate();
+        while (in.hasRemaining()) {
+            final var length = Math.min(in.remaining(), keystream.length);
+            final var blocks = (length + BLOCK_NUMBER_OF_BYTES - 1) / BLOCK_NUMBER_OF_BYTES;
+            for (int i = 0; i < blocks; i++) {
+                // The counter is the first 32 bits of the block, little endian and wrapping
+                System.arraycopy(counter, 0, counters, i * BLOCK_NUMBER_OF_BYTES, BLOCK_NUMBER_OF_BYTES);
+                counterBlocks.putInt(i * BLOCK_NUMBER_OF_BYTES, counterValue++);
+            }
+            cipher.update(counters, 0, blocks * BLOCK_NUMBER_OF_BYTES, keystream, 0);
+
+            var i = 0;
+            for (; i + Long.BYTES <= length; i += Long.BYTES) {
+                out.putLong(in.getLong() ^ keystreamBlocks.getLong(i));
+            }
+            for (; i < length; i++) {
+                out.put((byte) (in.get() ^ keystream[i]));
+            }
+        }
+        input.position(in.position());
+        output.position(out.position());
+    }
+
+    void destroy() {
+        encryptionKey.destroy();
+        polyval.destroy();
+        Arrays.fill(keystream, (byte) 0);
+    }
+}
@@ -0,0 +1,36 @@
+package se.deogun.aes.modes;
+
+import se.deogun.aes.modes.common.AAD;
+import se.deogun.aes.modes.common.InternalRejectReason;
+import se.deogun.aes.api.Result;
+import se.deogun.aes.modes.common.Secret;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * AES mode for encrypting / decrypting data where any range of the plain text can be
+ * decrypted without processing the data before it
+ */
+public sealed interface SeekableMode permits CTR {
+    Result<Throwable, byte[], InternalRejectReason> encrypt(byte[] plainText, Secret secret, AAD aad);
+
+    Result<Throwable, OutputStream, InternalRejectReason> encrypt(InputStream plainText, OutputStream outputStream, Secret secret, AAD aad);
+
+    Result<Throwable, byte[], InternalRejectReason> decrypt(byte[] encryptedData, Secret secret, AAD aad);
+
+    Result<Throwable, Long, InternalRejectReason> plainTextSize(SeekableByteChannel encryptedData);
+
+    Result<Throwable, byte[], InternalRejectReason> decryptRange(SeekableByteChannel encryptedData, long offset, int length,
+                                                                 Secret secret, AAD aad);
+
+    Result<Throwable, OutputStream, InternalRejectReason> decryptRange(SeekableByteChannel encryptedData, long offset, long length,
+                                                                       OutputStream outputStream, Secret secret, AAD aad);
+
+    /**
+     * Drops the pooled ciphers, which hold the key schedule of the secret. Called when the
+     * secret is destroyed, after which the mode must not be used.
+     */
+    void clear();
+}
@@ -0,0 +1,202 @@
+package se.deogun.aes.modes;
+
+import se.deogun.aes.modes.common.AAD;
+import se.deogun.aes.modes.common.InitVectorGenerator;
+import se.deogun.aes.modes.common.InitVectorsExhausted;
+import se.deogun.aes.modes.common.Secret;
+import se.deogun.aes.modes.common.UnableToCreateSecureRandom;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.crypto.Cipher.DECRYPT_MODE;
+import static javax.crypto.Cipher.ENCRYPT_MODE;
+
+/**
+ * Seekable format where CTR encrypted data is split into segments that are authenticated
+ * with HMAC-SHA256 (encrypt-then-MAC).
+ * <pre>
+ * header:  version (1) | segment size (4) | salt (16)
+ * segment: encrypted segment (at most segment size) | tag (32)
+ * </pre>
+ * Every message uses its own encryption and MAC keys derived from the secret and the salt,
+ * which is why the counter of a segment simply starts at its offset in the plain text. The tag
+ * of a segment covers the header, the additional authentication data, the segment index and a
+ * flag marking the last segment, so any segment can be verified and decrypted on its own while
+ * reordering, removal and truncation are still detected.
+ */
+final class SegmentedCTR {
+    static final int HEADER_NUMBER_OF_BYTES = 21;
+    static final int TAG_NUMBER_OF_BYTES = 32;
+    static final int MIN_SEGMENT_SIZE = 1024;
+    static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final byte VERSION = 1;
+    private static final int SALT_NUMBER_OF_BYTES = 16;
+    private static final int BLOCK_NUMBER_OF_BYTES = 16;
+    private static final byte ENCRYPTION_KEY = 1;
+    private static final byte MAC_KEY = 2;
+    private static final byte[] KEY_DERIVATION_LABEL = "se.deogun.aes.modes.SegmentedCTR".getBytes(UTF_8);
+
+    private final byte[] header;
+    private final byte[] prefix;
+    private final Secret encryptionKey;
+    private final Secret macKey;
+    private final int segmentSize;
+
+    private SegmentedCTR(final byte[] header, final Secret secret, final AAD aad) throws NoSuchAlgorithmException, InvalidKeyException {
+        this.header = header;
+        this.segmentSize = ByteBuffer.wrap(header, 1, 4).getInt();
+        this.encryptionKey = derive(secret, ENCRYPTION_KEY, header);
+        this.macKey = derive(secret, MAC_KEY, header);
+        this.prefix = ByteBuffer.allocate(header.length + 4 + aad.length())
+                .put(header)
+                .putInt(aad.length())
+                .put(aad.buffer())
+                .array();
+    }
+
+    static SegmentedCTR create(final int segmentSize, final Secret secret, final AAD aad, final InitVectorGenerator initVectorGenerator)
+            throws UnableToCreateSecureRandom, InitVectorsExhausted, NoSuchAlgorithmException, InvalidKeyException {
+        if (!isValid(segmentSize)) {
+            throw new IllegalArgumentException();
+        }
+        final var salt = new byte[SALT_NUMBER_OF_BYTES];
+        initVectorGenerator.nextBytes(salt);
+
+        final var header = ByteBuffer.allocate(HEADER_NUMBER_OF_BYTES)
+                .put(VERSION)
+                .putInt(segmentSize)
+                .put(salt)
+                .array();
+        return new SegmentedCTR(header, secret, aad);
+    }
+
+    /**
+     * @throws AEADBadTagException if the header isn't a valid segmented CTR header
+     */
+    static SegmentedCTR read(final byte[] header, final Secret secret, final AAD aad)
+            throws AEADBadTagException, NoSuchAlgorithmException, InvalidKeyException {
+        segmentSize(header);
+        return new SegmentedCTR(header.clone(), secret, aad);
+    }
+
+    /**
+     * @return plain text size of the encrypted size or -1 if the size isn't valid
+     */
+    static long plainTextSize(final long encryptedSize, final int segmentSize) {
+        final var size = encryptedSize - HEADER_NUMBER_OF_BYTES;
+        final long encryptedSegmentSize = segmentSize + TAG_NUMBER_OF_BYTES;
+        final var segments = (size + encryptedSegmentSize - 1) / encryptedSegmentSize;
+        if (size < TAG_NUMBER_OF_BYTES || size - (segments - 1) * encryptedSegmentSize < TAG_NUMBER_OF_BYTES) {
+            return -1;
+        }
+        return size - segments * TAG_NUMBER_OF_BYTES;
+    }
+
+    /**
+     * @throws AEADBadTagException if the header isn't a valid segmented CTR header
+     */
+    static int segmentSize(final byte[] header) throws AEADBadTagException {
+        if (header.length != HEADER_NUMBER_OF_BYTES || header[0] != VERSION || !isValid(ByteBuffer.wrap(header, 1, 4).getInt())) {
+            throw new AEADBadTagException();
+        }
+        return ByteBuffer.wrap(header, 1, 4).getInt();
+    }
+
+    byte[] header() {
+        return header.clone();
+    }
+
+    int segmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Encrypts a segment and appends its tag
+     * @return number of bytes written to the output
+     */
+    int encrypt(final Cipher cipher, final Mac mac, final long index, final boolean last,
+                final byte[] plainText, final int offset, final int length,
+                final byte[] output, final int outputOffset)
+            throws InvalidKeyException, InvalidAlgorithmParameterException, ShortBufferException,
+            IllegalBlockSizeException, BadPaddingException {
+        cipher.init(ENCRYPT_MODE, encryptionKey.keySpecification(), counter(index));
+        final var written = cipher.doFinal(plainText, offset, length, output, outputOffset);
+        tag(mac, index, last, output, outputOffset, written);
+        mac.doFinal(output, outputOffset + written);
+        return written + TAG_NUMBER_OF_BYTES;
+    }
+
+    /**
+     * Verifies the tag of a segment before decrypting it
+     * @return number of bytes written to the output
+     * @throws AEADBadTagException if the segment isn't authentic
+     */
+    int decrypt(final Cipher cipher, final Mac mac, final long index, final boolean last,
+                final byte[] encrypted, final int offset, final int length,
+                final byte[] output, final int outputOffset)
+            throws InvalidKeyException, InvalidAlgorithmParameterException, ShortBufferException,
+            IllegalBlockSizeException, BadPaddingException {
+        final var size = length - TAG_NUMBER_OF_BYTES;
+        if (size < 0 || size > segmentSize) {
+            throw new AEADBadTagException();
+        }
+        tag(mac, index, last, encrypted, offset, size);
+        final var tag = Arrays.copyOfRange(encrypted, offset + size, offset + length);
+        if (!MessageDigest.isEqual(mac.doFinal(), tag)) {
+            throw new AEADBadTagException();
+        }
+        cipher.init(DECRYPT_MODE, encryptionKey.keySpecification(), counter(index));
+        return cipher.doFinal(encrypted, offset, size, output, outputOffset);
+    }
+
+    void destroy() {
+        encryptionKey.destroy();
+        macKey.destroy();
+    }
+
+    private void tag(final Mac mac, final long index, final boolean last, final byte[] data, final int offset, final int length)
+            throws InvalidKeyException {
+        mac.init(macKey.keySpecification());
+        mac.update(prefix);
+        mac.update(ByteBuffer.allocate(Long.BYTES + 1).putLong(index).put(last ? (byte) 1 : (byte) 0).array());
+        mac.update(data, offset, length);
+    }
+
+    private IvParameterSpec counter(final long index) {
+        return new IvParameterSpec(ByteBuffer.allocate(BLOCK_NUMBER_OF_BYTES)
+                .putLong(8, index * (segmentSize / BLOCK_NUMBER_OF_BYTES))
+                .array());
+    }
+
+    private static Secret derive(final Secret secret, final byte purpose, final byte[] header)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        final var mac = Mac.getInstance("HmacSHA256");
+        mac.init(secret.keySpecification());
+        mac.update(KEY_DERIVATION_LABEL);
+        mac.update(purpose);
+        mac.update(header);
+        final var key = mac.doFinal();
+        try {
+            return new Secret(key);
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+
+    private static boolean isValid(final int segmentSize) {
+        return segmentSize >= MIN_SEGMENT_SIZE && segmentSize <= MAX_SEGMENT_SIZE && segmentSize % BLOCK_NUMBER_OF_BYTES == 0;
+    }
+}
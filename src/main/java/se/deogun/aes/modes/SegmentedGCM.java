@@ -0,0 +1,189 @@
+package se.deogun.aes.modes;
+
+import se.deogun.aes.modes.common.AAD;
+import se.deogun.aes.modes.common.InitVectorGenerator;
+import se.deogun.aes.modes.common.InitVectorsExhausted;
+import se.deogun.aes.modes.common.Secret;
+import se.deogun.aes.modes.common.UnableToCreateSecureRandom;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.crypto.Cipher.DECRYPT_MODE;
+import static javax.crypto.Cipher.ENCRYPT_MODE;
+
+/**
+ * Segmented GCM format where data is split into independently authenticated segments
+ * (online authenticated encryption in the style of the STREAM construction).
+ * <pre>
+ * header:  version (1) | segment size (4) | salt (16) | nonce prefix (7)
+ * segment: encrypted segment (at most segment size) | tag (16)
+ * </pre>
+ * Every message uses its own key derived from the secret and the salt. The nonce of a segment
+ * is the nonce prefix followed by the segment index (4) and a flag (1) marking the last segment,
+ * which means segments can't be reordered, dropped or truncated without detection. The header
+ * and the additional authentication data are authenticated by every segment.
+ */
+final class SegmentedGCM {
+    static final int HEADER_NUMBER_OF_BYTES = 28;
+    static final int TAG_NUMBER_OF_BYTES = 16;
+    static final int MIN_SEGMENT_SIZE = 1024;
+    static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final byte VERSION = 1;
+    private static final int SALT_NUMBER_OF_BYTES = 16;
+    private static final int NONCE_PREFIX_NUMBER_OF_BYTES = 7;
+    private static final int NONCE_NUMBER_OF_BYTES = 12;
+    private static final int TAG_LENGTH_IN_BITS = 128;
+    private static final long MAX_NUMBER_OF_SEGMENTS = 0xFFFFFFFFL;
+    private static final byte[] KEY_DERIVATION_LABEL = "se.deogun.aes.modes.SegmentedGCM".getBytes(UTF_8);
+
+    private final byte[] header;
+    private final byte[] aad;
+    private final Secret segmentKey;
+    private final int segmentSize;
+
+    private SegmentedGCM(final byte[] header, final Secret secret, final AAD aad) throws NoSuchAlgorithmException, InvalidKeyException {
+        this.header = header;
+        this.segmentSize = ByteBuffer.wrap(header, 1, 4).getInt();
+        this.segmentKey = segmentKey(secret, header);
+        this.aad = ByteBuffer.allocate(header.length + aad.length()).put(header).put(aad.buffer()).array();
+    }
+
+    static SegmentedGCM create(final int segmentSize, final Secret secret, final AAD aad, final InitVectorGenerator initVectorGenerator)
+            throws UnableToCreateSecureRandom, InitVectorsExhausted, NoSuchAlgorithmException, InvalidKeyException {
+        if (!isValid(segmentSize)) {
+            throw new IllegalArgumentException();
+        }
+        final var random = new byte[SALT_NUMBER_OF_BYTES + NONCE_PREFIX_NUMBER_OF_BYTES];
+        initVectorGenerator.nextBytes(random);
+
+        final var header = ByteBuffer.allocate(HEADER_NUMBER_OF_BYTES)
+                .put(VERSION)
+                .putInt(segmentSize)
+                .put(random)
+                .array();
+        return new SegmentedGCM(header, secret, aad);
+    }
+
+    /**
+     * @throws AEADBadTagException if the header isn't a valid segmented GCM header
+     */
+    static SegmentedGCM read(final byte[] header, final Secret secret, final AAD aad)
+            throws AEADBadTagException, NoSuchAlgorithmException, InvalidKeyException {
+        if (header.length != HEADER_NUMBER_OF_BYTES || header[0] != VERSION || !isValid(ByteBuffer.wrap(header, 1, 4).getInt())) {
+            throw new AEADBadTagException();
+        }
+        return new SegmentedGCM(header.clone(), secret, aad);
+    }
+
+    /**
+     * @return plain text size of the encrypted size or -1 if the size isn't valid
+     */
+    static long plainTextSize(final long encryptedSize, final int segmentSize) {
+        final var size = encryptedSize - HEADER_NUMBER_OF_BYTES;
+        final long encryptedSegmentSize = segmentSize + TAG_NUMBER_OF_BYTES;
+        final var segments = (size + encryptedSegmentSize - 1) / encryptedSegmentSize;
+        if (size < TAG_NUMBER_OF_BYTES || size - (segments - 1) * encryptedSegmentSize < TAG_NUMBER_OF_BYTES) {
+            return -1;
+        }
+        return size - segments * TAG_NUMBER_OF_BYTES;
+    }
+
+    byte[] header() {
+        return header.clone();
+    }
+
+    int segmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * @return number of bytes written to the output
+     */
+    int encrypt(final Cipher cipher, final long index, final boolean last,
+                final byte[] plainText, final int offset, final int length,
+                final byte[] output, final int outputOffset)
+            throws InvalidKeyException, InvalidAlgorithmParameterException, ShortBufferException,
+            IllegalBlockSizeException, BadPaddingException {
+        init(cipher, ENCRYPT_MODE, index, last);
+        return cipher.doFinal(plainText, offset, length, output, outputOffset);
+    }
+
+    /**
+     * @return number of bytes written to the output
+     */
+    int decrypt(final Cipher cipher, final long index, final boolean last,
+                final byte[] encrypted, final int offset, final int length,
+                final byte[] output, final int outputOffset)
+            throws InvalidKeyException, InvalidAlgorithmParameterException, ShortBufferException,
+            IllegalBlockSizeException, BadPaddingException {
+        init(cipher, DECRYPT_MODE, index, last);
+        return cipher.doFinal(encrypted, offset, length, output, outputOffset);
+    }
+
+    /**
+     * @return number of bytes written to the output
+     */
+    int encrypt(final Cipher cipher, final long index, final boolean last, final ByteBuffer plainText, final ByteBuffer output)
+            throws InvalidKeyException, InvalidAlgorithmParameterException, ShortBufferException,
+            IllegalBlockSizeException, BadPaddingException {
+        init(cipher, ENCRYPT_MODE, index, last);
+        return cipher.doFinal(plainText, output);
+    }
+
+    /**
+     * @return number of bytes written to the output
+     */
+    int decrypt(final Cipher cipher, final long index, final boolean last, final ByteBuffer encrypted, final ByteBuffer output)
+            throws InvalidKeyException, InvalidAlgorithmParameterException, ShortBufferException,
+            IllegalBlockSizeException, BadPaddingException {
+        init(cipher, DECRYPT_MODE, index, last);
+        return cipher.doFinal(encrypted, output);
+    }
+
+    void destroy() {
+        segmentKey.destroy();
+    }
+
+    private void init(final Cipher cipher, final int mode, final long index, final boolean last)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        if (index < 0 || index > MAX_NUMBER_OF_SEGMENTS) {
+            throw new IllegalStateException();
+        }
+        final var nonce = ByteBuffer.allocate(NONCE_NUMBER_OF_BYTES)
+                .put(header, HEADER_NUMBER_OF_BYTES - NONCE_PREFIX_NUMBER_OF_BYTES, NONCE_PREFIX_NUMBER_OF_BYTES)
+                .putInt((int) index)
+                .put(last ? (byte) 1 : (byte) 0)
+                .array();
+        cipher.init(mode, segmentKey.keySpecification(), new GCMParameterSpec(TAG_LENGTH_IN_BITS, nonce));
+        cipher.updateAAD(aad);
+    }
+
+    private static Secret segmentKey(final Secret secret, final byte[] header) throws NoSuchAlgorithmException, InvalidKeyException {
+        final var mac = Mac.getInstance("HmacSHA256");
+        mac.init(secret.keySpecification());
+        mac.update(KEY_DERIVATION_LABEL);
+        mac.update(header, 0, 1 + 4 + SALT_NUMBER_OF_BYTES);
+        final var key = mac.doFinal();
+        try {
+            return new Secret(key);
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+
+    private static boolean isValid(final int segmentSize) {
+        return segmentSize >= MIN_SEGMENT_SIZE && segmentSize <= MAX_SEGMENT_SIZE;
+    }
+}
@@ -1,25 +1,65 @@
 package se.deogun.aes.modes.common;
 
+import java.nio.ByteBuffer;
+
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.util.Arrays.copyOf;
 
 public final class AAD {
     public static final AAD NO_AAD = new AAD();
-    private final transient byte[] value;
+    private static final int MAX_NUMBER_OF_BYTES = 8192; //Just to have an upper bound
+    private final transient ByteBuffer value;
 
     private AAD() {
-        this.value = new byte[]{};
+        this.value = ByteBuffer.allocate(0).asReadOnlyBuffer();
+    }
+
+    private AAD(final ByteBuffer value) {
+        this.value = value;
     }
 
     public AAD(final String value) {
         isValid(value);
-        satisfiesUpperBound(value.getBytes().length < 8193); //Just to have an upper bound
+        final var bytes = value.getBytes(UTF_8);
+        satisfiesUpperBound(bytes.length <= MAX_NUMBER_OF_BYTES);
+
+        this.value = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    public AAD(final byte[] value) {
+        isValid(value);
+        satisfiesUpperBound(value.length <= MAX_NUMBER_OF_BYTES);
+
+        this.value = ByteBuffer.wrap(value.clone()).asReadOnlyBuffer();
+    }
 
-        this.value = value.getBytes(UTF_8);
+    /**
+     * Uses the remaining bytes of a read-only buffer without copying them, which is safe as long
+     * as no writable view of the same bytes is reachable
+     */
+    public static AAD readOnly(final ByteBuffer value) {
+        if (value == null || !value.isReadOnly() || !value.hasRemaining()) {
+            throw new IllegalArgumentException("Read-only and non-empty buffer required as input");
+        }
+        satisfiesUpperBound(value.remaining() <= MAX_NUMBER_OF_BYTES);
+
+        return new AAD(value.slice());
     }
 
     public final byte[] value() {
-        return copyOf(value, value.length);
+        final var copy = new byte[value.remaining()];
+        value.duplicate().get(copy);
+        return copy;
+    }
+
+    /**
+     * @return read-only view of the bytes, e.g. for {@code Cipher.updateAAD(ByteBuffer)}
+     */
+    public final ByteBuffer buffer() {
+        return value.duplicate();
+    }
+
+    public final int length() {
+        return value.remaining();
     }
 
     private static void isValid(final String input) {
@@ -28,6 +68,12 @@ public final class AAD {
         }
     }
 
+    private static void isValid(final byte[] input) {
+        if (input == null || input.length == 0) {
+            throw new IllegalArgumentException("Null or empty not allowed as input");
+        }
+    }
+
     private static void satisfiesUpperBound(final boolean invariant) {
         if (!invariant) {
             throw new IllegalArgumentException("Invariant failure for input");
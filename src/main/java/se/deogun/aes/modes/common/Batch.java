@@ -0,0 +1,29 @@
+package se.deogun.aes.modes.common;
+
+import se.deogun.aes.api.RejectReason;
+
+/**
+ * Outcome of a batch operation, see {@link se.deogun.aes.api.Batch}.
+ */
+public final class Batch {
+    private final byte[] buffer;
+    private final int[] offsets;
+    private final InternalRejectReason[] rejects;
+
+    public Batch(final byte[] buffer, final int[] offsets, final InternalRejectReason[] rejects) {
+        if (buffer == null || offsets == null || rejects == null || offsets.length != rejects.length + 1) {
+            throw new InternalValidationFailure();
+        }
+        this.buffer = buffer;
+        this.offsets = offsets;
+        this.rejects = rejects;
+    }
+
+    public se.deogun.aes.api.Batch toAPI() {
+        final var reasons = new RejectReason[rejects.length];
+        for (int i = 0; i < rejects.length; i++) {
+            reasons[i] = rejects[i] == null ? null : rejects[i].toAPI();
+        }
+        return new se.deogun.aes.api.Batch(buffer, offsets, reasons);
+    }
+}
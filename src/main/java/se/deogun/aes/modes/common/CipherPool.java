@@ -0,0 +1,97 @@
+package se.deogun.aes.modes.common;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, striped pool of cipher instances for one transformation. A cipher is
+ * borrowed for the duration of one operation and returned afterwards, which means
+ * a warmed pool re-initializes existing instances instead of looking them up via
+ * the provider list. The pool never blocks; when all stripes are taken a new
+ * instance is created, and instances that don't fit when returned are dropped.
+ * Since nothing is bound to the calling thread the pool is safe to use from
+ * virtual threads. Instances are taken from the given provider, or from the most
+ * preferred provider supporting the transformation if none is given.
+ * <p>
+ * An initialized cipher holds the key schedule of the last secret it was used with,
+ * and a cipher can't be destroyed. The pool is therefore cleared when the secret is
+ * destroyed, which drops every pooled instance, and instances released after that
+ * are dropped as well.
+ */
+public final class CipherPool {
+    private final String transformation;
+    private final Provider provider;
+    private final AtomicReferenceArray<Cipher> stripes;
+    private volatile boolean cleared;
+
+    public CipherPool(final String transformation, final int numberOfStripes) {
+        this(transformation, numberOfStripes, null);
+    }
+
+    public CipherPool(final String transformation, final int numberOfStripes, final Provider provider) {
+        if (transformation == null || numberOfStripes < 1) {
+            throw new InternalValidationFailure();
+        }
+        this.transformation = transformation;
+        this.provider = provider;
+        this.stripes = new AtomicReferenceArray<>(numberOfStripes);
+    }
+
+    public Cipher borrow() throws NoSuchAlgorithmException, NoSuchPaddingException {
+        final var start = start();
+        for (int i = 0; i < stripes.length(); i++) {
+            final var cipher = stripes.getAndSet((start + i) % stripes.length(), null);
+            if (cipher != null) {
+                return cipher;
+            }
+        }
+        return provider == null ? Cipher.getInstance(transformation) : Cipher.getInstance(transformation, provider);
+    }
+
+    public void release(final Cipher cipher) {
+        if (cleared) {
+            return;
+        }
+        final var start = start();
+        for (int i = 0; i < stripes.length(); i++) {
+            final var index = (start + i) % stripes.length();
+            if (stripes.compareAndSet(index, null, cipher)) {
+                // The pool may have been cleared after the flag was read
+                if (cleared) {
+                    stripes.compareAndSet(index, cipher, null);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops every pooled cipher. Ciphers released afterwards are dropped as well.
+     */
+    public void clear() {
+        cleared = true;
+        for (int i = 0; i < stripes.length(); i++) {
+            stripes.set(i, null);
+        }
+    }
+
+    /**
+     * @return number of pooled ciphers
+     */
+    public int size() {
+        var size = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            if (stripes.get(i) != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private int start() {
+        return (int) (Thread.currentThread().getId() % stripes.length());
+    }
+}
@@ -0,0 +1,86 @@
+package se.deogun.aes.modes.common;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Long.compareUnsigned;
+import static java.lang.Long.divideUnsigned;
+
+/**
+ * Deterministic initialization vectors made of a random prefix fixed for the lifetime of the
+ * generator followed by a 64 bit big endian counter (NIST SP 800-38D, section 8.2.1). No
+ * randomness is drawn after construction, and the counter is advanced with a single atomic add.
+ * <p>
+ * The counter space can be split into partitions, which allows generators sharing a secret, e.g.
+ * in different JVMs, to never collide as long as every generator has its own partition. The random
+ * prefix separates generators using the same partition, e.g. across restarts.
+ * <p>
+ * The provided array is filled with consecutive initialization vectors of 12 bytes, where the last
+ * one is truncated if the length isn't a multiple of 12. Every initialization vector uses one
+ * counter value, and the counter values of a call rejected because the partition is exhausted
+ * are never handed out.
+ */
+public final class CounterInitVectorGenerator implements InitVectorGenerator {
+    static final int PREFIX_NUMBER_OF_BYTES = 4;
+    static final int INIT_VECTOR_NUMBER_OF_BYTES = PREFIX_NUMBER_OF_BYTES + Long.BYTES;
+    private final byte[] prefix;
+    private final long start;
+    private final long size;
+    private final AtomicLong used = new AtomicLong();
+
+    /**
+     * @param partition partition of the counter space used by this generator
+     * @param partitions number of partitions the counter space is split into
+     */
+    public CounterInitVectorGenerator(final int partition, final int partitions) {
+        this(randomPrefix(), partition, partitions);
+    }
+
+    CounterInitVectorGenerator(final byte[] prefix, final int partition, final int partitions) {
+        this(prefix, partition * divideUnsigned(-1L, validPartitions(partition, partitions)), divideUnsigned(-1L, partitions));
+    }
+
+    CounterInitVectorGenerator(final byte[] prefix, final long start, final long size) {
+        if (prefix.length != PREFIX_NUMBER_OF_BYTES || size == 0) {
+            throw new InternalValidationFailure();
+        }
+        this.prefix = prefix.clone();
+        this.start = start;
+        this.size = size;
+    }
+
+    @Override
+    public void nextBytes(final byte[] initVectors) throws InitVectorsExhausted {
+        final var count = (initVectors.length + INIT_VECTOR_NUMBER_OF_BYTES - 1) / INIT_VECTOR_NUMBER_OF_BYTES;
+        // Counter values past the end of the partition are never handed out, and the
+        // counter can't wrap around since that would require 2^64 calls
+        final var first = used.getAndAdd(count);
+        if (compareUnsigned(first, size - count) > 0 || compareUnsigned(count, size) > 0) {
+            throw new InitVectorsExhausted();
+        }
+
+        for (int i = 0; i < count; i++) {
+            final var offset = i * INIT_VECTOR_NUMBER_OF_BYTES;
+            final var length = Math.min(INIT_VECTOR_NUMBER_OF_BYTES, initVectors.length - offset);
+            final var counter = start + first + i;
+            for (int j = 0; j < length; j++) {
+                initVectors[offset + j] = j < PREFIX_NUMBER_OF_BYTES
+                        ? prefix[j]
+                        : (byte) (counter >>> (8 * (INIT_VECTOR_NUMBER_OF_BYTES - 1 - j)));
+            }
+        }
+    }
+
+    private static int validPartitions(final int partition, final int partitions) {
+        if (partitions < 1 || partition < 0 || partition >= partitions) {
+            throw new InternalValidationFailure();
+        }
+        return partitions;
+    }
+
+    private static byte[] randomPrefix() {
+        final var prefix = new byte[PREFIX_NUMBER_OF_BYTES];
+        new SecureRandom().nextBytes(prefix);
+        return prefix;
+    }
+}
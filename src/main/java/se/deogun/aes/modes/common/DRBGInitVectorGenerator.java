@@ -0,0 +1,35 @@
+package se.deogun.aes.modes.common;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+import static java.security.DrbgParameters.Capability.RESEED_ONLY;
+import static java.security.DrbgParameters.instantiation;
+
+/**
+ * Keeps one DRBG (NIST SP 800-90Ar1) instance per thread. The instance is seeded once
+ * when first used by a thread and never blocks after that.
+ */
+public final class DRBGInitVectorGenerator implements InitVectorGenerator {
+    private static final int SECURITY_STRENGTH = 256;
+    private final ThreadLocal<SecureRandom> random = new ThreadLocal<>();
+
+    @Override
+    public void nextBytes(final byte[] initVector) throws UnableToCreateSecureRandom {
+        random().nextBytes(initVector);
+    }
+
+    private SecureRandom random() throws UnableToCreateSecureRandom {
+        final var current = random.get();
+        if (current != null) {
+            return current;
+        }
+        try {
+            final var created = SecureRandom.getInstance("DRBG", instantiation(SECURITY_STRENGTH, RESEED_ONLY, null));
+            random.set(created);
+            return created;
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnableToCreateSecureRandom();
+        }
+    }
+}
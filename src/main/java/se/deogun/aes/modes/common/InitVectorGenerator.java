@@ -0,0 +1,18 @@
+package se.deogun.aes.modes.common;
+
+/**
+ * Source of initialization vectors (nonces) used by the AES modes. Implementations
+ * are thread safe and are meant to be shared between AES instances.
+ */
+public sealed interface InitVectorGenerator
+        permits StrongInitVectorGenerator, DRBGInitVectorGenerator, NonBlockingInitVectorGenerator, RingInitVectorGenerator,
+        CounterInitVectorGenerator {
+    /**
+     * Fills the provided array with initialization vectors
+     *
+     * @param initVector array to fill
+     * @throws UnableToCreateSecureRandom if no secure random algorithm is available on this system
+     * @throws InitVectorsExhausted if the generator can't produce any more unique initialization vectors
+     */
+    void nextBytes(byte[] initVector) throws UnableToCreateSecureRandom, InitVectorsExhausted;
+}
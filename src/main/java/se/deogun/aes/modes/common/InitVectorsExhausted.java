@@ -0,0 +1,4 @@
+package se.deogun.aes.modes.common;
+
+public final class InitVectorsExhausted extends Exception {
+}
@@ -12,7 +12,15 @@ public enum InternalRejectReason {
     GCM_INVALID_TAG(RejectReason.GCM_INVALID_TAG),
     CBC_INVALID_KEY(RejectReason.CBC_INVALID_KEY),
     CBC_NOT_AVAILABLE(RejectReason.CBC_NOT_AVAILABLE_ON_THIS_SYSTEM),
-    CBC_INVALID_PARAMETERS(RejectReason.CBC_INVALID_PARAMETERS);
+    CBC_INVALID_PARAMETERS(RejectReason.CBC_INVALID_PARAMETERS),
+    SECRET_DESTROYED(RejectReason.SECRET_DESTROYED),
+    CTR_INVALID_KEY(RejectReason.CTR_INVALID_KEY),
+    CTR_NOT_AVAILABLE(RejectReason.CTR_NOT_AVAILABLE_ON_THIS_SYSTEM),
+    CTR_INVALID_PARAMETERS(RejectReason.CTR_INVALID_PARAMETERS),
+    INVALID_RANGE(RejectReason.INVALID_RANGE),
+    GCM_SIV_INVALID_KEY(RejectReason.GCM_SIV_INVALID_KEY),
+    GCM_SIV_NOT_AVAILABLE(RejectReason.GCM_SIV_NOT_AVAILABLE_ON_THIS_SYSTEM),
+    INIT_VECTORS_EXHAUSTED(RejectReason.INIT_VECTORS_EXHAUSTED);
 
     private final RejectReason rejectReason;
 
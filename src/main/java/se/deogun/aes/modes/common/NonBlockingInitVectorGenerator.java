@@ -0,0 +1,40 @@
+package se.deogun.aes.modes.common;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Striped pool of NativePRNGNonBlocking instances. Each draw mixes in fresh bytes from
+ * /dev/urandom, i.e. the pool is continuously reseeded by the kernel without blocking.
+ * Striping keeps threads from contending on the same instance.
+ */
+public final class NonBlockingInitVectorGenerator implements InitVectorGenerator {
+    private final AtomicReferenceArray<SecureRandom> stripes;
+
+    public NonBlockingInitVectorGenerator(final int numberOfStripes) {
+        if (numberOfStripes < 1) {
+            throw new InternalValidationFailure();
+        }
+        this.stripes = new AtomicReferenceArray<>(numberOfStripes);
+    }
+
+    @Override
+    public void nextBytes(final byte[] initVector) throws UnableToCreateSecureRandom {
+        stripe().nextBytes(initVector);
+    }
+
+    private SecureRandom stripe() throws UnableToCreateSecureRandom {
+        final var index = (int) (Thread.currentThread().getId() % stripes.length());
+        final var current = stripes.get(index);
+        if (current != null) {
+            return current;
+        }
+        try {
+            stripes.compareAndSet(index, null, SecureRandom.getInstance("NativePRNGNonBlocking"));
+            return stripes.get(index);
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnableToCreateSecureRandom();
+        }
+    }
+}
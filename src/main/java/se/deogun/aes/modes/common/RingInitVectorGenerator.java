@@ -0,0 +1,99 @@
+package se.deogun.aes.modes.common;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out slices of a block of random bytes using a lock-free cursor. The first block is filled
+ * when the generator is created, and every byte is handed out at most once. When a block is
+ * exhausted, the thread claiming its refill with a CAS swaps it for a freshly filled one while
+ * other threads wait for the swap, which means no filled block is thrown away and the cost of
+ * drawing random bytes is paid once per block instead of once per initialization vector. If no
+ * secure random algorithm is available when created, the generator starts with an empty block
+ * and reports it on first use.
+ */
+public final class RingInitVectorGenerator implements InitVectorGenerator {
+    private final ThreadLocal<SecureRandom> random = new ThreadLocal<>();
+    private final AtomicReference<Block> current;
+    private final int blockSize;
+
+    public RingInitVectorGenerator(final int blockSize) {
+        if (blockSize < 1024) {
+            throw new InternalValidationFailure();
+        }
+        this.blockSize = blockSize;
+        this.current = new AtomicReference<>(initialBlock());
+    }
+
+    @Override
+    public void nextBytes(final byte[] initVector) throws UnableToCreateSecureRandom {
+        if (initVector.length > blockSize) {
+            throw new InternalValidationFailure();
+        }
+        while (true) {
+            final var block = current.get();
+            final var offset = block.position.getAndAdd(initVector.length);
+            if (offset >= 0 && offset <= block.bytes.length - initVector.length) {
+                System.arraycopy(block.bytes, offset, initVector, 0, initVector.length);
+                return;
+            }
+            refill(block);
+        }
+    }
+
+    private void refill(final Block exhausted) throws UnableToCreateSecureRandom {
+        if (!exhausted.refilling.compareAndSet(false, true)) {
+            while (current.get() == exhausted && exhausted.refilling.get()) {
+                Thread.onSpinWait();
+            }
+            return;
+        }
+        try {
+            current.set(filledBlock());
+        } catch (UnableToCreateSecureRandom | RuntimeException e) {
+            exhausted.refilling.set(false);
+            throw e;
+        }
+    }
+
+    private Block initialBlock() {
+        try {
+            return filledBlock();
+        } catch (UnableToCreateSecureRandom e) {
+            return new Block(new byte[0]);
+        }
+    }
+
+    private Block filledBlock() throws UnableToCreateSecureRandom {
+        final var bytes = new byte[blockSize];
+        random().nextBytes(bytes);
+        return new Block(bytes);
+    }
+
+    private SecureRandom random() throws UnableToCreateSecureRandom {
+        final var current = random.get();
+        if (current != null) {
+            return current;
+        }
+        try {
+            final var created = SecureRandom.getInstance("DRBG");
+            random.set(created);
+            return created;
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnableToCreateSecureRandom();
+        }
+    }
+
+    private static final class Block {
+        private final byte[] bytes;
+        private final AtomicInteger position = new AtomicInteger();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+
+        private Block(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
@@ -1,23 +1,51 @@
 package se.deogun.aes.modes.common;
 
-import javax.crypto.spec.SecretKeySpec;
+import javax.crypto.SecretKey;
+import javax.security.auth.Destroyable;
 import java.io.Externalizable;
+import java.io.NotSerializableException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Arrays;
 
+/**
+ * Internal representation of a secret. The key specification is derived once at
+ * construction and shared by every operation, but every cipher initialization still
+ * takes a copy of the key through {@link SecretKey#getEncoded()}. SunJCE zeroizes that
+ * copy once the key schedule is expanded, except that a GCM cipher initialized for
+ * encryption keeps it until the cipher is initialized again. Destroying the secret
+ * zeroizes the key material it holds.
+ */
 @SuppressWarnings("ExternalizableWithoutPublicNoArgConstructor")
-public final class Secret implements Externalizable, Serializable {
-    private transient final byte[] key;
+public final class Secret implements Externalizable, Serializable, Destroyable {
+    private transient final Key key;
 
     public Secret(final byte[] key) {
         notNull(key);
-        this.key = clone(key);
+        this.key = new Key(clone(key));
     }
 
-    public SecretKeySpec keySpecification() {
-        return new SecretKeySpec(clone(key), "AES");
+    /**
+     * @return key specification to be used with a cipher
+     * @throws IllegalStateException if the secret has been destroyed
+     */
+    public SecretKey keySpecification() {
+        if (key.isDestroyed()) {
+            throw new IllegalStateException();
+        }
+        return key;
+    }
+
+    @Override
+    public void destroy() {
+        key.destroy();
+    }
+
+    @Override
+    public boolean isDestroyed() {
+        return key.isDestroyed();
     }
 
     private static byte[] clone(final byte[] data) {
@@ -66,4 +94,57 @@ public final class Secret implements Externalizable, Serializable {
     private static void deny() {
         throw new UnsupportedOperationException();
     }
+
+    // Providers may zeroize the array returned by getEncoded after use, hence it's always a copy.
+    // The destroyed flag is set before the key is zeroized and checked after copying, which means
+    // a copy taken while the key is being destroyed is never handed out.
+    @SuppressWarnings("serial")
+    private static final class Key implements SecretKey {
+        private final byte[] key;
+        private volatile boolean destroyed;
+
+        private Key(final byte[] key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return "AES";
+        }
+
+        @Override
+        public String getFormat() {
+            return "RAW";
+        }
+
+        @Override
+        public byte[] getEncoded() {
+            final var encoded = key.clone();
+            if (destroyed) {
+                Arrays.fill(encoded, (byte) 0);
+                throw new IllegalStateException();
+            }
+            return encoded;
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+            Arrays.fill(key, (byte) 0);
+        }
+
+        @Override
+        public boolean isDestroyed() {
+            return destroyed;
+        }
+
+        @Override
+        public String toString() {
+            return "***** SENSITIVE VALUE *****";
+        }
+
+        private void writeObject(final ObjectOutputStream out) throws NotSerializableException {
+            throw new NotSerializableException();
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package se.deogun.aes.modes.common;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Looks up a strong secure random instance on every call. On most Linux systems
+ * this resolves to a blocking provider, i.e. calls may stall until the kernel
+ * has gathered enough entropy.
+ */
+public final class StrongInitVectorGenerator implements InitVectorGenerator {
+    @Override
+    public void nextBytes(final byte[] initVector) throws UnableToCreateSecureRandom {
+        try {
+            SecureRandom.getInstanceStrong().nextBytes(initVector);
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnableToCreateSecureRandom();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package se.deogun.aes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.AES;
+import se.deogun.aes.api.Failure;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.ByteBuffers.bytes;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.TOO_MANY_OPERATIONS_IN_FLIGHT;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class AsyncIntegrationTest {
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 100000})
+    void should_encrypt_decrypt(final int size) throws Exception {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphabetic(size).getBytes(UTF_8);
+        try (var aes = AESFactory.asyncAES(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), 4, 100)) {
+            final var decrypted = aes.encrypt(data, aad)
+                    .thenCompose(encrypted -> aes.decrypt(encrypted.liftAccept(), aad))
+                    .get(10, TimeUnit.SECONDS);
+            assertArrayEquals(data, decrypted.liftAccept());
+
+            final var encrypted = new ByteArrayOutputStream();
+            aes.encrypt(new ByteArrayInputStream(data), encrypted, aad).get(10, TimeUnit.SECONDS).liftAccept();
+            final var streamed = new ByteArrayOutputStream();
+            aes.decrypt(new ByteArrayInputStream(encrypted.toByteArray()), streamed, aad).get(10, TimeUnit.SECONDS).liftAccept();
+            assertArrayEquals(data, streamed.toByteArray());
+
+            final var batch = aes.encryptAll(List.of(data, data)).get(10, TimeUnit.SECONDS).liftAccept();
+            final var items = List.of(bytes(batch.result(0).liftAccept()), bytes(batch.result(1).liftAccept()));
+            final var decryptedBatch = aes.decryptAll(items).get(10, TimeUnit.SECONDS).liftAccept();
+            assertArrayEquals(data, bytes(decryptedBatch.result(1).liftAccept()));
+        }
+    }
+
+    @Test
+    void should_encrypt_decrypt_files(@TempDir final Path directory) throws Exception {
+        final var data = randomAlphabetic(100000).getBytes(UTF_8);
+        final var plainText = Files.write(directory.resolve("plain"), data);
+        final var encrypted = directory.resolve("encrypted");
+        final var decrypted = directory.resolve("decrypted");
+        try (var aes = AESFactory.asyncAES(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), 2, 10)) {
+            aes.encryptFile(plainText, encrypted).get(10, TimeUnit.SECONDS).liftAccept();
+
+            assertEquals(data.length, aes.decryptFile(encrypted, decrypted).get(10, TimeUnit.SECONDS).liftAccept());
+            assertArrayEquals(data, Files.readAllBytes(decrypted));
+        }
+    }
+
+    @Test
+    void should_propagate_rejects() throws Exception {
+        try (var aes = AESFactory.asyncAES(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), 2, 10)) {
+            final var encrypted = aes.encrypt(new byte[100], new AAD("aad")).get(10, TimeUnit.SECONDS).liftAccept();
+
+            assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(encrypted, new AAD("other")).get(10, TimeUnit.SECONDS).liftReject());
+        }
+    }
+
+    @Test
+    void should_reject_operations_beyond_in_flight_limit() throws Exception {
+        final var blocked = new CountDownLatch(1);
+        final var started = new CountDownLatch(1);
+        final var input = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                started.countDown();
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return -1;
+            }
+        };
+        try (var aes = AESFactory.asyncAES(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), 1, 1)) {
+            final var first = aes.encrypt(input, new ByteArrayOutputStream());
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            assertEquals(TOO_MANY_OPERATIONS_IN_FLIGHT, aes.encrypt(new byte[10]).get(10, TimeUnit.SECONDS).liftReject());
+            assertThrows(TimeoutException.class, () -> first.get(100, TimeUnit.MILLISECONDS));
+
+            blocked.countDown();
+            first.get(10, TimeUnit.SECONDS).liftAccept();
+            aes.encrypt(new byte[10]).get(10, TimeUnit.SECONDS).liftAccept();
+        }
+    }
+
+    @Test
+    void should_complete_operation_that_throws_error() throws Exception {
+        final var delegate = mock(AES.class);
+        when(delegate.encrypt(any(byte[].class))).thenThrow(new StackOverflowError());
+        final var executor = Executors.newSingleThreadExecutor();
+        try (var aes = AESFactory.asyncAES(delegate, executor, executor, 1)) {
+            final var result = aes.encrypt(new byte[10]).get(10, TimeUnit.SECONDS);
+
+            assertEquals(StackOverflowError.class, ((Failure) result.liftFailure()).origin);
+            assertEquals(StackOverflowError.class, ((Failure) aes.encrypt(new byte[10]).get(10, TimeUnit.SECONDS).liftFailure()).origin);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void should_run_operations_on_provided_executors() throws Exception {
+        final var cpu = Executors.newFixedThreadPool(2);
+        final var io = Executors.newCachedThreadPool();
+        try (var aes = AESFactory.asyncAES(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), cpu, io, 1000)) {
+            final var futures = new ArrayList<CompletableFuture<?>>();
+            for (int i = 0; i < 500; i++) {
+                futures.add(aes.encrypt(randomAlphanumeric(100).getBytes(UTF_8)).thenAccept(result -> assertTrue(result.isAccept())));
+            }
+            for (final var future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            assertFalse(cpu.isShutdown());
+            cpu.shutdown();
+            io.shutdown();
+        }
+    }
+
+    @Test
+    void should_reject_operations_after_close() throws ExecutionException, InterruptedException, TimeoutException {
+        final var aes = AESFactory.asyncAES(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), 2, 10);
+
+        aes.close();
+
+        assertEquals(SECRET_DESTROYED, aes.encrypt(new byte[10]).get(10, TimeUnit.SECONDS).liftReject());
+        assertEquals(SECRET_DESTROYED, aes.decrypt(new ByteArrayInputStream(new byte[10])).get(10, TimeUnit.SECONDS).liftReject());
+    }
+
+    @Test
+    void should_validate_arguments_on_calling_thread() {
+        try (var aes = AESFactory.asyncAES(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), 2, 10)) {
+            assertThrows(IllegalArgumentException.class, () -> aes.encrypt(null));
+            assertThrows(IllegalArgumentException.class, () -> aes.encryptAll(List.of(new byte[1]), List.of()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.asyncAES(null, 2, 10));
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.asyncAES(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), 2, 0));
+    }
+}
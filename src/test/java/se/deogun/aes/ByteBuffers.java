@@ -0,0 +1,15 @@
+package se.deogun.aes;
+
+import java.nio.ByteBuffer;
+
+public class ByteBuffers {
+    public static byte[] bytes(final ByteBuffer buffer) {
+        final var bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    public static ByteBuffer buffer(final boolean direct, final int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
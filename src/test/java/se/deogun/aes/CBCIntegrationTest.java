@@ -2,20 +2,35 @@ package se.deogun.aes;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.api.AAD;
 import se.deogun.aes.api.AES;
+import se.deogun.aes.api.InitVectorSource;
 import se.deogun.aes.api.Secret;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
 import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.ByteBuffers.bytes;
+import static se.deogun.aes.api.DecryptBufferSize._16KB_DECRYPT_BUFFER_SIZE;
+import static se.deogun.aes.api.RejectReason.ALGORITHM_NOT_SUPPORTING_AAD;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
 import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
 import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
 import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
@@ -63,6 +78,30 @@ class CBCIntegrationTest {
         assertArrayEquals(data, result);
     }
 
+    @Test
+    void should_encrypt_input_stream() {
+        final var data = randomAlphabetic(100000).getBytes(UTF_8);
+        final var outputStream = new ByteArrayOutputStream();
+        final var cbc = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        cbc.encrypt(new ByteArrayInputStream(data), outputStream).liftAccept();
+
+        assertArrayEquals(data, cbc.decrypt(outputStream.toByteArray()).liftAccept());
+    }
+
+    @Test
+    void should_support_encrypting_stream() throws IOException {
+        final var data = randomAlphabetic(100000).getBytes(UTF_8);
+        final var outputStream = new ByteArrayOutputStream();
+        final var cbc = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        try (var stream = cbc.encryptingStream(outputStream).liftAccept()) {
+            stream.write(data);
+        }
+
+        assertArrayEquals(data, cbc.decrypt(outputStream.toByteArray()).liftAccept());
+    }
+
     @Test
     void should_fail_to_decrypt_because_of_wrong_secret() {
         final var secret1 = secretFromBase64EncodedKey(base64EncodedKey());
@@ -90,6 +129,154 @@ class CBCIntegrationTest {
         assertEquals(secretMessage, new String(decryptedMessage));
     }
 
+    @ParameterizedTest
+    @EnumSource(InitVectorSource.class)
+    void should_encrypt_decrypt_with_init_vector_source(final InitVectorSource initVectorSource) {
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var cbc = AESFactory.aesCBC(secretFromBase64EncodedKey(base64EncodedKey()), _16KB_DECRYPT_BUFFER_SIZE, initVectorSource);
+
+        final var decrypted = cbc.decrypt(cbc.encrypt(data).liftAccept()).liftAccept();
+
+        assertArrayEquals(data, decrypted);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 15, 16, 17, 100000})
+    void should_support_byte_buffers(final int size) {
+        final var data = randomAlphanumeric(size).getBytes(UTF_8);
+        final var cbc = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = ByteBuffer.allocateDirect(cbc.maxEncryptedSize(data.length));
+        final var decrypted = ByteBuffer.allocateDirect(cbc.maxEncryptedSize(data.length));
+
+        cbc.encrypt(ByteBuffer.wrap(data), encrypted).liftAccept();
+        cbc.decrypt(encrypted.flip(), decrypted).liftAccept();
+
+        assertFalse(encrypted.hasRemaining());
+        assertEquals(ByteBuffer.wrap(data), decrypted.flip());
+    }
+
+    @Test
+    void should_produce_same_format_for_byte_buffers_and_byte_arrays() {
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var cbc = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = ByteBuffer.allocate(cbc.maxEncryptedSize(data.length));
+
+        cbc.encrypt(ByteBuffer.wrap(data), encrypted).liftAccept();
+
+        assertEquals(cbc.encrypt(data).liftAccept().length, encrypted.position());
+        assertArrayEquals(data, cbc.decrypt(encrypted.array()).liftAccept());
+    }
+
+    @Test
+    void should_decrypt_input_stream() {
+        final var data = randomAlphabetic(100000).getBytes(UTF_8);
+        final var encrypted = new ByteArrayOutputStream();
+        final var decrypted = new ByteArrayOutputStream();
+        final var cbc = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        cbc.encrypt(new ByteArrayInputStream(data), encrypted).liftAccept();
+        cbc.decrypt(new ByteArrayInputStream(encrypted.toByteArray()), decrypted).liftAccept();
+
+        assertArrayEquals(data, decrypted.toByteArray());
+    }
+
+    @Test
+    void should_support_decrypting_stream() throws IOException {
+        final var data = randomAlphabetic(100000).getBytes(UTF_8);
+        final var cbc = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = cbc.encrypt(data).liftAccept();
+
+        try (var stream = cbc.decryptingStream(new ByteArrayInputStream(encrypted)).liftAccept()) {
+            assertArrayEquals(data, stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void should_not_support_aad_for_decrypting_streams() {
+        final var cbc = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertEquals(ALGORITHM_NOT_SUPPORTING_AAD, cbc.decrypt(new ByteArrayInputStream(new byte[64]), new ByteArrayOutputStream(), new AAD("aad")).liftReject());
+        assertEquals(ALGORITHM_NOT_SUPPORTING_AAD, cbc.decryptingStream(new ByteArrayInputStream(new byte[64]), new AAD("aad")).liftReject());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 16, 16389, 17 * 1024 * 1024})
+    void should_encrypt_decrypt_files(final int size, @TempDir final Path directory) throws IOException {
+        final var data = new byte[size];
+        new Random().nextBytes(data);
+        final var plainText = Files.write(directory.resolve("plain"), data);
+        final var encrypted = directory.resolve("encrypted");
+        final var decrypted = directory.resolve("decrypted");
+        final var cbc = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertEquals(16L + (size / 16 + 1) * 16L, cbc.encryptFile(plainText, encrypted).liftAccept());
+        assertEquals((long) size, cbc.decryptFile(encrypted, decrypted).liftAccept());
+
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+        if (size < 100000) {
+            assertArrayEquals(data, cbc.decrypt(Files.readAllBytes(encrypted)).liftAccept());
+        }
+    }
+
+    @Test
+    void should_not_support_aad_for_files(@TempDir final Path directory) {
+        final var cbc = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertEquals(ALGORITHM_NOT_SUPPORTING_AAD, cbc.encryptFile(directory.resolve("plain"), directory.resolve("encrypted"), new AAD("aad")).liftReject());
+        assertEquals(ALGORITHM_NOT_SUPPORTING_AAD, cbc.decryptFile(directory.resolve("encrypted"), directory.resolve("plain"), new AAD("aad")).liftReject());
+    }
+
+    @Test
+    void should_encrypt_decrypt_batch() {
+        final var data = new ArrayList<byte[]>();
+        for (int i = 0; i < 200; i++) {
+            data.add(randomAlphanumeric(i).getBytes(UTF_8));
+        }
+        final var cbc = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        final var encrypted = cbc.encryptAll(data).liftAccept();
+        final var items = new ArrayList<byte[]>();
+        for (int i = 0; i < encrypted.size(); i++) {
+            items.add(bytes(encrypted.result(i).liftAccept()));
+        }
+        items.set(0, new byte[20]);
+        final var decrypted = cbc.decryptAll(items).liftAccept();
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, decrypted.result(0).liftReject());
+        for (int i = 1; i < data.size(); i++) {
+            assertArrayEquals(data.get(i), bytes(decrypted.result(i).liftAccept()));
+            assertArrayEquals(data.get(i), cbc.decrypt(items.get(i)).liftAccept());
+        }
+    }
+
+    @Test
+    void should_not_support_aad_for_batches() {
+        final var cbc = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertEquals(ALGORITHM_NOT_SUPPORTING_AAD, cbc.encryptAll(List.of(new byte[1]), List.of(new AAD("aad"))).liftReject());
+        assertEquals(ALGORITHM_NOT_SUPPORTING_AAD, cbc.decryptAll(List.of(new byte[32]), List.of(new AAD("aad"))).liftReject());
+    }
+
+    @Test
+    void should_not_support_aad_for_byte_buffers() {
+        final var cbc = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertEquals(ALGORITHM_NOT_SUPPORTING_AAD, cbc.encrypt(ByteBuffer.allocate(1), ByteBuffer.allocate(64), new AAD("aad")).liftReject());
+        assertEquals(ALGORITHM_NOT_SUPPORTING_AAD, cbc.decrypt(ByteBuffer.allocate(64), ByteBuffer.allocate(64), new AAD("aad")).liftReject());
+    }
+
+    @Test
+    void should_reject_operations_after_close() {
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var aes = cbc(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = aes.encrypt(data).liftAccept();
+
+        aes.close();
+
+        assertEquals(SECRET_DESTROYED, aes.encrypt(data).liftReject());
+        assertEquals(SECRET_DESTROYED, aes.decrypt(encrypted).liftReject());
+    }
+
     private static AES cbc(final Secret secret) {
         return AESFactory.aesCBC(secret);
     }
@@ -0,0 +1,153 @@
+package se.deogun.aes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.SeekableAES;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.api.DecryptBufferSize._8KB_DECRYPT_BUFFER_SIZE;
+import static se.deogun.aes.api.RejectReason.INVALID_RANGE;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class CTRIntegrationTest {
+    private static final int SEGMENT_SIZE = 8 * 1024;
+    private static final int SIZE = 10 * SEGMENT_SIZE + 5;
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, SEGMENT_SIZE - 1, SEGMENT_SIZE, SEGMENT_SIZE + 1, SIZE})
+    void should_encrypt_decrypt(final int size) {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(size).getBytes(UTF_8);
+        final var aes = ctr();
+
+        assertArrayEquals(data, aes.decrypt(aes.encrypt(data, aad).liftAccept(), aad).liftAccept());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, SEGMENT_SIZE, SIZE})
+    void should_encrypt_streams_readable_as_bytes(final int size) {
+        final var data = randomAlphanumeric(size).getBytes(UTF_8);
+        final var aes = ctr();
+        final var encrypted = new ByteArrayOutputStream();
+
+        aes.encrypt(new ByteArrayInputStream(data), encrypted).liftAccept();
+
+        assertArrayEquals(data, aes.decrypt(encrypted.toByteArray()).liftAccept());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0,0", "0,1", "0,81925", "17,100", "8191,2", "8192,8192", "8000,20000", "81920,5", "81924,1", "81925,0"})
+    void should_decrypt_range(final long offset, final int length) throws IOException {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(SIZE).getBytes(UTF_8);
+        final var aes = ctr();
+
+        try (var channel = channel(aes.encrypt(data, aad).liftAccept())) {
+            final var expected = Arrays.copyOfRange(data, (int) offset, (int) offset + length);
+            final var decrypted = new ByteArrayOutputStream();
+
+            assertArrayEquals(expected, aes.decryptRange(channel, offset, length, aad).liftAccept());
+            aes.decryptRange(channel, offset, (long) length, decrypted, aad).liftAccept();
+            assertArrayEquals(expected, decrypted.toByteArray());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, SEGMENT_SIZE, SIZE})
+    void should_calculate_plain_text_size(final int size) throws IOException {
+        final var aes = ctr();
+
+        try (var channel = channel(aes.encrypt(randomAlphanumeric(size).getBytes(UTF_8)).liftAccept())) {
+            assertEquals(size, aes.plainTextSize(channel).liftAccept());
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"-1,1", "0,-1", "81925,1", "81920,6", "9223372036854775807,1", "0,2147483647"})
+    void should_reject_invalid_range(final long offset, final int length) throws IOException {
+        final var aes = ctr();
+
+        try (var channel = channel(aes.encrypt(randomAlphanumeric(SIZE).getBytes(UTF_8)).liftAccept())) {
+            assertEquals(INVALID_RANGE, aes.decryptRange(channel, offset, length).liftReject());
+        }
+    }
+
+    @Test
+    void should_only_verify_segments_in_range() throws IOException {
+        final var data = randomAlphanumeric(SIZE).getBytes(UTF_8);
+        final var aes = ctr();
+        final var encrypted = aes.encrypt(data).liftAccept();
+        encrypted[encrypted.length - 1] ^= 1;
+
+        try (var channel = channel(encrypted)) {
+            assertArrayEquals(Arrays.copyOf(data, SEGMENT_SIZE), aes.decryptRange(channel, 0, SEGMENT_SIZE).liftAccept());
+            assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decryptRange(channel, SIZE - 1, 1).liftReject());
+        }
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(encrypted).liftReject());
+    }
+
+    @Test
+    void should_reject_truncated_data() throws IOException {
+        final var aes = ctr();
+        final var encrypted = aes.encrypt(randomAlphanumeric(2 * SEGMENT_SIZE).getBytes(UTF_8)).liftAccept();
+        final var truncated = Arrays.copyOf(encrypted, encrypted.length / 2);
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(truncated).liftReject());
+        try (var channel = channel(truncated)) {
+            assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decryptRange(channel, 0, 1).liftReject());
+        }
+    }
+
+    @Test
+    void should_reject_wrong_aad() throws IOException {
+        final var aes = ctr();
+        final var encrypted = aes.encrypt(randomAlphanumeric(SIZE).getBytes(UTF_8), new AAD("aad")).liftAccept();
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(encrypted, new AAD("other")).liftReject());
+        try (var channel = channel(encrypted)) {
+            assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decryptRange(channel, 100, 1, new AAD("other")).liftReject());
+        }
+    }
+
+    @Test
+    void should_reject_when_closed() throws IOException {
+        final var aes = ctr();
+        final var encrypted = aes.encrypt(randomAlphanumeric(100).getBytes(UTF_8)).liftAccept();
+
+        aes.close();
+
+        assertEquals(SECRET_DESTROYED, aes.encrypt(new byte[1]).liftReject());
+        assertEquals(SECRET_DESTROYED, aes.decrypt(encrypted).liftReject());
+        try (var channel = channel(encrypted)) {
+            assertEquals(SECRET_DESTROYED, aes.decryptRange(channel, 0, 1).liftReject());
+        }
+    }
+
+    private SeekableByteChannel channel(final byte[] encrypted) throws IOException {
+        return Files.newByteChannel(Files.write(Files.createTempFile(directory, "ctr", ".bin"), encrypted));
+    }
+
+    private static SeekableAES ctr() {
+        return AESFactory.aesCTR(secretFromBase64EncodedKey(base64EncodedKey()), _8KB_DECRYPT_BUFFER_SIZE);
+    }
+}
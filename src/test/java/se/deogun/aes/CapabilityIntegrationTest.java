@@ -0,0 +1,78 @@
+package se.deogun.aes;
+
+import org.junit.jupiter.api.Test;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.Capabilities;
+import se.deogun.aes.api.Throughput;
+
+import java.time.Duration;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.api.DecryptBufferSize._16KB_DECRYPT_BUFFER_SIZE;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.api.Transformation.CBC;
+import static se.deogun.aes.api.Transformation.GCM;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class CapabilityIntegrationTest {
+    @Test
+    void should_measure_every_transformation() {
+        final var capabilities = AESFactory.probe(Duration.ofMillis(20));
+
+        for (final var transformation : List.of(GCM, CBC)) {
+            final var fastest = capabilities.fastest(transformation);
+            assertNotNull(fastest);
+            assertTrue(fastest.megabytesPerSecond > 0);
+        }
+        assertTrue(capabilities.throughputs().stream().anyMatch(throughput -> throughput.provider.equals("SunJCE")));
+    }
+
+    @Test
+    void should_encrypt_with_fastest_provider() {
+        final var secret = secretFromBase64EncodedKey(base64EncodedKey());
+        final var capabilities = AESFactory.probe(Duration.ofMillis(20));
+        final var data = randomAlphabetic(10000).getBytes(UTF_8);
+
+        final var gcm = AESFactory.aesGCM(secret, _16KB_DECRYPT_BUFFER_SIZE, capabilities);
+        final var encrypted = gcm.encrypt(data, new AAD("aad")).liftAccept();
+        assertArrayEquals(data, AESFactory.aesGCM(secret).decrypt(encrypted, new AAD("aad")).liftAccept());
+
+        final var cbc = AESFactory.aesCBC(secret, _16KB_DECRYPT_BUFFER_SIZE, capabilities);
+        assertArrayEquals(data, AESFactory.aesCBC(secret).decrypt(cbc.encrypt(data).liftAccept()).liftAccept());
+    }
+
+    @Test
+    void should_use_default_provider_when_nothing_was_measured() {
+        final var secret = secretFromBase64EncodedKey(base64EncodedKey());
+        final var capabilities = new Capabilities(false, false, List.of(new Throughput(GCM, "Removed", 100)));
+        final var data = randomAlphabetic(100).getBytes(UTF_8);
+
+        final var gcm = AESFactory.aesGCM(secret, _16KB_DECRYPT_BUFFER_SIZE, capabilities);
+        final var cbc = AESFactory.aesCBC(secret, _16KB_DECRYPT_BUFFER_SIZE, capabilities);
+
+        assertArrayEquals(data, gcm.decrypt(gcm.encrypt(data).liftAccept()).liftAccept());
+        assertArrayEquals(data, cbc.decrypt(cbc.encrypt(data).liftAccept()).liftAccept());
+    }
+
+    @Test
+    void should_order_throughputs_fastest_first() {
+        final var capabilities = new Capabilities(true, true, List.of(
+                new Throughput(GCM, "Slow", 10),
+                new Throughput(CBC, "Other", 50),
+                new Throughput(GCM, "Fast", 100)));
+
+        assertEquals("Fast", capabilities.fastest(GCM).provider);
+        assertEquals("Other", capabilities.fastest(CBC).provider);
+        assertEquals(List.of("Fast", "Other", "Slow"), capabilities.throughputs().stream().map(throughput -> throughput.provider).toList());
+    }
+
+    @Test
+    void should_validate_budget() {
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.probe(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.probe(Duration.ofSeconds(11)));
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.probe(null));
+    }
+}
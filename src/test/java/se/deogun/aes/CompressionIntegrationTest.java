@@ -0,0 +1,218 @@
+package se.deogun.aes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.DeflateCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.ByteBuffers.bytes;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class CompressionIntegrationTest {
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 255, 256, 10000, 1000000})
+    void should_encrypt_decrypt_gcm(final int size) {
+        final var gcm = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var aes = AESFactory.compressing(gcm);
+        final var data = text(size);
+
+        final var encrypted = aes.encrypt(data, new AAD("aad")).liftAccept();
+
+        assertArrayEquals(data, aes.decrypt(encrypted, new AAD("aad")).liftAccept());
+        assertArrayEquals(data, aes.decrypt(new ByteArrayInputStream(encrypted), new AAD("aad")).liftAccept());
+        assertTrue(encrypted.length <= aes.maxEncryptedSize(size));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10000})
+    void should_encrypt_decrypt_cbc(final int size) {
+        final var aes = AESFactory.compressing(AESFactory.aesCBC(secretFromBase64EncodedKey(base64EncodedKey())));
+        final var data = text(size);
+
+        final var encrypted = aes.encrypt(data).liftAccept();
+
+        assertArrayEquals(data, aes.decrypt(encrypted).liftAccept());
+    }
+
+    @Test
+    void should_compress_data_above_threshold() {
+        final var gcm = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var aes = AESFactory.compressing(gcm);
+        final var data = text(100000);
+
+        final var encrypted = aes.encrypt(data, new AAD("aad")).liftAccept();
+
+        assertTrue(encrypted.length < data.length / 2);
+        assertEquals(DeflateCodec.DEFAULT_DEFLATE.id(), gcm.decrypt(encrypted, new AAD("aad")).liftAccept()[0]);
+    }
+
+    @Test
+    void should_skip_compression_below_threshold_and_of_incompressible_data() {
+        final var gcm = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var aes = AESFactory.compressing(gcm, DeflateCodec.deflate(9), 1000);
+        final var random = new byte[5000];
+        new Random().nextBytes(random);
+
+        for (final var data : List.of(text(999), random)) {
+            final var framed = gcm.decrypt(aes.encrypt(data, new AAD("aad")).liftAccept(), new AAD("aad")).liftAccept();
+            assertEquals(data.length + 1, framed.length);
+            assertEquals(0, framed[0]);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 256, 1000000})
+    void should_encrypt_decrypt_streams(final int size) throws IOException {
+        final var aes = AESFactory.compressing(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())));
+        final var data = text(size);
+
+        final var encrypted = new ByteArrayOutputStream();
+        aes.encrypt(new ByteArrayInputStream(data), encrypted, new AAD("aad")).liftAccept();
+        final var decrypted = new ByteArrayOutputStream();
+        aes.decrypt(new ByteArrayInputStream(encrypted.toByteArray()), decrypted, new AAD("aad")).liftAccept();
+        assertArrayEquals(data, decrypted.toByteArray());
+
+        final var streamed = new ByteArrayOutputStream();
+        try (var encrypting = aes.encryptingStream(streamed, new AAD("aad")).liftAccept()) {
+            for (int offset = 0; offset < data.length; offset += 100) {
+                encrypting.write(data, offset, Math.min(100, data.length - offset));
+            }
+        }
+        try (var decrypting = aes.decryptingStream(new ByteArrayInputStream(streamed.toByteArray()), new AAD("aad")).liftAccept()) {
+            assertArrayEquals(data, decrypting.readAllBytes());
+        }
+    }
+
+    @Test
+    void should_reject_truncated_stream() {
+        final var aes = AESFactory.compressing(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())));
+        final var encrypted = new ByteArrayOutputStream();
+        aes.encrypt(new ByteArrayInputStream(text(100000)), encrypted, new AAD("aad")).liftAccept();
+        final var truncated = encrypted.toByteArray();
+
+        final var result = aes.decrypt(new ByteArrayInputStream(truncated, 0, truncated.length - 1), new ByteArrayOutputStream(), new AAD("aad"));
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, result.liftReject());
+    }
+
+    @Test
+    void should_encrypt_decrypt_files(@TempDir final Path directory) throws IOException {
+        final var aes = AESFactory.compressing(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())));
+        final var data = text(1000000);
+        final var plainText = Files.write(directory.resolve("plain"), data);
+        final var encrypted = directory.resolve("encrypted");
+        final var decrypted = directory.resolve("decrypted");
+
+        aes.encryptFile(plainText, encrypted, new AAD("aad")).liftAccept();
+        aes.decryptFile(encrypted, decrypted, new AAD("aad")).liftAccept();
+
+        assertTrue(Files.size(encrypted) < data.length / 2);
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+    }
+
+    @Test
+    void should_encrypt_decrypt_buffers() {
+        final var aes = AESFactory.compressing(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())));
+        final var data = text(10000);
+        final var source = ByteBuffer.wrap(data);
+        final var encrypted = ByteBuffer.allocateDirect(aes.maxEncryptedSize(data.length));
+
+        aes.encrypt(source, encrypted, new AAD("aad")).liftAccept();
+        assertFalse(source.hasRemaining());
+
+        encrypted.flip();
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(encrypted, ByteBuffer.allocate(data.length - 1), new AAD("aad")).liftReject());
+        assertEquals(0, encrypted.position());
+
+        final var decrypted = ByteBuffer.allocate(data.length);
+        aes.decrypt(encrypted, decrypted, new AAD("aad")).liftAccept();
+        assertArrayEquals(data, decrypted.array());
+    }
+
+    @Test
+    void should_encrypt_decrypt_batches() {
+        final var aes = AESFactory.compressing(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())));
+        final var data = List.of(text(10), text(1000), text(0));
+        final var aad = List.of(new AAD("a"), new AAD("b"), new AAD("c"));
+
+        final var encrypted = aes.encryptAll(data, aad).liftAccept();
+        final var items = List.of(bytes(encrypted.result(0).liftAccept()), bytes(encrypted.result(1).liftAccept()), new byte[]{1, 2, 3});
+        final var decrypted = aes.decryptAll(items, aad).liftAccept();
+
+        assertArrayEquals(data.get(0), bytes(decrypted.result(0).liftAccept()));
+        assertArrayEquals(data.get(1), bytes(decrypted.result(1).liftAccept()));
+        assertEquals(UNABLE_TO_DECRYPT_DATA, decrypted.result(2).liftReject());
+    }
+
+    @Test
+    void should_reject_plain_text_exceeding_max_size_or_destination() {
+        final var gcm = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var aes = AESFactory.compressing(gcm, DeflateCodec.DEFAULT_DEFLATE, 256, 1000000);
+        final var bomb = new byte[10000000];
+
+        final var encrypted = AESFactory.compressing(gcm).encrypt(bomb, new AAD("aad")).liftAccept();
+
+        assertTrue(encrypted.length < 100000);
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(encrypted, new AAD("aad")).liftReject());
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decryptAll(List.of(encrypted), List.of(new AAD("aad"))).liftAccept().result(0).liftReject());
+        final var destination = ByteBuffer.allocate(1000);
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(ByteBuffer.wrap(encrypted), destination, new AAD("aad")).liftReject());
+        assertEquals(0, destination.position());
+    }
+
+    @Test
+    void should_not_compress_data_above_max_plain_text_size() {
+        final var gcm = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var aes = AESFactory.compressing(gcm, DeflateCodec.DEFAULT_DEFLATE, 256, 1000);
+        final var data = text(1001);
+
+        final var encrypted = aes.encrypt(data, new AAD("aad")).liftAccept();
+
+        assertEquals(0, gcm.decrypt(encrypted, new AAD("aad")).liftAccept()[0]);
+        assertArrayEquals(data, aes.decrypt(encrypted, new AAD("aad")).liftAccept());
+    }
+
+    @Test
+    void should_reject_unknown_compression() {
+        final var gcm = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var aes = AESFactory.compressing(gcm);
+
+        final var encrypted = gcm.encrypt(new byte[]{42, 1, 2, 3}, new AAD("aad")).liftAccept();
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(encrypted, new AAD("aad")).liftReject());
+    }
+
+    @Test
+    void should_validate_threshold() {
+        final var gcm = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.compressing(gcm, DeflateCodec.DEFAULT_DEFLATE, -1));
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.compressing(gcm, DeflateCodec.DEFAULT_DEFLATE, 65537));
+        assertThrows(IllegalArgumentException.class, () -> DeflateCodec.deflate(0));
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.compressing(gcm, DeflateCodec.DEFAULT_DEFLATE, 256, 0));
+    }
+
+    private static byte[] text(final int size) {
+        final var text = new StringBuilder(size);
+        final var random = new Random(size);
+        while (text.length() < size) {
+            text.append("{\"id\":").append(random.nextInt(1000)).append(",\"name\":\"record\"},");
+        }
+        return text.substring(0, size).getBytes(UTF_8);
+    }
+}
@@ -0,0 +1,174 @@
+package se.deogun.aes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.AES;
+import se.deogun.aes.api.Secret;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.ByteBuffers.bytes;
+import static se.deogun.aes.api.EnvelopePolicy.DEFAULT_ENVELOPE_POLICY;
+import static se.deogun.aes.api.EnvelopePolicy.reuseDataKeys;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.RejectReason.UNKNOWN_KEY;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.api.Secret.secretFromNonBase64EncodedKey;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class EnvelopeIntegrationTest {
+    private static final int WRAPPED_DATA_KEY_NUMBER_OF_BYTES = 40;
+    private final byte[] keyEncryptionKey = base64EncodedKey();
+    private final AtomicInteger dataKeys = new AtomicInteger();
+    private final Function<Secret, AES> mode = secret -> {
+        dataKeys.incrementAndGet();
+        return AESFactory.aesGCM(secret);
+    };
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 100000})
+    void should_encrypt_decrypt(final int size) throws IOException {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphabetic(size).getBytes(UTF_8);
+        final var aes = AESFactory.aesEnvelope(secretFromBase64EncodedKey(keyEncryptionKey), DEFAULT_ENVELOPE_POLICY);
+
+        final var encrypted = aes.encrypt(data, aad).liftAccept();
+        assertEquals(WRAPPED_DATA_KEY_NUMBER_OF_BYTES + 12 + data.length + 16, encrypted.length);
+        assertArrayEquals(data, aes.decrypt(encrypted, aad).liftAccept());
+
+        final var streamed = new ByteArrayOutputStream();
+        try (var stream = aes.encryptingStream(streamed, aad).liftAccept()) {
+            stream.write(data);
+        }
+        try (var stream = aes.decryptingStream(new ByteArrayInputStream(streamed.toByteArray()), aad).liftAccept()) {
+            assertArrayEquals(data, stream.readAllBytes());
+        }
+
+        final var batch = aes.encryptAll(List.of(data, data), List.of(aad, aad)).liftAccept();
+        final var decrypted = aes.decryptAll(List.of(bytes(batch.result(0).liftAccept()), bytes(batch.result(1).liftAccept())),
+                List.of(aad, aad)).liftAccept();
+        assertArrayEquals(data, bytes(decrypted.result(0).liftAccept()));
+        assertArrayEquals(data, bytes(decrypted.result(1).liftAccept()));
+    }
+
+    @Test
+    void should_encrypt_decrypt_files(@TempDir final Path directory) throws IOException {
+        final var data = randomAlphabetic(100000).getBytes(UTF_8);
+        final var plainText = Files.write(directory.resolve("plain"), data);
+        final var encrypted = directory.resolve("encrypted");
+        final var decrypted = directory.resolve("decrypted");
+        final var aes = AESFactory.aesEnvelope(secretFromBase64EncodedKey(keyEncryptionKey), DEFAULT_ENVELOPE_POLICY);
+
+        final var size = aes.encryptFile(plainText, encrypted, new AAD("aad")).liftAccept();
+
+        assertEquals(Files.size(encrypted), size);
+        assertEquals(data.length, aes.decryptFile(encrypted, decrypted, new AAD("aad")).liftAccept());
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+    }
+
+    @Test
+    void should_reuse_data_key_for_number_of_messages() {
+        final var aes = AESFactory.aesEnvelope(secretFromBase64EncodedKey(keyEncryptionKey), reuseDataKeys(3, 16, Duration.ofHours(1)), mode);
+        final var data = randomAlphanumeric(100).getBytes(UTF_8);
+        final var headers = new ArrayList<ByteBuffer>();
+        final var encrypted = new ArrayList<byte[]>();
+        for (int i = 0; i < 7; i++) {
+            encrypted.add(aes.encrypt(data).liftAccept());
+            headers.add(ByteBuffer.wrap(encrypted.get(i), 0, WRAPPED_DATA_KEY_NUMBER_OF_BYTES));
+        }
+
+        assertEquals(3, dataKeys.get());
+        for (int i = 0; i < 7; i++) {
+            assertEquals(i / 3 == 0, headers.get(i).equals(headers.get(0)));
+            assertEquals(i / 3 == 2, headers.get(i).equals(headers.get(6)));
+            assertArrayEquals(data, aes.decrypt(encrypted.get(i)).liftAccept());
+        }
+        assertEquals(3, dataKeys.get());
+    }
+
+    @Test
+    void should_replace_data_key_after_time_to_live() throws InterruptedException {
+        final var aes = AESFactory.aesEnvelope(secretFromBase64EncodedKey(keyEncryptionKey), reuseDataKeys(1000, 16, Duration.ofMillis(50)), mode);
+        final var first = aes.encrypt(new byte[10]).liftAccept();
+
+        Thread.sleep(100);
+        final var second = aes.encrypt(new byte[10]).liftAccept();
+
+        assertEquals(2, dataKeys.get());
+        assertFalse(Arrays.equals(first, 0, WRAPPED_DATA_KEY_NUMBER_OF_BYTES, second, 0, WRAPPED_DATA_KEY_NUMBER_OF_BYTES));
+        assertArrayEquals(new byte[10], aes.decrypt(first).liftAccept());
+        assertEquals(3, dataKeys.get());
+    }
+
+    @Test
+    void should_cache_unwrapped_data_keys() {
+        final var encrypted = new ArrayList<byte[]>();
+        try (var aes = AESFactory.aesEnvelope(secretFromBase64EncodedKey(keyEncryptionKey), reuseDataKeys(1, 16, Duration.ofHours(1)))) {
+            for (int i = 0; i < 4; i++) {
+                encrypted.add(aes.encrypt(new byte[10]).liftAccept());
+            }
+        }
+        final var aes = AESFactory.aesEnvelope(secretFromBase64EncodedKey(keyEncryptionKey), reuseDataKeys(1, 2, Duration.ofHours(1)), mode);
+        dataKeys.set(0);
+
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals(new byte[10], aes.decrypt(encrypted.get(i % 2)).liftAccept());
+        }
+        assertEquals(2, dataKeys.get());
+
+        aes.decrypt(encrypted.get(2)).liftAccept();
+        aes.decrypt(encrypted.get(3)).liftAccept();
+        aes.decrypt(encrypted.get(0)).liftAccept();
+        assertEquals(5, dataKeys.get());
+    }
+
+    @Test
+    void should_reject_data_key_of_other_key_encryption_key() {
+        final var aes = AESFactory.aesEnvelope(secretFromBase64EncodedKey(keyEncryptionKey), DEFAULT_ENVELOPE_POLICY);
+        final var other = AESFactory.aesEnvelope(secretFromBase64EncodedKey(base64EncodedKey()), DEFAULT_ENVELOPE_POLICY);
+        final var encrypted = aes.encrypt(new byte[100]).liftAccept();
+
+        assertEquals(UNKNOWN_KEY, other.decrypt(encrypted).liftReject());
+        encrypted[0] ^= 1;
+        assertEquals(UNKNOWN_KEY, aes.decrypt(encrypted).liftReject());
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(new byte[WRAPPED_DATA_KEY_NUMBER_OF_BYTES - 1]).liftReject());
+    }
+
+    @Test
+    void should_reject_operations_after_close() {
+        final var aes = AESFactory.aesEnvelope(secretFromBase64EncodedKey(keyEncryptionKey), DEFAULT_ENVELOPE_POLICY);
+        final var encrypted = aes.encrypt(new byte[10]).liftAccept();
+
+        aes.close();
+
+        assertEquals(SECRET_DESTROYED, aes.encrypt(new byte[10]).liftReject());
+        assertEquals(SECRET_DESTROYED, aes.decrypt(encrypted).liftReject());
+    }
+
+    @Test
+    void should_require_valid_key_encryption_key_and_policy() {
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.aesEnvelope(secretFromNonBase64EncodedKey("short"), DEFAULT_ENVELOPE_POLICY));
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.aesEnvelope(null, DEFAULT_ENVELOPE_POLICY));
+        assertThrows(IllegalArgumentException.class, () -> reuseDataKeys(0, 1, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> reuseDataKeys(1, 1, Duration.ZERO));
+    }
+}
@@ -0,0 +1,232 @@
+package se.deogun.aes;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.Rejection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class FlowIntegrationTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 100000, 1000000})
+    void should_encrypt_decrypt_gcm(final int size) throws Exception {
+        final var aes = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var aad = new AAD("aad");
+        final var data = randomAlphabetic(size).getBytes(UTF_8);
+
+        final var encrypted = collect(AESFactory.encryptingProcessor(aes, aad, executor), data, 1000);
+        final var decrypted = new ByteArrayOutputStream();
+        aes.decrypt(new ByteArrayInputStream(encrypted), decrypted, aad).liftAccept();
+        assertArrayEquals(data, decrypted.toByteArray());
+
+        assertArrayEquals(data, collect(AESFactory.decryptingProcessor(aes, aad, executor), encrypted, 777));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 100000})
+    void should_encrypt_decrypt_cbc(final int size) throws Exception {
+        final var aes = AESFactory.aesCBC(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var data = randomAlphabetic(size).getBytes(UTF_8);
+
+        final var encrypted = collect(AESFactory.encryptingProcessor(aes, executor), data, 1000);
+
+        assertArrayEquals(data, collect(AESFactory.decryptingProcessor(aes, executor), encrypted, 333));
+    }
+
+    @Test
+    void should_chain_processors() throws Exception {
+        final var aes = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var data = randomAlphabetic(500000).getBytes(UTF_8);
+        final var encrypting = AESFactory.encryptingProcessor(aes, executor);
+        final var decrypting = AESFactory.decryptingProcessor(aes, executor);
+        encrypting.subscribe(decrypting);
+
+        assertArrayEquals(data, collect(encrypting, decrypting, data, 4096));
+    }
+
+    @Test
+    void should_only_request_items_as_they_are_read() throws InterruptedException {
+        final var aes = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var processor = AESFactory.encryptingProcessor(aes, executor);
+        final var requested = new AtomicLong();
+        processor.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(final ByteBuffer item) {
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(final long n) {
+                requested.addAndGet(n);
+                for (long i = 0; i < n; i++) {
+                    processor.onNext(ByteBuffer.allocate(1024));
+                }
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+
+        Thread.sleep(200);
+        assertTrue(requested.get() < 100, "Requested " + requested.get());
+    }
+
+    @Test
+    void should_fail_when_upstream_ignores_demand() {
+        final var aes = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var processor = AESFactory.encryptingProcessor(aes, executor);
+        final var result = subscribe(processor);
+        final var cancelled = new CompletableFuture<Boolean>();
+        processor.onSubscribe(new Flow.Subscription() {
+            private boolean published;
+
+            @Override
+            public void request(final long n) {
+                if (published) {
+                    return;
+                }
+                published = true;
+                for (int i = 0; i < 100; i++) {
+                    processor.onNext(ByteBuffer.allocate(1024));
+                }
+                processor.onComplete();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled.complete(true);
+            }
+        });
+
+        final var error = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertTrue(cancelled.isDone());
+    }
+
+    @Test
+    void should_signal_rejected_decryption() throws IOException {
+        final var aes = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = new ByteArrayOutputStream();
+        aes.encrypt(new ByteArrayInputStream(new byte[100000]), encrypted, new AAD("aad")).liftAccept();
+
+        final var error = assertThrows(ExecutionException.class,
+                () -> collect(AESFactory.decryptingProcessor(aes, new AAD("other"), executor), encrypted.toByteArray(), 1000));
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, ((Rejection) error.getCause()).reason);
+    }
+
+    @Test
+    void should_signal_upstream_error() throws InterruptedException {
+        final var aes = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var processor = AESFactory.encryptingProcessor(aes, executor);
+        final var result = subscribe(processor);
+        try (var publisher = new SubmissionPublisher<ByteBuffer>(executor, 16)) {
+            publisher.subscribe(processor);
+            publisher.submit(ByteBuffer.allocate(100));
+            publisher.closeExceptionally(new IllegalStateException("Upstream"));
+        }
+
+        final var error = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+        assertEquals("Upstream", error.getCause().getMessage());
+    }
+
+    @Test
+    void should_support_one_subscriber() {
+        final var processor = AESFactory.encryptingProcessor(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), executor);
+        subscribe(processor);
+
+        final var error = assertThrows(ExecutionException.class, () -> subscribe(processor).get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+    }
+
+    private byte[] collect(final Flow.Processor<ByteBuffer, ByteBuffer> processor, final byte[] data, final int chunkSize) throws Exception {
+        return collect(processor, processor, data, chunkSize);
+    }
+
+    private byte[] collect(final Flow.Subscriber<ByteBuffer> first, final Flow.Publisher<ByteBuffer> last,
+                           final byte[] data, final int chunkSize) throws Exception {
+        final var result = subscribe(last);
+        try (var publisher = new SubmissionPublisher<ByteBuffer>(executor, 16)) {
+            publisher.subscribe(first);
+            for (int offset = 0; offset < data.length; offset += chunkSize) {
+                publisher.submit(ByteBuffer.wrap(data, offset, Math.min(chunkSize, data.length - offset)));
+            }
+        }
+        return result.get(30, TimeUnit.SECONDS);
+    }
+
+    private static CompletableFuture<byte[]> subscribe(final Flow.Publisher<ByteBuffer> publisher) {
+        final var result = new CompletableFuture<byte[]>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            private final ByteArrayOutputStream collected = new ByteArrayOutputStream();
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(final ByteBuffer item) {
+                final var bytes = new byte[item.remaining()];
+                item.get(bytes);
+                collected.writeBytes(bytes);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(collected.toByteArray());
+            }
+        });
+        return result;
+    }
+}
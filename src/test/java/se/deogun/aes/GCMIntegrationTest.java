@@ -1,22 +1,45 @@
 package se.deogun.aes;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import se.deogun.aes.api.AAD;
 import se.deogun.aes.api.AES;
+import se.deogun.aes.api.InitVectorSource;
 import se.deogun.aes.api.Secret;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Random;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
 import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.ByteBuffers.buffer;
+import static se.deogun.aes.ByteBuffers.bytes;
+import static se.deogun.aes.api.AADBuilder.aadBuilder;
+import static se.deogun.aes.api.DecryptBufferSize._16KB_DECRYPT_BUFFER_SIZE;
+import static se.deogun.aes.api.NoncePartition.partition;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
 import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_ENCRYPT_DATA;
 import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
 import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
 
@@ -70,6 +93,168 @@ class GCMIntegrationTest {
         assertArrayEquals(data, result);
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 65536, 200000})
+    void should_decrypt_input_stream(final int size) {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphabetic(size).getBytes(UTF_8);
+        final var encrypted = new ByteArrayOutputStream();
+        final var decrypted = new ByteArrayOutputStream();
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        gcm.encrypt(new ByteArrayInputStream(data), encrypted, aad).liftAccept();
+        gcm.decrypt(new ByteArrayInputStream(encrypted.toByteArray()), decrypted, aad).liftAccept();
+
+        assertArrayEquals(data, decrypted.toByteArray());
+    }
+
+    @Test
+    void should_bound_copies_of_data_when_decrypting_streams() {
+        final var size = 16 * 1024 * 1024;
+        final var aad = new AAD("aad");
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = new ByteArrayOutputStream(size + 1024 * 1024);
+        gcm.encrypt(new ByteArrayInputStream(new byte[size]), encrypted, aad).liftAccept();
+        final var segmented = encrypted.toByteArray();
+        final var whole = gcm.encrypt(new byte[size], aad).liftAccept();
+        gcm.decrypt(new ByteArrayInputStream(segmented), OutputStream.nullOutputStream(), aad).liftAccept();
+        gcm.decrypt(new ByteArrayInputStream(whole), aad).liftAccept();
+
+        final var streamed = allocatedBytes(() -> gcm.decrypt(new ByteArrayInputStream(segmented), OutputStream.nullOutputStream(), aad).liftAccept());
+        final var buffered = allocatedBytes(() -> gcm.decrypt(new BufferedInputStream(new ByteArrayInputStream(whole)), aad).liftAccept());
+        // Segments are decrypted one at a time, while decrypting to an array reads the encrypted
+        // data once and allocates the plain text
+        assertTrue(streamed < size / 8, "Allocated " + streamed);
+        assertTrue(buffered < 3 * size + size / 2, "Allocated " + buffered);
+    }
+
+    @Test
+    void should_support_decrypting_stream() throws IOException {
+        final var data = randomAlphabetic(200000).getBytes(UTF_8);
+        final var encrypted = new ByteArrayOutputStream();
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        gcm.encrypt(new ByteArrayInputStream(data), encrypted).liftAccept();
+
+        try (var stream = gcm.decryptingStream(new ByteArrayInputStream(encrypted.toByteArray())).liftAccept()) {
+            assertArrayEquals(data, stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void should_reject_tampered_stream() {
+        final var data = randomAlphabetic(200000).getBytes(UTF_8);
+        final var encrypted = new ByteArrayOutputStream();
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        gcm.encrypt(new ByteArrayInputStream(data), encrypted).liftAccept();
+        final var tampered = encrypted.toByteArray();
+        tampered[tampered.length - 100] ^= 1;
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcm.decrypt(new ByteArrayInputStream(tampered), new ByteArrayOutputStream()).liftReject());
+    }
+
+    @Test
+    void should_reject_stream_decrypted_with_wrong_AAD() {
+        final var data = randomAlphabetic(1000).getBytes(UTF_8);
+        final var encrypted = new ByteArrayOutputStream();
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        gcm.encrypt(new ByteArrayInputStream(data), encrypted, new AAD("aad")).liftAccept();
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcm.decrypt(new ByteArrayInputStream(encrypted.toByteArray()), new ByteArrayOutputStream(), new AAD("other")).liftReject());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 16384, 16385, 17 * 1024 * 1024})
+    void should_encrypt_decrypt_files(final int size, @TempDir final Path directory) throws IOException {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = new byte[size];
+        new Random().nextBytes(data);
+        final var plainText = Files.write(directory.resolve("plain"), data);
+        final var encrypted = directory.resolve("encrypted");
+        final var decrypted = directory.resolve("decrypted");
+        final var decryptedStream = new ByteArrayOutputStream();
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertEquals(28L + size + 16L * Math.max(1, (size + 16383) / 16384),
+                gcm.encryptFile(plainText, encrypted, aad).liftAccept());
+        assertEquals(size, gcm.decryptFile(encrypted, decrypted, aad).liftAccept());
+        gcm.decrypt(Files.newInputStream(encrypted), decryptedStream, aad).liftAccept();
+
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+        assertArrayEquals(data, decryptedStream.toByteArray());
+    }
+
+    @Test
+    void should_reject_tampered_file_and_leave_destination_empty(@TempDir final Path directory) throws IOException {
+        final var plainText = Files.write(directory.resolve("plain"), randomAlphabetic(200000).getBytes(UTF_8));
+        final var encrypted = directory.resolve("encrypted");
+        final var decrypted = directory.resolve("decrypted");
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        gcm.encryptFile(plainText, encrypted).liftAccept();
+        final var tampered = Files.readAllBytes(encrypted);
+        tampered[tampered.length - 100] ^= 1;
+        Files.write(encrypted, tampered);
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcm.decryptFile(encrypted, decrypted).liftReject());
+        assertEquals(0, Files.size(decrypted));
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcm.decryptFile(plainText, decrypted).liftReject());
+    }
+
+    @Test
+    void should_encrypt_decrypt_batch() {
+        final var data = new ArrayList<byte[]>();
+        final var aad = new ArrayList<AAD>();
+        for (int i = 0; i < 200; i++) {
+            data.add(randomAlphanumeric(i).getBytes(UTF_8));
+            aad.add(new AAD(randomAlphanumeric(10)));
+        }
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        final var encrypted = gcm.encryptAll(data, aad).liftAccept();
+        final var items = new ArrayList<byte[]>();
+        for (int i = 0; i < encrypted.size(); i++) {
+            items.add(bytes(encrypted.result(i).liftAccept()));
+        }
+        final var decrypted = gcm.decryptAll(items, aad).liftAccept();
+
+        assertEquals(data.size(), decrypted.size());
+        for (int i = 0; i < data.size(); i++) {
+            assertArrayEquals(data.get(i), bytes(decrypted.result(i).liftAccept()));
+            assertArrayEquals(data.get(i), gcm.decrypt(items.get(i), aad.get(i)).liftAccept());
+        }
+    }
+
+    @Test
+    void should_reject_tampered_item_without_failing_batch() {
+        final var data = List.of(randomAlphanumeric(200).getBytes(UTF_8), randomAlphanumeric(200).getBytes(UTF_8), randomAlphanumeric(200).getBytes(UTF_8));
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = gcm.encryptAll(data).liftAccept();
+        final var items = new ArrayList<byte[]>();
+        for (int i = 0; i < encrypted.size(); i++) {
+            items.add(bytes(encrypted.result(i).liftAccept()));
+        }
+        items.get(1)[50] ^= 1;
+        items.set(2, new byte[10]);
+
+        final var decrypted = gcm.decryptAll(items).liftAccept();
+
+        assertArrayEquals(data.get(0), bytes(decrypted.result(0).liftAccept()));
+        assertEquals(UNABLE_TO_DECRYPT_DATA, decrypted.result(1).liftReject());
+        assertEquals(UNABLE_TO_DECRYPT_DATA, decrypted.result(2).liftReject());
+        assertEquals(0, decrypted.length(1));
+        assertEquals(200, decrypted.buffer().remaining());
+    }
+
+    @Test
+    void should_require_aad_for_every_item_of_batch() {
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertThrows(IllegalArgumentException.class, () -> gcm.encryptAll(List.of(new byte[1], new byte[1]), List.of(new AAD("aad"))));
+    }
+
     @Test
     void should_fail_to_decrypt_because_of_wrong_AAD() {
         final var aad = new AAD(randomAlphanumeric(8192));
@@ -114,6 +299,182 @@ class GCMIntegrationTest {
         assertEquals(secretMessage, new String(decryptedMessage));
     }
 
+    @Test
+    void should_reuse_instance_across_threads() throws InterruptedException {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var failures = new AtomicInteger();
+        final var executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < 200; j++) {
+                    final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+                    if (!Arrays.equals(data, gcm.decrypt(gcm.encrypt(data, aad).liftAccept(), aad).liftAccept())) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertEquals(0, failures.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(InitVectorSource.class)
+    void should_encrypt_decrypt_with_init_vector_source(final InitVectorSource initVectorSource) {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var gcm = AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey()), _16KB_DECRYPT_BUFFER_SIZE, initVectorSource);
+
+        final var decrypted = gcm.decrypt(gcm.encrypt(data, aad).liftAccept(), aad).liftAccept();
+
+        assertArrayEquals(data, decrypted);
+    }
+
+    @Test
+    void should_encrypt_decrypt_with_counter_init_vectors_in_separate_partitions() throws IOException {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var secret = secretFromBase64EncodedKey(base64EncodedKey());
+        final var gcm1 = AESFactory.aesGCM(secret, _16KB_DECRYPT_BUFFER_SIZE, partition(0, 2));
+        final var gcm2 = AESFactory.aesGCM(secret, _16KB_DECRYPT_BUFFER_SIZE, partition(1, 2));
+        final var encrypted = new ByteArrayOutputStream();
+
+        final var batch = gcm1.encryptAll(List.of(data, data, data)).liftAccept();
+        try (var stream = gcm2.encryptingStream(encrypted, aad).liftAccept()) {
+            stream.write(data);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            assertArrayEquals(data, gcm2.decrypt(bytes(batch.result(i).liftAccept())).liftAccept());
+        }
+        assertArrayEquals(data, gcm1.decrypt(gcm2.encrypt(data, aad).liftAccept(), aad).liftAccept());
+        final var decrypted = new ByteArrayOutputStream();
+        gcm1.decrypt(new ByteArrayInputStream(encrypted.toByteArray()), decrypted, aad).liftAccept();
+        assertArrayEquals(data, decrypted.toByteArray());
+        assertFalse(Arrays.equals(bytes(batch.result(0).liftAccept()), bytes(batch.result(1).liftAccept())));
+        assertThrows(IllegalArgumentException.class, () -> partition(2, 2));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void should_support_byte_buffers(final boolean direct) {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(100000).getBytes(UTF_8);
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var source = buffer(direct, data.length).put(data).flip();
+        final var encrypted = buffer(direct, gcm.maxEncryptedSize(data.length));
+        final var decrypted = buffer(direct, data.length);
+
+        gcm.encrypt(source, encrypted, aad).liftAccept();
+        gcm.decrypt(encrypted.flip(), decrypted, aad).liftAccept();
+
+        assertFalse(source.hasRemaining());
+        assertFalse(encrypted.hasRemaining());
+        assertEquals(ByteBuffer.wrap(data), decrypted.flip());
+    }
+
+    @Test
+    void should_decrypt_byte_buffer_encrypted_data_as_byte_array() {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = ByteBuffer.allocate(gcm.maxEncryptedSize(data.length));
+
+        gcm.encrypt(ByteBuffer.wrap(data), encrypted, aad).liftAccept();
+
+        assertArrayEquals(data, gcm.decrypt(encrypted.array(), aad).liftAccept());
+    }
+
+    @Test
+    void should_reject_too_small_destination_buffer() {
+        final var data = ByteBuffer.wrap(randomAlphanumeric(1000).getBytes(UTF_8));
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var destination = ByteBuffer.allocate(gcm.maxEncryptedSize(1000) - 1);
+
+        assertEquals(UNABLE_TO_ENCRYPT_DATA, gcm.encrypt(data, destination).liftReject());
+        assertEquals(0, data.position());
+        assertEquals(0, destination.position());
+    }
+
+    @Test
+    void should_leave_buffer_positions_unchanged_when_decryption_fails() {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var gcm = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = ByteBuffer.wrap(gcm.encrypt(randomAlphanumeric(1000).getBytes(UTF_8), aad).liftAccept());
+        final var destination = ByteBuffer.allocate(1000);
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcm.decrypt(encrypted, destination, new AAD("wrong")).liftReject());
+        assertEquals(0, encrypted.position());
+        assertEquals(0, destination.position());
+    }
+
+    @Test
+    void should_reject_operations_after_close() {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var aes = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = aes.encrypt(data, aad).liftAccept();
+
+        aes.close();
+
+        assertEquals(SECRET_DESTROYED, aes.encrypt(data, aad).liftReject());
+        assertEquals(SECRET_DESTROYED, aes.decrypt(encrypted, aad).liftReject());
+    }
+
+    @Test
+    void should_accept_binary_aad_equal_to_encoded_text() {
+        final var text = randomAlphanumeric(100);
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var aes = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        final var encrypted = aes.encrypt(data, new AAD(text)).liftAccept();
+
+        assertArrayEquals(data, aes.decrypt(encrypted, new AAD(text.getBytes(UTF_8))).liftAccept());
+        assertArrayEquals(data, aes.decrypt(encrypted, new AAD(ByteBuffer.wrap(text.getBytes(UTF_8)))).liftAccept());
+    }
+
+    @Test
+    void should_reuse_binary_aad() throws IOException {
+        final var header = new byte[]{0, 0, 0, 42, 1, 2, 3, 4};
+        final var aad = new AAD(header);
+        header[3] = 0;
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var aes = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(data, aes.decrypt(aes.encrypt(data, aad).liftAccept(), aad).liftAccept());
+        }
+        final var encrypted = new ByteArrayOutputStream();
+        aes.encrypt(new ByteArrayInputStream(data), encrypted, aad).liftAccept();
+        try (var decrypting = aes.decryptingStream(new ByteArrayInputStream(encrypted.toByteArray()), aad).liftAccept()) {
+            assertArrayEquals(data, decrypting.readAllBytes());
+        }
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(aes.encrypt(data, aad).liftAccept(), new AAD(header)).liftReject());
+    }
+
+    @Test
+    void should_bind_to_structured_aad() {
+        final var column = aadBuilder().add("tenant").add("table").add("column").build();
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var aes = gcm(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        final var encrypted = aes.encrypt(data, aadBuilder(column).add(1L).build()).liftAccept();
+
+        assertArrayEquals(data, aes.decrypt(encrypted, aadBuilder(column).add(1L).build()).liftAccept());
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(encrypted, aadBuilder(column).add(2L).build()).liftReject());
+    }
+
+    private static long allocatedBytes(final Runnable operation) {
+        final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final var before = threads.getCurrentThreadAllocatedBytes();
+        operation.run();
+        return threads.getCurrentThreadAllocatedBytes() - before;
+    }
+
     private static AES gcm(final Secret secret) {
         return AESFactory.aesGCM(secret);
     }
@@ -0,0 +1,268 @@
+package se.deogun.aes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.AES;
+import se.deogun.aes.api.InitVectorSource;
+import se.deogun.aes.api.Secret;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.ByteBuffers.buffer;
+import static se.deogun.aes.ByteBuffers.bytes;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_ENCRYPT_DATA;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class GCMSIVIntegrationTest {
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 16, 17, 100000})
+    void should_encrypt_decrypt(final int size) {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(size).getBytes(UTF_8);
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        final var encrypted = gcmSIV.encrypt(data, aad).liftAccept();
+
+        assertEquals(gcmSIV.maxEncryptedSize(size), encrypted.length);
+        assertArrayEquals(data, gcmSIV.decrypt(encrypted, aad).liftAccept());
+    }
+
+    @Test
+    void should_not_produce_same_encrypted_output_twice() {
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertFalse(Arrays.equals(gcmSIV.encrypt(data).liftAccept(), gcmSIV.encrypt(data).liftAccept()));
+    }
+
+    @Test
+    void should_accept_binary_aad() {
+        final var aad = new AAD(new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        final var encrypted = gcmSIV.encrypt(data, aad).liftAccept();
+
+        assertArrayEquals(data, gcmSIV.decrypt(encrypted, aad).liftAccept());
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcmSIV.decrypt(encrypted, new AAD(new byte[]{0})).liftReject());
+    }
+
+    @Test
+    void should_fail_to_decrypt_because_of_wrong_AAD() {
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = gcmSIV.encrypt(randomAlphanumeric(1000).getBytes(UTF_8), new AAD("aad")).liftAccept();
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcmSIV.decrypt(encrypted, new AAD("other")).liftReject());
+    }
+
+    @Test
+    void should_fail_to_decrypt_because_of_wrong_secret() {
+        final var encrypted = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey())).encrypt(randomAlphanumeric(1000).getBytes(UTF_8)).liftAccept();
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcmSIV(secretFromBase64EncodedKey(base64EncodedKey())).decrypt(encrypted).liftReject());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 12, 27, 500, 1027})
+    void should_reject_tampered_data(final int index) {
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = gcmSIV.encrypt(randomAlphanumeric(1000).getBytes(UTF_8)).liftAccept();
+        encrypted[index] ^= 1;
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcmSIV.decrypt(encrypted).liftReject());
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcmSIV.decrypt(new byte[27]).liftReject());
+    }
+
+    @Test
+    void should_support_streams() throws IOException {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphabetic(200000).getBytes(UTF_8);
+        final var encrypted = new ByteArrayOutputStream();
+        final var decrypted = new ByteArrayOutputStream();
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        try (var stream = gcmSIV.encryptingStream(encrypted, aad).liftAccept()) {
+            stream.write(data, 0, 1000);
+            stream.write(data, 1000, data.length - 1000);
+        }
+        gcmSIV.decrypt(new ByteArrayInputStream(encrypted.toByteArray()), decrypted, aad).liftAccept();
+
+        assertArrayEquals(data, decrypted.toByteArray());
+        try (var stream = gcmSIV.decryptingStream(new ByteArrayInputStream(encrypted.toByteArray()), aad).liftAccept()) {
+            assertArrayEquals(data, stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void should_reject_tampered_stream() {
+        final var encrypted = new ByteArrayOutputStream();
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        gcmSIV.encrypt(new ByteArrayInputStream(randomAlphabetic(200000).getBytes(UTF_8)), encrypted).liftAccept();
+        final var tampered = encrypted.toByteArray();
+        tampered[tampered.length - 100] ^= 1;
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcmSIV.decrypt(new ByteArrayInputStream(tampered), new ByteArrayOutputStream()).liftReject());
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcmSIV.decryptingStream(new ByteArrayInputStream(tampered)).liftReject());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 65536, 65537, 17 * 1024 * 1024})
+    void should_encrypt_decrypt_files(final int size, @TempDir final Path directory) throws IOException {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = new byte[size];
+        new Random().nextBytes(data);
+        final var plainText = Files.write(directory.resolve("plain"), data);
+        final var encrypted = directory.resolve("encrypted");
+        final var decrypted = directory.resolve("decrypted");
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertEquals(28L + size, gcmSIV.encryptFile(plainText, encrypted, aad).liftAccept());
+        assertEquals(size, gcmSIV.decryptFile(encrypted, decrypted, aad).liftAccept());
+
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+        assertArrayEquals(data, gcmSIV.decrypt(Files.readAllBytes(encrypted), aad).liftAccept());
+    }
+
+    @Test
+    void should_reject_tampered_file_and_leave_destination_empty(@TempDir final Path directory) throws IOException {
+        final var plainText = Files.write(directory.resolve("plain"), randomAlphabetic(200000).getBytes(UTF_8));
+        final var encrypted = directory.resolve("encrypted");
+        final var decrypted = directory.resolve("decrypted");
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        gcmSIV.encryptFile(plainText, encrypted).liftAccept();
+        final var tampered = Files.readAllBytes(encrypted);
+        tampered[tampered.length - 100] ^= 1;
+        Files.write(encrypted, tampered);
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcmSIV.decryptFile(encrypted, decrypted).liftReject());
+        assertEquals(0, Files.size(decrypted));
+    }
+
+    @Test
+    void should_encrypt_decrypt_batch() {
+        final var data = new ArrayList<byte[]>();
+        final var aad = new ArrayList<AAD>();
+        for (int i = 0; i < 200; i++) {
+            data.add(randomAlphanumeric(i).getBytes(UTF_8));
+            aad.add(new AAD(randomAlphanumeric(10)));
+        }
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        final var encrypted = gcmSIV.encryptAll(data, aad).liftAccept();
+        final var items = new ArrayList<byte[]>();
+        for (int i = 0; i < encrypted.size(); i++) {
+            items.add(bytes(encrypted.result(i).liftAccept()));
+        }
+        final var decrypted = gcmSIV.decryptAll(items, aad).liftAccept();
+
+        for (int i = 0; i < data.size(); i++) {
+            assertArrayEquals(data.get(i), bytes(decrypted.result(i).liftAccept()));
+            assertArrayEquals(data.get(i), gcmSIV.decrypt(items.get(i), aad.get(i)).liftAccept());
+        }
+    }
+
+    @Test
+    void should_reject_tampered_item_without_failing_batch() {
+        final var data = List.of(randomAlphanumeric(200).getBytes(UTF_8), randomAlphanumeric(200).getBytes(UTF_8), randomAlphanumeric(200).getBytes(UTF_8));
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = gcmSIV.encryptAll(data).liftAccept();
+        final var items = new ArrayList<byte[]>();
+        for (int i = 0; i < encrypted.size(); i++) {
+            items.add(bytes(encrypted.result(i).liftAccept()));
+        }
+        items.get(1)[50] ^= 1;
+        items.set(2, new byte[10]);
+
+        final var decrypted = gcmSIV.decryptAll(items).liftAccept();
+
+        assertArrayEquals(data.get(0), bytes(decrypted.result(0).liftAccept()));
+        assertEquals(UNABLE_TO_DECRYPT_DATA, decrypted.result(1).liftReject());
+        assertEquals(UNABLE_TO_DECRYPT_DATA, decrypted.result(2).liftReject());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void should_support_byte_buffers(final boolean direct) {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(100000).getBytes(UTF_8);
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var source = buffer(direct, data.length).put(data).flip();
+        final var encrypted = buffer(direct, gcmSIV.maxEncryptedSize(data.length));
+        final var decrypted = buffer(direct, data.length);
+
+        gcmSIV.encrypt(source, encrypted, aad).liftAccept();
+        gcmSIV.decrypt(encrypted.flip(), decrypted, aad).liftAccept();
+
+        assertFalse(source.hasRemaining());
+        assertFalse(encrypted.hasRemaining());
+        assertEquals(ByteBuffer.wrap(data), decrypted.flip());
+    }
+
+    @Test
+    void should_leave_buffer_positions_unchanged_and_destination_zeroed_when_decryption_fails() {
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = ByteBuffer.wrap(gcmSIV.encrypt(randomAlphanumeric(1000).getBytes(UTF_8), new AAD("aad")).liftAccept());
+        final var destination = ByteBuffer.allocate(1000);
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, gcmSIV.decrypt(encrypted, destination, new AAD("wrong")).liftReject());
+        assertEquals(0, encrypted.position());
+        assertEquals(0, destination.position());
+        assertArrayEquals(new byte[1000], destination.array());
+    }
+
+    @Test
+    void should_reject_too_small_destination_buffer() {
+        final var data = ByteBuffer.wrap(randomAlphanumeric(1000).getBytes(UTF_8));
+        final var gcmSIV = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertEquals(UNABLE_TO_ENCRYPT_DATA, gcmSIV.encrypt(data, ByteBuffer.allocate(gcmSIV.maxEncryptedSize(1000) - 1)).liftReject());
+        assertEquals(0, data.position());
+    }
+
+    @ParameterizedTest
+    @EnumSource(InitVectorSource.class)
+    void should_encrypt_decrypt_with_init_vector_source(final InitVectorSource initVectorSource) {
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var gcmSIV = AESFactory.aesGCMSIV(secretFromBase64EncodedKey(base64EncodedKey()), initVectorSource);
+
+        assertArrayEquals(data, gcmSIV.decrypt(gcmSIV.encrypt(data).liftAccept()).liftAccept());
+    }
+
+    @Test
+    void should_reject_operations_after_close() {
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var aes = gcmSIV(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = aes.encrypt(data).liftAccept();
+
+        aes.close();
+
+        assertEquals(SECRET_DESTROYED, aes.encrypt(data).liftReject());
+        assertEquals(SECRET_DESTROYED, aes.decrypt(encrypted).liftReject());
+    }
+
+    private static AES gcmSIV(final Secret secret) {
+        return AESFactory.aesGCMSIV(secret);
+    }
+}
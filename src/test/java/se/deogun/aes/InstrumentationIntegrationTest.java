@@ -0,0 +1,150 @@
+package se.deogun.aes;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.Metrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.api.Operation.DECRYPT;
+import static se.deogun.aes.api.Operation.ENCRYPT;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class InstrumentationIntegrationTest {
+    @Test
+    void should_record_accepted_operations() {
+        final var metrics = new Metrics();
+        final var aes = AESFactory.instrumented(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), metrics);
+        final var data = randomAlphabetic(1000).getBytes(UTF_8);
+
+        final var encrypted = aes.encrypt(data, new AAD("aad")).liftAccept();
+        assertArrayEquals(data, aes.decrypt(encrypted, new AAD("aad")).liftAccept());
+
+        assertEquals(1, metrics.accepted(ENCRYPT));
+        assertEquals(1, metrics.accepted(DECRYPT));
+        assertEquals(1000, metrics.bytes(ENCRYPT));
+        assertEquals(encrypted.length, metrics.bytes(DECRYPT));
+        assertEquals(1, metrics.latency(ENCRYPT).count());
+        assertTrue(metrics.latency(ENCRYPT).max() > 0);
+        assertEquals(1000, metrics.payloadSize(ENCRYPT).max());
+    }
+
+    @Test
+    void should_record_rejected_operations() {
+        final var metrics = new Metrics();
+        final var aes = AESFactory.instrumented(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), metrics);
+        final var encrypted = aes.encrypt(new byte[100], new AAD("aad")).liftAccept();
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(encrypted, new AAD("other")).liftReject());
+        aes.close();
+        assertEquals(SECRET_DESTROYED, aes.encrypt(new byte[100]).liftReject());
+
+        assertEquals(1, metrics.accepted(ENCRYPT));
+        assertEquals(1, metrics.rejected(ENCRYPT));
+        assertEquals(1, metrics.rejected(DECRYPT));
+        assertEquals(1, metrics.rejected(UNABLE_TO_DECRYPT_DATA));
+        assertEquals(1, metrics.rejected(SECRET_DESTROYED));
+        assertEquals(0, metrics.accepted(DECRYPT));
+        assertEquals(0, metrics.bytes(DECRYPT));
+    }
+
+    @Test
+    void should_count_input_of_streams() {
+        final var metrics = new Metrics();
+        final var aes = AESFactory.instrumented(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), metrics);
+        final var data = randomAlphabetic(100000).getBytes(UTF_8);
+
+        final var encrypted = new ByteArrayOutputStream();
+        aes.encrypt(new ByteArrayInputStream(data), encrypted).liftAccept();
+        final var decrypted = new ByteArrayOutputStream();
+        aes.decrypt(new ByteArrayInputStream(encrypted.toByteArray()), decrypted).liftAccept();
+
+        assertArrayEquals(data, decrypted.toByteArray());
+        assertEquals(data.length, metrics.bytes(ENCRYPT));
+        assertEquals(encrypted.size(), metrics.bytes(DECRYPT));
+    }
+
+    @Test
+    void should_record_returned_streams_when_closed() throws IOException {
+        final var metrics = new Metrics();
+        final var aes = AESFactory.instrumented(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), metrics);
+        final var data = randomAlphabetic(50000).getBytes(UTF_8);
+
+        final var encrypted = new ByteArrayOutputStream();
+        final var encrypting = aes.encryptingStream(encrypted).liftAccept();
+        encrypting.write(data);
+        assertEquals(0, metrics.accepted(ENCRYPT));
+        encrypting.close();
+        encrypting.close();
+        assertEquals(1, metrics.accepted(ENCRYPT));
+        assertEquals(data.length, metrics.bytes(ENCRYPT));
+
+        try (var decrypting = aes.decryptingStream(new ByteArrayInputStream(encrypted.toByteArray())).liftAccept()) {
+            assertArrayEquals(data, decrypting.readAllBytes());
+            assertEquals(0, metrics.accepted(DECRYPT));
+        }
+        assertEquals(1, metrics.accepted(DECRYPT));
+        assertEquals(encrypted.size(), metrics.bytes(DECRYPT));
+    }
+
+    @Test
+    void should_record_buffers_files_and_batches(@TempDir final Path directory) throws IOException {
+        final var metrics = new Metrics();
+        final var aes = AESFactory.instrumented(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), metrics);
+
+        final var destination = ByteBuffer.allocate(aes.maxEncryptedSize(100));
+        aes.encrypt(ByteBuffer.allocate(100), destination).liftAccept();
+        final var plainText = Files.write(directory.resolve("plain"), new byte[1000]);
+        aes.encryptFile(plainText, directory.resolve("encrypted")).liftAccept();
+        aes.encryptAll(List.of(new byte[10], new byte[20])).liftAccept();
+
+        assertEquals(3, metrics.accepted(ENCRYPT));
+        assertEquals(1130, metrics.bytes(ENCRYPT));
+        assertEquals(1000, metrics.payloadSize(ENCRYPT).max());
+    }
+
+    @Test
+    void should_emit_flight_recorder_events(@TempDir final Path directory) throws IOException {
+        final var aes = AESFactory.instrumented(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), new Metrics());
+        final var file = directory.resolve("recording.jfr");
+        try (var recording = new Recording()) {
+            recording.enable("se.deogun.aes.Operation");
+            recording.start();
+            final var encrypted = aes.encrypt(new byte[100]).liftAccept();
+            aes.decrypt(encrypted, new AAD("other"));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        final var events = RecordingFile.readAllEvents(file);
+        assertEquals(2, events.size());
+        assertEquals("ENCRYPT", events.get(0).getString("operation"));
+        assertEquals(100, events.get(0).getLong("bytes"));
+        assertEquals("ACCEPTED", events.get(0).getString("outcome"));
+        assertEquals("UNABLE_TO_DECRYPT_DATA", events.get(1).getString("outcome"));
+    }
+
+    @Test
+    void should_not_accept_null() {
+        final var aes = AESFactory.instrumented(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())), new Metrics());
+
+        assertThrows(IllegalArgumentException.class, () -> aes.encrypt((byte[]) null));
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.instrumented(null, new Metrics()));
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.instrumented(aes, null));
+    }
+}
@@ -0,0 +1,162 @@
+package se.deogun.aes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.Secret;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.ByteBuffers.bytes;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.RejectReason.UNKNOWN_KEY;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class KeyringIntegrationTest {
+    private static final int NUMBER_OF_KEYS = 200;
+    private final Map<Integer, byte[]> keys = new HashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final IntFunction<Secret> keyring = id -> {
+        lookups.incrementAndGet();
+        final var key = keys.get(id);
+        return key == null ? null : secretFromBase64EncodedKey(key);
+    };
+
+    KeyringIntegrationTest() {
+        for (int id = 0; id < NUMBER_OF_KEYS; id++) {
+            keys.put(id, base64EncodedKey());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 100000})
+    void should_encrypt_decrypt(final int size) throws IOException {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphabetic(size).getBytes(UTF_8);
+        final var aes = AESFactory.aesKeyring(keyring, 7, 4);
+
+        final var encrypted = aes.encrypt(data, aad).liftAccept();
+        assertEquals(7, ByteBuffer.wrap(encrypted).getInt());
+        assertArrayEquals(data, aes.decrypt(encrypted, aad).liftAccept());
+
+        final var streamed = new ByteArrayOutputStream();
+        try (var stream = aes.encryptingStream(streamed, aad).liftAccept()) {
+            stream.write(data);
+        }
+        try (var stream = aes.decryptingStream(new ByteArrayInputStream(streamed.toByteArray()), aad).liftAccept()) {
+            assertArrayEquals(data, stream.readAllBytes());
+        }
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void should_decrypt_data_of_every_key_in_keyring() {
+        final var data = new ArrayList<byte[]>();
+        final var encrypted = new ArrayList<byte[]>();
+        for (int id = 0; id < NUMBER_OF_KEYS; id++) {
+            data.add(randomAlphanumeric(100).getBytes(UTF_8));
+            try (var aes = AESFactory.aesKeyring(keyring, id, 1)) {
+                encrypted.add(aes.encrypt(data.get(id)).liftAccept());
+            }
+        }
+        final var aes = AESFactory.aesKeyring(keyring, 0, 8);
+        lookups.set(0);
+
+        for (int id = 0; id < NUMBER_OF_KEYS; id++) {
+            assertArrayEquals(data.get(id), aes.decrypt(encrypted.get(id)).liftAccept());
+        }
+        assertEquals(NUMBER_OF_KEYS - 1, lookups.get());
+
+        final var decrypted = aes.decryptAll(encrypted).liftAccept();
+        for (int id = 0; id < NUMBER_OF_KEYS; id++) {
+            assertArrayEquals(data.get(id), bytes(decrypted.result(id).liftAccept()));
+        }
+    }
+
+    @Test
+    void should_keep_recently_used_keys_warm() {
+        final var encrypted = new ArrayList<byte[]>();
+        for (int id = 0; id < 10; id++) {
+            try (var aes = AESFactory.aesKeyring(keyring, id, 1)) {
+                encrypted.add(aes.encrypt(new byte[10]).liftAccept());
+            }
+        }
+        final var aes = AESFactory.aesKeyring(keyring, 0, 4);
+        lookups.set(0);
+
+        for (int i = 0; i < 100; i++) {
+            aes.decrypt(encrypted.get(1 + i % 4)).liftAccept();
+        }
+        assertEquals(4, lookups.get());
+
+        aes.decrypt(encrypted.get(5)).liftAccept();
+        aes.decrypt(encrypted.get(1)).liftAccept();
+        assertEquals(6, lookups.get());
+    }
+
+    @Test
+    void should_finish_stream_of_evicted_key() throws IOException {
+        final var data = randomAlphabetic(100000).getBytes(UTF_8);
+        final var streamed = new ByteArrayOutputStream();
+        final var encrypted = new ArrayList<byte[]>();
+        for (int id = 0; id < 3; id++) {
+            try (var aes = AESFactory.aesKeyring(keyring, id, 1)) {
+                encrypted.add(aes.encrypt(data).liftAccept());
+                if (id == 1) {
+                    aes.encrypt(new ByteArrayInputStream(data), streamed).liftAccept();
+                }
+            }
+        }
+        final var aes = AESFactory.aesKeyring(keyring, 0, 1);
+
+        try (var stream = aes.decryptingStream(new ByteArrayInputStream(streamed.toByteArray())).liftAccept()) {
+            assertArrayEquals(data, aes.decrypt(encrypted.get(2)).liftAccept());
+            assertArrayEquals(data, stream.readAllBytes());
+        }
+        assertArrayEquals(data, aes.decrypt(encrypted.get(1)).liftAccept());
+    }
+
+    @Test
+    void should_reject_unknown_key() {
+        final var aes = AESFactory.aesKeyring(keyring, 0, 4);
+        final var encrypted = aes.encrypt(new byte[100]).liftAccept();
+        ByteBuffer.wrap(encrypted).putInt(NUMBER_OF_KEYS);
+
+        assertEquals(UNKNOWN_KEY, aes.decrypt(encrypted).liftReject());
+        ByteBuffer.wrap(encrypted).putInt(1);
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(encrypted).liftReject());
+    }
+
+    @Test
+    void should_reject_operations_after_close() {
+        final var aes = AESFactory.aesKeyring(keyring, 0, 4);
+        final var encrypted = aes.encrypt(new byte[10]).liftAccept();
+
+        aes.close();
+
+        assertEquals(SECRET_DESTROYED, aes.encrypt(new byte[10]).liftReject());
+        assertEquals(SECRET_DESTROYED, aes.decrypt(encrypted).liftReject());
+    }
+
+    @Test
+    void should_require_valid_keyring() {
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.aesKeyring(keyring, NUMBER_OF_KEYS, 4));
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.aesKeyring(keyring, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.aesKeyring(null, 0, 4));
+    }
+}
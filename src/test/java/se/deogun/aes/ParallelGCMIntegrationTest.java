@@ -0,0 +1,204 @@
+package se.deogun.aes;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.AES;
+import se.deogun.aes.api.Secret;
+import se.deogun.aes.modes.common.InternalValidationFailure;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.ByteBuffers.bytes;
+import static se.deogun.aes.api.DecryptBufferSize._64KB_DECRYPT_BUFFER_SIZE;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.SegmentSize._64KB_SEGMENT_SIZE;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class ParallelGCMIntegrationTest {
+    private static final int SEGMENT_SIZE = 64 * 1024;
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, SEGMENT_SIZE - 1, SEGMENT_SIZE, SEGMENT_SIZE + 1, 10 * SEGMENT_SIZE + 5})
+    void should_encrypt_decrypt(final int size) {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(size).getBytes(UTF_8);
+        final var aes = parallelGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        final var encrypted = aes.encrypt(data, aad).liftAccept();
+
+        assertEquals(aes.maxEncryptedSize(size), encrypted.length);
+        assertArrayEquals(data, aes.decrypt(encrypted, aad).liftAccept());
+    }
+
+    @Test
+    void should_reject_plain_text_size_that_overflows_encrypted_size() {
+        final var aes = parallelGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertThrows(InternalValidationFailure.class, () -> aes.maxEncryptedSize(Integer.MAX_VALUE - 100));
+    }
+
+    @Test
+    void should_be_readable_by_gcm_streams() {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(5 * SEGMENT_SIZE + 7).getBytes(UTF_8);
+        final var secret = secretFromBase64EncodedKey(base64EncodedKey());
+        final var gcm = AESFactory.aesGCM(secret, _64KB_DECRYPT_BUFFER_SIZE);
+        final var decrypted = new ByteArrayOutputStream();
+
+        final var encrypted = parallelGCM(secret).encrypt(data, aad).liftAccept();
+        gcm.decrypt(new ByteArrayInputStream(encrypted), decrypted, aad).liftAccept();
+
+        assertArrayEquals(data, decrypted.toByteArray());
+    }
+
+    @Test
+    void should_decrypt_gcm_streams() {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(5 * SEGMENT_SIZE).getBytes(UTF_8);
+        final var secret = secretFromBase64EncodedKey(base64EncodedKey());
+        final var encrypted = new ByteArrayOutputStream();
+
+        AESFactory.aesGCM(secret, _64KB_DECRYPT_BUFFER_SIZE).encrypt(new ByteArrayInputStream(data), encrypted, aad).liftAccept();
+
+        assertArrayEquals(data, parallelGCM(secret).decrypt(encrypted.toByteArray(), aad).liftAccept());
+    }
+
+    @Test
+    void should_encrypt_decrypt_files(@TempDir final Path directory) throws IOException {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphanumeric(5 * SEGMENT_SIZE + 7).getBytes(UTF_8);
+        final var plainText = Files.write(directory.resolve("plain"), data);
+        final var encrypted = directory.resolve("encrypted");
+        final var decrypted = directory.resolve("decrypted");
+        final var aes = parallelGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        assertEquals((long) aes.maxEncryptedSize(data.length), aes.encryptFile(plainText, encrypted, aad).liftAccept());
+        aes.decryptFile(encrypted, decrypted, aad).liftAccept();
+
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+        assertArrayEquals(data, aes.decrypt(Files.readAllBytes(encrypted), aad).liftAccept());
+    }
+
+    @Test
+    void should_reject_tampered_segment() {
+        final var aes = parallelGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = aes.encrypt(randomAlphanumeric(4 * SEGMENT_SIZE).getBytes(UTF_8)).liftAccept();
+        encrypted[2 * SEGMENT_SIZE] ^= 1;
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(encrypted).liftReject());
+    }
+
+    @Test
+    void should_reject_truncated_data() {
+        final var aes = parallelGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = aes.encrypt(randomAlphanumeric(4 * SEGMENT_SIZE).getBytes(UTF_8)).liftAccept();
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(Arrays.copyOf(encrypted, 28 + 3 * (SEGMENT_SIZE + 16))).liftReject());
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(Arrays.copyOf(encrypted, 20)).liftReject());
+    }
+
+    @Test
+    void should_reject_reordered_segments() {
+        final var aes = parallelGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = aes.encrypt(randomAlphanumeric(3 * SEGMENT_SIZE + 1).getBytes(UTF_8)).liftAccept();
+        final var segment = SEGMENT_SIZE + 16;
+        final var first = Arrays.copyOfRange(encrypted, 28, 28 + segment);
+        System.arraycopy(encrypted, 28 + segment, encrypted, 28, segment);
+        System.arraycopy(first, 0, encrypted, 28 + segment, segment);
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(encrypted).liftReject());
+    }
+
+    @Test
+    void should_support_direct_byte_buffers() {
+        final var data = randomAlphanumeric(3 * SEGMENT_SIZE + 11).getBytes(UTF_8);
+        final var aes = parallelGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+        final var encrypted = ByteBuffer.allocateDirect(aes.maxEncryptedSize(data.length) + 10).position(5);
+        final var decrypted = ByteBuffer.allocateDirect(data.length);
+
+        aes.encrypt(ByteBuffer.wrap(data), encrypted).liftAccept();
+        aes.decrypt(encrypted.flip().position(5), decrypted).liftAccept();
+
+        final var result = new byte[data.length];
+        decrypted.flip().get(result);
+        assertArrayEquals(data, result);
+    }
+
+    @Test
+    void should_encrypt_decrypt_batch_in_parallel() {
+        final var data = new ArrayList<byte[]>();
+        final var aad = new ArrayList<AAD>();
+        for (int i = 0; i < 20; i++) {
+            data.add(randomAlphanumeric(i * SEGMENT_SIZE / 4).getBytes(UTF_8));
+            aad.add(new AAD("aad " + i));
+        }
+        final var aes = parallelGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        final var encrypted = aes.encryptAll(data, aad).liftAccept();
+        final var items = new ArrayList<byte[]>();
+        for (int i = 0; i < encrypted.size(); i++) {
+            items.add(bytes(encrypted.result(i).liftAccept()));
+            assertArrayEquals(data.get(i), aes.decrypt(items.get(i), aad.get(i)).liftAccept());
+        }
+        items.get(3)[40] ^= 1;
+        items.set(7, new byte[10]);
+        final var decrypted = aes.decryptAll(items, aad).liftAccept();
+
+        var size = 0;
+        for (int i = 0; i < data.size(); i++) {
+            if (i == 3 || i == 7) {
+                assertEquals(UNABLE_TO_DECRYPT_DATA, decrypted.result(i).liftReject());
+                assertEquals(0, decrypted.length(i));
+            } else {
+                assertArrayEquals(data.get(i), bytes(decrypted.result(i).liftAccept()));
+                size += data.get(i).length;
+            }
+        }
+        assertEquals(size, decrypted.buffer().remaining());
+    }
+
+    @Test
+    void should_not_shut_down_provided_pool_when_closed() {
+        final var aes = parallelGCM(secretFromBase64EncodedKey(base64EncodedKey()));
+
+        aes.close();
+
+        assertEquals(SECRET_DESTROYED, aes.encrypt(new byte[1]).liftReject());
+        assertFalse(POOL.isShutdown());
+    }
+
+    @Test
+    void should_support_owned_pool() {
+        final var data = randomAlphanumeric(3 * SEGMENT_SIZE).getBytes(UTF_8);
+        try (var aes = AESFactory.aesParallelGCM(secretFromBase64EncodedKey(base64EncodedKey()), _64KB_SEGMENT_SIZE, 2)) {
+            assertArrayEquals(data, aes.decrypt(aes.encrypt(data).liftAccept()).liftAccept());
+        }
+    }
+
+    private static AES parallelGCM(final Secret secret) {
+        return AESFactory.aesParallelGCM(secret, _64KB_SEGMENT_SIZE, POOL);
+    }
+}
@@ -0,0 +1,194 @@
+package se.deogun.aes;
+
+import org.junit.jupiter.api.Test;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.Secret;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.api.RegistryPolicy.DEFAULT_REGISTRY_POLICY;
+import static se.deogun.aes.api.RegistryPolicy.evictAfter;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.RejectReason.UNKNOWN_KEY;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class RegistryIntegrationTest {
+    private final Map<String, byte[]> keys = new HashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final Function<String, Secret> secrets = tenant -> {
+        lookups.incrementAndGet();
+        final var key = keys.get(tenant);
+        return key == null ? null : secretFromBase64EncodedKey(key);
+    };
+
+    RegistryIntegrationTest() {
+        for (int tenant = 0; tenant < 100; tenant++) {
+            keys.put("tenant-" + tenant, base64EncodedKey());
+        }
+    }
+
+    @Test
+    void should_encrypt_decrypt_with_instance_of_tenant() {
+        final var data = randomAlphabetic(1000).getBytes(UTF_8);
+        final var aad = new AAD("aad");
+        try (var registry = AESFactory.aesRegistry(secrets, DEFAULT_REGISTRY_POLICY)) {
+            final var encrypted = registry.apply("tenant-1", aes -> aes.encrypt(data, aad)).liftAccept();
+
+            assertArrayEquals(data, registry.apply("tenant-1", aes -> aes.decrypt(encrypted, aad)).liftAccept());
+            assertEquals(UNABLE_TO_DECRYPT_DATA, registry.apply("tenant-2", aes -> aes.decrypt(encrypted, aad)).liftReject());
+        }
+    }
+
+    @Test
+    void should_create_instance_once() {
+        try (var registry = AESFactory.aesRegistry(secrets, DEFAULT_REGISTRY_POLICY)) {
+            for (int i = 0; i < 100; i++) {
+                registry.apply("tenant-1", aes -> aes.encrypt(new byte[10])).liftAccept();
+            }
+
+            assertEquals(1, lookups.get());
+            assertEquals(99, registry.hits());
+            assertEquals(1, registry.misses());
+            assertEquals(1, registry.size());
+        }
+    }
+
+    @Test
+    void should_reject_unknown_tenant() {
+        try (var registry = AESFactory.aesRegistry(secrets, DEFAULT_REGISTRY_POLICY)) {
+            assertEquals(UNKNOWN_KEY, registry.apply("unknown", aes -> aes.encrypt(new byte[10])).liftReject());
+            assertEquals(UNKNOWN_KEY, registry.borrow("unknown").liftReject());
+            assertEquals(0, registry.size());
+        }
+    }
+
+    @Test
+    void should_evict_least_recently_used_instance() {
+        try (var registry = AESFactory.aesRegistry(secrets, evictAfter(2, Duration.ofMinutes(1)))) {
+            registry.apply("tenant-1", aes -> aes.encrypt(new byte[10])).liftAccept();
+            registry.apply("tenant-2", aes -> aes.encrypt(new byte[10])).liftAccept();
+            registry.apply("tenant-1", aes -> aes.encrypt(new byte[10])).liftAccept();
+            registry.apply("tenant-3", aes -> aes.encrypt(new byte[10])).liftAccept();
+
+            assertEquals(2, registry.size());
+            assertEquals(1, registry.evictions());
+            registry.apply("tenant-1", aes -> aes.encrypt(new byte[10])).liftAccept();
+            assertEquals(3, lookups.get());
+            registry.apply("tenant-2", aes -> aes.encrypt(new byte[10])).liftAccept();
+            assertEquals(4, lookups.get());
+        }
+    }
+
+    @Test
+    void should_evict_idle_instances() throws InterruptedException {
+        try (var registry = AESFactory.aesRegistry(secrets, evictAfter(10, Duration.ofMillis(50)))) {
+            registry.apply("tenant-1", aes -> aes.encrypt(new byte[10])).liftAccept();
+            registry.apply("tenant-2", aes -> aes.encrypt(new byte[10])).liftAccept();
+            Thread.sleep(100);
+
+            registry.apply("tenant-3", aes -> aes.encrypt(new byte[10])).liftAccept();
+
+            assertEquals(1, registry.size());
+            assertEquals(2, registry.evictions());
+        }
+    }
+
+    @Test
+    void should_close_evicted_instance_when_returned() {
+        try (var registry = AESFactory.aesRegistry(secrets, evictAfter(1, Duration.ofMinutes(1)))) {
+            final var borrowed = registry.borrow("tenant-1").liftAccept();
+            registry.apply("tenant-2", aes -> aes.encrypt(new byte[10])).liftAccept();
+            assertEquals(1, registry.evictions());
+
+            final var encrypted = borrowed.encrypt(new byte[10]).liftAccept();
+            assertArrayEquals(new byte[10], borrowed.decrypt(encrypted).liftAccept());
+            borrowed.close();
+            borrowed.close();
+
+            assertEquals(SECRET_DESTROYED, borrowed.encrypt(new byte[10]).liftReject());
+        }
+    }
+
+    @Test
+    void should_finish_stream_of_borrowed_instance() throws IOException {
+        final var data = randomAlphabetic(100000).getBytes(UTF_8);
+        final var aad = new AAD("aad");
+        try (var registry = AESFactory.aesRegistry(secrets, evictAfter(1, Duration.ofMinutes(1)))) {
+            final var encrypted = new ByteArrayOutputStream();
+            try (var aes = registry.borrow("tenant-1").liftAccept()) {
+                final var stream = aes.encryptingStream(encrypted, aad).liftAccept();
+                stream.write(data, 0, 1000);
+                registry.apply("tenant-2", other -> other.encrypt(new byte[10])).liftAccept();
+                stream.write(data, 1000, data.length - 1000);
+                stream.close();
+            }
+
+            final var decrypted = new ByteArrayOutputStream();
+            registry.apply("tenant-1", aes -> aes.decrypt(new ByteArrayInputStream(encrypted.toByteArray()), decrypted, aad)).liftAccept();
+            assertArrayEquals(data, decrypted.toByteArray());
+        }
+    }
+
+    @Test
+    void should_be_shared_across_threads() throws Exception {
+        final var executor = Executors.newFixedThreadPool(8);
+        try (var registry = AESFactory.aesRegistry(secrets, evictAfter(16, Duration.ofMinutes(1)))) {
+            final var futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < 2000; i++) {
+                final var tenant = "tenant-" + i % 32;
+                futures.add(executor.submit(() -> {
+                    final var data = randomAlphabetic(100).getBytes(UTF_8);
+                    final var encrypted = registry.apply(tenant, aes -> aes.encrypt(data)).liftAccept();
+                    assertArrayEquals(data, registry.apply(tenant, aes -> aes.decrypt(encrypted)).liftAccept());
+                }));
+            }
+            for (final var future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            assertTrue(registry.size() <= 16);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void should_reject_operations_after_close() {
+        final var registry = AESFactory.aesRegistry(secrets, DEFAULT_REGISTRY_POLICY);
+        final var borrowed = registry.borrow("tenant-1").liftAccept();
+
+        registry.close();
+
+        assertEquals(SECRET_DESTROYED, registry.apply("tenant-1", aes -> aes.encrypt(new byte[10])).liftReject());
+        assertEquals(SECRET_DESTROYED, registry.borrow("tenant-2").liftReject());
+        borrowed.encrypt(new byte[10]).liftAccept();
+        borrowed.close();
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void should_not_accept_invalid_arguments() {
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.aesRegistry(null, DEFAULT_REGISTRY_POLICY));
+        assertThrows(IllegalArgumentException.class, () -> evictAfter(0, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> evictAfter(1, Duration.ZERO));
+        try (var registry = AESFactory.aesRegistry(secrets, DEFAULT_REGISTRY_POLICY)) {
+            assertThrows(IllegalArgumentException.class, () -> registry.borrow(null));
+            assertThrows(IllegalArgumentException.class, () -> registry.apply("tenant-1", null));
+        }
+    }
+}
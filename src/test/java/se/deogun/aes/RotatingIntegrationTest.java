@@ -0,0 +1,253 @@
+package se.deogun.aes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.api.AAD;
+import se.deogun.aes.api.Secret;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.ByteBuffers.buffer;
+import static se.deogun.aes.ByteBuffers.bytes;
+import static se.deogun.aes.api.RejectReason.SECRET_DESTROYED;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+import static se.deogun.aes.api.RejectReason.UNKNOWN_KEY;
+import static se.deogun.aes.api.RotationPolicy.DEFAULT_ROTATION_POLICY;
+import static se.deogun.aes.api.RotationPolicy.rotateAfter;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class RotatingIntegrationTest {
+    private final AtomicInteger supplied = new AtomicInteger();
+    private final Supplier<Secret> secrets = () -> {
+        supplied.incrementAndGet();
+        return secretFromBase64EncodedKey(base64EncodedKey());
+    };
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 100000})
+    void should_encrypt_decrypt(final int size) throws IOException {
+        final var aad = new AAD(randomAlphanumeric(100));
+        final var data = randomAlphabetic(size).getBytes(UTF_8);
+        final var aes = AESFactory.aesRotating(secrets, DEFAULT_ROTATION_POLICY);
+
+        assertArrayEquals(data, aes.decrypt(aes.encrypt(data, aad).liftAccept(), aad).liftAccept());
+
+        final var encrypted = new ByteArrayOutputStream();
+        final var decrypted = new ByteArrayOutputStream();
+        aes.encrypt(new ByteArrayInputStream(data), encrypted, aad).liftAccept();
+        aes.decrypt(new ByteArrayInputStream(encrypted.toByteArray()), decrypted, aad).liftAccept();
+        assertArrayEquals(data, decrypted.toByteArray());
+
+        final var streamed = new ByteArrayOutputStream();
+        try (var stream = aes.encryptingStream(streamed, aad).liftAccept()) {
+            stream.write(data);
+        }
+        try (var stream = aes.decryptingStream(new ByteArrayInputStream(streamed.toByteArray()), aad).liftAccept()) {
+            assertArrayEquals(data, stream.readAllBytes());
+        }
+
+        final var written = new ByteArrayOutputStream();
+        aes.encrypt(data, written, aad).liftAccept();
+        assertArrayEquals(data, aes.decrypt(new ByteArrayInputStream(written.toByteArray()), aad).liftAccept());
+        assertEquals(1, supplied.get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void should_support_byte_buffers(final boolean direct) {
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+        final var aes = AESFactory.aesRotating(secrets, DEFAULT_ROTATION_POLICY);
+        final var source = buffer(direct, data.length).put(data).flip();
+        final var encrypted = buffer(direct, aes.maxEncryptedSize(data.length));
+        final var decrypted = buffer(direct, data.length);
+
+        aes.encrypt(source, encrypted).liftAccept();
+        aes.decrypt(encrypted.flip(), decrypted).liftAccept();
+
+        assertFalse(encrypted.hasRemaining());
+        assertEquals(ByteBuffer.wrap(data), decrypted.flip());
+    }
+
+    @Test
+    void should_encrypt_decrypt_files(@TempDir final Path directory) throws IOException {
+        final var data = randomAlphabetic(100000).getBytes(UTF_8);
+        final var plainText = Files.write(directory.resolve("plain"), data);
+        final var encrypted = directory.resolve("encrypted");
+        final var decrypted = directory.resolve("decrypted");
+        final var aes = AESFactory.aesRotating(secrets, DEFAULT_ROTATION_POLICY);
+
+        final var size = aes.encryptFile(plainText, encrypted, new AAD("aad")).liftAccept();
+
+        assertEquals(Files.size(encrypted), size);
+        assertEquals(0, ByteBuffer.wrap(Files.readAllBytes(encrypted)).getInt());
+        assertEquals(data.length, aes.decryptFile(encrypted, decrypted, new AAD("aad")).liftAccept());
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decryptFile(encrypted, decrypted, new AAD("other")).liftReject());
+        assertEquals(0, Files.size(decrypted));
+    }
+
+    @Test
+    void should_rotate_after_max_messages_and_decrypt_with_retained_keys() {
+        final var aes = AESFactory.aesRotating(secrets, rotateAfter(3, Long.MAX_VALUE, 3));
+        final var data = new ArrayList<byte[]>();
+        final var encrypted = new ArrayList<byte[]>();
+        for (int i = 0; i < 12; i++) {
+            data.add(randomAlphanumeric(100).getBytes(UTF_8));
+            encrypted.add(aes.encrypt(data.get(i)).liftAccept());
+        }
+
+        assertEquals(4, supplied.get());
+        for (int i = 0; i < 12; i++) {
+            assertEquals(i / 3, ByteBuffer.wrap(encrypted.get(i)).getInt());
+            if (i < 3) {
+                assertEquals(UNKNOWN_KEY, aes.decrypt(encrypted.get(i)).liftReject());
+            } else {
+                assertArrayEquals(data.get(i), aes.decrypt(encrypted.get(i)).liftAccept());
+            }
+        }
+    }
+
+    @Test
+    void should_rotate_after_max_bytes() throws IOException {
+        final var aes = AESFactory.aesRotating(secrets, rotateAfter(Long.MAX_VALUE, 1000, 2));
+
+        aes.encrypt(new byte[600]).liftAccept();
+        aes.encrypt(new byte[400]).liftAccept();
+        assertEquals(1, supplied.get());
+
+        try (var stream = aes.encryptingStream(new ByteArrayOutputStream()).liftAccept()) {
+            stream.write(new byte[1]);
+        }
+        assertEquals(2, supplied.get());
+        aes.encrypt(new byte[2000]).liftAccept();
+        assertEquals(3, supplied.get());
+    }
+
+    @Test
+    void should_decrypt_batch_encrypted_with_different_keys() {
+        final var aes = AESFactory.aesRotating(secrets, rotateAfter(4, Long.MAX_VALUE, 4));
+        final var data = new ArrayList<byte[]>();
+        final var aad = new ArrayList<AAD>();
+        final var encrypted = new ArrayList<byte[]>();
+        for (int i = 0; i < 9; i++) {
+            data.add(randomAlphanumeric(i * 10).getBytes(UTF_8));
+            aad.add(new AAD(randomAlphanumeric(10)));
+            encrypted.add(aes.encrypt(data.get(i), aad.get(i)).liftAccept());
+        }
+        encrypted.add(new byte[2]);
+        aad.add(new AAD("aad"));
+        final var batch = aes.encryptAll(data.subList(0, 4), aad.subList(0, 4)).liftAccept();
+
+        final var decrypted = aes.decryptAll(encrypted, aad).liftAccept();
+
+        for (int i = 0; i < 9; i++) {
+            assertArrayEquals(data.get(i), bytes(decrypted.result(i).liftAccept()));
+        }
+        assertEquals(UNABLE_TO_DECRYPT_DATA, decrypted.result(9).liftReject());
+        for (int i = 0; i < batch.size(); i++) {
+            final var item = bytes(batch.result(i).liftAccept());
+            assertEquals(3, ByteBuffer.wrap(item).getInt());
+            assertArrayEquals(data.get(i), aes.decrypt(item, aad.get(i)).liftAccept());
+        }
+    }
+
+    @Test
+    void should_reject_data_of_other_key() {
+        final var aes = AESFactory.aesRotating(secrets, DEFAULT_ROTATION_POLICY);
+        final var encrypted = aes.encrypt(new byte[100]).liftAccept();
+        encrypted[3] = 1;
+
+        assertEquals(UNKNOWN_KEY, aes.decrypt(encrypted).liftReject());
+        assertEquals(UNABLE_TO_DECRYPT_DATA, aes.decrypt(new byte[3]).liftReject());
+    }
+
+    @Test
+    void should_rotate_keys_of_other_modes() {
+        final var aes = AESFactory.aesRotating(secrets, rotateAfter(1, Long.MAX_VALUE, 2), AESFactory::aesCBC);
+        final var data = randomAlphanumeric(1000).getBytes(UTF_8);
+
+        final var encrypted = aes.encrypt(data).liftAccept();
+
+        assertArrayEquals(data, aes.decrypt(encrypted).liftAccept());
+        assertArrayEquals(data, aes.decrypt(aes.encrypt(data).liftAccept()).liftAccept());
+        assertEquals(2, supplied.get());
+    }
+
+    @Test
+    void should_encrypt_concurrently_while_rotating() throws InterruptedException {
+        final var aes = AESFactory.aesRotating(secrets, rotateAfter(50, Long.MAX_VALUE, 1000));
+        final var encrypted = new ConcurrentLinkedQueue<byte[]>();
+        final var data = randomAlphanumeric(100).getBytes(UTF_8);
+        final var executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < 500; j++) {
+                    encrypted.add(aes.encrypt(data).liftAccept());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(4000, encrypted.size());
+        assertTrue(supplied.get() >= 4000 / 50 / 2);
+        for (final var item : encrypted) {
+            assertArrayEquals(data, aes.decrypt(item).liftAccept());
+        }
+    }
+
+    @Test
+    void should_finish_stream_of_retired_key() throws IOException {
+        final var aes = AESFactory.aesRotating(secrets, rotateAfter(1, Long.MAX_VALUE, 2));
+        final var data = randomAlphabetic(100000).getBytes(UTF_8);
+        final var encrypted = new ByteArrayOutputStream();
+
+        try (var stream = aes.encryptingStream(encrypted).liftAccept()) {
+            stream.write(data, 0, 1000);
+            aes.encrypt(data).liftAccept();
+            aes.encrypt(data).liftAccept();
+            stream.write(data, 1000, data.length - 1000);
+        }
+
+        assertEquals(3, supplied.get());
+        assertEquals(UNKNOWN_KEY, aes.decrypt(encrypted.toByteArray()).liftReject());
+    }
+
+    @Test
+    void should_reject_operations_after_close() {
+        final var aes = AESFactory.aesRotating(secrets, DEFAULT_ROTATION_POLICY);
+        final var encrypted = aes.encrypt(new byte[10]).liftAccept();
+
+        aes.close();
+
+        assertEquals(SECRET_DESTROYED, aes.encrypt(new byte[10]).liftReject());
+        assertEquals(SECRET_DESTROYED, aes.decrypt(encrypted).liftReject());
+    }
+
+    @Test
+    void should_require_valid_policy() {
+        assertThrows(IllegalArgumentException.class, () -> rotateAfter(0, 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> rotateAfter(1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> AESFactory.aesRotating(null, DEFAULT_ROTATION_POLICY));
+    }
+}
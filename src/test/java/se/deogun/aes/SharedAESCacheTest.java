@@ -0,0 +1,102 @@
+package se.deogun.aes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.api.Secret.secretFromBase64EncodedKey;
+import static se.deogun.aes.modes.common.SecretKeyFactory.base64EncodedKey;
+
+class SharedAESCacheTest {
+    @Test
+    void should_evict_least_recently_used() {
+        final var evictions = new AtomicInteger();
+        final var cache = new SharedAESCache<String>(2, SharedAESCache.FOREVER, evictions::incrementAndGet);
+        final var first = shared();
+        final var second = shared();
+
+        cache.load("first", first, SharedAESCache.FOREVER).release();
+        cache.load("second", second, SharedAESCache.FOREVER).release();
+        cache.acquire("first").release();
+        cache.load("third", shared(), SharedAESCache.FOREVER).release();
+
+        assertEquals(2, cache.size());
+        assertEquals(1, evictions.get());
+        assertNull(cache.acquire("second"));
+        assertFalse(second.acquire());
+        assertTrue(first.acquire());
+    }
+
+    @Test
+    void should_evict_expired() throws InterruptedException {
+        final var cache = new SharedAESCache<String>(10, 50_000_000, () -> {});
+
+        cache.load("idle", shared(), SharedAESCache.FOREVER).release();
+        cache.load("expired", shared(), 0).release();
+
+        assertNull(cache.acquire("expired"));
+        Thread.sleep(100);
+        assertNull(cache.acquire("idle"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void should_evict_idle_when_inserting() throws InterruptedException {
+        final var evictions = new AtomicInteger();
+        final var cache = new SharedAESCache<String>(10, 50_000_000, evictions::incrementAndGet);
+        final var idle = shared();
+
+        cache.load("idle", idle, SharedAESCache.FOREVER).release();
+        Thread.sleep(100);
+        cache.load("used", shared(), SharedAESCache.FOREVER).release();
+
+        assertEquals(1, cache.size());
+        assertEquals(1, evictions.get());
+        assertFalse(idle.acquire());
+    }
+
+    @Test
+    void should_use_one_instance_of_concurrently_loaded_key() {
+        final var cache = new SharedAESCache<String>(10, SharedAESCache.FOREVER, () -> {});
+        final var start = new CountDownLatch(1);
+        final var loads = new ArrayList<CompletableFuture<SharedAES>>();
+        for (int i = 0; i < 8; i++) {
+            loads.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return cache.load("key", shared(), SharedAESCache.FOREVER);
+            }));
+        }
+        start.countDown();
+
+        final var loaded = loads.stream().map(CompletableFuture::join).distinct().toList();
+
+        assertEquals(1, loaded.size());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void should_release_services_when_closed() {
+        final var cache = new SharedAESCache<String>(10, SharedAESCache.FOREVER, () -> {});
+        final var shared = shared();
+        cache.load("key", shared, SharedAESCache.FOREVER).release();
+
+        assertTrue(cache.close());
+        assertFalse(cache.close());
+
+        assertFalse(shared.acquire());
+        assertNull(cache.load("other", shared(), SharedAESCache.FOREVER));
+        assertEquals(0, cache.size());
+    }
+
+    private static SharedAES shared() {
+        return new SharedAES(AESFactory.aesGCM(secretFromBase64EncodedKey(base64EncodedKey())));
+    }
+}
@@ -0,0 +1,118 @@
+package se.deogun.aes.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.api.AADBuilder.aadBuilder;
+
+class AADBuilderTest {
+    @Test
+    void should_length_prefix_typed_fields() {
+        final var aad = aadBuilder().add("tå").add(new byte[]{7}).add(42).add(1L).build();
+
+        final var expected = ByteBuffer.allocate(100)
+                .put((byte) 2).putInt(3).put("tå".getBytes(UTF_8))
+                .put((byte) 1).putInt(1).put((byte) 7)
+                .put((byte) 3).putInt(42)
+                .put((byte) 4).putLong(1)
+                .flip();
+        assertEquals(expected, aad.bytes());
+        assertNull(aad.value);
+    }
+
+    @Test
+    void should_not_give_same_aad_for_different_fields() {
+        assertNotEquals(aadBuilder().add("a").add("bc").build().bytes(), aadBuilder().add("ab").add("c").build().bytes());
+        assertNotEquals(aadBuilder().add(1).build().bytes(), aadBuilder().add(1L).build().bytes());
+        assertNotEquals(aadBuilder().add("a").build().bytes(), aadBuilder().add(new byte[]{'a'}).build().bytes());
+    }
+
+    @Test
+    void should_append_fields_to_prefix() {
+        final var prefix = aadBuilder().add("tenant").add("table").build();
+
+        final var aad = aadBuilder(prefix).add(17L).build();
+
+        assertEquals(aadBuilder().add("tenant").add("table").add(17L).build().bytes(), aad.bytes());
+        assertEquals(aadBuilder().add("tenant").add("table").build().bytes(), prefix.bytes());
+    }
+
+    @Test
+    void should_support_nested_builders_on_same_thread() {
+        final var outer = aadBuilder().add("outer");
+        final var inner = aadBuilder().add("inner").build();
+
+        assertEquals(aadBuilder().add("outer").build().bytes(), outer.build().bytes());
+        assertEquals(aadBuilder().add("inner").build().bytes(), inner.bytes());
+    }
+
+    @Test
+    void should_leave_buffer_position_unchanged() {
+        final var buffer = ByteBuffer.wrap(new byte[]{1, 2, 3}).position(1);
+
+        aadBuilder().add(buffer).build();
+
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    void should_reject_invalid_input() {
+        assertThrows(IllegalArgumentException.class, () -> aadBuilder().build());
+        assertThrows(IllegalArgumentException.class, () -> aadBuilder().add((String) null));
+        assertThrows(IllegalArgumentException.class, () -> aadBuilder().add(new byte[8192]));
+        assertThrows(IllegalArgumentException.class, () -> aadBuilder().add("x".repeat(8188)));
+        assertThrows(IllegalArgumentException.class, () -> aadBuilder().add("\uD800"));
+        assertDoesNotThrow(() -> aadBuilder().add("x".repeat(8187)).build());
+    }
+
+    @Test
+    void should_release_builder_that_rejected_a_field() {
+        final var overflowed = aadBuilder().add(1);
+        assertThrows(IllegalArgumentException.class, () -> overflowed.add(new byte[8192]));
+        assertThrows(IllegalStateException.class, () -> overflowed.add(2));
+        assertThrows(IllegalStateException.class, overflowed::build);
+
+        final var malformed = aadBuilder();
+        assertThrows(IllegalArgumentException.class, () -> malformed.add("\uD800"));
+        assertThrows(IllegalStateException.class, malformed::build);
+
+        assertEquals(aadBuilder().add(1).build().bytes(), aadBuilder().add(1).build().bytes());
+    }
+
+    @Test
+    void should_keep_pooling_after_abandoned_builder() {
+        aadBuilder().add(1);
+        aadBuilder().add(2).build();
+
+        final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final var before = threads.getCurrentThreadAllocatedBytes();
+        aadBuilder().add(3).build();
+
+        assertTrue(threads.getCurrentThreadAllocatedBytes() - before < AAD.MAX_NUMBER_OF_BYTES);
+    }
+
+    @Test
+    void should_not_be_used_after_close() {
+        final var builder = aadBuilder().add(1);
+        try (builder) {
+            builder.add(2);
+        }
+
+        assertThrows(IllegalStateException.class, () -> builder.add(3));
+        assertThrows(IllegalStateException.class, builder::build);
+        assertDoesNotThrow(builder::close);
+    }
+
+    @Test
+    void should_not_be_reused_after_build() {
+        final var builder = aadBuilder().add(1);
+        builder.build();
+
+        assertThrows(IllegalStateException.class, () -> builder.add(2));
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+}
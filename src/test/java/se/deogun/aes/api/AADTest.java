@@ -0,0 +1,60 @@
+package se.deogun.aes.api;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AADTest {
+    @Test
+    void should_encode_text_as_utf8() {
+        final var aad = new AAD("åäö");
+
+        assertEquals("åäö", aad.value);
+        assertEquals(ByteBuffer.wrap("åäö".getBytes(UTF_8)), aad.bytes());
+    }
+
+    @Test
+    void should_copy_bytes() {
+        final var bytes = new byte[]{1, 2, 3};
+        final var buffer = ByteBuffer.wrap(new byte[]{0, 1, 2, 3}).position(1);
+        final var fromBytes = new AAD(bytes);
+        final var fromBuffer = new AAD(buffer);
+        bytes[0] = 0;
+        buffer.put(1, (byte) 0);
+
+        assertNull(fromBytes.value);
+        assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3}), fromBytes.bytes());
+        assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3}), fromBuffer.bytes());
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    void should_not_allow_modification() {
+        final var aad = new AAD(new byte[]{1, 2, 3});
+        final var bytes = aad.bytes();
+        bytes.get();
+
+        assertThrows(ReadOnlyBufferException.class, () -> aad.bytes().put((byte) 0));
+        assertEquals(3, aad.bytes().remaining());
+    }
+
+    @Test
+    void should_not_accept_empty_aad() {
+        assertThrows(IllegalArgumentException.class, () -> new AAD(" "));
+        assertThrows(IllegalArgumentException.class, () -> new AAD(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> new AAD(ByteBuffer.allocate(0)));
+        assertThrows(IllegalArgumentException.class, () -> new AAD((byte[]) null));
+    }
+
+    @Test
+    void should_hit_upper_bound() {
+        assertDoesNotThrow(() -> new AAD(new byte[8192]));
+        assertThrows(IllegalArgumentException.class, () -> new AAD(new byte[8193]));
+        assertThrows(IllegalArgumentException.class, () -> new AAD(StringUtils.repeat("å", 4097)));
+    }
+}
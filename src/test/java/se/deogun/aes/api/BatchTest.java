@@ -0,0 +1,57 @@
+package se.deogun.aes.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ReadOnlyBufferException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.api.RejectReason.UNABLE_TO_DECRYPT_DATA;
+
+class BatchTest {
+    static final byte[] BUFFER = {1, 2, 3, 4, 5};
+
+    @Test
+    void should_give_item_results() {
+        final var batch = new Batch(BUFFER, new int[]{0, 2, 2, 5}, new RejectReason[]{null, UNABLE_TO_DECRYPT_DATA, null});
+
+        assertEquals(3, batch.size());
+        assertTrue(batch.isAccept(0));
+        assertFalse(batch.isAccept(1));
+        assertEquals(2, batch.offset(2));
+        assertEquals(3, batch.length(2));
+        assertEquals(UNABLE_TO_DECRYPT_DATA, batch.result(1).liftReject());
+        assertEquals(3, batch.result(2).liftAccept().get(0));
+    }
+
+    @Test
+    void should_not_allow_modification_of_buffer() {
+        final var batch = new Batch(BUFFER, new int[]{0, 5}, new RejectReason[]{null});
+
+        assertThrows(ReadOnlyBufferException.class, () -> batch.result(0).liftAccept().put((byte) 0));
+        assertThrows(ReadOnlyBufferException.class, () -> batch.buffer().put((byte) 0));
+    }
+
+    @Test
+    void should_not_be_modified_through_provided_arrays() {
+        final var buffer = BUFFER.clone();
+        final var offsets = new int[]{0, 2, 5};
+        final var rejects = new RejectReason[]{null, null};
+        final var batch = new Batch(buffer, offsets, rejects);
+
+        buffer[0] = 0;
+        offsets[1] = 5;
+        rejects[0] = UNABLE_TO_DECRYPT_DATA;
+
+        assertTrue(batch.isAccept(0));
+        assertEquals(2, batch.length(0));
+        assertEquals(1, batch.result(0).liftAccept().get(0));
+    }
+
+    @Test
+    void should_not_accept_invalid_index() {
+        assertThrows(IllegalArgumentException.class, () -> new Batch(BUFFER, new int[]{0, 6}, new RejectReason[]{null}));
+        assertThrows(IllegalArgumentException.class, () -> new Batch(BUFFER, new int[]{2, 1}, new RejectReason[]{null}));
+        assertThrows(IllegalArgumentException.class, () -> new Batch(BUFFER, new int[]{0, 1}, new RejectReason[]{UNABLE_TO_DECRYPT_DATA}));
+        assertThrows(IllegalArgumentException.class, () -> new Batch(BUFFER, new int[]{0}, new RejectReason[]{null}));
+    }
+}
@@ -0,0 +1,90 @@
+package se.deogun.aes.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeflateCodecTest {
+    private static final byte[] DATA = "compressible ".repeat(1000).getBytes(UTF_8);
+
+    @Test
+    void should_compress_and_decompress() throws IOException {
+        final var compressed = compress(DeflateCodec.DEFAULT_DEFLATE);
+
+        assertTrue(compressed.length < DATA.length / 10);
+        assertArrayEquals(DATA, decompress(DeflateCodec.DEFAULT_DEFLATE, compressed));
+    }
+
+    @Test
+    void should_reuse_instances_after_close() throws IOException {
+        final var codec = DeflateCodec.deflate(6);
+        final var first = compress(codec);
+
+        assertArrayEquals(first, compress(codec));
+        assertArrayEquals(DATA, decompress(codec, first));
+        assertArrayEquals(DATA, decompress(codec, first));
+    }
+
+    @Test
+    void should_support_streams_open_at_the_same_time() throws IOException {
+        final var codec = DeflateCodec.DEFAULT_DEFLATE;
+        final var first = new ByteArrayOutputStream();
+        final var second = new ByteArrayOutputStream();
+
+        try (var outer = codec.compressing(first); var inner = codec.compressing(second)) {
+            outer.write(DATA);
+            inner.write(DATA, 0, 100);
+        }
+
+        assertArrayEquals(DATA, decompress(codec, first.toByteArray()));
+        try (var outer = codec.decompressing(new ByteArrayInputStream(first.toByteArray()));
+             var inner = codec.decompressing(new ByteArrayInputStream(second.toByteArray()))) {
+            assertEquals(100, inner.readAllBytes().length);
+            assertArrayEquals(DATA, outer.readAllBytes());
+        }
+    }
+
+    @Test
+    void should_recover_instances_of_failed_and_abandoned_streams() throws IOException {
+        final var codec = DeflateCodec.deflate(6);
+        final var first = compress(codec);
+
+        assertThrows(NullPointerException.class, () -> codec.compressing(null));
+        assertThrows(NullPointerException.class, () -> codec.decompressing(null));
+        codec.compressing(new ByteArrayOutputStream()).write(DATA);
+        codec.decompressing(new ByteArrayInputStream(first)).read();
+
+        assertArrayEquals(first, compress(codec));
+        assertArrayEquals(DATA, decompress(codec, first));
+    }
+
+    @Test
+    void should_fail_on_corrupt_data() {
+        assertThrows(IOException.class, () -> decompress(DeflateCodec.DEFAULT_DEFLATE, new byte[]{-1, -1, -1, -1}));
+    }
+
+    @Test
+    void should_validate_level() {
+        assertThrows(IllegalArgumentException.class, () -> DeflateCodec.deflate(0));
+        assertThrows(IllegalArgumentException.class, () -> DeflateCodec.deflate(10));
+    }
+
+    private static byte[] compress(final Codec codec) throws IOException {
+        final var compressed = new ByteArrayOutputStream();
+        try (var compressing = codec.compressing(compressed)) {
+            compressing.write(DATA);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] decompress(final Codec codec, final byte[] compressed) throws IOException {
+        try (var decompressing = codec.decompressing(new ByteArrayInputStream(compressed))) {
+            return decompressing.readAllBytes();
+        }
+    }
+}
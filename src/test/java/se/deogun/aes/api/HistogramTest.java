@@ -0,0 +1,87 @@
+package se.deogun.aes.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+    @Test
+    void should_be_empty() {
+        final var histogram = new Histogram();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.max());
+        assertEquals(0, histogram.mean());
+        assertEquals(0, histogram.valueAtPercentile(99));
+    }
+
+    @Test
+    void should_record_small_values_exactly() {
+        final var histogram = new Histogram();
+        for (int i = 0; i < 8; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(8, histogram.count());
+        assertEquals(7, histogram.max());
+        assertEquals(3.5, histogram.mean());
+        assertEquals(0, histogram.valueAtPercentile(0));
+        assertEquals(3, histogram.valueAtPercentile(50));
+        assertEquals(7, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    void should_bound_relative_error_of_percentiles() {
+        final var histogram = new Histogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value);
+        }
+
+        for (final var percentile : new double[]{50, 90, 99, 99.9}) {
+            final var exact = (long) (percentile / 100 * 1_000_000);
+            final var value = histogram.valueAtPercentile(percentile);
+            assertTrue(value >= exact && value <= exact * 1.125, percentile + ": " + value);
+        }
+        assertEquals(1_000_000, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    void should_record_extreme_values() {
+        final var histogram = new Histogram();
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.valueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    void should_record_concurrently() throws InterruptedException {
+        final var histogram = new Histogram();
+        final var executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> {
+                for (int value = 0; value < 100000; value++) {
+                    histogram.record(value);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(400000, histogram.count());
+        assertEquals(99999, histogram.max());
+    }
+
+    @Test
+    void should_not_accept_invalid_percentile() {
+        final var histogram = new Histogram();
+
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(-1));
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(101));
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(Double.NaN));
+    }
+}
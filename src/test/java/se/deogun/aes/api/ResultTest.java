@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.NoSuchElementException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static se.deogun.aes.api.RejectReason.GCM_INVALID_TAG;
@@ -101,4 +102,36 @@ class ResultTest {
 
         assertEquals(EXCEPTION, result.liftFailure());
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_reuse_rejects() {
+        assertSame(Result.reject(GCM_INVALID_TAG), Result.reject(GCM_INVALID_TAG));
+        assertNotSame(Result.reject(42), Result.reject(42));
+    }
+
+    @Test
+    void should_map_reject() {
+        final Result<RuntimeException, byte[], Integer> result = Result.reject(42);
+        final Result<RuntimeException, byte[], Integer> accepted = Result.accept(DATA);
+
+        assertEquals("42", result.mapReject(String::valueOf).liftReject());
+        assertSame(accepted, accepted.mapReject(String::valueOf));
+    }
+
+    @Test
+    void should_map_failure() {
+        final Result<RuntimeException, byte[], Integer> result = Result.failure(EXCEPTION);
+        final Result<RuntimeException, byte[], Integer> rejected = Result.reject(42);
+
+        assertInstanceOf(IOException.class, result.mapFailure(IOException::new).liftFailure());
+        assertSame(rejected, rejected.mapFailure(IOException::new));
+    }
+
+    @Test
+    void should_not_lift_other_variants() {
+        final Result<RuntimeException, byte[], Object> result = Result.reject(GCM_INVALID_TAG);
+
+        assertThrows(NoSuchElementException.class, result::liftAccept);
+        assertThrows(NoSuchElementException.class, result::liftFailure);
+    }
+}
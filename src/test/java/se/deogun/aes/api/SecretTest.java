@@ -34,6 +34,16 @@ class SecretTest {
         assertDoesNotThrow(() -> secretFromNonBase64EncodedKey(new String(key())));
     }
 
+    @Test
+    void should_zeroize_key_when_destroyed() {
+        final var secret = secretFromNonBase64EncodedKey(key());
+
+        secret.destroy();
+
+        assertTrue(secret.isDestroyed());
+        assertThrows(IllegalStateException.class, secret::key);
+    }
+
     @Test
     void should_contain_key() {
         final var key = key();
@@ -0,0 +1,115 @@
+package se.deogun.aes.modes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.modes.common.AAD;
+import se.deogun.aes.modes.common.CipherPool;
+import se.deogun.aes.modes.common.DRBGInitVectorGenerator;
+import se.deogun.aes.modes.common.InternalValidationFailure;
+import se.deogun.aes.modes.common.Secret;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.modes.common.SecretKeyFactory.key;
+
+class ClearTest {
+    private static final DRBGInitVectorGenerator GENERATOR = new DRBGInitVectorGenerator();
+
+    @Test
+    void should_not_keep_gcm_ciphers_once_cleared() throws IOException {
+        final var pool = new CipherPool("AES/GCM/NoPadding", 4);
+        final var gcm = new GCM(16 * 1024, GENERATOR, pool);
+        final var secret = new Secret(key());
+        gcm.encrypt(new byte[100], secret, new AAD("aad")).liftAccept();
+        assertEquals(1, pool.size());
+        final var stream = gcm.encryptingStream(new ByteArrayOutputStream(), secret, new AAD("aad")).liftAccept();
+
+        secret.destroy();
+        gcm.clear();
+        stream.close();
+
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    void should_not_keep_cbc_ciphers_once_cleared() {
+        final var pool = new CipherPool("AES/CBC/PKCS5Padding", 4);
+        final var cbc = new CBC(16 * 1024, GENERATOR, pool);
+        final var secret = new Secret(key());
+        cbc.decrypt(cbc.encrypt(new byte[100], secret).liftAccept(), secret).liftAccept();
+        assertEquals(1, pool.size());
+
+        secret.destroy();
+        cbc.clear();
+
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    void should_return_cbc_stream_ciphers_when_closed() throws IOException {
+        final var pool = new CipherPool("AES/CBC/PKCS5Padding", 4);
+        final var cbc = new CBC(16 * 1024, GENERATOR, pool);
+        final var secret = new Secret(key());
+        final var encrypted = new ByteArrayOutputStream();
+        try (var stream = cbc.encryptingStream(encrypted, secret).liftAccept()) {
+            stream.write(new byte[100]);
+            assertEquals(0, pool.size());
+        }
+        assertEquals(1, pool.size());
+
+        try (var stream = cbc.decryptingStream(new ByteArrayInputStream(encrypted.toByteArray()), secret).liftAccept()) {
+            assertEquals(100, stream.readAllBytes().length);
+            assertEquals(0, pool.size());
+        }
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    void should_not_keep_cbc_stream_ciphers_once_cleared() throws IOException {
+        final var pool = new CipherPool("AES/CBC/PKCS5Padding", 4);
+        final var cbc = new CBC(16 * 1024, GENERATOR, pool);
+        final var secret = new Secret(key());
+        final var stream = cbc.encryptingStream(new ByteArrayOutputStream(), secret).liftAccept();
+
+        secret.destroy();
+        cbc.clear();
+        stream.close();
+
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    void should_not_keep_ctr_ciphers_once_cleared() {
+        final var pool = new CipherPool("AES/CTR/NoPadding", 4);
+        final var ctr = new CTR(16 * 1024, GENERATOR, pool);
+        final var secret = new Secret(key());
+        ctr.encrypt(new byte[100], secret, new AAD("aad")).liftAccept();
+        assertEquals(1, pool.size());
+
+        secret.destroy();
+        ctr.clear();
+
+        assertEquals(0, pool.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SegmentedCTR.MIN_SEGMENT_SIZE, SegmentedCTR.MAX_SEGMENT_SIZE})
+    void should_encrypt_decrypt_ctr_at_segment_size_bounds(final int segmentSize) {
+        final var ctr = ModeFactory.ctr(mode -> mode, segmentSize, GENERATOR);
+        final var secret = new Secret(key());
+        final var data = new byte[3 * SegmentedCTR.MIN_SEGMENT_SIZE + 1];
+
+        assertArrayEquals(data, ctr.decrypt(ctr.encrypt(data, secret, new AAD("aad")).liftAccept(), secret, new AAD("aad")).liftAccept());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {SegmentedCTR.MIN_SEGMENT_SIZE - 1, SegmentedCTR.MAX_SEGMENT_SIZE + 1})
+    void should_not_create_ctr_outside_segment_size_bounds(final int segmentSize) {
+        assertThrows(InternalValidationFailure.class, () -> ModeFactory.ctr(mode -> mode, segmentSize, GENERATOR));
+        assertThrows(InternalValidationFailure.class, () -> new CTR(segmentSize, GENERATOR));
+    }
+}
@@ -3,8 +3,10 @@ package se.deogun.aes.modes;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import se.deogun.aes.modes.common.AAD;
+import se.deogun.aes.modes.common.DRBGInitVectorGenerator;
+import se.deogun.aes.modes.common.InitVectorGenerator;
 import se.deogun.aes.modes.common.InternalRejectReason;
-import se.deogun.aes.modes.common.Result;
+import se.deogun.aes.api.Result;
 import se.deogun.aes.modes.common.Secret;
 
 import java.io.ByteArrayInputStream;
@@ -21,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 import static se.deogun.aes.modes.common.SecretKeyFactory.key;
 
 public class EncryptDecryptTest {
+    private static final InitVectorGenerator GENERATOR = new DRBGInitVectorGenerator();
     private static final Map<String, Proxy> ALGORITHMS = Map.of(
             "GCM8", new GCMProxy(8 * 1024),
             "CBC8", new CBCProxy(8 * 1024),
@@ -109,21 +112,21 @@ public class EncryptDecryptTest {
 
         @Override
         public Result<Throwable, byte[], InternalRejectReason> encrypt(final byte[] plainText, final Secret secret, final AAD aad) {
-            return new GCM(decryptBufferLoadSize).encrypt(plainText, secret, aad);
+            return new GCM(decryptBufferLoadSize, GENERATOR).encrypt(plainText, secret, aad);
         }
 
         @Override
         public Result<Throwable, OutputStream, InternalRejectReason> encrypt(final byte[] plainText, final OutputStream outputStream, final Secret secret, final AAD aad) {
-            return new GCM(decryptBufferLoadSize).encrypt(plainText, outputStream, secret, aad);
+            return new GCM(decryptBufferLoadSize, GENERATOR).encrypt(plainText, outputStream, secret, aad);
         }
 
         public Result<Throwable, byte[], InternalRejectReason> decrypt(final byte[] encryptedData, final Secret secret, final AAD aad) {
-            return new GCM(decryptBufferLoadSize).decrypt(encryptedData, secret, aad);
+            return new GCM(decryptBufferLoadSize, GENERATOR).decrypt(encryptedData, secret, aad);
         }
 
         @Override
         public Result<Throwable, byte[], InternalRejectReason> decrypt(final InputStream inputStream, final Secret secret, final AAD aad) {
-            return new GCM(decryptBufferLoadSize).decrypt(inputStream, secret, aad);
+            return new GCM(decryptBufferLoadSize, GENERATOR).decrypt(inputStream, secret, aad);
         }
     }
 
@@ -136,21 +139,21 @@ public class EncryptDecryptTest {
 
         @Override
         public Result<Throwable, byte[], InternalRejectReason> encrypt(final byte[] plainText, final Secret secret, final AAD aad) {
-            return new CBC(decryptBufferLoadSize).encrypt(plainText, secret);
+            return new CBC(decryptBufferLoadSize, GENERATOR).encrypt(plainText, secret);
         }
 
         @Override
         public Result<Throwable, OutputStream, InternalRejectReason> encrypt(final byte[] plainText, final OutputStream outputStream, final Secret secret, final AAD aad) {
-            return new CBC(decryptBufferLoadSize).encrypt(plainText, outputStream, secret);
+            return new CBC(decryptBufferLoadSize, GENERATOR).encrypt(plainText, outputStream, secret);
         }
 
         public Result<Throwable, byte[], InternalRejectReason> decrypt(final byte[] encryptedData, final Secret secret, final AAD aad) {
-            return new CBC(decryptBufferLoadSize).decrypt(encryptedData, secret);
+            return new CBC(decryptBufferLoadSize, GENERATOR).decrypt(encryptedData, secret);
         }
 
         @Override
         public Result<Throwable, byte[], InternalRejectReason> decrypt(final InputStream inputStream, final Secret secret, final AAD aad) {
-            return new CBC(decryptBufferLoadSize).decrypt(inputStream, secret);
+            return new CBC(decryptBufferLoadSize, GENERATOR).decrypt(inputStream, secret);
         }
     }
 }
@@ -0,0 +1,102 @@
+package se.deogun.aes.modes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.modes.common.DRBGInitVectorGenerator;
+import se.deogun.aes.modes.common.Secret;
+
+import javax.crypto.Cipher;
+import java.nio.ByteBuffer;
+import java.util.HexFormat;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.modes.common.AAD.NO_AAD;
+import static se.deogun.aes.modes.common.SecretKeyFactory.key;
+
+/**
+ * Test vectors from RFC 8452, appendix A and C
+ */
+class GCMSIVTest {
+    private static final HexFormat HEX = HexFormat.of();
+    private static final String NONCE = "030000000000000000000000";
+
+    @Test
+    void should_compute_polyval() {
+        final var polyval = new Polyval(HEX.parseHex("25629347589242761d31f826ba4b757b"));
+
+        polyval.update(HEX.parseHex("4f4f95668c83dfb6401762bb2d01a262d1a24ddd2721d006bbe45f20d3c9f362"));
+
+        assertEquals("f7a3b47b846119fae5b7866cf5e5b77e", HEX.formatHex(polyval.digest()));
+    }
+
+    @Test
+    void should_compute_polyval_regardless_of_update_pattern() {
+        final var data = HEX.parseHex("4f4f95668c83dfb6401762bb2d01a262d1a24ddd2721d006bbe45f20d3c9f362");
+        final var polyval = new Polyval(HEX.parseHex("25629347589242761d31f826ba4b757b"));
+
+        for (final byte b : data) {
+            polyval.update(ByteBuffer.wrap(new byte[]{b}));
+        }
+
+        assertEquals("f7a3b47b846119fae5b7866cf5e5b77e", HEX.formatHex(polyval.digest()));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "01000000000000000000000000000000, '', '', dc20e2d83f25705bb49e439eca56de25",
+            "01000000000000000000000000000000, '', 0100000000000000, b5d839330ac7b786578782fff6013b815b287c22493a364c",
+            "01000000000000000000000000000000, 01, 0200000000000000, 1e6daba35669f4273b0a1a2560969cdf790d99759abd1508",
+            "0100000000000000000000000000000000000000000000000000000000000000, '', '', 07f5f4169bbf55a8400cd47ea6fd400f",
+            "0100000000000000000000000000000000000000000000000000000000000000, '', 0100000000000000, c2ef328e5c71c83b843122130f7364b761e0b97427e3df28"
+    })
+    void should_encrypt_according_to_test_vectors(final String key, final String aad, final String plainText, final String expected) throws Exception {
+        final var data = HEX.parseHex(plainText);
+        final var siv = SIV.derive(Cipher.getInstance("AES/ECB/NoPadding"), new Secret(HEX.parseHex(key)), HEX.parseHex(NONCE));
+        siv.aad(HEX.parseHex(aad));
+        siv.authenticate(ByteBuffer.wrap(data));
+        final var tag = siv.tag();
+        siv.start(tag);
+        final var encrypted = ByteBuffer.allocate(data.length + tag.length);
+        siv.crypt(ByteBuffer.wrap(data), encrypted);
+        encrypted.put(tag);
+
+        assertEquals(expected, HEX.formatHex(encrypted.array()));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "01000000000000000000000000000000, '', dc20e2d83f25705bb49e439eca56de25",
+            "01000000000000000000000000000000, 0100000000000000, b5d839330ac7b786578782fff6013b815b287c22493a364c",
+    })
+    void should_decrypt_test_vectors(final String key, final String plainText, final String encrypted) {
+        final var mode = new GCMSIV(new DRBGInitVectorGenerator());
+
+        final var decrypted = mode.decrypt(HEX.parseHex(NONCE + encrypted), new Secret(HEX.parseHex(key)), NO_AAD);
+
+        assertEquals(plainText, HEX.formatHex(decrypted.liftAccept()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 15, 16, 17, 4095, 4096, 4097, 100000})
+    void should_encrypt_and_decrypt(final int size) {
+        final var mode = new GCMSIV(new DRBGInitVectorGenerator());
+        final var secret = new Secret(key());
+        final var data = randomAlphabetic(size).getBytes(UTF_8);
+
+        final var encrypted = mode.encrypt(data, secret, NO_AAD).liftAccept();
+
+        assertEquals(mode.maxEncryptedSize(size), encrypted.length);
+        assertArrayEquals(data, mode.decrypt(encrypted, secret, NO_AAD).liftAccept());
+    }
+
+    @Test
+    void should_reject_keys_other_than_128_or_256_bits() {
+        final var mode = new GCMSIV(new DRBGInitVectorGenerator());
+
+        assertFalse(mode.encrypt(new byte[1], new Secret(new byte[24]), NO_AAD).isAccept());
+    }
+}
@@ -0,0 +1,173 @@
+package se.deogun.aes.modes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.deogun.aes.modes.common.AAD;
+import se.deogun.aes.modes.common.CipherPool;
+import se.deogun.aes.modes.common.DRBGInitVectorGenerator;
+import se.deogun.aes.modes.common.Secret;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.deogun.aes.modes.common.SecretKeyFactory.key;
+
+class SegmentedGCMTest {
+    private static final int SEGMENT_SIZE = 8 * 1024;
+    private static final int HEADER = SegmentedGCM.HEADER_NUMBER_OF_BYTES;
+    private static final int SEGMENT = SEGMENT_SIZE + SegmentedGCM.TAG_NUMBER_OF_BYTES;
+    private final GCM gcm = new GCM(SEGMENT_SIZE, new DRBGInitVectorGenerator());
+    private final Secret secret = new Secret(key());
+    private final AAD aad = new AAD("some aad");
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, SEGMENT_SIZE - 1, SEGMENT_SIZE, SEGMENT_SIZE + 1, 3 * SEGMENT_SIZE, 100000})
+    void should_encrypt_and_decrypt_stream(final int size) throws IOException {
+        final var data = randomAlphabetic(size).getBytes(UTF_8);
+
+        final var encrypted = encrypt(data);
+
+        assertEquals(HEADER + Math.max(1, (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE) * SegmentedGCM.TAG_NUMBER_OF_BYTES + size,
+                encrypted.length);
+        assertArrayEquals(data, decrypt(encrypted, aad));
+    }
+
+    @Test
+    void should_encrypt_decrypt_smallest_segments_in_parallel() {
+        final var pool = new ForkJoinPool(2);
+        try {
+            final var parallel = ModeFactory.parallelGCM(mode -> mode, SegmentedGCM.MIN_SEGMENT_SIZE, pool, new DRBGInitVectorGenerator());
+            final var data = randomAlphabetic(10 * SegmentedGCM.MIN_SEGMENT_SIZE + 3).getBytes(UTF_8);
+
+            final var encrypted = parallel.encrypt(data, secret, aad).liftAccept();
+
+            final var decrypted = new ByteArrayOutputStream();
+            gcm.decrypt(new ByteArrayInputStream(encrypted), decrypted, secret, aad).liftAccept();
+
+            assertArrayEquals(data, parallel.decrypt(new ByteArrayInputStream(encrypted), secret, aad).liftAccept());
+            assertArrayEquals(data, decrypted.toByteArray());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void should_produce_same_output_regardless_of_write_pattern() throws IOException {
+        final var data = randomAlphabetic(3 * SEGMENT_SIZE + 17).getBytes(UTF_8);
+        final var outputStream = new ByteArrayOutputStream();
+
+        try (var stream = gcm.encryptingStream(outputStream, secret, aad).liftAccept()) {
+            for (final byte b : data) {
+                stream.write(b);
+            }
+        }
+
+        assertArrayEquals(data, decrypt(outputStream.toByteArray(), aad));
+    }
+
+    @Test
+    void should_encrypt_input_stream_without_closing_output_stream() throws IOException {
+        final var data = randomAlphabetic(100000).getBytes(UTF_8);
+        final var outputStream = new ByteArrayOutputStream();
+
+        gcm.encrypt(new ByteArrayInputStream(data), outputStream, secret, aad).liftAccept();
+        outputStream.write(42);
+
+        final var encrypted = outputStream.toByteArray();
+        assertArrayEquals(data, decrypt(Arrays.copyOf(encrypted, encrypted.length - 1), aad));
+    }
+
+    @Test
+    void should_not_produce_same_output_twice() {
+        final var data = randomAlphabetic(1000).getBytes(UTF_8);
+
+        assertFalse(Arrays.equals(encrypt(data), encrypt(data)));
+    }
+
+    @Test
+    void should_detect_modified_segment() {
+        final var encrypted = encrypt(randomAlphabetic(3 * SEGMENT_SIZE).getBytes(UTF_8));
+        encrypted[HEADER + SEGMENT + 10]++;
+
+        assertThrows(IOException.class, () -> decrypt(encrypted, aad));
+    }
+
+    @Test
+    void should_detect_modified_header() {
+        final var encrypted = encrypt(randomAlphabetic(100).getBytes(UTF_8));
+        encrypted[HEADER - 1]++;
+
+        assertThrows(IOException.class, () -> decrypt(encrypted, aad));
+    }
+
+    @Test
+    void should_detect_truncation_at_segment_boundary() {
+        final var encrypted = encrypt(randomAlphabetic(3 * SEGMENT_SIZE).getBytes(UTF_8));
+
+        assertThrows(IOException.class, () -> decrypt(Arrays.copyOf(encrypted, HEADER + 2 * SEGMENT), aad));
+    }
+
+    @Test
+    void should_detect_reordered_segments() {
+        final var encrypted = encrypt(randomAlphabetic(3 * SEGMENT_SIZE).getBytes(UTF_8));
+        final var reordered = encrypted.clone();
+        System.arraycopy(encrypted, HEADER, reordered, HEADER + SEGMENT, SEGMENT);
+        System.arraycopy(encrypted, HEADER + SEGMENT, reordered, HEADER, SEGMENT);
+
+        assertThrows(IOException.class, () -> decrypt(reordered, aad));
+    }
+
+    @Test
+    void should_detect_wrong_aad() {
+        final var encrypted = encrypt(randomAlphabetic(100).getBytes(UTF_8));
+
+        assertThrows(IOException.class, () -> decrypt(encrypted, new AAD("other aad")));
+    }
+
+    @Test
+    void should_release_plain_text_only_for_verified_segments() throws IOException {
+        final var data = randomAlphabetic(3 * SEGMENT_SIZE).getBytes(UTF_8);
+        final var encrypted = encrypt(data);
+        encrypted[HEADER + 2 * SEGMENT + 10]++;
+        final var decrypted = new ByteArrayOutputStream();
+
+        try (var stream = decryptingStream(encrypted, aad)) {
+            assertThrows(IOException.class, () -> stream.transferTo(decrypted));
+        }
+
+        assertArrayEquals(Arrays.copyOf(data, 2 * SEGMENT_SIZE), decrypted.toByteArray());
+    }
+
+    private byte[] encrypt(final byte[] data) {
+        final var outputStream = new ByteArrayOutputStream();
+        try (var stream = gcm.encryptingStream(outputStream, secret, aad).liftAccept()) {
+            stream.write(data);
+        } catch (IOException e) {
+            fail(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private byte[] decrypt(final byte[] encrypted, final AAD aad) throws IOException {
+        try (var stream = decryptingStream(encrypted, aad)) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private InputStream decryptingStream(final byte[] encrypted, final AAD aad) throws IOException {
+        final var ciphers = new CipherPool("AES/GCM/NoPadding", 1);
+        try {
+            return new GCMDecryptingInputStream(new ByteArrayInputStream(encrypted), secret, aad, ciphers, ciphers.borrow());
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+}
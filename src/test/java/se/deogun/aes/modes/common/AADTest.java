@@ -4,6 +4,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Test;
 import se.deogun.aes.modes.common.AAD;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,4 +29,31 @@ class AADTest {
     void should_hit_upper_bound() {
         assertThrows(IllegalArgumentException.class, () -> new AAD(StringUtils.repeat("X", 8193)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_wrap_read_only_buffer_without_copying() {
+        final var bytes = new byte[]{0, 1, 2, 3};
+        final var aad = AAD.readOnly(ByteBuffer.wrap(bytes).position(1).asReadOnlyBuffer());
+        bytes[1] = 9;
+
+        assertEquals(3, aad.length());
+        assertArrayEquals(new byte[]{9, 2, 3}, aad.value());
+        assertTrue(aad.buffer().isReadOnly());
+    }
+
+    @Test
+    void should_not_wrap_writable_buffer() {
+        assertThrows(IllegalArgumentException.class, () -> AAD.readOnly(ByteBuffer.wrap(new byte[]{1})));
+        assertThrows(IllegalArgumentException.class, () -> AAD.readOnly(ByteBuffer.allocate(0).asReadOnlyBuffer()));
+    }
+
+    @Test
+    void should_copy_bytes() {
+        final var bytes = new byte[]{1, 2, 3};
+        final var aad = new AAD(bytes);
+        bytes[0] = 0;
+
+        assertArrayEquals(new byte[]{1, 2, 3}, aad.value());
+        assertThrows(IllegalArgumentException.class, () -> new AAD(new byte[0]));
+    }
+}
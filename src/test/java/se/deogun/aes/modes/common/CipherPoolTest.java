@@ -0,0 +1,74 @@
+package se.deogun.aes.modes.common;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.NoSuchPaddingException;
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CipherPoolTest {
+    @Test
+    void should_reuse_released_cipher() throws NoSuchPaddingException, NoSuchAlgorithmException {
+        final var pool = new CipherPool("AES/GCM/NoPadding", 1);
+        final var cipher = pool.borrow();
+        pool.release(cipher);
+
+        assertSame(cipher, pool.borrow());
+    }
+
+    @Test
+    void should_create_new_cipher_when_pool_is_drained() throws NoSuchPaddingException, NoSuchAlgorithmException {
+        final var pool = new CipherPool("AES/GCM/NoPadding", 1);
+
+        assertNotSame(pool.borrow(), pool.borrow());
+    }
+
+    @Test
+    void should_drop_cipher_when_pool_is_full() throws NoSuchPaddingException, NoSuchAlgorithmException {
+        final var pool = new CipherPool("AES/CBC/PKCS5Padding", 1);
+        final var cipher1 = pool.borrow();
+        final var cipher2 = pool.borrow();
+        pool.release(cipher1);
+        pool.release(cipher2);
+
+        assertSame(cipher1, pool.borrow());
+        assertNotSame(cipher2, pool.borrow());
+    }
+
+    @Test
+    void should_reject_unknown_transformation() {
+        assertThrows(NoSuchAlgorithmException.class, () -> new CipherPool("AES/XYZ/NoPadding", 1).borrow());
+    }
+
+    @Test
+    void should_not_accept_empty_pool() {
+        assertThrows(InternalValidationFailure.class, () -> new CipherPool("AES/GCM/NoPadding", 0));
+    }
+
+    @Test
+    void should_drop_pooled_ciphers_when_cleared() throws NoSuchPaddingException, NoSuchAlgorithmException {
+        final var pool = new CipherPool("AES/GCM/NoPadding", 2);
+        final var cipher1 = pool.borrow();
+        final var cipher2 = pool.borrow();
+        pool.release(cipher1);
+        pool.release(cipher2);
+        assertEquals(2, pool.size());
+
+        pool.clear();
+
+        assertEquals(0, pool.size());
+        assertNotSame(cipher1, pool.borrow());
+    }
+
+    @Test
+    void should_drop_ciphers_released_after_clear() throws NoSuchPaddingException, NoSuchAlgorithmException {
+        final var pool = new CipherPool("AES/GCM/NoPadding", 1);
+        final var cipher = pool.borrow();
+
+        pool.clear();
+        pool.release(cipher);
+
+        assertEquals(0, pool.size());
+    }
+}
@@ -0,0 +1,113 @@
+package se.deogun.aes.modes.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InitVectorGeneratorTest {
+    private static final Map<String, InitVectorGenerator> GENERATORS = Map.of(
+            "STRONG", new StrongInitVectorGenerator(),
+            "DRBG", new DRBGInitVectorGenerator(),
+            "NON_BLOCKING", new NonBlockingInitVectorGenerator(4),
+            "RING", new RingInitVectorGenerator(1024),
+            "COUNTER", new CounterInitVectorGenerator(0, 1)
+    );
+
+    @ParameterizedTest
+    @ValueSource(strings = {"STRONG", "DRBG", "NON_BLOCKING", "RING", "COUNTER"})
+    void should_fill_init_vector(final String type) throws UnableToCreateSecureRandom, InitVectorsExhausted {
+        final var initVector = new byte[12];
+
+        GENERATORS.get(type).nextBytes(initVector);
+
+        assertFalse(ByteBuffer.wrap(initVector).equals(ByteBuffer.wrap(new byte[12])));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"DRBG", "NON_BLOCKING", "RING", "COUNTER"})
+    void should_not_produce_same_init_vector_twice_when_used_concurrently(final String type) throws InterruptedException {
+        final var generator = GENERATORS.get(type);
+        final Set<ByteBuffer> initVectors = ConcurrentHashMap.newKeySet();
+        final var executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    final var initVector = new byte[16];
+                    try {
+                        generator.nextBytes(initVector);
+                    } catch (UnableToCreateSecureRandom | InitVectorsExhausted e) {
+                        fail("unexpected exception");
+                    }
+                    initVectors.add(ByteBuffer.wrap(initVector));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(8000, initVectors.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1023})
+    void should_reject_too_small_ring(final int blockSize) {
+        assertThrows(InternalValidationFailure.class, () -> new RingInitVectorGenerator(blockSize));
+    }
+
+    @Test
+    void should_produce_prefix_followed_by_counter() throws InitVectorsExhausted {
+        final var generator = new CounterInitVectorGenerator(new byte[]{1, 2, 3, 4}, 1, 4);
+        final var initVectors = new byte[30];
+
+        generator.nextBytes(initVectors);
+
+        final var start = Long.divideUnsigned(-1L, 4);
+        final var expected = ByteBuffer.allocate(36)
+                .put(new byte[]{1, 2, 3, 4}).putLong(start)
+                .put(new byte[]{1, 2, 3, 4}).putLong(start + 1)
+                .put(new byte[]{1, 2, 3, 4}).putLong(start + 2)
+                .array();
+        assertArrayEquals(Arrays.copyOf(expected, 30), initVectors);
+    }
+
+    @Test
+    void should_not_overlap_partitions() throws InitVectorsExhausted {
+        final var prefix = new byte[4];
+        final var last = new byte[12];
+        final var first = new byte[12];
+
+        new CounterInitVectorGenerator(prefix, Long.MAX_VALUE - 1, 1).nextBytes(last);
+        new CounterInitVectorGenerator(prefix, 1, 2).nextBytes(first);
+
+        assertEquals(Long.MAX_VALUE - 1, ByteBuffer.wrap(last).getLong(4));
+        assertEquals(Long.MAX_VALUE, ByteBuffer.wrap(first).getLong(4));
+    }
+
+    @Test
+    void should_reject_when_counter_is_exhausted() throws InitVectorsExhausted {
+        final var generator = new CounterInitVectorGenerator(new byte[4], 0L, 3L);
+
+        generator.nextBytes(new byte[24]);
+        generator.nextBytes(new byte[12]);
+        assertThrows(InitVectorsExhausted.class, () -> generator.nextBytes(new byte[12]));
+        assertThrows(InitVectorsExhausted.class, () -> new CounterInitVectorGenerator(new byte[4], 0L, 1L).nextBytes(new byte[24]));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 0", "-1, 1", "1, 1", "0, -1"})
+    void should_reject_invalid_partition(final int partition, final int partitions) {
+        assertThrows(InternalValidationFailure.class, () -> new CounterInitVectorGenerator(partition, partitions));
+    }
+}
@@ -2,8 +2,12 @@ package se.deogun.aes.modes.common;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.NotSerializableException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -21,6 +25,52 @@ class SecretTest {
         assertEquals(keySpecification, secret.keySpecification());
     }
 
+    @Test
+    void should_not_be_affected_by_modification_of_input() {
+        final var key = key();
+        final var original = key.clone();
+        final var secret = new Secret(key);
+        key[0]++;
+
+        assertArrayEquals(original, secret.keySpecification().getEncoded());
+    }
+
+    @Test
+    void should_derive_key_specification_once() {
+        final var secret = new Secret(key());
+
+        assertSame(secret.keySpecification(), secret.keySpecification());
+    }
+
+    @Test
+    void should_not_expose_internal_key() {
+        final var secret = new Secret(key());
+        final var encoded = secret.keySpecification().getEncoded();
+        encoded[0]++;
+
+        assertFalse(Arrays.equals(encoded, secret.keySpecification().getEncoded()));
+    }
+
+    @Test
+    void should_zeroize_key_when_destroyed() {
+        final var secret = new Secret(key());
+        final var keySpecification = secret.keySpecification();
+
+        secret.destroy();
+
+        assertTrue(secret.isDestroyed());
+        assertTrue(keySpecification.isDestroyed());
+        assertThrows(IllegalStateException.class, secret::keySpecification);
+        assertThrows(IllegalStateException.class, keySpecification::getEncoded);
+    }
+
+    @Test
+    void should_not_allow_serialization_of_key_specification() {
+        final var keySpecification = new Secret(key()).keySpecification();
+
+        assertThrows(NotSerializableException.class, () -> new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(keySpecification));
+    }
+
     @Test
     void should_not_allow_externalization() {
         final var secret = new Secret(key());